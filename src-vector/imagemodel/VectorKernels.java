@@ -0,0 +1,249 @@
+package imagemodel;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The pixel kernels built on the vector API of the jdk.incubator.vector module. Every kernel
+ * performs the same integer and double operations as the scalar kernels, in the same order for
+ * every pixel, only on several pixels at once, so the results are bit-identical. Columns that
+ * do not fill a whole vector are handled by the scalar code.
+ *
+ * <p>This class is compiled separately from the rest of the model, with
+ * {@code --add-modules jdk.incubator.vector} on JDK 16 or later, and is loaded by
+ * KernelBackend when it is on the class path.
+ */
+final class VectorKernels implements PixelKernels {
+
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Integer> DOUBLE_INTS = VectorSpecies.of(int.class,
+          VectorShape.forBitSize(DOUBLES.length() * Integer.SIZE));
+  private static final long MAX_INT_WEIGHT = Integer.MAX_VALUE / (3 * 255);
+
+  /**
+   * Adds an increment to every channel of the first length pixels of a row, clamping the
+   * channels to 0..255, in place.
+   *
+   * @param row       pixels packed as 0xRRGGBB.
+   * @param length    number of pixels to map.
+   * @param increment value added to every channel.
+   */
+  @Override
+  public void addClamped(int[] row, int length, int increment) {
+    int x = 0;
+    for (int bound = INTS.loopBound(length); x < bound; x += INTS.length()) {
+      IntVector pixels = IntVector.fromArray(INTS, row, x);
+      IntVector red = clamp(channel(pixels, 16).add(increment));
+      IntVector green = clamp(channel(pixels, 8).add(increment));
+      IntVector blue = clamp(channel(pixels, 0).add(increment));
+      pack(red, green, blue).intoArray(row, x);
+    }
+    for (; x < length; x++) {
+      int rgb = row[x];
+      row[x] = (ScalarKernels.clamp(((rgb >> 16) & 0xFF) + increment) << 16)
+              | (ScalarKernels.clamp(((rgb >> 8) & 0xFF) + increment) << 8)
+              | ScalarKernels.clamp((rgb & 0xFF) + increment);
+    }
+  }
+
+  /**
+   * Maps the first length pixels of a row through a color matrix, in place, when its integer
+   * weights fit in int lanes. Vectors in which a fixed-point sum is too close to an integer to
+   * be truncated safely are recomputed by the matrix itself.
+   *
+   * @param matrix color matrix.
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels to map.
+   * @param levels whether to store gray levels instead of packed pixels.
+   * @return false if the matrix has to map the row itself.
+   */
+  @Override
+  public boolean applyMatrix(ColorMatrix matrix, int[] row, int length, boolean levels) {
+    long[] weights = matrix.integerWeights();
+    if (weights == null) {
+      return false;
+    }
+    for (long weight : weights) {
+      if (Math.abs(weight) > MAX_INT_WEIGHT) {
+        return false;
+      }
+    }
+    int divisor = matrix.divisor();
+    boolean gray = levels || matrix.isGray();
+    int x = 0;
+    for (int bound = INTS.loopBound(length); x < bound; x += INTS.length()) {
+      IntVector pixels = IntVector.fromArray(INTS, row, x);
+      IntVector red = channel(pixels, 16);
+      IntVector green = channel(pixels, 8);
+      IntVector blue = channel(pixels, 0);
+      IntVector[] sums = new IntVector[gray ? 1 : 3];
+      VectorMask<Integer> unsafe = INTS.maskAll(false);
+      for (int i = 0; i < sums.length; i++) {
+        IntVector sum = red.mul((int) weights[3 * i]).add(green.mul((int) weights[3 * i + 1]))
+                .add(blue.mul((int) weights[3 * i + 2]));
+        if (divisor > 0) {
+          sums[i] = clamp(sum.lanewise(VectorOperators.DIV, divisor));
+        } else {
+          IntVector fraction = sum.and((int) ColorMatrix.FRACTION);
+          unsafe = unsafe.or(fraction.lt((int) ColorMatrix.MARGIN))
+                  .or(fraction.compare(VectorOperators.GT,
+                          (int) (ColorMatrix.FRACTION + 1 - ColorMatrix.MARGIN)));
+          sums[i] = clamp(sum.lanewise(VectorOperators.ASHR, ColorMatrix.SHIFT));
+        }
+      }
+      if (unsafe.anyTrue()) {
+        for (int i = x; i < x + INTS.length(); i++) {
+          row[i] = levels ? matrix.level(row[i]) : matrix.apply(row[i]);
+        }
+      } else if (levels) {
+        sums[0].intoArray(row, x);
+      } else if (gray) {
+        sums[0].mul(0x010101).intoArray(row, x);
+      } else {
+        pack(sums[0], sums[1], sums[2]).intoArray(row, x);
+      }
+    }
+    for (; x < length; x++) {
+      row[x] = levels ? matrix.level(row[x]) : matrix.apply(row[x]);
+    }
+    return true;
+  }
+
+  /**
+   * Replaces the first length pixels of a row by one of their channels, in place.
+   *
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels.
+   * @param shift  bit position of the channel.
+   */
+  @Override
+  public void extractChannel(int[] row, int length, int shift) {
+    int x = 0;
+    for (int bound = INTS.loopBound(length); x < bound; x += INTS.length()) {
+      channel(IntVector.fromArray(INTS, row, x), shift).intoArray(row, x);
+    }
+    for (; x < length; x++) {
+      row[x] = (row[x] >> shift) & 0xFF;
+    }
+  }
+
+  /**
+   * Packs separate channel values into pixels.
+   *
+   * @param red    red values.
+   * @param green  green values.
+   * @param blue   blue values.
+   * @param dst    array that receives the packed pixels.
+   * @param length number of pixels.
+   */
+  @Override
+  public void combine(int[] red, int[] green, int[] blue, int[] dst, int length) {
+    int x = 0;
+    for (int bound = INTS.loopBound(length); x < bound; x += INTS.length()) {
+      pack(IntVector.fromArray(INTS, red, x), IntVector.fromArray(INTS, green, x),
+              IntVector.fromArray(INTS, blue, x)).intoArray(dst, x);
+    }
+    for (; x < length; x++) {
+      dst[x] = (red[x] << 16) | (green[x] << 8) | blue[x];
+    }
+  }
+
+  /**
+   * Convolves one row of an image with a kernel. The columns whose neighbourhood lies inside
+   * the row are computed a vector at a time, accumulating the products in the same order as
+   * the scalar kernel, the columns near the edges are left to the scalar kernel.
+   *
+   * @param rows      the source rows under the kernel, rows[ky] for kernel row ky.
+   * @param kernel    weights, kernel[ky][kx].
+   * @param tolerance added to the sums before they are truncated.
+   * @param dst       array that receives the packed result.
+   * @param width     width of the rows.
+   */
+  @Override
+  public void convolve(int[][] rows, double[][] kernel, double tolerance, int[] dst,
+                       int width) {
+    int kernelHeight = kernel.length;
+    int kernelWidth = kernel[0].length;
+    int radius = kernelWidth / 2;
+    int lanes = DOUBLES.length();
+    int start = Math.min(radius, width);
+    ScalarKernels.convolve(rows, kernel, tolerance, dst, width, 0, start);
+    int x = start;
+    for (; x + lanes + radius <= width; x += lanes) {
+      DoubleVector red = DoubleVector.zero(DOUBLES);
+      DoubleVector green = DoubleVector.zero(DOUBLES);
+      DoubleVector blue = DoubleVector.zero(DOUBLES);
+      for (int ky = 0; ky < kernelHeight; ky++) {
+        for (int kx = 0; kx < kernelWidth; kx++) {
+          IntVector pixels = IntVector.fromArray(DOUBLE_INTS, rows[ky], x + kx - radius);
+          double weight = kernel[ky][kx];
+          red = red.add(toDoubles(channel(pixels, 16)).mul(weight));
+          green = green.add(toDoubles(channel(pixels, 8)).mul(weight));
+          blue = blue.add(toDoubles(channel(pixels, 0)).mul(weight));
+        }
+      }
+      pack(clamp(toInts(red.add(tolerance))), clamp(toInts(green.add(tolerance))),
+              clamp(toInts(blue.add(tolerance)))).intoArray(dst, x);
+    }
+    ScalarKernels.convolve(rows, kernel, tolerance, dst, width, x, width);
+  }
+
+  /**
+   * Extracts a channel from packed pixels.
+   *
+   * @param pixels pixels packed as 0xRRGGBB.
+   * @param shift  bit position of the channel.
+   * @return the channel values.
+   */
+  private static IntVector channel(IntVector pixels, int shift) {
+    return pixels.lanewise(VectorOperators.ASHR, shift).and(0xFF);
+  }
+
+  /**
+   * Packs channel values into pixels.
+   *
+   * @param red   red values.
+   * @param green green values.
+   * @param blue  blue values.
+   * @return the packed pixels.
+   */
+  private static IntVector pack(IntVector red, IntVector green, IntVector blue) {
+    return red.lanewise(VectorOperators.LSHL, 16)
+            .or(green.lanewise(VectorOperators.LSHL, 8)).or(blue);
+  }
+
+  /**
+   * Clamps channel values to 0..255.
+   *
+   * @param values channel values.
+   * @return the clamped values.
+   */
+  private static IntVector clamp(IntVector values) {
+    return values.max(0).min(255);
+  }
+
+  /**
+   * Converts int lanes to double lanes, as by a cast.
+   *
+   * @param values int values.
+   * @return the values as doubles.
+   */
+  private static DoubleVector toDoubles(IntVector values) {
+    return (DoubleVector) values.convertShape(VectorOperators.I2D, DOUBLES, 0);
+  }
+
+  /**
+   * Converts double lanes to int lanes, truncating towards zero as by a cast.
+   *
+   * @param values double values.
+   * @return the values as ints.
+   */
+  private static IntVector toInts(DoubleVector values) {
+    return (IntVector) values.convertShape(VectorOperators.D2I, DOUBLE_INTS, 0);
+  }
+}
@@ -1,13 +1,21 @@
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import imagecontroller.ControllerGui;
 import imagecontroller.GUIController;
 import imagemodel.AdditionalImageOperations;
 import imagemodel.AdditionalOperations;
+import imagemodel.BandExecutor;
 import imagecontroller.Controller;
 import imagecontroller.TextImageController;
+import imagemodel.HeapStorage;
+import imagemodel.ImageStorage;
+import imagemodel.KernelBackend;
+import imagemodel.OffHeapStorage;
 import imageview.MainFrame;
 
 /**
@@ -16,29 +24,57 @@ import imageview.MainFrame;
 public class Main {
 
   /**
-   * Main method to start the application.
+   * Main method to start the application. The storage options -offheap (direct memory) and
+   * -mapped <scratch-dir> (memory-mapped scratch files) may precede the mode arguments, as well
+   * as -kernels scalar|vector to choose the implementation of the pixel loops and -threads N to
+   * run the operations on N threads.
    *
    * @param args Command-line arguments to specify the mode of operation.
    * @throws IOException if an I/O error occurs during file reading or processing.
    */
   public static void main(String[] args) throws IOException {
-    AdditionalOperations operations = new AdditionalImageOperations();
+    ImageStorage storage = new HeapStorage();
+    BandExecutor executor = new BandExecutor();
+    List<String> remaining = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equalsIgnoreCase("-offheap")) {
+        storage = new OffHeapStorage();
+      } else if (args[i].equalsIgnoreCase("-mapped") && i + 1 < args.length) {
+        storage = new OffHeapStorage(Paths.get(args[++i]));
+      } else if (args[i].equalsIgnoreCase("-threads") && i + 1 < args.length) {
+        try {
+          executor.setParallelism(Integer.parseInt(args[++i]));
+        } catch (IllegalArgumentException e) {
+          System.err.println("Invalid number of threads: " + args[i]);
+        }
+      } else if (args[i].equalsIgnoreCase("-kernels") && i + 1 < args.length) {
+        boolean vector = args[++i].equalsIgnoreCase("vector");
+        if (KernelBackend.setVectorEnabled(vector) != vector) {
+          System.err.println("Vector kernels are not available, using scalar kernels");
+        }
+      } else {
+        remaining.add(args[i]);
+      }
+    }
+    args = remaining.toArray(new String[0]);
+    AdditionalOperations operations = new AdditionalImageOperations(storage, executor);
 
     if (args.length == 2 && args[0].equalsIgnoreCase("-file")) {
       String filePath = args[1];
       try (FileReader fileReader = new FileReader(filePath)) {
-        Controller fileController = new TextImageController(operations, fileReader, System.out);
+        Controller fileController = new TextImageController(operations, fileReader, System.out,
+                storage);
         fileController.start(args);
       } catch (IOException e) {
         System.err.println("Error reading from file: " + filePath);
       }
     } else if (args.length == 1 && args[0].equalsIgnoreCase("-text")) {
       Controller textController = new TextImageController(operations,
-              new InputStreamReader(System.in), System.out);
+              new InputStreamReader(System.in), System.out, storage);
       textController.start(args);
     } else if (args.length == 0) {
       MainFrame mainFrame = new MainFrame();
-      ControllerGui guiController = new GUIController(operations, mainFrame);
+      ControllerGui guiController = new GUIController(operations, mainFrame, storage, executor);
       mainFrame.setController(guiController);
       mainFrame.setVisible(true);
     } else {
@@ -2,9 +2,13 @@ package imagecontroller;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Function;
 
 import imagemodel.AdditionalOperations;
+import imagemodel.BandExecutor;
+import imagemodel.HeapStorage;
 import imagemodel.ImageInterface;
+import imagemodel.ImageStorage;
 import imageview.MainFrameInterface;
 
 /**
@@ -19,6 +23,8 @@ public class GUIController implements ControllerGui {
   private ImageInterface histogram;
   private ImageInterface previousHistogram;
   private final MainFrameInterface mainFrame;
+  private final ImageStorage storage;
+  private final BandExecutor executor;
   int percentage = 0;
 
   /**
@@ -28,8 +34,38 @@ public class GUIController implements ControllerGui {
    * @param mainFrame  the main frame for displaying images and user interaction.
    */
   public GUIController(AdditionalOperations operations, MainFrameInterface mainFrame) {
+    this(operations, mainFrame, new HeapStorage());
+  }
+
+  /**
+   * Constructs a GUIController instance that loads images into the given storage. It should be
+   * the storage the operations were created with.
+   *
+   * @param operations the image operations model.
+   * @param mainFrame  the main frame for displaying images and user interaction.
+   * @param storage    decides where the pixels of loaded images live.
+   */
+  public GUIController(AdditionalOperations operations, MainFrameInterface mainFrame,
+                       ImageStorage storage) {
+    this(operations, mainFrame, storage, new BandExecutor());
+  }
+
+  /**
+   * Constructs a GUIController instance that loads images into the given storage and lets the
+   * user change the number of threads of the given executor. They should be the storage and
+   * executor the operations were created with.
+   *
+   * @param operations the image operations model.
+   * @param mainFrame  the main frame for displaying images and user interaction.
+   * @param storage    decides where the pixels of loaded images live.
+   * @param executor   runs the rows of the operations.
+   */
+  public GUIController(AdditionalOperations operations, MainFrameInterface mainFrame,
+                       ImageStorage storage, BandExecutor executor) {
     this.operations = operations;
     this.mainFrame = mainFrame;
+    this.storage = storage;
+    this.executor = executor;
   }
 
   /**
@@ -50,12 +86,15 @@ public class GUIController implements ControllerGui {
   public void loadImage() throws IOException {
     String filePath = mainFrame.loadImage();
     ImageInterface image;
-    ImageFormatHandler loader = new ImageHandler();
+    ImageFormatHandler loader = new ImageHandler(storage);
 
     String extension = getFileExtension(filePath);
     if (extension.equals("ppm")) {
-      ImageFormatHandler ppm = new P3PPMHandler();
+      ImageFormatHandler ppm = new P3PPMHandler(storage);
       image = ppm.loadImage(filePath);
+    } else if (extension.equals("pgm")) {
+      ImageFormatHandler pgm = new PGMHandler(false, storage);
+      image = pgm.loadImage(filePath);
     } else {
       image = loader.loadImage(filePath);
     }
@@ -71,7 +110,10 @@ public class GUIController implements ControllerGui {
   public void saveImage() throws IOException {
     String filePath = mainFrame.saveImage();
     String extension = getFileExtension(filePath);
-    ImageFormatHandler saver = new ImageHandler();
+    ImageFormatHandler saver = new ImageHandler(storage);
+    if (extension.equals("pgm")) {
+      saver = new PGMHandler(false, storage);
+    }
     saver.saveImage(currentImage, filePath, extension);
   }
 
@@ -239,6 +281,62 @@ public class GUIController implements ControllerGui {
     }
   }
 
+  /**
+   * Asks for the standard deviation and mode of a Gaussian blur and applies it to the current
+   * image.
+   */
+  public void handleGaussianBlurCommand() {
+    try {
+      List<Double> value = mainFrame.showGaussianBlurDialog();
+      if (value == null || value.isEmpty()) {
+        return;
+      }
+      double sigma = value.get(0);
+      boolean accurate = value.get(1) != 0;
+      previousImage = currentImage;
+      if (percentage == 0) {
+        currentImage = operations.applyGaussianBlur(currentImage, sigma, accurate);
+        mainFrame.displayImage(currentImage);
+      } else {
+        displayImage = operations.splitViewOperation(percentage, currentImage, img ->
+                operations.applyGaussianBlur(img, sigma, accurate));
+        mainFrame.displayImage(displayImage);
+        currentImage = operations.applyGaussianBlur(currentImage, sigma, accurate);
+      }
+    } catch (IllegalArgumentException e) {
+      mainFrame.showErrorDialog("Error: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Asks for the radius and percentile of a rank filter and applies it to the current image,
+   * as a median filter when the percentile is 50.
+   */
+  public void handleRankFilterCommand() {
+    try {
+      List<Integer> value = mainFrame.showRankFilterDialog();
+      if (value == null || value.isEmpty()) {
+        return;
+      }
+      int radius = value.get(0);
+      int percentile = value.get(1);
+      Function<ImageInterface, ImageInterface> filter = img -> percentile == 50
+              ? operations.applyMedian(img, radius)
+              : operations.applyPercentile(img, radius, percentile);
+      previousImage = currentImage;
+      if (percentage == 0) {
+        currentImage = filter.apply(currentImage);
+        mainFrame.displayImage(currentImage);
+      } else {
+        displayImage = operations.splitViewOperation(percentage, currentImage, filter);
+        mainFrame.displayImage(displayImage);
+        currentImage = filter.apply(currentImage);
+      }
+    } catch (IllegalArgumentException e) {
+      mainFrame.showErrorDialog("Error: " + e.getMessage());
+    }
+  }
+
   /**
    * Call the createHistogram command to create a Histogram and then displays on the view.
    */
@@ -339,4 +437,14 @@ public class GUIController implements ControllerGui {
       mainFrame.displayHistogram(previousHistogram);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Asks the user for the number of threads and applies it to the executor of the operations.
+   */
+  public void handleThreadsCommand() {
+    int threads = mainFrame.showThreadsDialog(executor.getParallelism());
+    if (threads > 0) {
+      executor.setParallelism(threads);
+    }
+  }
+}
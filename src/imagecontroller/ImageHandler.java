@@ -1,16 +1,16 @@
 package imagecontroller;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
 import java.io.File;
 import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
-import imagemodel.ImageCopy;
-import imagemodel.ImageCopyInterface;
+import imagemodel.HeapStorage;
+import imagemodel.ImageBuilderInterface;
 import imagemodel.ImageInterface;
-import imagemodel.Pixel;
-import imagemodel.PixelInterface;
+import imagemodel.ImageStorage;
 
 /**
  * ImageHandler is the class that performs the loading and saving operations of various file types
@@ -18,8 +18,27 @@ import imagemodel.PixelInterface;
  */
 public class ImageHandler implements ImageFormatHandler {
 
+  private final ImageStorage storage;
+
+  /**
+   * Creates a handler that loads images onto the heap.
+   */
+  public ImageHandler() {
+    this(new HeapStorage());
+  }
+
+  /**
+   * Creates a handler that loads images into the given storage.
+   *
+   * @param storage decides where the pixels of loaded images live.
+   */
+  public ImageHandler(ImageStorage storage) {
+    this.storage = storage;
+  }
+
   /**
-   * The loadImage method loads a particular image from the specified path to the memory.
+   * The loadImage method loads a particular image from the specified path to the memory. Files
+   * stored with a palette, such as masks, are loaded into a palette builder.
    *
    * @param path of the file to be loaded.
    * @return the loaded image.
@@ -30,17 +49,13 @@ public class ImageHandler implements ImageFormatHandler {
     BufferedImage bufferedImage = ImageIO.read(new File(path));
     int width = bufferedImage.getWidth();
     int height = bufferedImage.getHeight();
-    ImageCopyInterface image = new ImageCopy(width, height);
+    ImageBuilderInterface builder = bufferedImage.getColorModel() instanceof IndexColorModel
+            ? storage.newPaletteBuilder(width, height) : storage.newBuilder(width, height);
+    int[] row = new int[width];
     for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int rgb = bufferedImage.getRGB(x, y);
-        int red = (rgb >> 16) & 0xFF;
-        int green = (rgb >> 8) & 0xFF;
-        int blue = rgb & 0xFF;
-        image.setPixel(x, y, new Pixel(red, green, blue));
-      }
+      builder.setRow(y, bufferedImage.getRGB(0, y, width, 1, row, 0, width));
     }
-    return image.deepCopyImage();
+    return builder.build();
   }
 
   /**
@@ -55,12 +70,9 @@ public class ImageHandler implements ImageFormatHandler {
     int width = image.getWidth();
     int height = image.getHeight();
     BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int[] row = new int[width];
     for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        PixelInterface pixel = image.getPixel(x, y);
-        int rgb = (pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue();
-        bufferedImage.setRGB(x, y, rgb);
-      }
+      bufferedImage.setRGB(0, y, width, 1, image.getRow(y, row), 0, width);
     }
     ImageIO.write(bufferedImage, extension, new File(path));
   }
@@ -6,17 +6,35 @@ import java.io.FileWriter;
 import java.util.Scanner;
 import java.io.IOException;
 
-import imagemodel.ImageCopy;
-import imagemodel.ImageCopyInterface;
+import imagemodel.HeapStorage;
+import imagemodel.ImageBuilderInterface;
 import imagemodel.ImageInterface;
+import imagemodel.ImageStorage;
 import imagemodel.Pixel;
-import imagemodel.PixelInterface;
 
 /**
  * P3PPMHandler is the class that performs the loading and saving operations of a PPM image.
  */
 public class P3PPMHandler implements ImageFormatHandler {
 
+  private final ImageStorage storage;
+
+  /**
+   * Creates a handler that loads images onto the heap.
+   */
+  public P3PPMHandler() {
+    this(new HeapStorage());
+  }
+
+  /**
+   * Creates a handler that loads images into the given storage.
+   *
+   * @param storage decides where the pixels of loaded images live.
+   */
+  public P3PPMHandler(ImageStorage storage) {
+    this.storage = storage;
+  }
+
   /**
    * The loadImage method loads a PPM image from the specified path to the memory.
    *
@@ -33,17 +51,17 @@ public class P3PPMHandler implements ImageFormatHandler {
     int width = scan.nextInt();
     int height = scan.nextInt();
     scan.nextInt();
-    ImageCopyInterface image = new ImageCopy(width, height);
+    ImageBuilderInterface builder = storage.newBuilder(width, height);
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
         int red = scan.nextInt();
         int green = scan.nextInt();
         int blue = scan.nextInt();
-        image.setPixel(x, y, new Pixel(red, green, blue));
+        builder.setRGB(x, y, Pixel.pack(red, green, blue));
       }
     }
     scan.close();
-    return image.deepCopyImage();
+    return builder.build();
   }
 
   /**
@@ -58,10 +76,13 @@ public class P3PPMHandler implements ImageFormatHandler {
     writer.write("P3\n");
     writer.write(image.getWidth() + " " + image.getHeight() + "\n");
     writer.write("255\n");
+    int[] row = new int[image.getWidth()];
     for (int y = 0; y < image.getHeight(); y++) {
+      image.getRow(y, row);
       for (int x = 0; x < image.getWidth(); x++) {
-        PixelInterface pixel = image.getPixel(x, y);
-        writer.write(pixel.getRed() + " " + pixel.getGreen() + " " + pixel.getBlue() + "\t");
+        int rgb = row[x];
+        writer.write(((rgb >> 16) & 0xFF) + " " + ((rgb >> 8) & 0xFF) + " " + (rgb & 0xFF)
+                + "\t");
       }
       writer.write("\n");
     }
@@ -0,0 +1,200 @@
+package imagecontroller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import imagemodel.GrayImageBuilderInterface;
+import imagemodel.HeapStorage;
+import imagemodel.ImageInterface;
+import imagemodel.ImageStorage;
+
+/**
+ * PGMHandler is the class that performs the loading and saving operations of a PGM image. It
+ * loads both the binary (P5) and the plain (P2) variant into a grayscale image, and saves in the
+ * variant chosen at construction. Only images whose pixels are all gray can be saved.
+ */
+public class PGMHandler implements ImageFormatHandler {
+
+  private final boolean plain;
+  private final ImageStorage storage;
+
+  /**
+   * Creates a handler that saves binary (P5) PGM files and loads images onto the heap.
+   */
+  public PGMHandler() {
+    this(false);
+  }
+
+  /**
+   * Creates a handler that saves either plain or binary PGM files and loads images onto the
+   * heap.
+   *
+   * @param plain true to save plain text (P2) files, false for binary (P5) files.
+   */
+  public PGMHandler(boolean plain) {
+    this(plain, new HeapStorage());
+  }
+
+  /**
+   * Creates a handler that saves either plain or binary PGM files and loads images into the
+   * given storage.
+   *
+   * @param plain   true to save plain text (P2) files, false for binary (P5) files.
+   * @param storage decides where the pixels of loaded images live.
+   */
+  public PGMHandler(boolean plain, ImageStorage storage) {
+    this.plain = plain;
+    this.storage = storage;
+  }
+
+  /**
+   * The loadImage method loads a PGM image from the specified path to the memory. Levels of
+   * files with a maximum value other than 255 are scaled to the range 0 to 255.
+   *
+   * @param path of the file to be loaded.
+   * @return the loaded image.
+   * @throws IOException if the file is not a valid 8-bit PGM image.
+   */
+  public ImageInterface loadImage(String path) throws IOException {
+    try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+      String format = nextToken(in);
+      if (!format.equals("P5") && !format.equals("P2")) {
+        throw new IOException("Invalid PGM format");
+      }
+      int width = nextInt(in);
+      int height = nextInt(in);
+      int maxValue = nextInt(in);
+      if (width <= 0 || height <= 0) {
+        throw new IllegalArgumentException("Invalid image dimensions");
+      }
+      if (maxValue <= 0 || maxValue > 255) {
+        throw new IOException("Only 8-bit PGM images are supported");
+      }
+      GrayImageBuilderInterface builder = storage.newGrayBuilder(width, height);
+      int[] row = new int[width];
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          int level = format.equals("P5") ? readByte(in) : nextInt(in);
+          if (level > maxValue) {
+            throw new IOException("Gray level exceeds the maximum value");
+          }
+          row[x] = maxValue == 255 ? level : (level * 255 + maxValue / 2) / maxValue;
+        }
+        builder.setGrayRow(y, row);
+      }
+      return builder.build();
+    }
+  }
+
+  /**
+   * The saveImage method saves a PGM image to the specified path.
+   *
+   * @param image     object to be saved.
+   * @param path      where the image has to be saved.
+   * @param extension of the image to be saved.
+   * @throws IOException if the image is not grayscale or the file cannot be written.
+   */
+  public void saveImage(ImageInterface image, String path, String extension) throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] row = new int[width];
+    int[] levels = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        if ((row[x] & 0xFF) * 0x010101 != row[x]) {
+          throw new IOException("PGM can only store grayscale images");
+        }
+      }
+    }
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path))) {
+      String header = (plain ? "P2" : "P5") + "\n" + width + " " + height + "\n255\n";
+      out.write(header.getBytes(StandardCharsets.US_ASCII));
+      for (int y = 0; y < height; y++) {
+        image.getChannelRow(y, 0, levels);
+        StringBuilder line = new StringBuilder();
+        for (int x = 0; x < width; x++) {
+          if (plain) {
+            line.append(levels[x]).append(x == width - 1 ? "\n" : " ");
+          } else {
+            out.write(levels[x]);
+          }
+        }
+        if (plain) {
+          out.write(line.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the next whitespace separated header or plain text token, skipping comments.
+   *
+   * @param in stream to read from.
+   * @return the token.
+   * @throws IOException if the stream ends before a token is found.
+   */
+  private static String nextToken(InputStream in) throws IOException {
+    int c = in.read();
+    while (c != -1 && (Character.isWhitespace(c) || c == '#')) {
+      if (c == '#') {
+        while (c != -1 && c != '\n' && c != '\r') {
+          c = in.read();
+        }
+      } else {
+        c = in.read();
+      }
+    }
+    if (c == -1) {
+      throw new EOFException("Unexpected end of PGM file");
+    }
+    StringBuilder token = new StringBuilder();
+    while (c != -1 && !Character.isWhitespace(c)) {
+      token.append((char) c);
+      c = in.read();
+    }
+    return token.toString();
+  }
+
+  /**
+   * Reads the next token as a non-negative integer.
+   *
+   * @param in stream to read from.
+   * @return the value of the token.
+   * @throws IOException if the token is not a number.
+   */
+  private static int nextInt(InputStream in) throws IOException {
+    String token = nextToken(in);
+    try {
+      int value = Integer.parseInt(token);
+      if (value < 0) {
+        throw new IOException("Invalid PGM value: " + token);
+      }
+      return value;
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid PGM value: " + token);
+    }
+  }
+
+  /**
+   * Reads a single binary sample.
+   *
+   * @param in stream to read from.
+   * @return the sample.
+   * @throws IOException if the stream ends.
+   */
+  private static int readByte(InputStream in) throws IOException {
+    int value = in.read();
+    if (value == -1) {
+      throw new EOFException("Unexpected end of PGM file");
+    }
+    return value;
+  }
+}
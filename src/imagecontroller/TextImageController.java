@@ -4,12 +4,19 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.function.Function;
 
 import imagemodel.AdditionalOperations;
+import imagemodel.EdgeMode;
+import imagemodel.HeapStorage;
 import imagemodel.ImageInterface;
+import imagemodel.ImageStorage;
 
 /**
  * The Controller class behaves as the facilitator between the user and model structures of the MVC
@@ -19,9 +26,11 @@ import imagemodel.ImageInterface;
 public class TextImageController implements Controller {
 
   private Map<String, ImageInterface> images;
+  private final Map<ImageInterface, Integer> owners;
   private AdditionalOperations imageOperations;
   private final Scanner scanner;
   private final Appendable output;
+  private final ImageStorage storage;
 
   /**
    * This is a constructor for the class TextImageOperations which initializes the hashmap that
@@ -34,16 +43,80 @@ public class TextImageController implements Controller {
    */
   public TextImageController(AdditionalOperations imageOperations, Readable input,
                              Appendable output) {
+    this(imageOperations, input, output, new HeapStorage());
+  }
+
+  /**
+   * Constructor that additionally takes the storage loaded images are placed in. It should be
+   * the storage the operations were created with.
+   *
+   * @param imageOperations class object.
+   * @param input           Readable Scanner object.
+   * @param output          Appendable object.
+   * @param storage         decides where the pixels of loaded images live.
+   */
+  public TextImageController(AdditionalOperations imageOperations, Readable input,
+                             Appendable output, ImageStorage storage) {
     this.images = new HashMap<>();
+    this.owners = new IdentityHashMap<>();
     extracted(imageOperations);
     this.scanner = new Scanner(input);
     this.output = output;
+    this.storage = storage;
   }
 
   private void extracted(AdditionalOperations imageOperations) {
     this.imageOperations = imageOperations;
   }
 
+  /**
+   * Stores an image under the given name. The number of names every stored image is stored
+   * under is counted. The image previously stored under that name is dead once no other name
+   * refers to it, scripts can only reach images through their names, so it is released to the
+   * storage and its memory is reused for later results.
+   *
+   * @param name  name of the image.
+   * @param image image to be stored.
+   */
+  private void store(String name, ImageInterface image) {
+    ImageInterface previous = images.put(name, image);
+    if (previous == image) {
+      return;
+    }
+    if (image != null) {
+      owners.merge(image, 1, Integer::sum);
+    }
+    if (previous == null) {
+      return;
+    }
+    int count = owners.get(previous) - 1;
+    if (count > 0) {
+      owners.put(previous, count);
+      return;
+    }
+    owners.remove(previous);
+    storage.release(previous);
+  }
+
+  /**
+   * Applies an operation to a stored image. When the result replaces the image under its own
+   * name and no other name refers to the image, nothing can read the image afterwards, so it is
+   * handed over to the operations, which may write the result over its pixels.
+   *
+   * @param name      name of the image.
+   * @param dest      name the result is stored under.
+   * @param operation the operation to be applied.
+   * @return the result of the operation.
+   */
+  private ImageInterface applyToStored(String name, String dest,
+                                       Function<ImageInterface, ImageInterface> operation) {
+    ImageInterface image = images.get(name);
+    if (image != null && name.equals(dest) && owners.get(image) == 1) {
+      return imageOperations.applyOwned(image, operation);
+    }
+    return operation.apply(image);
+  }
+
   /**
    * Private method that stores the list of supported commands.
    *
@@ -56,6 +129,8 @@ public class TextImageController implements Controller {
             + "                   - Loads an image\n");
     command.append("  save <image-path> <image-name>                                           "
             + "                   - Saves an image\n");
+    command.append("  save <image-path> <image-name> plain                                     "
+            + "                   - Saves a PGM image as plain text (P2)\n");
     command.append("  red-component <image-name> <dest-image-name>                             "
             + "                   - Gets the Red Component of the Image\n");
     command.append("  red-component <image-name> <dest-image-name> split p                     "
@@ -128,6 +203,38 @@ public class TextImageController implements Controller {
             + "                   - Sharpens the first p% of the Image while retaining the rest\n");
     command.append("  sharpen <image-name> <mask-image-name> <dest-image-name>                 "
             + "                   - Sharpens the image according to the mask image\n");
+    command.append("  gaussian-blur sigma <image-name> <dest-image-name> [fast]                "
+            + "                   - Blurs the image with a Gaussian of standard deviation sigma,"
+            + " fast uses box filters\n");
+    command.append("  gaussian-blur sigma <image-name> <dest-image-name> split p [fast]        "
+            + "                   - Gaussian blurs the first p% of the Image while retaining "
+            + "the rest\n");
+    command.append("  gaussian-blur sigma <image-name> <mask-image-name> <dest-image-name> [fast]"
+            + "                 - Gaussian blurs the image according to the mask image\n");
+    command.append("  median radius <image-name> <dest-image-name>                             "
+            + "                   - Replaces every pixel by the median of the window of the "
+            + "given radius\n");
+    command.append("  median radius <image-name> <dest-image-name> split p                     "
+            + "                   - Median filters the first p% of the Image while retaining "
+            + "the rest\n");
+    command.append("  median radius <image-name> <mask-image-name> <dest-image-name>           "
+            + "                   - Median filters the image according to the mask image\n");
+    command.append("  percentile p radius <image-name> <dest-image-name>                       "
+            + "                   - Replaces every pixel by the p-th percentile of the window "
+            + "of the given radius\n");
+    command.append("  percentile p radius <image-name> <dest-image-name> split q               "
+            + "                   - Percentile filters the first q% of the Image while "
+            + "retaining the rest\n");
+    command.append("  percentile p radius <image-name> <mask-image-name> <dest-image-name>     "
+            + "                   - Percentile filters the image according to the mask image\n");
+    command.append("  convolve <kernel-file> <image-name> <dest-image-name> [edges]            "
+            + "                   - Convolves the image with the kernel in the file, edges is "
+            + "replicate, reflect, wrap or zero\n");
+    command.append("  convolve <kernel-file> <image-name> <dest-image-name> split p [edges]    "
+            + "                   - Convolves the first p% of the Image while retaining the "
+            + "rest\n");
+    command.append("  convolve <kernel-file> <image-name> <mask-image-name> <dest-image-name> "
+            + "[edges]           - Convolves the image according to the mask image\n");
     command.append("  sepia <image-name> <dest-image-name>                                     "
             + "                   - Produces a sepia tone of the image>\n");
     command.append("  sepia <image-name> <dest-image-name> split p                            "
@@ -138,6 +245,8 @@ public class TextImageController implements Controller {
             + "with respect to the mask image\n");
     command.append("  compress percentage <image-name> <dest-image-name>                       "
             + "                   - Compresses the image by the given percentage\n");
+    command.append("  compress percentage <image-name> <dest-image-name> joint                 "
+            + "                   - Compresses the channels with one shared threshold\n");
     command.append("  histogram <image-name> <dest-image-name>                                 "
             + "                   - Generates a histogram of the given Image\n");
     command.append("  color-correct <image-name> <dest-image-name>                             "
@@ -241,6 +350,18 @@ public class TextImageController implements Controller {
         case "sharpen":
           handleSharpenCommand(tokens);
           break;
+        case "gaussian-blur":
+          handleGaussianBlurCommand(tokens);
+          break;
+        case "median":
+          handleMedianCommand(tokens);
+          break;
+        case "percentile":
+          handlePercentileCommand(tokens);
+          break;
+        case "convolve":
+          handleConvolveCommand(tokens);
+          break;
         case "sepia":
           handleSepiaCommand(tokens);
           break;
@@ -315,7 +436,7 @@ public class TextImageController implements Controller {
     if (image != null) {
       if (tokens.length == 3) {
         ImageInterface histogram = imageOperations.createHistogram(image);
-        images.put(destImage, histogram);
+        store(destImage, histogram);
         output.append("Histogram created and saved as image at: ").append(destImage).append("\n");
       } else {
         output.append("Invalid Histogram Command\n");
@@ -350,7 +471,7 @@ public class TextImageController implements Controller {
       output.append("Invalid red-component command\n");
       return;
     }
-    images.put(dest, redImage);
+    store(dest, redImage);
     output.append("Red Component Loaded at: ").append(dest).append("\n");
   }
 
@@ -379,7 +500,7 @@ public class TextImageController implements Controller {
       output.append("Invalid green-component command\n");
       return;
     }
-    images.put(dest, greenImage);
+    store(dest, greenImage);
     output.append("Green Component Loaded at: ").append(dest).append("\n");
   }
 
@@ -409,7 +530,7 @@ public class TextImageController implements Controller {
       output.append("Invalid blue-component command\n");
       return;
     }
-    images.put(dest, blueImage);
+    store(dest, blueImage);
     output.append("Blue Component Loaded at: ").append(dest).append("\n");
   }
 
@@ -437,7 +558,7 @@ public class TextImageController implements Controller {
       output.append("Invalid value-component command\n");
       return;
     }
-    images.put(dest, valueImage);
+    store(dest, valueImage);
     output.append("Value Component Loaded at: ").append(dest).append("\n");
   }
 
@@ -465,7 +586,7 @@ public class TextImageController implements Controller {
       output.append("Invalid luma-component command\n");
       return;
     }
-    images.put(dest, lumaImage);
+    store(dest, lumaImage);
     output.append("Luma Component Loaded at: ").append(dest).append("\n");
   }
 
@@ -494,7 +615,7 @@ public class TextImageController implements Controller {
       output.append("Invalid intensity-component command\n");
       return;
     }
-    images.put(dest, intensityImage);
+    store(dest, intensityImage);
     output.append("Intensity Component Loaded at: ").append(dest).append("\n");
   }
 
@@ -510,7 +631,8 @@ public class TextImageController implements Controller {
       int b = Integer.parseInt(tokens[1]);
       int m = Integer.parseInt(tokens[2]);
       int w = Integer.parseInt(tokens[3]);
-      adjustedImage = imageOperations.levelsAdjust(images.get(tokens[4]), b, m, w);
+      adjustedImage = applyToStored(tokens[4], tokens[5],
+          img -> imageOperations.levelsAdjust(img, b, m, w));
     } else if (tokens.length == 8 && tokens[tokens.length - 2].equals("split")) {
       int percentage = Integer.parseInt(tokens[7]);
       adjustedImage = imageOperations.splitViewOperation(percentage,
@@ -523,7 +645,7 @@ public class TextImageController implements Controller {
       output.append("Invalid level command\n");
       return;
     }
-    images.put(tokens[5], adjustedImage);
+    store(tokens[5], adjustedImage);
     output.append("Levels-adjusted image stored as: ").append(tokens[5]).append("\n");
   }
 
@@ -536,7 +658,7 @@ public class TextImageController implements Controller {
   private void handleColorCorrectCommand(String[] tokens) throws IOException {
     ImageInterface corrected;
     if (tokens.length == 3) {
-      corrected = imageOperations.colorCorrect(images.get(tokens[1]));
+      corrected = applyToStored(tokens[1], tokens[2], imageOperations::colorCorrect);
     } else if (tokens.length == 5 && tokens[tokens.length - 2].equals("split")) {
       int percentage = Integer.parseInt(tokens[4]);
       corrected = imageOperations.splitViewOperation(percentage, images.get(tokens[1]),
@@ -545,7 +667,7 @@ public class TextImageController implements Controller {
       output.append("Invalid color correct command\n");
       return;
     }
-    images.put(tokens[2], corrected);
+    store(tokens[2], corrected);
     output.append("Color-corrected image stored as: ").append(tokens[2]).append("\n");
   }
 
@@ -560,7 +682,7 @@ public class TextImageController implements Controller {
     if (tokens.length == 5) {
       ImageInterface combinedImage = imageOperations.combineRGB(
               images.get(tokens[2]), images.get(tokens[3]), images.get(tokens[4]));
-      images.put(tokens[1], combinedImage);
+      store(tokens[1], combinedImage);
       output.append("RGB Channels combined and stored as: ").append(tokens[1]).append("\n");
       return;
     }
@@ -580,9 +702,9 @@ public class TextImageController implements Controller {
               imageOperations.visualizeGreenComponent(images.get(tokens[1])),
               imageOperations.visualizeBlueComponent(images.get(tokens[1]))
       };
-      images.put(tokens[2], splitImages[0]);
-      images.put(tokens[3], splitImages[1]);
-      images.put(tokens[4], splitImages[2]);
+      store(tokens[2], splitImages[0]);
+      store(tokens[3], splitImages[1]);
+      store(tokens[4], splitImages[2]);
       output.append("RGB Components split and stored as: ").append(tokens[2]).append(" ").append(
               tokens[3]).append(" ").append(tokens[4]).append("\n");
     } else {
@@ -602,8 +724,9 @@ public class TextImageController implements Controller {
     int increment = Integer.parseInt(tokens[1]);
     ImageInterface brightenedImage = images.get(tokens[2]);
     if (tokens.length == 4) {
-      outputBrightness = imageOperations.applyBrightness(brightenedImage, increment);
       dest = tokens[3];
+      outputBrightness = applyToStored(tokens[2], dest,
+          img -> imageOperations.applyBrightness(img, increment));
     } else if (tokens.length == 5) {
       outputBrightness = imageOperations.applyBrightness(brightenedImage, increment,
               images.get(tokens[3]));
@@ -612,7 +735,7 @@ public class TextImageController implements Controller {
       output.append("Invalid brighten command\n");
       return;
     }
-    images.put(dest, outputBrightness);
+    store(dest, outputBrightness);
     output.append("Image brightened and stored as: ").append(dest).append("\n");
   }
 
@@ -640,7 +763,7 @@ public class TextImageController implements Controller {
       output.append("Invalid blur command\n");
       return;
     }
-    images.put(dest, blurImage);
+    store(dest, blurImage);
     output.append("Image blurred and stored as: ").append(dest).append("\n");
   }
 
@@ -668,10 +791,187 @@ public class TextImageController implements Controller {
       output.append("Invalid sharpen command\n");
       return;
     }
-    images.put(dest, sharpenImage);
+    store(dest, sharpenImage);
     output.append("Image sharpened and stored as: ").append(dest).append("\n");
   }
 
+  /**
+   * Helper method to blur an image with a Gaussian. The recursive filter is used unless the
+   * command ends with fast, which selects the box filters.
+   *
+   * @param tokens command input.
+   * @throws IOException upon encountering incorrect input/output.
+   */
+  private void handleGaussianBlurCommand(String[] tokens) throws IOException {
+    boolean accurate = !tokens[tokens.length - 1].equals("fast");
+    int length = accurate ? tokens.length : tokens.length - 1;
+    ImageInterface blurImage;
+    String dest;
+    if (length == 4) {
+      double sigma = Double.parseDouble(tokens[1]);
+      blurImage = imageOperations.applyGaussianBlur(images.get(tokens[2]), sigma, accurate);
+      dest = tokens[3];
+    } else if (length == 6 && tokens[4].equals("split")) {
+      double sigma = Double.parseDouble(tokens[1]);
+      int percentage = Integer.parseInt(tokens[5]);
+      blurImage = imageOperations.splitViewOperation(percentage, images.get(tokens[2]),
+              img -> imageOperations.applyGaussianBlur(img, sigma, accurate));
+      dest = tokens[3];
+    } else if (length == 5) {
+      double sigma = Double.parseDouble(tokens[1]);
+      blurImage = imageOperations.applyGaussianBlur(images.get(tokens[2]), sigma, accurate,
+              images.get(tokens[3]));
+      dest = tokens[4];
+    } else {
+      output.append("Invalid gaussian-blur command\n");
+      return;
+    }
+    store(dest, blurImage);
+    output.append("Image gaussian blurred and stored as: ").append(dest).append("\n");
+  }
+
+  /**
+   * Helper method to median filter an image.
+   *
+   * @param tokens command input.
+   * @throws IOException upon encountering incorrect input/output.
+   */
+  private void handleMedianCommand(String[] tokens) throws IOException {
+    ImageInterface filtered;
+    String dest;
+    if (tokens.length == 4) {
+      int radius = Integer.parseInt(tokens[1]);
+      filtered = imageOperations.applyMedian(images.get(tokens[2]), radius);
+      dest = tokens[3];
+    } else if (tokens.length == 6 && tokens[4].equals("split")) {
+      int radius = Integer.parseInt(tokens[1]);
+      int percentage = Integer.parseInt(tokens[5]);
+      filtered = imageOperations.splitViewOperation(percentage, images.get(tokens[2]),
+              img -> imageOperations.applyMedian(img, radius));
+      dest = tokens[3];
+    } else if (tokens.length == 5) {
+      int radius = Integer.parseInt(tokens[1]);
+      filtered = imageOperations.applyMedian(images.get(tokens[2]), radius,
+              images.get(tokens[3]));
+      dest = tokens[4];
+    } else {
+      output.append("Invalid median command\n");
+      return;
+    }
+    store(dest, filtered);
+    output.append("Image median filtered and stored as: ").append(dest).append("\n");
+  }
+
+  /**
+   * Helper method to percentile filter an image.
+   *
+   * @param tokens command input.
+   * @throws IOException upon encountering incorrect input/output.
+   */
+  private void handlePercentileCommand(String[] tokens) throws IOException {
+    ImageInterface filtered;
+    String dest;
+    if (tokens.length == 5) {
+      double percentile = Double.parseDouble(tokens[1]);
+      int radius = Integer.parseInt(tokens[2]);
+      filtered = imageOperations.applyPercentile(images.get(tokens[3]), radius, percentile);
+      dest = tokens[4];
+    } else if (tokens.length == 7 && tokens[5].equals("split")) {
+      double percentile = Double.parseDouble(tokens[1]);
+      int radius = Integer.parseInt(tokens[2]);
+      int percentage = Integer.parseInt(tokens[6]);
+      filtered = imageOperations.splitViewOperation(percentage, images.get(tokens[3]),
+              img -> imageOperations.applyPercentile(img, radius, percentile));
+      dest = tokens[4];
+    } else if (tokens.length == 6) {
+      double percentile = Double.parseDouble(tokens[1]);
+      int radius = Integer.parseInt(tokens[2]);
+      filtered = imageOperations.applyPercentile(images.get(tokens[3]), radius, percentile,
+              images.get(tokens[4]));
+      dest = tokens[5];
+    } else {
+      output.append("Invalid percentile command\n");
+      return;
+    }
+    store(dest, filtered);
+    output.append("Image percentile filtered and stored as: ").append(dest).append("\n");
+  }
+
+  /**
+   * Helper method to convolve an image with a kernel read from a file.
+   *
+   * @param tokens command input.
+   * @throws IOException upon encountering incorrect input/output.
+   */
+  private void handleConvolveCommand(String[] tokens) throws IOException {
+    String last = tokens[tokens.length - 1];
+    boolean named = false;
+    for (EdgeMode mode : EdgeMode.values()) {
+      named |= mode.name().equalsIgnoreCase(last);
+    }
+    EdgeMode edges = named ? EdgeMode.fromName(last) : EdgeMode.REPLICATE;
+    int length = named ? tokens.length - 1 : tokens.length;
+    ImageInterface convolved;
+    String dest;
+    if (length == 4) {
+      double[][] kernel = readKernel(tokens[1]);
+      convolved = imageOperations.applyConvolution(images.get(tokens[2]), kernel, edges);
+      dest = tokens[3];
+    } else if (length == 6 && tokens[4].equals("split")) {
+      double[][] kernel = readKernel(tokens[1]);
+      int percentage = Integer.parseInt(tokens[5]);
+      convolved = imageOperations.splitViewOperation(percentage, images.get(tokens[2]),
+              img -> imageOperations.applyConvolution(img, kernel, edges));
+      dest = tokens[3];
+    } else if (length == 5) {
+      double[][] kernel = readKernel(tokens[1]);
+      convolved = imageOperations.applyConvolution(images.get(tokens[2]), kernel, edges,
+              images.get(tokens[3]));
+      dest = tokens[4];
+    } else {
+      output.append("Invalid convolve command\n");
+      return;
+    }
+    store(dest, convolved);
+    output.append("Image convolved and stored as: ").append(dest).append("\n");
+  }
+
+  /**
+   * Reads a kernel from a text file, one row of the kernel per line. The weights of a row are
+   * separated by spaces, tabs or commas and are decimal numbers or fractions such as 1/9. Blank
+   * lines and lines starting with # are skipped.
+   *
+   * @param path of the kernel file.
+   * @return the weights, kernel[row][column].
+   * @throws IOException              if the file cannot be read.
+   * @throws IllegalArgumentException if a weight is not a number or the file has no rows.
+   */
+  private double[][] readKernel(String path) throws IOException, IllegalArgumentException {
+    List<double[]> rows = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] weights = line.split("[\\s,]+");
+        double[] row = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+          int slash = weights[i].indexOf('/');
+          row[i] = slash < 0 ? Double.parseDouble(weights[i])
+                  : Double.parseDouble(weights[i].substring(0, slash))
+                  / Double.parseDouble(weights[i].substring(slash + 1));
+        }
+        rows.add(row);
+      }
+    }
+    if (rows.isEmpty()) {
+      throw new IllegalArgumentException("Kernel file has no weights");
+    }
+    return rows.toArray(new double[0][]);
+  }
+
   /**
    * Helper method to produce a sepia tone of an image.
    *
@@ -682,8 +982,8 @@ public class TextImageController implements Controller {
     ImageInterface sepiaImage;
     String dest;
     if (tokens.length == 3) {
-      sepiaImage = imageOperations.applySepia(images.get(tokens[1]));
       dest = tokens[2];
+      sepiaImage = applyToStored(tokens[1], dest, imageOperations::applySepia);
     } else if (tokens.length == 5 && tokens[3].equals("split")) {
       int percentage = Integer.parseInt(tokens[4]);
       sepiaImage = imageOperations.splitViewOperation(percentage, images.get(tokens[1]),
@@ -696,7 +996,7 @@ public class TextImageController implements Controller {
       output.append("Invalid sepia command\n");
       return;
     }
-    images.put(dest, sepiaImage);
+    store(dest, sepiaImage);
     output.append("Sepia filter added and stored as: ").append(dest).append("\n");
   }
 
@@ -708,7 +1008,8 @@ public class TextImageController implements Controller {
    */
   private void handleCompressCommand(String[] tokens) throws IllegalArgumentException,
           IOException {
-    if (tokens.length != 4) {
+    boolean joint = tokens.length == 5 && tokens[4].equals("joint");
+    if (tokens.length != 4 && !joint) {
       output.append("Invalid number of arguments\n");
       return;
     }
@@ -717,8 +1018,8 @@ public class TextImageController implements Controller {
     String destImage = tokens[3];
     ImageInterface image = images.get(sourceImage);
     if (image != null) {
-      ImageInterface compressedImage = imageOperations.compressImage(image, percentage);
-      images.put(destImage, compressedImage);
+      ImageInterface compressedImage = imageOperations.compressImage(image, percentage, joint);
+      store(destImage, compressedImage);
       output.append("Image compressed and saved as: ").append(destImage).append("\n");
     } else {
       output.append("Source image not found.\n");
@@ -732,17 +1033,20 @@ public class TextImageController implements Controller {
    * @throws IOException upon encountering incorrect input/output.
    */
   private void handleLoadCommand(String[] tokens) throws IOException {
-    ImageFormatHandler loader = new ImageHandler();
+    ImageFormatHandler loader = new ImageHandler(storage);
     try {
       ImageInterface image;
       String extension = getFileExtension(tokens[1]);
       if (extension.equals("ppm")) {
-        ImageFormatHandler ppm = new P3PPMHandler();
+        ImageFormatHandler ppm = new P3PPMHandler(storage);
         image = ppm.loadImage(tokens[1]);
+      } else if (extension.equals("pgm")) {
+        ImageFormatHandler pgm = new PGMHandler(false, storage);
+        image = pgm.loadImage(tokens[1]);
       } else {
         image = loader.loadImage(tokens[1]);
       }
-      images.put(tokens[2], image);
+      store(tokens[2], image);
     } catch (IOException e) {
       output.append("Error loading image: ").append(e.getMessage()).append("\n");
       return;
@@ -751,19 +1055,29 @@ public class TextImageController implements Controller {
   }
 
   /**
-   * Helper method to save an image.
+   * Helper method to save an image. An optional trailing plain token saves a PGM file as plain
+   * text (P2) instead of binary (P5). PPM files are always saved as plain text (P3).
    *
    * @param tokens command input.
    * @throws IOException upon encountering incorrect input/output.
    */
   private void handleSaveCommand(String[] tokens) throws IOException {
     String extension = getFileExtension(tokens[1]);
-    ImageFormatHandler saver = new ImageHandler();
+    boolean plain = tokens.length == 4 && tokens[3].equals("plain");
+    if (tokens.length > 4 || (tokens.length == 4
+            && !(plain && (extension.equals("pgm") || extension.equals("ppm"))))) {
+      output.append("Invalid save command\n");
+      return;
+    }
+    ImageFormatHandler saver = new ImageHandler(storage);
     ImageInterface image = images.get(tokens[2]);
     try {
       if (extension.equals("ppm")) {
-        ImageFormatHandler ppm = new P3PPMHandler();
+        ImageFormatHandler ppm = new P3PPMHandler(storage);
         ppm.saveImage(image, tokens[1], "ppm");
+      } else if (extension.equals("pgm")) {
+        ImageFormatHandler pgm = new PGMHandler(plain, storage);
+        pgm.saveImage(image, tokens[1], "pgm");
       } else {
         saver.saveImage(image, tokens[1], extension);
       }
@@ -783,8 +1097,8 @@ public class TextImageController implements Controller {
   private void handleHorizontalFlip(String[] tokens) throws IOException {
     if (tokens.length == 3) {
       ImageInterface flippedHorizontal =
-              imageOperations.applyHorizontalFlip(images.get(tokens[1]));
-      images.put(tokens[2], flippedHorizontal);
+              applyToStored(tokens[1], tokens[2], imageOperations::applyHorizontalFlip);
+      store(tokens[2], flippedHorizontal);
       output.append("Image flipped Horizontally and stored as: ").append(tokens[2]).append("\n");
     } else {
       output.append("Invalid horizontal flip command\n");
@@ -799,8 +1113,9 @@ public class TextImageController implements Controller {
    */
   private void handleVerticalFlip(String[] tokens) throws IOException {
     if (tokens.length == 3) {
-      ImageInterface flippedVertical = imageOperations.applyVerticalFlip(images.get(tokens[1]));
-      images.put(tokens[2], flippedVertical);
+      ImageInterface flippedVertical =
+              applyToStored(tokens[1], tokens[2], imageOperations::applyVerticalFlip);
+      store(tokens[2], flippedVertical);
       output.append("Image flipped Vertically and stored as: ").append(tokens[2]).append("\n");
     } else {
       output.append("Invalid flip command\n");
@@ -822,7 +1137,7 @@ public class TextImageController implements Controller {
       output.append("Invalid downsize command\n");
       return;
     }
-    images.put(tokens[2], downsizedImage);
+    store(tokens[2], downsizedImage);
     output.append("Downsized image stored as: ").append(tokens[2]).append("\n");
   }
 }
\ No newline at end of file
@@ -77,6 +77,16 @@ public interface ControllerGui {
    */
   void handleBlurCommand();
 
+  /**
+   * Applies a Gaussian blur of a chosen standard deviation to the current image.
+   */
+  void handleGaussianBlurCommand();
+
+  /**
+   * Applies a median or other percentile filter of a chosen radius to the current image.
+   */
+  void handleRankFilterCommand();
+
   /**
    * Creates a histogram of the current image.
    */
@@ -111,4 +121,9 @@ public interface ControllerGui {
    * This function is to for the toggle functionality.
    */
   void toggleSplitView();
+
+  /**
+   * This function lets the user choose the number of threads the operations run on.
+   */
+  void handleThreadsCommand();
 }
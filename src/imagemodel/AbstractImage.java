@@ -0,0 +1,202 @@
+package imagemodel;
+
+/**
+ * Base class for the image implementations. It provides the pixel accessors, channel extraction
+ * and content based equality in terms of getRGB and getRow, so that every representation of the
+ * same pixels compares and hashes equally. The content digest is computed on first use and
+ * remembered, which is safe because images never change after they are built.
+ */
+public abstract class AbstractImage implements ImageInterface {
+
+  private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+  private long digest;
+  private volatile boolean digested;
+
+  /**
+   * The getPixel method extracts the pixels at the given position of the image.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return pixel value
+   */
+  @Override
+  public PixelInterface getPixel(int x, int y) {
+    int rgb = getRGB(x, y);
+    return new Pixel((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+  }
+
+  /**
+   * The getChannelRow method copies one color channel of a row into the given array.
+   *
+   * @param y       index of the row to be read.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param dst     array that receives the values.
+   * @return the array holding the channel values.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  @Override
+  public int[] getChannelRow(int y, int channel, int[] dst) throws IllegalArgumentException {
+    int shift = channelShift(channel);
+    int[] row = getRow(y, dst);
+    KernelBackend.kernels().extractChannel(row, getWidth(), shift);
+    return row;
+  }
+
+  /**
+   * The isGrayscale method tells whether the image stores a single gray level per pixel.
+   * Images are stored as RGB unless a subclass says otherwise.
+   *
+   * @return true for grayscale images.
+   */
+  @Override
+  public boolean isGrayscale() {
+    return false;
+  }
+
+  /**
+   * The materialize method gives an image that holds its own pixels. Images that are not views
+   * already do, so they return themselves.
+   *
+   * @return this image.
+   */
+  @Override
+  public ImageInterface materialize() {
+    return this;
+  }
+
+  /**
+   * The contentDigest method gives a 64-bit digest of the dimensions and pixels of the image.
+   * The pixels are read row by row and mixed two at a time, the result is computed once and
+   * then remembered.
+   *
+   * @return the digest of the image.
+   */
+  @Override
+  public long contentDigest() {
+    if (!digested) {
+      digest = computeDigest();
+      digested = true;
+    }
+    return digest;
+  }
+
+  /**
+   * Computes the content digest by mixing the pixels, packed two per 64-bit word, into an
+   * accumulator seeded with the dimensions, and scrambling the result so that every input bit
+   * affects every output bit.
+   *
+   * @return the digest of the image.
+   */
+  private long computeDigest() {
+    int width = getWidth();
+    int height = getHeight();
+    long hash = (((long) width << 32) | height) * PRIME_1;
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      row = getRow(y, row);
+      int x = 0;
+      for (; x + 1 < width; x += 2) {
+        hash = mix(hash, ((long) row[x] << 32) | row[x + 1]);
+      }
+      if (x < width) {
+        hash = mix(hash, row[x]);
+      }
+    }
+    hash ^= hash >>> 33;
+    hash *= PRIME_2;
+    hash ^= hash >>> 29;
+    hash *= PRIME_1;
+    return hash ^ (hash >>> 32);
+  }
+
+  /**
+   * Mixes one word into the digest accumulator.
+   *
+   * @param hash accumulator.
+   * @param word value to be mixed in.
+   * @return the new accumulator.
+   */
+  private static long mix(long hash, long word) {
+    return Long.rotateLeft(hash + word * PRIME_2, 31) * PRIME_1;
+  }
+
+  /**
+   * Tells whether another object is an image whose digest is known to differ from the digest
+   * of this image. Digests are only compared when both have already been computed, so this
+   * check never reads pixels.
+   *
+   * @param o object to be compared.
+   * @return true if the images certainly hold different pixels.
+   */
+  boolean digestDiffers(Object o) {
+    if (!(o instanceof AbstractImage)) {
+      return false;
+    }
+    AbstractImage actual = (AbstractImage) o;
+    return digested && actual.digested && digest != actual.digest;
+  }
+
+  /**
+   * Gives the bit position of a channel inside a packed 0xRRGGBB value.
+   *
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return the shift of the channel.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  static int channelShift(int channel) throws IllegalArgumentException {
+    if (channel < 0 || channel > 2) {
+      throw new IllegalArgumentException("Channel must be 0, 1 or 2");
+    }
+    return 16 - 8 * channel;
+  }
+
+  /**
+   * Equals method to check whether two images hold the same pixels.
+   *
+   * @param o object to be checked for equality.
+   * @return true if equal, else false.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ImageInterface)) {
+      return false;
+    }
+    if (digestDiffers(o)) {
+      return false;
+    }
+    ImageInterface actual = (ImageInterface) o;
+    int width = getWidth();
+    int height = getHeight();
+    if (width != actual.getWidth() || height != actual.getHeight()) {
+      return false;
+    }
+    int[] row = new int[width];
+    int[] other = new int[width];
+    for (int y = 0; y < height; y++) {
+      getRow(y, row);
+      actual.getRow(y, other);
+      for (int x = 0; x < width; x++) {
+        if (row[x] != other[x]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Hashcode method that complements the equals method. It folds the content digest, so it is
+   * only computed once per image.
+   *
+   * @return hashcode of the object.
+   */
+  @Override
+  public int hashCode() {
+    return Long.hashCode(contentDigest());
+  }
+}
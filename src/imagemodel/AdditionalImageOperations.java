@@ -10,6 +10,36 @@ import java.util.function.Function;
 public class AdditionalImageOperations extends ExtendedImageOperations
         implements AdditionalOperations {
 
+  /**
+   * Creates the operations with images stored on the heap.
+   */
+  public AdditionalImageOperations() {
+    super();
+  }
+
+  /**
+   * Creates the operations with the given storage for the images they produce.
+   *
+   * @param storage decides where the pixels of the resulting images live.
+   * @throws IllegalArgumentException if the storage is null.
+   */
+  public AdditionalImageOperations(ImageStorage storage) throws IllegalArgumentException {
+    super(storage);
+  }
+
+  /**
+   * Creates the operations with the given storage for the images they produce and the given
+   * executor for their rows.
+   *
+   * @param storage  decides where the pixels of the resulting images live.
+   * @param executor runs the rows of the operations, in parallel if it has several threads.
+   * @throws IllegalArgumentException if the storage or executor is null.
+   */
+  public AdditionalImageOperations(ImageStorage storage, BandExecutor executor)
+          throws IllegalArgumentException {
+    super(storage, executor);
+  }
+
   /**
    * Downsizes an image to a target height and width.
    *
@@ -30,34 +60,43 @@ public class AdditionalImageOperations extends ExtendedImageOperations
     if (targetWidth > originalWidth || targetHeight > originalHeight) {
       throw new IllegalArgumentException("Target height/width should be less than original");
     }
-    ImageCopyInterface resultImage = new ImageCopy(targetWidth, targetHeight);
+    ImageBuilderInterface resultImage = newBuilder(targetWidth, targetHeight);
     double xScale = (double) originalWidth / targetWidth;
     double yScale = (double) originalHeight / targetHeight;
-    for (int x = 0; x < targetWidth; x++) {
-      for (int y = 0; y < targetHeight; y++) {
-        double xSource = x * xScale;
+    getExecutor().forEachBand(targetWidth, targetHeight, (from, to) -> {
+      int[] top = new int[originalWidth];
+      int[] bottom = new int[originalWidth];
+      int[] result = new int[targetWidth];
+      for (int y = from; y < to; y++) {
         double ySource = y * yScale;
-        resultImage.setPixel(x, y, interpolate(xSource, ySource, original));
+        int y1 = (int) ySource;
+        original.getRow(y1, top);
+        original.getRow(Math.min(y1 + 1, originalHeight - 1), bottom);
+        for (int x = 0; x < targetWidth; x++) {
+          double xSource = x * xScale;
+          result[x] = interpolate(xSource, ySource, top, bottom, originalWidth);
+        }
+        resultImage.setRow(y, result);
       }
-    }
-    return resultImage.deepCopyImage();
+    });
+    return resultImage.build();
   }
 
   /**
    * Bi-linearly interpolates pixel values from the input image at fractional x and y coordinates.
    *
-   * @param x        the fractional x-coordinate of original image.
-   * @param y        the fractional y-coordinate of original image.
-   * @param original image object.
-   * @return Pixel object containing the interpolated RGB values.
+   * @param x      the fractional x-coordinate of original image.
+   * @param y      the fractional y-coordinate of original image.
+   * @param top    the row of the original image at the integer part of y.
+   * @param bottom the row of the original image below the top row.
+   * @param width  the width of the original image.
+   * @return the interpolated RGB values packed as 0xRRGGBB.
    */
-  private Pixel interpolate(double x, double y, ImageInterface original) {
+  private int interpolate(double x, double y, int[] top, int[] bottom, int width) {
     int x1 = (int) x;
     int y1 = (int) y;
-    int x2 = Math.min(x1 + 1, original.getWidth() - 1);
-    int y2 = Math.min(y1 + 1, original.getHeight() - 1);
-    PixelInterface[] pixels = {original.getPixel(x1, y1), original.getPixel(x1, y2),
-            original.getPixel(x2, y1), original.getPixel(x2, y2)};
+    int x2 = Math.min(x1 + 1, width - 1);
+    int[] pixels = {top[x1], bottom[x1], top[x2], bottom[x2]};
     double wx = x - x1;
     double wy = y - y1;
 
@@ -65,7 +104,7 @@ public class AdditionalImageOperations extends ExtendedImageOperations
     int green = clamp((int) Math.round(interpolateComponent(wx, wy, pixels, 1)));
     int blue = clamp((int) Math.round(interpolateComponent(wx, wy, pixels, 2)));
 
-    return new Pixel(red, green, blue);
+    return (red << 16) | (green << 8) | blue;
   }
 
   /**
@@ -73,12 +112,12 @@ public class AdditionalImageOperations extends ExtendedImageOperations
    *
    * @param wx         the weight for the horizontal interpolation.
    * @param wy         the weight for the vertical interpolation.
-   * @param pixels     an array of four surrounding pixels used in bi-linear interpolation.
+   * @param pixels     an array of four surrounding packed pixels used in bi-linear interpolation.
    * @param colorIndex the index representing the color component.
    * @return the interpolated value for the specified color component.
    */
   private double interpolateComponent(double wx, double wy,
-                                      PixelInterface[] pixels, int colorIndex) {
+                                      int[] pixels, int colorIndex) {
     return (1 - wy) * ((1 - wx) * getColorComponent(pixels[0], colorIndex)
             + wx * getColorComponent(pixels[2], colorIndex))
             + wy * ((1 - wx) * getColorComponent(pixels[1], colorIndex)
@@ -88,19 +127,19 @@ public class AdditionalImageOperations extends ExtendedImageOperations
   /**
    * Retrieves a specific color component (red, green, or blue) from a pixel.
    *
-   * @param pixel      the pixel from which the color component is to be retrieved.
+   * @param rgb        the packed pixel from which the color component is to be retrieved.
    * @param colorIndex the index representing the color component.
    * @return the value of the specified color component.
    * @throws IllegalArgumentException if an invalid color index is provided.
    */
-  private int getColorComponent(PixelInterface pixel, int colorIndex) {
+  private int getColorComponent(int rgb, int colorIndex) {
     switch (colorIndex) {
       case 0:
-        return pixel.getRed();
+        return (rgb >> 16) & 0xFF;
       case 1:
-        return pixel.getGreen();
+        return (rgb >> 8) & 0xFF;
       case 2:
-        return pixel.getBlue();
+        return rgb & 0xFF;
       default:
         throw new IllegalArgumentException("Invalid color index");
     }
@@ -132,6 +171,150 @@ public class AdditionalImageOperations extends ExtendedImageOperations
     return applyWithMask(image, maskImage, this::applySharpen);
   }
 
+  /**
+   * The applyGaussianBlur method will blur the image with a Gaussian of the given standard
+   * deviation.
+   *
+   * @param image    on which the operation is to be applied.
+   * @param sigma    standard deviation of the Gaussian, in pixels.
+   * @param accurate true for the recursive filter, false for the faster box filters.
+   * @return an object of type Image after blurring.
+   * @throws IllegalArgumentException if the image is null or sigma is invalid.
+   */
+  @Override
+  public ImageInterface applyGaussianBlur(ImageInterface image, double sigma, boolean accurate)
+          throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("image is null");
+    }
+    GaussianBlur blur = new GaussianBlur(sigma, accurate);
+    return blur.apply(image, newBuilder(image.getWidth(), image.getHeight()), getExecutor());
+  }
+
+  /**
+   * The applyGaussianBlur method will blur the image with a Gaussian of the given standard
+   * deviation where the mask is black.
+   *
+   * @param image     on which the operation is to be applied.
+   * @param sigma     standard deviation of the Gaussian, in pixels.
+   * @param accurate  true for the recursive filter, false for the faster box filters.
+   * @param maskImage that is the mask to be compared.
+   * @return an object of type Image after blurring as per mask condition.
+   * @throws IllegalArgumentException if an image is null or sigma is invalid.
+   */
+  @Override
+  public ImageInterface applyGaussianBlur(ImageInterface image, double sigma, boolean accurate,
+                                          ImageInterface maskImage)
+          throws IllegalArgumentException {
+    return applyWithMask(image, maskImage, img -> applyGaussianBlur(img, sigma, accurate));
+  }
+
+  /**
+   * The applyMedian method will replace every channel by its median over a square window.
+   *
+   * @param image  on which the operation is to be applied.
+   * @param radius of the square window.
+   * @return an object of type Image after filtering.
+   * @throws IllegalArgumentException if the image is null or the radius is invalid.
+   */
+  @Override
+  public ImageInterface applyMedian(ImageInterface image, int radius)
+          throws IllegalArgumentException {
+    return applyPercentile(image, radius, 50);
+  }
+
+  /**
+   * The applyMedian method will apply the median filter where the mask is black.
+   *
+   * @param image     on which the operation is to be applied.
+   * @param radius    of the square window.
+   * @param maskImage that is the mask to be compared.
+   * @return an object of type Image after filtering as per mask condition.
+   * @throws IllegalArgumentException if an image is null or the radius is invalid.
+   */
+  @Override
+  public ImageInterface applyMedian(ImageInterface image, int radius, ImageInterface maskImage)
+          throws IllegalArgumentException {
+    return applyPercentile(image, radius, 50, maskImage);
+  }
+
+  /**
+   * The applyPercentile method will replace every channel by a percentile of it over a square
+   * window.
+   *
+   * @param image      on which the operation is to be applied.
+   * @param radius     of the square window.
+   * @param percentile taken over the window, from 0 to 100.
+   * @return an object of type Image after filtering.
+   * @throws IllegalArgumentException if the image is null or the radius or percentile is
+   *                                  invalid.
+   */
+  @Override
+  public ImageInterface applyPercentile(ImageInterface image, int radius, double percentile)
+          throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("image is null");
+    }
+    RankFilter filter = new RankFilter(radius, percentile);
+    return filter.apply(image, newBuilder(image.getWidth(), image.getHeight()), getExecutor());
+  }
+
+  /**
+   * The applyPercentile method will apply the percentile filter where the mask is black.
+   *
+   * @param image      on which the operation is to be applied.
+   * @param radius     of the square window.
+   * @param percentile taken over the window, from 0 to 100.
+   * @param maskImage  that is the mask to be compared.
+   * @return an object of type Image after filtering as per mask condition.
+   * @throws IllegalArgumentException if an image is null or the radius or percentile is
+   *                                  invalid.
+   */
+  @Override
+  public ImageInterface applyPercentile(ImageInterface image, int radius, double percentile,
+                                        ImageInterface maskImage)
+          throws IllegalArgumentException {
+    return applyWithMask(image, maskImage, img -> applyPercentile(img, radius, percentile));
+  }
+
+  /**
+   * The applyConvolution method will convolve the image with a kernel, choosing between the
+   * direct sum, separable passes and the Fourier transform for the size of the image.
+   *
+   * @param image  on which the operation is to be applied.
+   * @param kernel weights, kernel[row][column], with an odd number of rows and columns.
+   * @param edges  how the pixels outside of the image are read.
+   * @return an object of type Image after the convolution.
+   * @throws IllegalArgumentException if an argument is null or the kernel is invalid.
+   */
+  @Override
+  public ImageInterface applyConvolution(ImageInterface image, double[][] kernel,
+                                         EdgeMode edges) throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("image is null");
+    }
+    Convolution convolution = new Convolution(kernel);
+    return convolution.apply(image, newBuilder(image.getWidth(), image.getHeight()),
+            getExecutor(), edges);
+  }
+
+  /**
+   * The applyConvolution method will convolve the image with a kernel where the mask is black.
+   *
+   * @param image     on which the operation is to be applied.
+   * @param kernel    weights, kernel[row][column], with an odd number of rows and columns.
+   * @param edges     how the pixels outside of the image are read.
+   * @param maskImage that is the mask to be compared.
+   * @return an object of type Image after the convolution as per mask condition.
+   * @throws IllegalArgumentException if an argument is null or the kernel is invalid.
+   */
+  @Override
+  public ImageInterface applyConvolution(ImageInterface image, double[][] kernel,
+                                         EdgeMode edges, ImageInterface maskImage)
+          throws IllegalArgumentException {
+    return applyWithMask(image, maskImage, img -> applyConvolution(img, kernel, edges));
+  }
+
   /**
    * The applySepia method will apply sepia on the image.
    *
@@ -237,7 +420,9 @@ public class AdditionalImageOperations extends ExtendedImageOperations
   }
 
   /**
-   * Helper method that applies the masking condition on the transformed images.
+   * Helper method that applies the masking condition on the transformed images. The result
+   * starts as the original image and only rows with masked pixels are written, so the storage
+   * can share the untouched parts with the original.
    *
    * @param image          original image.
    * @param maskImage      mask image to be compared.
@@ -256,28 +441,41 @@ public class AdditionalImageOperations extends ExtendedImageOperations
     int height = image.getHeight();
     int maskWidth = maskImage.getWidth();
     int maskHeight = maskImage.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        PixelInterface pixel = transformed.getPixel(x, y);
-        if (x < maskWidth && y < maskHeight && isBlack(maskImage.getPixel(x, y))) {
-          copy.setPixel(x, y, pixel);
-        } else {
-          copy.setPixel(x, y, image.getPixel(x, y));
+    ImageBuilderInterface copy = newBuilder(image);
+
+    int maskedWidth = Math.min(width, maskWidth);
+    getExecutor().forEachBand(width, Math.min(height, maskHeight), (from, to) -> {
+      int[] row = new int[width];
+      int[] transformedRow = new int[transformed.getWidth()];
+      int[] maskRow = new int[maskWidth];
+      for (int y = from; y < to; y++) {
+        maskImage.getRow(y, maskRow);
+        boolean masked = false;
+        for (int x = 0; x < maskedWidth; x++) {
+          if (isBlack(maskRow[x])) {
+            if (!masked) {
+              image.getRow(y, row);
+              transformed.getRow(y, transformedRow);
+              masked = true;
+            }
+            row[x] = transformedRow[x];
+          }
+        }
+        if (masked) {
+          copy.setRow(y, row);
         }
       }
-    }
-    return copy.deepCopyImage();
+    });
+    return copy.build();
   }
 
   /**
    * Helper method that checks if the input pixel is black or not.
    *
-   * @param pixel value to be checked.
+   * @param rgb packed pixel value to be checked.
    * @return true if black, else false.
    */
-  private boolean isBlack(PixelInterface pixel) {
-    return pixel.getRed() == 0 && pixel.getGreen() == 0 && pixel.getBlue() == 0;
+  private boolean isBlack(int rgb) {
+    return rgb == 0;
   }
 }
\ No newline at end of file
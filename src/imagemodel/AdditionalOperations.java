@@ -37,6 +37,130 @@ public interface AdditionalOperations extends ExtendedOperations {
   ImageInterface applySharpen(ImageInterface image, ImageInterface maskImage)
           throws IllegalArgumentException;
 
+  /**
+   * The applyGaussianBlur method will blur the image with a Gaussian of the given standard
+   * deviation, at a cost per pixel that does not depend on it.
+   *
+   * @param image    on which the operation is to be applied.
+   * @param sigma    standard deviation of the Gaussian, in pixels.
+   * @param accurate true for the recursive filter, false for the faster box filters.
+   * @return an object of type Image after blurring.
+   * @throws IllegalArgumentException if the image is null or sigma is invalid.
+   */
+  ImageInterface applyGaussianBlur(ImageInterface image, double sigma, boolean accurate)
+          throws IllegalArgumentException;
+
+  /**
+   * The applyGaussianBlur method will blur the pixels of the image that are black in the mask
+   * with a Gaussian of the given standard deviation.
+   *
+   * @param image     on which the operation is to be applied.
+   * @param sigma     standard deviation of the Gaussian, in pixels.
+   * @param accurate  true for the recursive filter, false for the faster box filters.
+   * @param maskImage that is the mask to be compared.
+   * @return an object of type Image after blurring as per mask condition.
+   * @throws IllegalArgumentException if an image is null or sigma is invalid.
+   */
+  ImageInterface applyGaussianBlur(ImageInterface image, double sigma, boolean accurate,
+                                   ImageInterface maskImage) throws IllegalArgumentException;
+
+  /**
+   * The applyMedian method will replace every channel of every pixel by its median over the
+   * square window of the given radius, which removes noise while keeping edges.
+   *
+   * @param image  on which the operation is to be applied.
+   * @param radius of the square window.
+   * @return an object of type Image after filtering.
+   * @throws IllegalArgumentException if the image is null or the radius is invalid.
+   */
+  ImageInterface applyMedian(ImageInterface image, int radius) throws IllegalArgumentException;
+
+  /**
+   * The applyMedian method will apply the median filter to the pixels of the image that are
+   * black in the mask.
+   *
+   * @param image     on which the operation is to be applied.
+   * @param radius    of the square window.
+   * @param maskImage that is the mask to be compared.
+   * @return an object of type Image after filtering as per mask condition.
+   * @throws IllegalArgumentException if an image is null or the radius is invalid.
+   */
+  ImageInterface applyMedian(ImageInterface image, int radius, ImageInterface maskImage)
+          throws IllegalArgumentException;
+
+  /**
+   * The applyPercentile method will replace every channel of every pixel by the given
+   * percentile of the channel over the square window of the given radius. The 50th percentile
+   * is the median, the 0th the minimum and the 100th the maximum.
+   *
+   * @param image      on which the operation is to be applied.
+   * @param radius     of the square window.
+   * @param percentile taken over the window, from 0 to 100.
+   * @return an object of type Image after filtering.
+   * @throws IllegalArgumentException if the image is null or the radius or percentile is
+   *                                  invalid.
+   */
+  ImageInterface applyPercentile(ImageInterface image, int radius, double percentile)
+          throws IllegalArgumentException;
+
+  /**
+   * The applyPercentile method will apply the percentile filter to the pixels of the image that
+   * are black in the mask.
+   *
+   * @param image      on which the operation is to be applied.
+   * @param radius     of the square window.
+   * @param percentile taken over the window, from 0 to 100.
+   * @param maskImage  that is the mask to be compared.
+   * @return an object of type Image after filtering as per mask condition.
+   * @throws IllegalArgumentException if an image is null or the radius or percentile is
+   *                                  invalid.
+   */
+  ImageInterface applyPercentile(ImageInterface image, int radius, double percentile,
+                                 ImageInterface maskImage) throws IllegalArgumentException;
+
+  /**
+   * The applyConvolution method will convolve the image with a kernel of any odd size. Each
+   * channel of the result is the sum of the weights times the channels of the pixels under
+   * them, truncated and clamped to 0..255. Large kernels are applied through the Fourier
+   * transform.
+   *
+   * @param image  on which the operation is to be applied.
+   * @param kernel weights, kernel[row][column], with an odd number of rows and columns.
+   * @param edges  how the pixels outside of the image are read.
+   * @return an object of type Image after the convolution.
+   * @throws IllegalArgumentException if an argument is null or the kernel is invalid.
+   */
+  ImageInterface applyConvolution(ImageInterface image, double[][] kernel, EdgeMode edges)
+          throws IllegalArgumentException;
+
+  /**
+   * The applyConvolution method will convolve the pixels of the image that are black in the
+   * mask with a kernel.
+   *
+   * @param image     on which the operation is to be applied.
+   * @param kernel    weights, kernel[row][column], with an odd number of rows and columns.
+   * @param edges     how the pixels outside of the image are read.
+   * @param maskImage that is the mask to be compared.
+   * @return an object of type Image after the convolution as per mask condition.
+   * @throws IllegalArgumentException if an argument is null or the kernel is invalid.
+   */
+  ImageInterface applyConvolution(ImageInterface image, double[][] kernel, EdgeMode edges,
+                                  ImageInterface maskImage) throws IllegalArgumentException;
+
+  /**
+   * Compresses an image by applying Haar wavelet transformation and thresholding. The channels
+   * either have their own thresholds or share one threshold chosen over the coefficients of all
+   * three, which drops the same detail everywhere in the image.
+   *
+   * @param image      the original image to be compressed.
+   * @param percentage the percentage of detail to compress, between 0 and 100.
+   * @param joint      whether the channels share one threshold.
+   * @return the compressed image.
+   * @throws IllegalArgumentException if the percentage is out of range or image is null.
+   */
+  ImageInterface compressImage(ImageInterface image, int percentage, boolean joint)
+          throws IllegalArgumentException;
+
   /**
    * The applySepia method will apply a Sepia tone to the image.
    *
@@ -0,0 +1,190 @@
+package imagemodel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the rows of an operation in parallel on a fork/join pool. The rows are split into bands
+ * of consecutive rows and every band is computed on its own, reading whatever rows it needs
+ * around it from the source, so a kernel simply reads the halo rows above and below its band.
+ * Every row is computed exactly as it would be sequentially, so the results do not depend on
+ * the number of threads. Images of fewer pixels than the threshold are processed sequentially,
+ * as is everything when the parallelism is 1.
+ */
+public final class BandExecutor {
+
+  /**
+   * The default number of pixels below which an image is processed sequentially.
+   */
+  public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+  private static final int BANDS_PER_THREAD = 4;
+
+  private final int threshold;
+  private volatile ForkJoinPool pool;
+  private volatile int parallelism;
+
+  /**
+   * The work done on a band of rows.
+   */
+  public interface Band {
+
+    /**
+     * Processes the rows from the first one up to the last one, exclusive.
+     *
+     * @param from first row of the band.
+     * @param to   row after the last row of the band.
+     */
+    void run(int from, int to);
+  }
+
+  /**
+   * Creates an executor that processes everything sequentially.
+   */
+  public BandExecutor() {
+    this(1);
+  }
+
+  /**
+   * Creates an executor with the given number of threads and the default threshold.
+   *
+   * @param parallelism number of threads.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  public BandExecutor(int parallelism) throws IllegalArgumentException {
+    this(parallelism, DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Creates an executor with the given number of threads and threshold.
+   *
+   * @param parallelism number of threads.
+   * @param threshold   number of pixels below which an image is processed sequentially.
+   * @throws IllegalArgumentException if the parallelism is less than 1 or the threshold is
+   *                                  negative.
+   */
+  public BandExecutor(int parallelism, int threshold) throws IllegalArgumentException {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Threshold cannot be negative");
+    }
+    this.threshold = threshold;
+    setParallelism(parallelism);
+  }
+
+  /**
+   * Gives the number of threads the executor uses.
+   *
+   * @return the parallelism.
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Gives the number of pixels below which an image is processed sequentially.
+   *
+   * @return the threshold.
+   */
+  public int getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * Changes the number of threads. Operations that are running finish on the previous pool, which
+   * is shut down and takes no new operation, and an operation that was about to start on it
+   * starts again on the new pool.
+   *
+   * @param parallelism number of threads.
+   * @throws IllegalArgumentException if the parallelism is less than 1.
+   */
+  public synchronized void setParallelism(int parallelism) throws IllegalArgumentException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Number of threads must be at least 1");
+    }
+    if (parallelism == this.parallelism) {
+      return;
+    }
+    ForkJoinPool previous = pool;
+    pool = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+    this.parallelism = parallelism;
+    if (previous != null) {
+      previous.shutdown();
+    }
+  }
+
+  /**
+   * Processes the rows of an image of the given dimensions in bands, in parallel when the image
+   * is at least as large as the threshold. The method returns when every band is done, and
+   * rethrows the exception of a band that failed. A pool rejects an operation before running
+   * any of its bands, so when the parallelism changed since the pool was read, the operation is
+   * simply run again with the current parallelism.
+   *
+   * @param width  width of the image, only used to compare its size with the threshold.
+   * @param height number of rows to process.
+   * @param band   the work done on a band.
+   */
+  public void forEachBand(int width, int height, Band band) {
+    while (true) {
+      ForkJoinPool current = pool;
+      if (current == null || height < 2 || (long) width * height < threshold) {
+        band.run(0, height);
+        return;
+      }
+      int bands = Math.min(height, current.getParallelism() * BANDS_PER_THREAD);
+      int rows = (height + bands - 1) / bands;
+      try {
+        current.invoke(new BandAction(band, 0, height, rows));
+        return;
+      } catch (RejectedExecutionException e) {
+        if (pool == current) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Splits a range of rows in halves until it is no larger than a band.
+   */
+  private static final class BandAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Band band;
+    private final int from;
+    private final int to;
+    private final int rows;
+
+    /**
+     * Creates the action for a range of rows.
+     *
+     * @param band work done on a band.
+     * @param from first row of the range.
+     * @param to   row after the last row of the range.
+     * @param rows largest number of rows of a band.
+     */
+    BandAction(Band band, int from, int to, int rows) {
+      this.band = band;
+      this.from = from;
+      this.to = to;
+      this.rows = rows;
+    }
+
+    /**
+     * Runs the range as one band or splits it at a band boundary.
+     */
+    @Override
+    protected void compute() {
+      if (to - from <= rows) {
+        band.run(from, to);
+        return;
+      }
+      int middle = from + ((to - from) / rows / 2) * rows;
+      if (middle == from) {
+        middle += rows;
+      }
+      invokeAll(new BandAction(band, from, middle, rows), new BandAction(band, middle, to, rows));
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package imagemodel;
+
+/**
+ * A grayscale view of one color channel of its source, without copying it. Every pixel of the
+ * view has the value of the chosen channel in all three of its channels.
+ */
+public class ChannelImage extends ImageView {
+
+  private final int channel;
+
+  /**
+   * Creates a view of one channel of the given source.
+   *
+   * @param source  image the view reads from.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param storage storage a materialized copy is created in.
+   * @throws IllegalArgumentException if the source or storage is null, or the channel is not 0,
+   *                                  1 or 2.
+   */
+  public ChannelImage(ImageInterface source, int channel, ImageStorage storage)
+          throws IllegalArgumentException {
+    super(source, storage);
+    channelShift(channel);
+    this.channel = channel;
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    checkPixel(x, y);
+    return ((getSource().getRGB(x, y) >> channelShift(channel)) & 0xFF) * 0x010101;
+  }
+
+  /**
+   * The getRow method copies one row of the view into the given array as packed 0xRRGGBB
+   * values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    dst = getChannelRow(y, channel, dst);
+    for (int x = 0; x < getWidth(); x++) {
+      dst[x] *= 0x010101;
+    }
+    return dst;
+  }
+
+  /**
+   * The getChannelRow method copies the levels of a row of the view into the given array. All
+   * channels of the view hold the channel of the source it was created for.
+   *
+   * @param y       index of the row to be read.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param dst     array that receives the values.
+   * @return the array holding the channel values.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  @Override
+  public int[] getChannelRow(int y, int channel, int[] dst) throws IllegalArgumentException {
+    channelShift(channel);
+    checkRow(y);
+    return getSource().getChannelRow(y, this.channel, dst);
+  }
+
+  /**
+   * The isGrayscale method tells whether the view stores a single gray level per pixel.
+   *
+   * @return always true.
+   */
+  @Override
+  public boolean isGrayscale() {
+    return true;
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return getSource().getWidth();
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return getSource().getHeight();
+  }
+}
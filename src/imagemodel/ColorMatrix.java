@@ -0,0 +1,309 @@
+package imagemodel;
+
+/**
+ * A 3x3 color matrix. Every channel of the result is the weighted sum of the red, green and blue
+ * channels of the pixel, truncated towards zero and clamped to 0..255.
+ *
+ * <p>The sums are computed with integer fixed-point weights scaled by 2^20. The fixed-point sum
+ * differs from the exact sum by less than {@code MARGIN} units, so whenever it is further than
+ * that from an integer it truncates to the same value as the double expression
+ * {@code (int) (w0 * r + w1 * g + w2 * b)}. The rare sums closer to an integer are recomputed
+ * with that expression, which keeps the results bit-identical to the double formula. Matrices
+ * created with {@link #rational(int[][], int)} use exact integer arithmetic instead.
+ */
+public final class ColorMatrix implements PointwiseOperation {
+
+  static final int SHIFT = 20;
+  static final long FRACTION = (1L << SHIFT) - 1;
+  static final long MARGIN = 3 * 128 + 1;
+  private static final double MAX_FIXED_WEIGHT = 1 << 20;
+
+  /**
+   * The sepia tone matrix.
+   */
+  public static final ColorMatrix SEPIA = new ColorMatrix(new double[][]{
+      {0.393, 0.769, 0.189},
+      {0.349, 0.686, 0.168},
+      {0.272, 0.534, 0.131}});
+
+  /**
+   * The luma matrix, which gives every channel the weighted luma of the pixel.
+   */
+  public static final ColorMatrix LUMA = new ColorMatrix(new double[][]{
+      {0.2126, 0.7152, 0.0722},
+      {0.2126, 0.7152, 0.0722},
+      {0.2126, 0.7152, 0.0722}});
+
+  /**
+   * The intensity matrix, which gives every channel the average of the channels of the pixel
+   * rounded down.
+   */
+  public static final ColorMatrix INTENSITY = rational(new int[][]{
+      {1, 1, 1},
+      {1, 1, 1},
+      {1, 1, 1}}, 3);
+
+  private final double[] weights;
+  private final long[] fixed;
+  private final int divisor;
+  private final boolean gray;
+
+  /**
+   * Creates a color matrix from its rows. Row i holds the weights of red, green and blue in
+   * channel i of the result.
+   *
+   * @param matrix 3x3 array of weights.
+   * @throws IllegalArgumentException if the matrix is not 3x3 or holds a value that is not
+   *                                  finite.
+   */
+  public ColorMatrix(double[][] matrix) throws IllegalArgumentException {
+    this(flatten(matrix), null, 0);
+  }
+
+  /**
+   * Creates a matrix in one of its three modes: exact integer weights over a divisor, or double
+   * weights with fixed-point weights when they fit, or double weights alone.
+   *
+   * @param weights double weights, null for integer matrices.
+   * @param fixed   integer weights, computed from the double weights when null.
+   * @param divisor common divisor of integer weights, 0 for double weights.
+   */
+  private ColorMatrix(double[] weights, long[] fixed, int divisor) {
+    if (fixed == null) {
+      fixed = new long[9];
+      for (int i = 0; i < 9; i++) {
+        if (Math.abs(weights[i]) > MAX_FIXED_WEIGHT) {
+          fixed = null;
+          break;
+        }
+        fixed[i] = Math.round(Math.scalb(weights[i], SHIFT));
+      }
+    }
+    this.weights = weights;
+    this.fixed = fixed;
+    this.divisor = divisor;
+    this.gray = weights == null ? rowsEqual(fixed) : rowsEqual(weights);
+  }
+
+  /**
+   * Creates a matrix of exact integer weights. Channel i of the result is
+   * {@code (n[i][0] * r + n[i][1] * g + n[i][2] * b) / divisor} in integer arithmetic, clamped
+   * to 0..255.
+   *
+   * @param numerators 3x3 array of integer weights.
+   * @param divisor    common divisor of the weights.
+   * @return the matrix.
+   * @throws IllegalArgumentException if the matrix is not 3x3 or the divisor is not positive.
+   */
+  public static ColorMatrix rational(int[][] numerators, int divisor)
+          throws IllegalArgumentException {
+    if (numerators == null || numerators.length != 3) {
+      throw new IllegalArgumentException("Color matrix must be 3x3");
+    }
+    if (divisor <= 0) {
+      throw new IllegalArgumentException("Divisor must be positive");
+    }
+    long[] fixed = new long[9];
+    for (int i = 0; i < 3; i++) {
+      if (numerators[i] == null || numerators[i].length != 3) {
+        throw new IllegalArgumentException("Color matrix must be 3x3");
+      }
+      for (int j = 0; j < 3; j++) {
+        fixed[3 * i + j] = numerators[i][j];
+      }
+    }
+    return new ColorMatrix(null, fixed, divisor);
+  }
+
+  /**
+   * Copies a 3x3 matrix of weights into a flat array, row by row.
+   *
+   * @param matrix 3x3 array of weights.
+   * @return the weights.
+   * @throws IllegalArgumentException if the matrix is not 3x3 or holds a value that is not
+   *                                  finite.
+   */
+  private static double[] flatten(double[][] matrix) throws IllegalArgumentException {
+    if (matrix == null || matrix.length != 3) {
+      throw new IllegalArgumentException("Color matrix must be 3x3");
+    }
+    double[] weights = new double[9];
+    for (int i = 0; i < 3; i++) {
+      if (matrix[i] == null || matrix[i].length != 3) {
+        throw new IllegalArgumentException("Color matrix must be 3x3");
+      }
+      for (int j = 0; j < 3; j++) {
+        if (!Double.isFinite(matrix[i][j])) {
+          throw new IllegalArgumentException("Color matrix values must be finite");
+        }
+        weights[3 * i + j] = matrix[i][j];
+      }
+    }
+    return weights;
+  }
+
+  /**
+   * Tells whether the three rows of a flat matrix are equal.
+   *
+   * @param values weights row by row.
+   * @return true if every row is equal to the first.
+   */
+  private static boolean rowsEqual(double[] values) {
+    for (int i = 3; i < 9; i++) {
+      if (Double.compare(values[i], values[i % 3]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tells whether the three rows of a flat matrix are equal.
+   *
+   * @param values weights row by row.
+   * @return true if every row is equal to the first.
+   */
+  private static boolean rowsEqual(long[] values) {
+    for (int i = 3; i < 9; i++) {
+      if (values[i] != values[i % 3]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes one channel of the result.
+   *
+   * @param row index of the first weight of the row of the channel.
+   * @param r   red value of the pixel.
+   * @param g   green value of the pixel.
+   * @param b   blue value of the pixel.
+   * @return the channel value clamped to 0..255.
+   */
+  private int channel(int row, int r, int g, int b) {
+    if (divisor > 0) {
+      return clamp((fixed[row] * r + fixed[row + 1] * g + fixed[row + 2] * b) / divisor);
+    }
+    if (fixed != null) {
+      long sum = fixed[row] * r + fixed[row + 1] * g + fixed[row + 2] * b;
+      long fraction = sum & FRACTION;
+      if (fraction >= MARGIN && fraction <= FRACTION + 1 - MARGIN) {
+        return clamp(sum >> SHIFT);
+      }
+    }
+    return clamp((int) (weights[row] * r + weights[row + 1] * g + weights[row + 2] * b));
+  }
+
+  /**
+   * Maps a pixel through the matrix.
+   *
+   * @param rgb pixel packed as 0xRRGGBB.
+   * @return the new pixel packed as 0xRRGGBB.
+   */
+  @Override
+  public int apply(int rgb) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
+    if (gray) {
+      return channel(0, r, g, b) * 0x010101;
+    }
+    return (channel(0, r, g, b) << 16) | (channel(3, r, g, b) << 8) | channel(6, r, g, b);
+  }
+
+  /**
+   * Maps the first length pixels of a row through the matrix, in place.
+   *
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels to map.
+   */
+  @Override
+  public void apply(int[] row, int length) {
+    if (KernelBackend.kernels().applyMatrix(this, row, length, false)) {
+      return;
+    }
+    for (int x = 0; x < length; x++) {
+      row[x] = apply(row[x]);
+    }
+  }
+
+  /**
+   * Maps the first length pixels of a row to the gray levels given by the first row of the
+   * matrix, in place. This is meant for gray matrices, whose rows are all equal.
+   *
+   * @param row    pixels packed as 0xRRGGBB, replaced by gray levels.
+   * @param length number of pixels to map.
+   */
+  public void applyGray(int[] row, int length) {
+    if (KernelBackend.kernels().applyMatrix(this, row, length, true)) {
+      return;
+    }
+    for (int x = 0; x < length; x++) {
+      row[x] = level(row[x]);
+    }
+  }
+
+  /**
+   * Gives the gray level of a pixel according to the first row of the matrix.
+   *
+   * @param rgb pixel packed as 0xRRGGBB.
+   * @return the first channel of the result.
+   */
+  int level(int rgb) {
+    return channel(0, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+  }
+
+  /**
+   * Gives the integer weights of the matrix for the pixel kernels, fixed-point weights scaled
+   * by 2^SHIFT or the numerators of a rational matrix.
+   *
+   * @return the integer weights row by row, or null if the weights only exist as doubles.
+   */
+  long[] integerWeights() {
+    return fixed;
+  }
+
+  /**
+   * Gives the common divisor of a rational matrix.
+   *
+   * @return the divisor, or 0 for fixed-point matrices.
+   */
+  int divisor() {
+    return divisor;
+  }
+
+  /**
+   * Tells whether all rows of the matrix are equal, so that every result is gray.
+   *
+   * @return true for gray matrices.
+   */
+  public boolean isGray() {
+    return gray;
+  }
+
+  /**
+   * Tells whether the matrix maps every gray pixel to itself, so that applying it to a
+   * grayscale image leaves the image unchanged.
+   *
+   * @return true if every gray level is preserved.
+   */
+  public boolean preservesGray() {
+    for (int level = 0; level < 256; level++) {
+      if (apply(level * 0x010101) != level * 0x010101) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Clamps a channel value to 0..255.
+   *
+   * @param value channel value.
+   * @return the clamped value.
+   */
+  private static int clamp(long value) {
+    return (int) Math.min(Math.max(value, 0), 255);
+  }
+}
@@ -0,0 +1,123 @@
+package imagemodel;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * An image in which every pixel has the same color. It stores the color only, so creating it
+ * takes constant time and memory whatever its dimensions.
+ */
+public class ConstantImage extends AbstractImage {
+
+  private final int rgb;
+  private final int width;
+  private final int height;
+
+  /**
+   * Class constructor that creates an image of a single color.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @param rgb    color of every pixel packed as 0xRRGGBB.
+   * @throws IllegalArgumentException when the dimensions or the color are invalid.
+   */
+  public ConstantImage(int width, int height, int rgb) throws IllegalArgumentException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image dimensions");
+    }
+    if ((rgb & ~0xFFFFFF) != 0) {
+      throw new IllegalArgumentException("Invalid pixel value for red/green/blue");
+    }
+    this.rgb = rgb;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Gives the color of the image.
+   *
+   * @return the color of every pixel packed as 0xRRGGBB.
+   */
+  public int getColor() {
+    return rgb;
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    return rgb;
+  }
+
+  /**
+   * The getRow method copies one row of the image into the given array as packed 0xRRGGBB
+   * values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row, a new array is allocated when it is null or shorter
+   *            than the width of the image.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    Arrays.fill(dst, 0, width, rgb);
+    return dst;
+  }
+
+  /**
+   * The getRaster method returns a read-only copy of the whole image as packed 0xRRGGBB values
+   * laid out row by row.
+   *
+   * @return a read-only buffer of width * height packed values.
+   */
+  @Override
+  public IntBuffer getRaster() {
+    int[] raster = new int[Math.multiplyExact(width, height)];
+    Arrays.fill(raster, rgb);
+    return IntBuffer.wrap(raster).asReadOnlyBuffer();
+  }
+
+  /**
+   * The isGrayscale method tells whether the image stores a single gray level per pixel.
+   *
+   * @return false, the color is stored as RGB.
+   */
+  @Override
+  public boolean isGrayscale() {
+    return false;
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+}
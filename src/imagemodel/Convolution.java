@@ -0,0 +1,1038 @@
+package imagemodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A convolution kernel prepared for applying to images. Each channel of the result is the sum,
+ * over the kernel, of the channel of the source pixel under the weight times the weight,
+ * truncated towards zero and clamped to 0..255. A sum within a tolerance, a billionth of the
+ * largest sum the kernel can reach, below an integer counts as that integer, so that every way
+ * of computing the sum below gives the same result whatever the rounding of its arithmetic.
+ * Pixels outside of the image are replaced by the nearest pixel on its edge.
+ *
+ * <p>When the kernel is a sum of few outer products of a column and a row, such as the blur
+ * kernel which is the outer product of [1, 2, 1] / 4 with itself, it is applied as a horizontal
+ * pass followed by a vertical pass for every term, which costs the length of the row and column
+ * instead of the area of the kernel. The terms are only used when every sum they produce is
+ * exact in double precision, which makes the results bit-identical to the direct sum.
+ *
+ * <p>When the weights are integers over a common denominator, the sums are computed in int and
+ * divided by the denominator, or shifted when it is a power of two. With a power of two the
+ * double sums are exact, so the quotient is the truncated result. With another denominator the
+ * exact fraction is at least one over the denominator away from any integer it is not equal to,
+ * far more than the tolerance, so the quotient of the integer sum plus the tolerance scaled by
+ * the denominator is the result. The blur kernel,
+ * in sixteenths, and the sharpen kernel, in eighths, have their own integer loops: blur is run
+ * as two [1, 2, 1] passes on the three channels packed in a long, and sharpen as the sum of a
+ * 5x5 box, three times a 3x3 box and six times the centre, shifted right by three.
+ *
+ * <p>Every other way costs at least one multiplication per weight, so kernels of a few dozen
+ * weights and more are applied through the Fourier transform when a cost model, which compares
+ * the weights of the direct or separable sums with the transforms of the best tiles for the size
+ * of the image, estimates that it does less work. The pixels outside of the image may also be
+ * read by reflecting or wrapping the image, or taken as black.
+ */
+public final class Convolution {
+
+  private static final double EXACT_LIMIT = 0x1p52;
+  private static final int SEARCH_AREA = 625;
+  private static final int MAX_DENOMINATOR = 1 << 12;
+  private static final int[][] BINOMIAL = {{1, 2, 1}, {2, 4, 2}, {1, 2, 1}};
+  private static final int[][] SHARPEN = {
+      {-1, -1, -1, -1, -1},
+      {-1, 2, 2, 2, -1},
+      {-1, 2, 8, 2, -1},
+      {-1, 2, 2, 2, -1},
+      {-1, -1, -1, -1, -1}};
+  private static final long LANE = 0xFFFF;
+  private static final double FIXED_POINT_COST = 0.6;
+  private static final double ROUNDING = 1e-9;
+
+  private final double[][] kernel;
+  private final int radiusX;
+  private final int radiusY;
+  private final List<Term> terms;
+  private final int[][] integerWeights;
+  private final int denominator;
+  private final int shift;
+  private final int bias;
+  private final double tolerance;
+  private final boolean binomial;
+  private final boolean sharpen;
+  private final boolean separableFirst;
+
+  /**
+   * One outer product of a column and a row of the kernel, with the range of its nonzero
+   * weights.
+   */
+  private static final class Term {
+    private final double[] column;
+    private final double[] row;
+    private final int top;
+    private final int bottom;
+    private final int left;
+    private final int right;
+
+    /**
+     * Creates a term and finds the nonzero range of its column and row.
+     *
+     * @param column weights of the rows of the kernel.
+     * @param row    weights of the columns of the kernel.
+     */
+    Term(double[] column, double[] row) {
+      this.column = column;
+      this.row = row;
+      this.top = first(column);
+      this.bottom = last(column);
+      this.left = first(row);
+      this.right = last(row);
+    }
+
+    /**
+     * Gives the number of weights a pixel of the term is computed from.
+     *
+     * @return the cost of the term.
+     */
+    int cost() {
+      return (bottom - top + 1) + (right - left + 1);
+    }
+
+    /**
+     * Finds the first nonzero weight.
+     *
+     * @param weights weights of the term.
+     * @return index of the first nonzero weight.
+     */
+    private static int first(double[] weights) {
+      int i = 0;
+      while (i < weights.length - 1 && weights[i] == 0) {
+        i++;
+      }
+      return i;
+    }
+
+    /**
+     * Finds the last nonzero weight.
+     *
+     * @param weights weights of the term.
+     * @return index of the last nonzero weight.
+     */
+    private static int last(double[] weights) {
+      int i = weights.length - 1;
+      while (i > 0 && weights[i] == 0) {
+        i--;
+      }
+      return i;
+    }
+  }
+
+  /**
+   * The ways a kernel can be applied.
+   */
+  public enum Strategy {
+    /**
+     * Every weight is multiplied in double precision.
+     */
+    DIRECT,
+    /**
+     * Every separable term is applied as a horizontal and a vertical pass.
+     */
+    SEPARABLE,
+    /**
+     * The weights are integers over a common denominator and summed in integer arithmetic.
+     */
+    FIXED_POINT,
+    /**
+     * The kernel is multiplied with the image in the frequency domain, tile by tile.
+     */
+    FFT
+  }
+
+  /**
+   * A builder that keeps a window of the rows written into it, shifted to the origin, and
+   * forwards them to another builder.
+   */
+  private static final class CroppingBuilder implements ImageBuilderInterface {
+    private final ImageBuilderInterface target;
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+
+    /**
+     * Wraps a builder.
+     *
+     * @param target the builder the window is written into.
+     * @param left   first column of the window.
+     * @param top    first row of the window.
+     * @param width  width of the window, that of the target.
+     * @param height height of the window, that of the target.
+     */
+    CroppingBuilder(ImageBuilderInterface target, int left, int top, int width, int height) {
+      this.target = target;
+      this.left = left;
+      this.top = top;
+      this.width = width;
+      this.height = height;
+    }
+
+    /**
+     * Forwards the columns of the window of a row inside the window.
+     *
+     * @param y   index of the row.
+     * @param src the row, at least as wide as the window and its left margin.
+     */
+    @Override
+    public void setRow(int y, int[] src) {
+      if (y >= top && y < top + height) {
+        target.setRow(y - top, Arrays.copyOfRange(src, left, left + width));
+      }
+    }
+
+    /**
+     * Forwards a pixel inside the window.
+     *
+     * @param x   column of the pixel.
+     * @param y   row of the pixel.
+     * @param rgb packed RGB value.
+     */
+    @Override
+    public void setRGB(int x, int y, int rgb) {
+      if (x >= left && x < left + width && y >= top && y < top + height) {
+        target.setRGB(x - left, y - top, rgb);
+      }
+    }
+
+    /**
+     * Forwards a pixel inside the window.
+     *
+     * @param x     column of the pixel.
+     * @param y     row of the pixel.
+     * @param pixel the pixel.
+     */
+    @Override
+    public void setPixel(int x, int y, PixelInterface pixel) {
+      if (x >= left && x < left + width && y >= top && y < top + height) {
+        target.setPixel(x - left, y - top, pixel);
+      }
+    }
+
+    /**
+     * Fills the target.
+     *
+     * @param rgb packed RGB value.
+     */
+    @Override
+    public void fill(int rgb) {
+      target.fill(rgb);
+    }
+
+    /**
+     * Builds the target.
+     *
+     * @return the built image.
+     */
+    @Override
+    public ImageInterface build() {
+      return target.build();
+    }
+
+    /**
+     * Copies the target.
+     *
+     * @return a copy of the target.
+     */
+    @Override
+    public ImageInterface deepCopyImage() {
+      return target.deepCopyImage();
+    }
+  }
+
+  /**
+   * Prepares a kernel. The kernel is copied.
+   *
+   * @param kernel weights, kernel[ky][kx], with an odd number of rows and columns.
+   * @throws IllegalArgumentException if the kernel is empty, not rectangular, has an even
+   *                                  dimension or holds a value that is not finite.
+   */
+  public Convolution(double[][] kernel) throws IllegalArgumentException {
+    if (kernel == null || kernel.length == 0 || kernel[0] == null || kernel[0].length == 0) {
+      throw new IllegalArgumentException("Kernel cannot be empty");
+    }
+    int height = kernel.length;
+    int width = kernel[0].length;
+    if (height % 2 == 0 || width % 2 == 0) {
+      throw new IllegalArgumentException("Kernel dimensions must be odd");
+    }
+    this.kernel = new double[height][];
+    for (int ky = 0; ky < height; ky++) {
+      if (kernel[ky] == null || kernel[ky].length != width) {
+        throw new IllegalArgumentException("Kernel must be rectangular");
+      }
+      for (double weight : kernel[ky]) {
+        if (!Double.isFinite(weight)) {
+          throw new IllegalArgumentException("Kernel weights must be finite");
+        }
+      }
+      this.kernel[ky] = kernel[ky].clone();
+    }
+    this.radiusX = width / 2;
+    this.radiusY = height / 2;
+    this.terms = decompose(this.kernel);
+    this.denominator = commonDenominator(this.kernel);
+    this.tolerance = tolerance(this.kernel);
+    if (denominator == 0) {
+      this.integerWeights = null;
+      this.shift = -1;
+      this.bias = 0;
+    } else {
+      this.integerWeights = new int[height][width];
+      for (int ky = 0; ky < height; ky++) {
+        for (int kx = 0; kx < width; kx++) {
+          integerWeights[ky][kx] = (int) Math.rint(this.kernel[ky][kx] * denominator);
+        }
+      }
+      this.shift = Integer.bitCount(denominator) == 1
+              ? Integer.numberOfTrailingZeros(denominator) : -1;
+      this.bias = (int) Math.floor(tolerance * denominator);
+    }
+    this.binomial = denominator == 16 && Arrays.deepEquals(integerWeights, BINOMIAL);
+    this.sharpen = denominator == 8 && Arrays.deepEquals(integerWeights, SHARPEN);
+    int cost = 0;
+    if (terms != null) {
+      for (Term term : terms) {
+        cost += term.cost();
+      }
+    }
+    this.separableFirst = terms != null
+            && (integerWeights == null || 2 * cost < height * width);
+  }
+
+  /**
+   * Gives the number of separable terms the kernel decomposes into.
+   *
+   * @return the number of terms, or 0 if the kernel is not a cheaper sum of separable terms.
+   */
+  public int getTermCount() {
+    return terms == null ? 0 : terms.size();
+  }
+
+  /**
+   * Tells whether the kernel is applied as a single horizontal and vertical pass.
+   *
+   * @return true if the kernel is applied as one separable term.
+   */
+  public boolean isSeparable() {
+    return getTermCount() == 1;
+  }
+
+  /**
+   * Tells whether the sums are computed in integer arithmetic, because the weights are
+   * integers over a common denominator.
+   *
+   * @return true if the kernel is applied in fixed point.
+   */
+  public boolean isFixedPoint() {
+    return binomial || sharpen || (integerWeights != null && !separableFirst);
+  }
+
+  /**
+   * Gives the tolerance below an integer within which the sum of a channel counts as that
+   * integer, a billionth of the largest magnitude the sums of the kernel can reach. The
+   * rounding of every way of computing the sums stays far below it.
+   *
+   * @param kernel weights, kernel[ky][kx].
+   * @return the tolerance.
+   */
+  static double tolerance(double[][] kernel) {
+    double sum = 0;
+    for (double[] row : kernel) {
+      for (double weight : row) {
+        sum += Math.abs(weight);
+      }
+    }
+    return ROUNDING * Math.max(1, 255 * sum);
+  }
+
+  /**
+   * Tells whether the kernel can be applied with the given strategy. Every kernel can be summed
+   * directly or through the transform.
+   *
+   * @param strategy the strategy.
+   * @return true if apply accepts the strategy for this kernel.
+   */
+  public boolean supports(Strategy strategy) {
+    switch (strategy) {
+      case SEPARABLE:
+        return terms != null;
+      case FIXED_POINT:
+        return integerWeights != null;
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Chooses how the kernel is applied to an image of the given size. The kernels with their own
+   * integer loops and the separable ones use them. Any other kernel is summed directly, in
+   * fixed point when it can be, unless the transform is estimated to do less work for an image
+   * of that size, which happens for kernels of a few hundred weights and more.
+   *
+   * @param width  width of the image.
+   * @param height height of the image.
+   * @return the strategy apply uses for that size.
+   */
+  public Strategy strategyFor(int width, int height) {
+    if (binomial || sharpen) {
+      return Strategy.FIXED_POINT;
+    }
+    double direct = kernel.length * kernel[0].length;
+    if (separableFirst) {
+      direct = 0;
+      for (Term term : terms) {
+        direct += term.cost();
+      }
+    } else if (integerWeights != null) {
+      direct *= FIXED_POINT_COST;
+    }
+    if (width > 0 && height > 0
+            && FftConvolution.cost(kernel[0].length, kernel.length, width, height) < direct) {
+      return Strategy.FFT;
+    }
+    if (separableFirst) {
+      return Strategy.SEPARABLE;
+    }
+    return integerWeights != null ? Strategy.FIXED_POINT : Strategy.DIRECT;
+  }
+
+  /**
+   * Applies the kernel to an image, writing the rows of the result into the given builder.
+   * Pixels outside of the image are replaced by the nearest pixel on its edge.
+   *
+   * @param image    the source image.
+   * @param builder  builder of the size of the image that receives the result.
+   * @param executor runs the bands of rows.
+   * @return the built result.
+   * @throws IllegalArgumentException if an argument is null.
+   */
+  public ImageInterface apply(ImageInterface image, ImageBuilderInterface builder,
+                              BandExecutor executor) throws IllegalArgumentException {
+    return apply(image, builder, executor, EdgeMode.REPLICATE);
+  }
+
+  /**
+   * Applies the kernel to an image with the given edge mode, writing the rows of the result
+   * into the given builder. The loops that sum in the image replicate its edges, so for the
+   * other modes they run on the image padded by the radius of the kernel through the edge mode,
+   * and only the rows and columns of the image are kept.
+   *
+   * @param image    the source image.
+   * @param builder  builder of the size of the image that receives the result.
+   * @param executor runs the bands of rows.
+   * @param edges    how the pixels outside of the image are read.
+   * @return the built result.
+   * @throws IllegalArgumentException if an argument is null.
+   */
+  public ImageInterface apply(ImageInterface image, ImageBuilderInterface builder,
+                              BandExecutor executor, EdgeMode edges)
+          throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Arguments cannot be null");
+    }
+    return apply(image, builder, executor, edges,
+            strategyFor(image.getWidth(), image.getHeight()));
+  }
+
+  /**
+   * Applies the kernel to an image with the given edge mode and strategy, writing the rows of
+   * the result into the given builder. Every strategy the kernel supports gives the same
+   * result, only the work differs.
+   *
+   * @param image    the source image.
+   * @param builder  builder of the size of the image that receives the result.
+   * @param executor runs the bands of rows.
+   * @param edges    how the pixels outside of the image are read.
+   * @param strategy how the sums are computed.
+   * @return the built result.
+   * @throws IllegalArgumentException if an argument is null or the kernel does not support the
+   *                                  strategy.
+   */
+  public ImageInterface apply(ImageInterface image, ImageBuilderInterface builder,
+                              BandExecutor executor, EdgeMode edges, Strategy strategy)
+          throws IllegalArgumentException {
+    if (image == null || builder == null || executor == null || edges == null
+            || strategy == null) {
+      throw new IllegalArgumentException("Arguments cannot be null");
+    }
+    if (!supports(strategy)) {
+      throw new IllegalArgumentException("Kernel does not support " + strategy);
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    if (strategy == Strategy.FFT) {
+      return new FftConvolution(kernel).apply(image, builder, executor, edges);
+    }
+    boolean padded = edges != EdgeMode.REPLICATE;
+    ImageInterface source = padded ? new PaddedImage(image, radiusX, radiusY, edges) : image;
+    ImageBuilderInterface target = padded
+            ? new CroppingBuilder(builder, radiusX, radiusY, width, height) : builder;
+    int top = padded ? radiusY : 0;
+    executor.forEachBand(width, height, (from, to) -> {
+      if (strategy == Strategy.SEPARABLE) {
+        applySeparable(source, target, from + top, to + top);
+      } else if (strategy == Strategy.DIRECT) {
+        applyDirect(source, target, from + top, to + top, false);
+      } else if (binomial) {
+        applyBinomial(source, target, from + top, to + top);
+      } else if (sharpen) {
+        applySharpen(source, target, from + top, to + top);
+      } else {
+        applyDirect(source, target, from + top, to + top, true);
+      }
+    });
+    return builder.build();
+  }
+
+  /**
+   * Computes a band of rows with the full kernel, in double precision or in fixed point. The
+   * source rows are read once each into a ring, rows outside of the image being replaced by the
+   * first or last row, and the rows under the kernel are picked from the ring for every result
+   * row.
+   *
+   * @param image      the source image.
+   * @param builder    receives the result.
+   * @param from       first row of the band.
+   * @param to         row after the last row of the band.
+   * @param fixedPoint whether the sums are computed with the integer weights.
+   */
+  private void applyDirect(ImageInterface image, ImageBuilderInterface builder, int from,
+                           int to, boolean fixedPoint) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int size = kernel.length;
+    int[][] ring = new int[size][width];
+    int[][] rows = new int[size][];
+    int[] result = new int[width];
+    for (int yy = from - radiusY; yy < from + radiusY; yy++) {
+      image.getRow(Math.min(Math.max(yy, 0), height - 1), ring[Math.floorMod(yy, size)]);
+    }
+    for (int y = from; y < to; y++) {
+      int next = y + radiusY;
+      image.getRow(Math.min(Math.max(next, 0), height - 1), ring[Math.floorMod(next, size)]);
+      for (int ky = 0; ky < size; ky++) {
+        rows[ky] = ring[Math.floorMod(y + ky - radiusY, size)];
+      }
+      if (fixedPoint) {
+        convolveFixedPoint(rows, result, width);
+      } else {
+        KernelBackend.kernels().convolve(rows, kernel, tolerance, result, width);
+      }
+      builder.setRow(y, result);
+    }
+  }
+
+  /**
+   * Computes a band of rows term by term. The horizontal pass of every source row the band
+   * needs is computed once and kept in a ring of rows, one ring per term, which the vertical
+   * pass then sums.
+   *
+   * @param image   the source image.
+   * @param builder receives the result.
+   * @param from    first row of the band.
+   * @param to      row after the last row of the band.
+   */
+  private void applySeparable(ImageInterface image, ImageBuilderInterface builder, int from,
+                              int to) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int size = 2 * radiusY + 1;
+    double[][][] rings = new double[terms.size()][size][3 * width];
+    int[] source = new int[width];
+    int[][] channels = new int[3][width];
+    double[] sums = new double[3 * width];
+    int[] result = new int[width];
+    for (int yy = from - radiusY; yy < to + radiusY; yy++) {
+      image.getRow(Math.min(Math.max(yy, 0), height - 1), source);
+      for (int x = 0; x < width; x++) {
+        channels[0][x] = (source[x] >> 16) & 0xFF;
+        channels[1][x] = (source[x] >> 8) & 0xFF;
+        channels[2][x] = source[x] & 0xFF;
+      }
+      int slot = Math.floorMod(yy, size);
+      for (int t = 0; t < terms.size(); t++) {
+        horizontalPass(terms.get(t), channels, rings[t][slot], width);
+      }
+      int y = yy - radiusY;
+      if (y < from) {
+        continue;
+      }
+      Arrays.fill(sums, 0);
+      for (int t = 0; t < terms.size(); t++) {
+        Term term = terms.get(t);
+        for (int ky = term.top; ky <= term.bottom; ky++) {
+          double weight = term.column[ky];
+          double[] filtered = rings[t][Math.floorMod(y + ky - radiusY, size)];
+          for (int i = 0; i < sums.length; i++) {
+            sums[i] += filtered[i] * weight;
+          }
+        }
+      }
+      for (int x = 0; x < width; x++) {
+        result[x] = (ScalarKernels.clamp((int) (sums[x] + tolerance)) << 16)
+                | (ScalarKernels.clamp((int) (sums[width + x] + tolerance)) << 8)
+                | ScalarKernels.clamp((int) (sums[2 * width + x] + tolerance));
+      }
+      builder.setRow(y, result);
+    }
+  }
+
+  /**
+   * Filters the channels of one source row with the row of a term. The columns the row of the
+   * term reaches past an edge are clamped, the columns between them are read at fixed offsets.
+   *
+   * @param term     the term.
+   * @param channels red, green and blue values of the source row.
+   * @param dst      receives the filtered red, green and blue rows one after the other.
+   * @param width    width of the rows.
+   */
+  private void horizontalPass(Term term, int[][] channels, double[] dst, int width) {
+    int left = term.left - radiusX;
+    int right = term.right - radiusX;
+    int interiorFrom = Math.min(Math.max(-left, 0), width);
+    int interiorTo = Math.max(Math.min(width - right, width), interiorFrom);
+    double[] weights = term.row;
+    for (int c = 0; c < 3; c++) {
+      int[] values = channels[c];
+      int offset = c * width;
+      for (int x = 0; x < interiorFrom; x++) {
+        dst[offset + x] = filterBorder(term, values, x, width);
+      }
+      for (int x = interiorFrom; x < interiorTo; x++) {
+        double sum = 0;
+        int start = x - radiusX;
+        for (int kx = term.left; kx <= term.right; kx++) {
+          sum += values[start + kx] * weights[kx];
+        }
+        dst[offset + x] = sum;
+      }
+      for (int x = interiorTo; x < width; x++) {
+        dst[offset + x] = filterBorder(term, values, x, width);
+      }
+    }
+  }
+
+  /**
+   * Filters one column near an edge with the row of a term, clamping the columns to the row.
+   *
+   * @param term   the term.
+   * @param values channel values of the source row.
+   * @param x      the column.
+   * @param width  width of the row.
+   * @return the filtered value.
+   */
+  private double filterBorder(Term term, int[] values, int x, int width) {
+    double sum = 0;
+    for (int kx = term.left; kx <= term.right; kx++) {
+      sum += values[Math.min(Math.max(x + kx - radiusX, 0), width - 1)] * term.row[kx];
+    }
+    return sum;
+  }
+
+  /**
+   * Convolves one row in fixed point. The columns within the radius of the kernel from an edge
+   * are clamped, the others are read at fixed offsets.
+   *
+   * @param rows  the source rows under the kernel, rows[ky] for kernel row ky.
+   * @param dst   array that receives the packed result.
+   * @param width width of the rows.
+   */
+  private void convolveFixedPoint(int[][] rows, int[] dst, int width) {
+    int kernelWidth = 2 * radiusX + 1;
+    int interiorFrom = Math.min(radiusX, width);
+    int interiorTo = Math.max(width - radiusX, interiorFrom);
+    for (int x = 0; x < width; x++) {
+      if (x == interiorFrom) {
+        x = interiorTo;
+        if (x == width) {
+          break;
+        }
+      }
+      int red = 0;
+      int green = 0;
+      int blue = 0;
+      for (int ky = 0; ky < rows.length; ky++) {
+        int[] row = rows[ky];
+        int[] weights = integerWeights[ky];
+        for (int kx = 0; kx < kernelWidth; kx++) {
+          int rgb = row[Math.min(Math.max(x + kx - radiusX, 0), width - 1)];
+          red += ((rgb >> 16) & 0xFF) * weights[kx];
+          green += ((rgb >> 8) & 0xFF) * weights[kx];
+          blue += (rgb & 0xFF) * weights[kx];
+        }
+      }
+      dst[x] = (quotient(red) << 16) | (quotient(green) << 8) | quotient(blue);
+    }
+    for (int x = interiorFrom; x < interiorTo; x++) {
+      int left = x - radiusX;
+      int red = 0;
+      int green = 0;
+      int blue = 0;
+      for (int ky = 0; ky < rows.length; ky++) {
+        int[] row = rows[ky];
+        int[] weights = integerWeights[ky];
+        for (int kx = 0; kx < kernelWidth; kx++) {
+          int rgb = row[left + kx];
+          red += ((rgb >> 16) & 0xFF) * weights[kx];
+          green += ((rgb >> 8) & 0xFF) * weights[kx];
+          blue += (rgb & 0xFF) * weights[kx];
+        }
+      }
+      dst[x] = (quotient(red) << 16) | (quotient(green) << 8) | quotient(blue);
+    }
+  }
+
+  /**
+   * Truncates an integer sum plus the tolerance, both over the denominator, and clamps it to
+   * 0..255.
+   *
+   * @param sum integer sum of a channel.
+   * @return the channel value.
+   */
+  private int quotient(int sum) {
+    long biased = (long) sum + bias;
+    if (biased <= 0) {
+      return 0;
+    }
+    if (shift >= 0) {
+      return (int) Math.min(biased >> shift, 255);
+    }
+    return (int) Math.min(biased / denominator, 255);
+  }
+
+  /**
+   * Computes a band of rows of the blur kernel. The channels of a pixel are spread into 16-bit
+   * lanes of a long, which hold the [1, 2, 1] sums of both passes without carrying into each
+   * other, and the result is the sum shifted right by four.
+   *
+   * @param image   the source image.
+   * @param builder receives the result.
+   * @param from    first row of the band.
+   * @param to      row after the last row of the band.
+   */
+  private void applyBinomial(ImageInterface image, ImageBuilderInterface builder, int from,
+                             int to) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    long[][] ring = new long[3][width];
+    int[] source = new int[width];
+    int[] result = new int[width];
+    for (int yy = from - 1; yy <= to; yy++) {
+      image.getRow(Math.min(Math.max(yy, 0), height - 1), source);
+      long[] filtered = ring[Math.floorMod(yy, 3)];
+      long left = spread(source[0]);
+      long center = left;
+      for (int x = 0; x < width; x++) {
+        long right = x + 1 < width ? spread(source[x + 1]) : center;
+        filtered[x] = left + 2 * center + right;
+        left = center;
+        center = right;
+      }
+      int y = yy - 1;
+      if (y < from) {
+        continue;
+      }
+      long[] above = ring[Math.floorMod(y - 1, 3)];
+      long[] middle = ring[Math.floorMod(y, 3)];
+      long[] below = ring[Math.floorMod(y + 1, 3)];
+      for (int x = 0; x < width; x++) {
+        long sum = above[x] + 2 * middle[x] + below[x];
+        result[x] = (int) (((sum >> 36) & 0xFF) << 16 | ((sum >> 20) & 0xFF) << 8
+                | ((sum >> 4) & 0xFF));
+      }
+      builder.setRow(y, result);
+    }
+  }
+
+  /**
+   * Computes a band of rows of the sharpen kernel, which is in eighths the sum of minus a 5x5
+   * box, three times a 3x3 box and six times the centre. The box sums are computed on the
+   * channels packed in 16-bit lanes of a long, horizontally once per source row and vertically
+   * once per result row.
+   *
+   * @param image   the source image.
+   * @param builder receives the result.
+   * @param from    first row of the band.
+   * @param to      row after the last row of the band.
+   */
+  private void applySharpen(ImageInterface image, ImageBuilderInterface builder, int from,
+                            int to) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    long[][] centers = new long[5][width];
+    long[][] boxes3 = new long[5][width];
+    long[][] boxes5 = new long[5][width];
+    int[] source = new int[width];
+    int[] result = new int[width];
+    for (int yy = from - 2; yy < to + 2; yy++) {
+      image.getRow(Math.min(Math.max(yy, 0), height - 1), source);
+      int slot = Math.floorMod(yy, 5);
+      long[] spread = centers[slot];
+      for (int x = 0; x < width; x++) {
+        spread[x] = spread(source[x]);
+      }
+      long[] box3 = boxes3[slot];
+      long[] box5 = boxes5[slot];
+      for (int x = 0; x < width; x++) {
+        long inner = spread[Math.max(x - 1, 0)] + spread[x] + spread[Math.min(x + 1, width - 1)];
+        box3[x] = inner;
+        box5[x] = inner + spread[Math.max(x - 2, 0)] + spread[Math.min(x + 2, width - 1)];
+      }
+      int y = yy - 2;
+      if (y < from) {
+        continue;
+      }
+      long[] center = centers[Math.floorMod(y, 5)];
+      long[] b3a = boxes3[Math.floorMod(y - 1, 5)];
+      long[] b3b = boxes3[Math.floorMod(y, 5)];
+      long[] b3c = boxes3[Math.floorMod(y + 1, 5)];
+      long[] b5a = boxes5[Math.floorMod(y - 2, 5)];
+      long[] b5b = boxes5[Math.floorMod(y - 1, 5)];
+      long[] b5c = boxes5[Math.floorMod(y, 5)];
+      long[] b5d = boxes5[Math.floorMod(y + 1, 5)];
+      long[] b5e = boxes5[Math.floorMod(y + 2, 5)];
+      for (int x = 0; x < width; x++) {
+        long small = b3a[x] + b3b[x] + b3c[x];
+        long large = b5a[x] + b5b[x] + b5c[x] + b5d[x] + b5e[x];
+        long centre = center[x];
+        int red = sharpenChannel(large >> 32, small >> 32, centre >> 32);
+        int green = sharpenChannel(large >> 16, small >> 16, centre >> 16);
+        int blue = sharpenChannel(large, small, centre);
+        result[x] = (red << 16) | (green << 8) | blue;
+      }
+      builder.setRow(y, result);
+    }
+  }
+
+  /**
+   * Combines the box sums of one channel into the sharpened value.
+   *
+   * @param large  lane holding the 5x5 box sum in its low 16 bits.
+   * @param small  lane holding the 3x3 box sum in its low 16 bits.
+   * @param centre lane holding the centre value in its low 16 bits.
+   * @return the channel value truncated and clamped to 0..255.
+   */
+  private static int sharpenChannel(long large, long small, long centre) {
+    int sum = 3 * (int) (small & LANE) + 6 * (int) (centre & LANE) - (int) (large & LANE);
+    return sum <= 0 ? 0 : Math.min(sum >> 3, 255);
+  }
+
+  /**
+   * Spreads the channels of a pixel into the 16-bit lanes of a long.
+   *
+   * @param rgb pixel packed as 0xRRGGBB.
+   * @return red in bits 32 to 47, green in bits 16 to 31 and blue in bits 0 to 15.
+   */
+  private static long spread(int rgb) {
+    return ((rgb & 0xFF0000L) << 16) | ((rgb & 0xFF00L) << 8) | (rgb & 0xFFL);
+  }
+
+  /**
+   * Finds the smallest denominator up to 4096 that turns every weight into an integer, such
+   * that each weight is the double nearest to its fraction, the integer sums cannot overflow
+   * and the double sums stay well within one over the denominator of the exact fraction.
+   *
+   * @param kernel the kernel.
+   * @return the denominator, or 0 if there is none.
+   */
+  private static int commonDenominator(double[][] kernel) {
+    int area = kernel.length * kernel[0].length;
+    for (int d = 1; d <= MAX_DENOMINATOR; d++) {
+      double sum = 0;
+      boolean fits = true;
+      for (int ky = 0; ky < kernel.length && fits; ky++) {
+        for (double weight : kernel[ky]) {
+          double numerator = Math.rint(weight * d);
+          if (numerator / d != weight) {
+            fits = false;
+            break;
+          }
+          sum += Math.abs(numerator);
+        }
+      }
+      if (fits) {
+        boolean small = 255 * sum <= Integer.MAX_VALUE
+                && Math.scalb(255 * (sum / d) * (area + 2), -48) < 1.0 / d;
+        return small ? d : 0;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Decomposes a kernel into a sum of outer products. Each step takes the outer product of the
+   * column and row through a nonzero pivot of what is left of the kernel, choosing the pivot
+   * that leaves the fewest nonzero weights. The decomposition is only kept when it is cheaper
+   * than the kernel and its sums are exact.
+   *
+   * @param kernel the kernel.
+   * @return the terms, or null if the kernel is to be applied directly.
+   */
+  private static List<Term> decompose(double[][] kernel) {
+    int height = kernel.length;
+    int width = kernel[0].length;
+    double[][] residual = new double[height][];
+    for (int ky = 0; ky < height; ky++) {
+      residual[ky] = kernel[ky].clone();
+    }
+    boolean search = height * width <= SEARCH_AREA;
+    List<Term> terms = new ArrayList<>();
+    int cost = 0;
+    while (nonzeros(residual) > 0) {
+      if (terms.size() == Math.min(height, width)) {
+        return null;
+      }
+      Term best = null;
+      double[][] bestResidual = null;
+      int bestNonzeros = Integer.MAX_VALUE;
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          if (residual[i][j] == 0 || (!search && !isLargest(residual, i, j))) {
+            continue;
+          }
+          double[] column = new double[height];
+          double[] row = new double[width];
+          for (int ky = 0; ky < height; ky++) {
+            column[ky] = residual[ky][j];
+          }
+          for (int kx = 0; kx < width; kx++) {
+            row[kx] = residual[i][kx] / residual[i][j];
+          }
+          double[][] next = new double[height][width];
+          for (int ky = 0; ky < height; ky++) {
+            for (int kx = 0; kx < width; kx++) {
+              next[ky][kx] = residual[ky][kx] - column[ky] * row[kx];
+            }
+          }
+          Term term = new Term(column, row);
+          int count = nonzeros(next);
+          if (count < bestNonzeros || (count == bestNonzeros && term.cost() < best.cost())) {
+            best = term;
+            bestResidual = next;
+            bestNonzeros = count;
+          }
+        }
+      }
+      terms.add(best);
+      cost += best.cost();
+      residual = bestResidual;
+    }
+    if (terms.isEmpty() || cost >= height * width || !isExact(kernel, terms)) {
+      return null;
+    }
+    return terms;
+  }
+
+  /**
+   * Tells whether a weight has the largest magnitude of the kernel, the only pivots tried for
+   * large kernels.
+   *
+   * @param kernel the kernel.
+   * @param i      row of the weight.
+   * @param j      column of the weight.
+   * @return true if no weight is larger.
+   */
+  private static boolean isLargest(double[][] kernel, int i, int j) {
+    double magnitude = Math.abs(kernel[i][j]);
+    for (double[] row : kernel) {
+      for (double weight : row) {
+        if (Math.abs(weight) > magnitude) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Counts the nonzero weights of a kernel.
+   *
+   * @param kernel the kernel.
+   * @return the number of nonzero weights.
+   */
+  private static int nonzeros(double[][] kernel) {
+    int count = 0;
+    for (double[] row : kernel) {
+      for (double weight : row) {
+        if (weight != 0) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Checks that every sum of the separable and the direct computation is exact, and that the
+   * terms add up to the kernel. Every weight of the terms is a multiple of a power of two, so
+   * all the products and sums are multiples of the product of the finest rows and columns,
+   * and they are exact as long as they stay below 2^53 of those units.
+   *
+   * @param kernel the kernel.
+   * @param terms  the terms.
+   * @return true if the terms give bit-identical results.
+   */
+  private static boolean isExact(double[][] kernel, List<Term> terms) {
+    int rowScale = 0;
+    int columnScale = 0;
+    double bound = 0;
+    for (Term term : terms) {
+      double columnSum = 0;
+      double rowSum = 0;
+      for (double weight : term.column) {
+        columnScale = Math.max(columnScale, scale(weight));
+        columnSum += Math.abs(weight);
+      }
+      for (double weight : term.row) {
+        rowScale = Math.max(rowScale, scale(weight));
+        rowSum += Math.abs(weight);
+      }
+      bound += columnSum * rowSum;
+    }
+    if (rowScale + columnScale > 1000
+            || Math.scalb(255 * bound, rowScale + columnScale) >= EXACT_LIMIT) {
+      return false;
+    }
+    for (int ky = 0; ky < kernel.length; ky++) {
+      for (int kx = 0; kx < kernel[0].length; kx++) {
+        double sum = 0;
+        for (Term term : terms) {
+          sum += term.column[ky] * term.row[kx];
+        }
+        if (sum != kernel[ky][kx]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gives the smallest power of two that turns a weight into an integer.
+   *
+   * @param weight the weight.
+   * @return the exponent e such that weight * 2^e is an odd integer or zero, or a large value
+   *         for subnormal weights.
+   */
+  private static int scale(double weight) {
+    if (weight == 0) {
+      return 0;
+    }
+    if (Math.abs(weight) < Double.MIN_NORMAL) {
+      return Integer.MAX_VALUE / 2;
+    }
+    long mantissa = (Double.doubleToLongBits(weight) & ((1L << 52) - 1)) | (1L << 52);
+    return Math.max(0, 52 - Math.getExponent(weight) - Long.numberOfTrailingZeros(mantissa));
+  }
+}
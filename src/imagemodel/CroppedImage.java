@@ -0,0 +1,150 @@
+package imagemodel;
+
+/**
+ * A view of a rectangular region of its source, without copying it.
+ */
+public class CroppedImage extends ImageView {
+
+  private final int left;
+  private final int top;
+  private final int width;
+  private final int height;
+
+  /**
+   * Creates a view of a region of the given source.
+   *
+   * @param source  image the view reads from.
+   * @param left    first column of the region.
+   * @param top     first row of the region.
+   * @param width   of the region.
+   * @param height  of the region.
+   * @param storage storage a materialized copy is created in.
+   * @throws IllegalArgumentException if the source or storage is null, or the region is empty
+   *                                  or not inside the source.
+   */
+  public CroppedImage(ImageInterface source, int left, int top, int width, int height,
+                      ImageStorage storage) throws IllegalArgumentException {
+    super(source, storage);
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image dimensions");
+    }
+    if (left < 0 || top < 0 || left + width > source.getWidth()
+            || top + height > source.getHeight()) {
+      throw new IllegalArgumentException("Region is outside of the image");
+    }
+    this.left = left;
+    this.top = top;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Crops an image, folding the crop into the image when it is already a cropped view, and
+   * returning the image itself when the region covers all of it.
+   *
+   * @param image   image to be cropped.
+   * @param left    first column of the region.
+   * @param top     first row of the region.
+   * @param width   of the region.
+   * @param height  of the region.
+   * @param storage storage a materialized copy is created in.
+   * @return the cropped image.
+   * @throws IllegalArgumentException if the image or storage is null, or the region is empty
+   *                                  or not inside the image.
+   */
+  public static ImageInterface crop(ImageInterface image, int left, int top, int width,
+                                    int height, ImageStorage storage)
+          throws IllegalArgumentException {
+    if (image != null && left == 0 && top == 0 && width == image.getWidth()
+            && height == image.getHeight()) {
+      return image;
+    }
+    if (image instanceof CroppedImage) {
+      CroppedImage cropped = (CroppedImage) image;
+      if (width > 0 && height > 0 && left >= 0 && top >= 0 && left + width <= cropped.width
+              && top + height <= cropped.height) {
+        return new CroppedImage(cropped.getSource(), cropped.left + left, cropped.top + top,
+                width, height, storage);
+      }
+    }
+    return new CroppedImage(image, left, top, width, height, storage);
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    checkPixel(x, y);
+    return getSource().getRGB(left + x, top + y);
+  }
+
+  /**
+   * The getRow method copies one row of the view into the given array as packed 0xRRGGBB
+   * values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    checkRow(y);
+    return window(getSource().getRow(top + y, null), dst);
+  }
+
+  /**
+   * The getChannelRow method copies one color channel of a row of the view into the given
+   * array.
+   *
+   * @param y       index of the row to be read.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param dst     array that receives the values.
+   * @return the array holding the channel values.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  @Override
+  public int[] getChannelRow(int y, int channel, int[] dst) throws IllegalArgumentException {
+    checkRow(y);
+    return window(getSource().getChannelRow(top + y, channel, null), dst);
+  }
+
+  /**
+   * Copies the columns of the region out of a full row of the source.
+   *
+   * @param sourceRow row of the source.
+   * @param dst       array that receives the region, allocated when null or too short.
+   * @return the array holding the region.
+   */
+  private int[] window(int[] sourceRow, int[] dst) {
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    System.arraycopy(sourceRow, left, dst, 0, width);
+    return dst;
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+}
@@ -0,0 +1,68 @@
+package imagemodel;
+
+/**
+ * How a filter reads the pixels outside of an image. Every mode maps an index past an edge to an
+ * index inside the image, or to none for the zero mode, whose pixels outside are black.
+ */
+public enum EdgeMode {
+
+  /**
+   * The nearest pixel on the edge, ...a a | a b c | c c...
+   */
+  REPLICATE,
+
+  /**
+   * The image mirrored about its edge, the edge pixel included, ...b a | a b c | c b...
+   */
+  REFLECT,
+
+  /**
+   * The image repeated, ...b c | a b c | a b...
+   */
+  WRAP,
+
+  /**
+   * Black, ...0 0 | a b c | 0 0...
+   */
+  ZERO;
+
+  /**
+   * Maps an index along a dimension to the index of the pixel it reads.
+   *
+   * @param index the index, which may be outside of the dimension.
+   * @param size  the dimension, at least 1.
+   * @return an index within 0..size - 1, or -1 for a black pixel.
+   */
+  public int map(int index, int size) {
+    if (index >= 0 && index < size) {
+      return index;
+    }
+    switch (this) {
+      case REPLICATE:
+        return index < 0 ? 0 : size - 1;
+      case REFLECT:
+        int folded = (int) Math.floorMod((long) index, 2L * size);
+        return folded < size ? folded : 2 * size - 1 - folded;
+      case WRAP:
+        return Math.floorMod(index, size);
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Finds the mode of the given name, ignoring case.
+   *
+   * @param name name of the mode, such as "reflect".
+   * @return the mode.
+   * @throws IllegalArgumentException if no mode has that name.
+   */
+  public static EdgeMode fromName(String name) throws IllegalArgumentException {
+    for (EdgeMode mode : values()) {
+      if (mode.name().equalsIgnoreCase(name)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException("Unknown edge mode: " + name);
+  }
+}
@@ -1,10 +1,5 @@
 package imagemodel;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 import java.util.function.Function;
 
 /**
@@ -15,7 +10,39 @@ import java.util.function.Function;
 public class ExtendedImageOperations extends ImageOperations implements ExtendedOperations {
 
   /**
-   * Compresses an image by applying Haar wavelet transformation and thresholding.
+   * Creates the operations with images stored on the heap.
+   */
+  public ExtendedImageOperations() {
+    super();
+  }
+
+  /**
+   * Creates the operations with the given storage for the images they produce.
+   *
+   * @param storage decides where the pixels of the resulting images live.
+   * @throws IllegalArgumentException if the storage is null.
+   */
+  public ExtendedImageOperations(ImageStorage storage) throws IllegalArgumentException {
+    super(storage);
+  }
+
+  /**
+   * Creates the operations with the given storage for the images they produce and the given
+   * executor for their rows.
+   *
+   * @param storage  decides where the pixels of the resulting images live.
+   * @param executor runs the rows of the operations, in parallel if it has several threads.
+   * @throws IllegalArgumentException if the storage or executor is null.
+   */
+  public ExtendedImageOperations(ImageStorage storage, BandExecutor executor)
+          throws IllegalArgumentException {
+    super(storage, executor);
+  }
+
+  /**
+   * Compresses an image by applying Haar wavelet transformation and thresholding. Every channel
+   * is padded with zeros to the next power of two of its width and of its height, each on its
+   * own, and transformed in place.
    *
    * @param image      the original image to be compressed.
    * @param percentage the percentage of detail to compress, between 0 and 100.
@@ -24,6 +51,22 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
    */
   public ImageInterface compressImage(ImageInterface image, int percentage)
           throws IllegalArgumentException {
+    return compressImage(image, percentage, false);
+  }
+
+  /**
+   * Compresses an image by applying Haar wavelet transformation and thresholding, choosing the
+   * threshold of every channel over its own coefficients, or one threshold over the coefficients
+   * of all three channels.
+   *
+   * @param image      the original image to be compressed.
+   * @param percentage the percentage of detail to compress, between 0 and 100.
+   * @param joint      whether the channels share one threshold.
+   * @return the compressed image.
+   * @throws IllegalArgumentException if the percentage is out of range or image is null.
+   */
+  public ImageInterface compressImage(ImageInterface image, int percentage, boolean joint)
+          throws IllegalArgumentException {
     if (percentage < 0 || percentage > 100) {
       throw new IllegalArgumentException("Threshold must be between 0 and 100.");
     }
@@ -32,48 +75,61 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
     }
     int width = image.getWidth();
     int height = image.getHeight();
-
-    double[][] redChannel = new double[height][width];
-    double[][] greenChannel = new double[height][width];
-    double[][] blueChannel = new double[height][width];
-
-
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        PixelInterface pixel = image.getPixel(col, row);
-        redChannel[row][col] = pixel.getRed();
-        greenChannel[row][col] = pixel.getGreen();
-        blueChannel[row][col] = pixel.getBlue();
+    int paddedWidth = powerOfTwo(width);
+    int paddedHeight = powerOfTwo(height);
+
+    double[] red = new double[Math.multiplyExact(paddedWidth, paddedHeight)];
+    double[] green = new double[red.length];
+    double[] blue = new double[red.length];
+
+    getExecutor().forEachBand(width, height, (from, to) -> {
+      int[] pixelRow = new int[width];
+      for (int row = from; row < to; row++) {
+        image.getRow(row, pixelRow);
+        int offset = row * paddedWidth;
+        for (int col = 0; col < width; col++) {
+          int rgb = pixelRow[col];
+          red[offset + col] = (rgb >> 16) & 0xFF;
+          green[offset + col] = (rgb >> 8) & 0xFF;
+          blue[offset + col] = rgb & 0xFF;
+        }
       }
+    });
+
+    HaarTransform.forward(red, paddedWidth, paddedHeight, getExecutor());
+    HaarTransform.forward(green, paddedWidth, paddedHeight, getExecutor());
+    HaarTransform.forward(blue, paddedWidth, paddedHeight, getExecutor());
+
+    if (joint) {
+      double threshold = WaveletThreshold.select(percentage, red, green, blue);
+      WaveletThreshold.apply(red, threshold);
+      WaveletThreshold.apply(green, threshold);
+      WaveletThreshold.apply(blue, threshold);
+    } else {
+      WaveletThreshold.apply(red, WaveletThreshold.select(percentage, red));
+      WaveletThreshold.apply(green, WaveletThreshold.select(percentage, green));
+      WaveletThreshold.apply(blue, WaveletThreshold.select(percentage, blue));
     }
 
-    double[][] paddedRedChannel = imagePadding(redChannel);
-    double[][] paddedGreenChannel = imagePadding(greenChannel);
-    double[][] paddedBlueChannel = imagePadding(blueChannel);
-
-    double[][] transRed = haarTransform2D(paddedRedChannel, paddedRedChannel.length);
-    double[][] transGreen = haarTransform2D(paddedGreenChannel, paddedGreenChannel.length);
-    double[][] transBlue = haarTransform2D(paddedBlueChannel, paddedBlueChannel.length);
-
-    applyThreshold(transRed, percentage);
-    applyThreshold(transGreen, percentage);
-    applyThreshold(transBlue, percentage);
-
-    double[][] inverseRed = inverseHaarTransform2D(transRed, transRed.length);
-    double[][] inverseGreen = inverseHaarTransform2D(transGreen, transGreen.length);
-    double[][] inverseBlue = inverseHaarTransform2D(transBlue, transBlue.length);
-
-    ImageCopyInterface compressedImage = new ImageCopy(width, height);
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        int redValue = clamp((int) Math.round(inverseRed[row][col]));
-        int greenValue = clamp((int) Math.round(inverseGreen[row][col]));
-        int blueValue = clamp((int) Math.round(inverseBlue[row][col]));
-        Pixel pixel = new Pixel(redValue, greenValue, blueValue);
-        compressedImage.setPixel(col, row, pixel);
+    HaarTransform.inverse(red, paddedWidth, paddedHeight, getExecutor());
+    HaarTransform.inverse(green, paddedWidth, paddedHeight, getExecutor());
+    HaarTransform.inverse(blue, paddedWidth, paddedHeight, getExecutor());
+
+    ImageBuilderInterface compressedImage = newBuilder(width, height);
+    getExecutor().forEachBand(width, height, (from, to) -> {
+      int[] pixelRow = new int[width];
+      for (int row = from; row < to; row++) {
+        int offset = row * paddedWidth;
+        for (int col = 0; col < width; col++) {
+          int redValue = clamp((int) Math.round(red[offset + col]));
+          int greenValue = clamp((int) Math.round(green[offset + col]));
+          int blueValue = clamp((int) Math.round(blue[offset + col]));
+          pixelRow[col] = (redValue << 16) | (greenValue << 8) | blueValue;
+        }
+        compressedImage.setRow(row, pixelRow);
       }
-    }
-    return compressedImage.deepCopyImage();
+    });
+    return compressedImage.build();
   }
 
   /**
@@ -90,152 +146,6 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
     return newWidth;
   }
 
-  /**
-   * Pads an image's data to the next power-of-two dimensions.
-   *
-   * @param data the original 2D data array.
-   * @return the padded 2D array with power-of-two dimensions.
-   */
-  private double[][] imagePadding(double[][] data) {
-    int originalWidth = data[0].length;
-    int originalHeight = data.length;
-    int newSize = Math.max(powerOfTwo(originalHeight), powerOfTwo(originalWidth));
-    double[][] paddingData = new double[newSize][newSize];
-    for (int i = 0; i < originalHeight; i++) {
-      System.arraycopy(data[i], 0, paddingData[i], 0, originalWidth);
-    }
-    return paddingData;
-  }
-
-  /**
-   * Applies a 2D Haar wavelet transform to a given matrix.
-   *
-   * @param x the matrix to transform.
-   * @param s the size of the matrix.
-   * @return the transformed matrix.
-   */
-  private double[][] haarTransform2D(double[][] x, int s) {
-    int c = s;
-    while (c > 1) {
-      for (int i = 0; i < c; i++) {
-        double[] result = haarTransform1D(x[i], c);
-        System.arraycopy(result, 0, x[i], 0, c);
-      }
-      for (int j = 0; j < c; j++) {
-        double[] column = new double[c];
-        for (int i = 0; i < c; i++) {
-          column[i] = x[i][j];
-        }
-        column = haarTransform1D(column, c);
-        for (int i = 0; i < c; i++) {
-          x[i][j] = column[i];
-        }
-      }
-      c /= 2;
-    }
-    return x;
-  }
-
-  /**
-   * Applies a 2D inverse Haar wavelet transform to a given matrix.
-   *
-   * @param x the matrix to inverse transform.
-   * @param s the size of the matrix.
-   * @return the inverse transformed matrix.
-   */
-  private double[][] inverseHaarTransform2D(double[][] x, int s) {
-    int c = 2;
-    while (c <= s) {
-      for (int j = 0; j < c; j++) {
-        double[] column = new double[c];
-        for (int i = 0; i < c; i++) {
-          column[i] = x[i][j];
-        }
-        column = inverseHaarTransform1D(column, c);
-        for (int i = 0; i < c; i++) {
-          x[i][j] = column[i];
-        }
-      }
-      for (int i = 0; i < c; i++) {
-        double[] result = inverseHaarTransform1D(x[i], c);
-        System.arraycopy(result, 0, x[i], 0, c);
-      }
-      c *= 2;
-    }
-    return x;
-  }
-
-  /**
-   * Applies a 1D Haar wavelet transform to a given array.
-   *
-   * @param data   the array to transform.
-   * @param length the size of the matrix.
-   * @return the transformed array.
-   */
-  private double[] haarTransform1D(double[] data, int length) {
-    double[] result = new double[length];
-    int h = length / 2;
-    for (int i = 0; i < h; i++) {
-      double a = data[2 * i];
-      double b = data[2 * i + 1];
-      result[i] = (a + b) / Math.sqrt(2);
-      result[i + h] = (a - b) / Math.sqrt(2);
-    }
-    return result;
-  }
-
-  /**
-   * Applies a 1D inverse Haar wavelet transform to a given array.
-   *
-   * @param data   the array to transform.
-   * @param length the size of the matrix.
-   * @return the transformed array.
-   */
-  private double[] inverseHaarTransform1D(double[] data, int length) {
-    double[] result = new double[length];
-    int half = length / 2;
-    for (int i = 0; i < half; i++) {
-      double avg = data[i];
-      double diff = data[i + half];
-      result[2 * i] = (avg + diff) / Math.sqrt(2);
-      result[2 * i + 1] = (avg - diff) / Math.sqrt(2);
-    }
-    return result;
-  }
-
-  /**
-   * Compresses data by applying thresholding based on compression ratio.
-   *
-   * @param transformedData  2D matrix of transformed data.
-   * @param compressionRatio the compression percentage.
-   */
-  private void applyThreshold(double[][] transformedData, double compressionRatio) {
-    int numRows = transformedData.length;
-    int numCols = transformedData[0].length;
-    Set<Double> nonZeroValuesSet = new HashSet<>();
-    for (double[] transformedDatum : transformedData) {
-      for (int col = 0; col < numCols; col++) {
-        if (transformedDatum[col] != 0) {
-          nonZeroValuesSet.add(transformedDatum[col]);
-        }
-      }
-    }
-    List<Double> nonZeroValues = new ArrayList<>(nonZeroValuesSet);
-    if (nonZeroValues.isEmpty()) {
-      return;
-    }
-    nonZeroValues.sort(Comparator.comparingDouble(Math::abs));
-    int retentionCount = (int) (nonZeroValues.size() * ((compressionRatio) / 100.0));
-    double thresholdValue = Math.abs(nonZeroValues.get(retentionCount - 1));
-    for (int row = 0; row < numRows; row++) {
-      for (int col = 0; col < numCols; col++) {
-        if (Math.abs(transformedData[row][col]) < thresholdValue) {
-          transformedData[row][col] = 0;
-        }
-      }
-    }
-  }
-
   /**
    * Creates a histogram image from the given image.
    *
@@ -252,16 +162,17 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
     int height = 256;
     int[][] histogramData = calculateHistogramData(image);
     int maxFrequency = findMaxFrequency(histogramData);
-    ImageCopyInterface histogramImage = new ImageCopy(width, height);
+    ImageBuilderInterface histogramImage = newPaletteBuilder(width, height);
+    histogramImage.fill(0xFFFFFF);
     drawGrid(histogramImage, width, height);
     drawHistogramLine(histogramImage, histogramData[0], maxFrequency, height, width,
-            new Pixel(255, 0, 0));
+            0xFF0000);
     drawHistogramLine(histogramImage, histogramData[1], maxFrequency, height, width,
-            new Pixel(0, 255, 0));
+            0x00FF00);
     drawHistogramLine(histogramImage, histogramData[2], maxFrequency, height, width,
-            new Pixel(0, 0, 255));
+            0x0000FF);
 
-    return histogramImage.deepCopyImage();
+    return histogramImage.build();
   }
 
   /**
@@ -271,39 +182,53 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
    * @param width          the width of the histogram image.
    * @param height         the height of the histogram image.
    */
-  private void drawGrid(ImageCopyInterface histogramImage, int width, int height) {
-    PixelInterface gray = new Pixel(200, 200, 200);
+  private void drawGrid(ImageBuilderInterface histogramImage, int width, int height) {
+    int gray = 0xC8C8C8;
     int verticalInterval = 32;
     int horizontalInterval = 10;
 
     for (int x = 0; x < width; x += verticalInterval) {
       for (int y = 0; y < height; y++) {
-        histogramImage.setPixel(x, y, gray);
+        histogramImage.setRGB(x, y, gray);
       }
     }
     for (int y = 0; y < height; y += horizontalInterval) {
       for (int x = 0; x < width; x++) {
-        histogramImage.setPixel(x, y, gray);
+        histogramImage.setRGB(x, y, gray);
       }
     }
   }
 
   /**
-   * Calculates histogram data for each color channel in the image.
+   * Calculates histogram data for each color channel in the image. Every band counts into its
+   * own histogram, and the counts are added up when the band is done.
    *
    * @param image the input image to analyze
    * @return 2D array containing frequency counts for each intensity level for RGB channels.
    */
   private int[][] calculateHistogramData(ImageInterface image) {
     int[][] histogram = new int[3][256];
-    for (int y = 0; y < image.getHeight(); y++) {
-      for (int x = 0; x < image.getWidth(); x++) {
-        PixelInterface pixel = image.getPixel(x, y);
-        histogram[0][clamp(pixel.getRed())]++;
-        histogram[1][clamp(pixel.getGreen())]++;
-        histogram[2][clamp(pixel.getBlue())]++;
+    int width = image.getWidth();
+    getExecutor().forEachBand(width, image.getHeight(), (from, to) -> {
+      int[][] counts = new int[3][256];
+      int[] row = new int[width];
+      for (int y = from; y < to; y++) {
+        image.getRow(y, row);
+        for (int x = 0; x < width; x++) {
+          int rgb = row[x];
+          counts[0][(rgb >> 16) & 0xFF]++;
+          counts[1][(rgb >> 8) & 0xFF]++;
+          counts[2][rgb & 0xFF]++;
+        }
       }
-    }
+      synchronized (histogram) {
+        for (int channel = 0; channel < 3; channel++) {
+          for (int value = 0; value < 256; value++) {
+            histogram[channel][value] += counts[channel][value];
+          }
+        }
+      }
+    });
     return histogram;
   }
 
@@ -333,10 +258,10 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
    * @param maxFrequency the maximum frequency for scaling purposes.
    * @param height       the height of the histogram image.
    * @param width        the width of the histogram image.
-   * @param color        the color of the line to draw (e.g., red for red channel).
+   * @param color        the packed RGB color of the line to draw (e.g., red for red channel).
    */
-  private void drawHistogramLine(ImageCopyInterface image, int[] histogram,
-                                 int maxFrequency, int height, int width, PixelInterface color) {
+  private void drawHistogramLine(ImageBuilderInterface image, int[] histogram,
+                                 int maxFrequency, int height, int width, int color) {
     int previousX = -1;
     int previousY = -1;
 
@@ -372,12 +297,12 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
    * @param y0     the starting y-coordinate.
    * @param x1     the ending x-coordinate.
    * @param y1     the ending y-coordinate.
-   * @param color  the color of the line.
+   * @param color  the packed RGB color of the line.
    * @param width  the width of the image.
    * @param height the height of the image.
    */
-  private void drawLine(ImageCopyInterface image, int x0, int y0, int x1, int y1,
-                        PixelInterface color, int width, int height) {
+  private void drawLine(ImageBuilderInterface image, int x0, int y0, int x1, int y1,
+                        int color, int width, int height) {
     int dx = Math.abs(x1 - x0);
     int dy = Math.abs(y1 - y0);
     int sx = (x0 < x1) ? 1 : -1;
@@ -386,7 +311,7 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
 
     while (true) {
       if (x0 >= 0 && x0 < width && y0 >= 0 && y0 < height) {
-        image.setPixel(x0, y0, color);
+        image.setRGB(x0, y0, color);
       }
       if (x0 == x1 && y0 == y1) {
         break;
@@ -415,12 +340,10 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
     if (image == null) {
       throw new IllegalArgumentException("Image cannot be null.");
     }
-    int[] redHist = calculateHistogramData(image)[0];
-    int[] greenHist = calculateHistogramData(image)[1];
-    int[] blueHist = calculateHistogramData(image)[2];
-    int redPeak = findPeak(redHist);
-    int greenPeak = findPeak(greenHist);
-    int bluePeak = findPeak(blueHist);
+    int[][] histogramData = calculateHistogramData(image);
+    int redPeak = findPeak(histogramData[0]);
+    int greenPeak = findPeak(histogramData[1]);
+    int bluePeak = findPeak(histogramData[2]);
     int avgPeak = (redPeak + greenPeak + bluePeak) / 3;
     return adjustPeaks(image, redPeak, greenPeak, bluePeak, avgPeak);
   }
@@ -445,6 +368,7 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
 
   /**
    * Adjusts each color channel of the image based on the difference between its peak and average.
+   * The shift of each channel is compiled into a lookup table.
    *
    * @param image     the input image to adjust.
    * @param redPeak   the peak intensity for the red channel.
@@ -455,21 +379,12 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
    */
   private ImageInterface adjustPeaks(ImageInterface image, int redPeak, int greenPeak,
                                      int bluePeak, int avgPeak) {
-    int width = image.getWidth();
-    int height = image.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        PixelInterface pixel = image.getPixel(x, y);
-        int newRed = clamp(pixel.getRed() + (avgPeak - redPeak));
-        int newGreen = clamp(pixel.getGreen() + (avgPeak - greenPeak));
-        int newBlue = clamp(pixel.getBlue() + (avgPeak - bluePeak));
-        copy.setPixel(x, y, new Pixel(newRed, newGreen, newBlue));
-      }
-    }
-    return copy.deepCopyImage();
+    return applyPointwise(image, new LookupTable(value -> clamp(value + (avgPeak - redPeak)),
+            value -> clamp(value + (avgPeak - greenPeak)),
+            value -> clamp(value + (avgPeak - bluePeak))));
   }
 
+
   /**
    * Applies a split-view operation, applying an image transformation to a specified percentage
    * of the image width.
@@ -500,7 +415,8 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
 
   /**
    * Merges two images by combining the processed section with the original image starting
-   * at the split position.
+   * at the split position. The result starts as the original, so the part right of the split
+   * can be shared with it instead of copied.
    *
    * @param processedPart the transformed part of the image.
    * @param originalImage the original image.
@@ -511,20 +427,25 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
    */
   private ImageInterface mergeImages(ImageInterface processedPart, ImageInterface originalImage,
                                      int splitPosition, int width, int height) {
-    ImageCopyInterface finalImage = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < splitPosition; x++) {
-        finalImage.setPixel(x, y, processedPart.getPixel(x, y));
-      }
-      for (int x = splitPosition; x < width; x++) {
-        finalImage.setPixel(x, y, originalImage.getPixel(x, y));
-      }
+    ImageBuilderInterface finalImage = newBuilder(originalImage);
+    if (splitPosition == 0) {
+      return finalImage.build();
     }
-    return finalImage.deepCopyImage();
+    getExecutor().forEachBand(width, height, (from, to) -> {
+      int[] row = new int[width];
+      int[] processedRow = new int[splitPosition];
+      for (int y = from; y < to; y++) {
+        originalImage.getRow(y, row);
+        processedPart.getRow(y, processedRow);
+        System.arraycopy(processedRow, 0, row, 0, splitPosition);
+        finalImage.setRow(y, row);
+      }
+    });
+    return finalImage.build();
   }
 
   /**
-   * Crops the image to the specified width and height dimensions.
+   * Crops the image to the specified width and height dimensions, as a view of the source.
    *
    * @param source     the source image to crop.
    * @param cropWidth  the width of the cropped image.
@@ -532,17 +453,13 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
    * @return the cropped ImageInterface object.
    */
   private ImageInterface cropImage(ImageInterface source, int cropWidth, int cropHeight) {
-    ImageCopyInterface croppedImage = new ImageCopy(cropWidth, cropHeight);
-    for (int y = 0; y < cropHeight; y++) {
-      for (int x = 0; x < cropWidth; x++) {
-        croppedImage.setPixel(x, y, source.getPixel(x, y));
-      }
-    }
-    return croppedImage.deepCopyImage();
+    return CroppedImage.crop(source, 0, 0, cropWidth, cropHeight, getStorage());
   }
 
+
   /**
    * Adjusts levels in an image using specified black, mid, and white values for color mapping.
+   * The curve is compiled into a lookup table.
    *
    * @param image the input image to adjust.
    * @param black the black point for levels adjustment.
@@ -562,61 +479,6 @@ public class ExtendedImageOperations extends ImageOperations implements Extended
     if (image == null) {
       throw new IllegalArgumentException("Image cannot be null.");
     }
-    int width = image.getWidth();
-    int height = image.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    double[] coefficients = fitQuadraticCurve(black, mid, white);
-    double a = coefficients[0];
-    double bCoeff = coefficients[1];
-    double c = coefficients[2];
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        PixelInterface pixel = image.getPixel(x, y);
-        int adjustedRed = applyQuadraticAdjustment(pixel.getRed(), a, bCoeff, c);
-        int adjustedGreen = applyQuadraticAdjustment(pixel.getGreen(), a, bCoeff, c);
-        int adjustedBlue = applyQuadraticAdjustment(pixel.getBlue(), a, bCoeff, c);
-        PixelInterface adjustedPixel = new Pixel(
-                clamp(adjustedRed), clamp(adjustedGreen), clamp(adjustedBlue)
-        );
-        copy.setPixel(x, y, adjustedPixel);
-      }
-    }
-    return copy.deepCopyImage();
-  }
-
-  /**
-   * Adjusts the intensity of a pixel's color channel using a quadratic equation.
-   *
-   * @param intensity the original intensity of the pixel.
-   * @param a         the quadratic coefficient for the squared term.
-   * @param bCoeff    the linear coefficient for the intensity term.
-   * @param c         the constant coefficient.
-   * @return the adjusted intensity.
-   */
-  private int applyQuadraticAdjustment(int intensity, double a, double bCoeff, double c) {
-    int adjustedIntensity = (int) Math.round(a * Math.pow(intensity, 2) + bCoeff * intensity + c);
-    return clamp(adjustedIntensity);
-  }
-
-  /**
-   * Fits a quadratic curve to three specified points.
-   *
-   * @param black Black point.
-   * @param mid   Midpoint.
-   * @param white White point.
-   * @return Coefficients for the quadratic curve [a, b, c].
-   */
-  private double[] fitQuadraticCurve(int black, int mid, int white) {
-    double denominator = Math.pow(black, 2) * (mid - white) - black * (Math.pow(mid, 2)
-            - Math.pow(white, 2)) + white * Math.pow(mid, 2) - mid * Math.pow(white, 2);
-    double aNumerator = -black * (128 - 255) + 128 * white - 255 * mid;
-    double bNumerator = Math.pow(black, 2) * (128 - 255) + 255
-            * Math.pow(mid, 2) - 128 * Math.pow(white, 2);
-    double cNumerator = Math.pow(black, 2) * (255 * mid - 128 * white)
-            - black * (255 * Math.pow(mid, 2) - 128 * Math.pow(white, 2));
-    double a = aNumerator / denominator;
-    double bCoeff = bNumerator / denominator;
-    double c = cNumerator / denominator;
-    return new double[]{a, bCoeff, c};
+    return applyPointwise(image, LookupTable.levels(black, mid, white));
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,415 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * Applies a kernel through the discrete Fourier transform, which costs a few multiplications per
+ * pixel and per doubling of the tile instead of one per weight of the kernel. The image is cut
+ * into tiles whose sides are powers of two, and each tile is transformed, multiplied by the
+ * transform of the kernel and transformed back. The tiles overlap by the size of the kernel less
+ * one, and only the part of a tile the circular product does not wrap around into is kept, which
+ * is the overlap-save method. The tiles of a strip of rows share the source rows they read, and
+ * the strips are run in parallel bands.
+ *
+ * <p>A channel of a tile is real, so its transform is computed as half as many complex
+ * transforms: two rows are transformed as the real and imaginary parts of one complex row and
+ * separated by the symmetry of real transforms, and only the columns of the first half of the
+ * frequencies are transformed, the others being their conjugates. The inverse runs the same
+ * steps backwards.
+ *
+ * <p>The result follows the sum of the direct convolution up to the rounding of the transform,
+ * which is far below the tolerance Convolution adds to every sum before truncating it, so the
+ * channels match those of the direct sums.
+ */
+final class FftConvolution {
+
+  /**
+   * The cost of a butterfly of the transform, relative to a multiplication and addition of the
+   * direct sum.
+   */
+  private static final double BUTTERFLY_COST = 2.0;
+  private static final int MAX_TILE = 1 << 12;
+  private static final int MAX_TILE_AREA = 1 << 20;
+
+  private final double[][] kernel;
+  private final int kernelWidth;
+  private final int kernelHeight;
+  private final double tolerance;
+
+  /**
+   * Prepares a kernel for applying through the transform. The kernel is not copied.
+   *
+   * @param kernel weights, kernel[ky][kx], with an odd number of rows and columns.
+   */
+  FftConvolution(double[][] kernel) {
+    this.kernel = kernel;
+    this.kernelHeight = kernel.length;
+    this.kernelWidth = kernel[0].length;
+    this.tolerance = Convolution.tolerance(kernel);
+  }
+
+  /**
+   * Estimates the work per pixel and per channel of applying a kernel of the given size to an
+   * image of the given size through the transform, with the best tiles.
+   *
+   * @param kernelWidth  number of columns of the kernel.
+   * @param kernelHeight number of rows of the kernel.
+   * @param width        width of the image.
+   * @param height       height of the image.
+   * @return the work, in multiplications and additions of the direct sum, or infinity when the
+   *         kernel does not fit in a tile.
+   */
+  static double cost(int kernelWidth, int kernelHeight, int width, int height) {
+    int[] tile = tile(kernelWidth, kernelHeight, width, height);
+    if (tile == null) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return work(tile[0], tile[1], kernelWidth, kernelHeight, width, height)
+            / ((double) width * height);
+  }
+
+  /**
+   * Chooses the tile with the least work for an image.
+   *
+   * @param kernelWidth  number of columns of the kernel.
+   * @param kernelHeight number of rows of the kernel.
+   * @param width        width of the image.
+   * @param height       height of the image.
+   * @return the width and height of the tile, or null when the kernel does not fit in a tile.
+   */
+  private static int[] tile(int kernelWidth, int kernelHeight, int width, int height) {
+    int[] best = null;
+    double least = Double.POSITIVE_INFINITY;
+    int widest = Math.min(MAX_TILE, powerOfTwo(width + kernelWidth - 1));
+    int tallest = Math.min(MAX_TILE, powerOfTwo(height + kernelHeight - 1));
+    for (int tileWidth = powerOfTwo(kernelWidth); tileWidth <= widest; tileWidth *= 2) {
+      for (int tileHeight = powerOfTwo(kernelHeight); tileHeight <= tallest
+              && tileWidth * tileHeight <= MAX_TILE_AREA; tileHeight *= 2) {
+        double work = work(tileWidth, tileHeight, kernelWidth, kernelHeight, width, height);
+        if (work < least) {
+          least = work;
+          best = new int[]{tileWidth, tileHeight};
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Estimates the work of one channel of an image with the given tiles. A real transform of a
+   * tile is about half of its area times the logarithm of its area in butterflies, and it is
+   * run forwards and backwards.
+   *
+   * @param tileWidth    width of a tile.
+   * @param tileHeight   height of a tile.
+   * @param kernelWidth  number of columns of the kernel.
+   * @param kernelHeight number of rows of the kernel.
+   * @param width        width of the image.
+   * @param height       height of the image.
+   * @return the work, in multiplications and additions of the direct sum.
+   */
+  private static double work(int tileWidth, int tileHeight, int kernelWidth, int kernelHeight,
+                             int width, int height) {
+    double area = (double) tileWidth * tileHeight;
+    long tiles = (long) ceilDiv(width, tileWidth - kernelWidth + 1)
+            * ceilDiv(height, tileHeight - kernelHeight + 1);
+    double log = Math.log(area) / Math.log(2);
+    return tiles * area * (BUTTERFLY_COST * log + 1);
+  }
+
+  /**
+   * Gives the smallest power of two that is at least the given value, and at least two.
+   *
+   * @param value a positive value.
+   * @return the power of two.
+   */
+  private static int powerOfTwo(int value) {
+    return Math.max(2, Integer.highestOneBit(Math.max(value - 1, 1)) << 1);
+  }
+
+  /**
+   * Divides and rounds up.
+   *
+   * @param value   the dividend.
+   * @param divisor the positive divisor.
+   * @return the quotient rounded up.
+   */
+  private static int ceilDiv(int value, int divisor) {
+    return (value + divisor - 1) / divisor;
+  }
+
+  /**
+   * Applies the kernel to an image.
+   *
+   * @param image    the source image.
+   * @param builder  builder of the size of the image that receives the result.
+   * @param executor runs the strips of rows.
+   * @param edges    how the pixels outside of the image are read.
+   * @return the built result.
+   * @throws IllegalArgumentException if the kernel does not fit in a tile.
+   */
+  ImageInterface apply(ImageInterface image, ImageBuilderInterface builder,
+                       BandExecutor executor, EdgeMode edges) throws IllegalArgumentException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] tile = tile(kernelWidth, kernelHeight, width, height);
+    if (tile == null) {
+      throw new IllegalArgumentException("Kernel is too large for the transform");
+    }
+    int tileWidth = tile[0];
+    int tileHeight = tile[1];
+    int blockWidth = tileWidth - kernelWidth + 1;
+    int blockHeight = tileHeight - kernelHeight + 1;
+    int radiusX = kernelWidth / 2;
+    int radiusY = kernelHeight / 2;
+    Transform rows = new Transform(tileWidth);
+    Transform columns = new Transform(tileHeight);
+    Spectrum spectrum = new Spectrum(rows, columns);
+    double scale = 1.0 / ((double) tileWidth * tileHeight);
+    for (int ky = 0; ky < kernelHeight; ky++) {
+      for (int kx = 0; kx < kernelWidth; kx++) {
+        spectrum.tile[ky * tileWidth + kx] =
+                kernel[kernelHeight - 1 - ky][kernelWidth - 1 - kx] * scale;
+      }
+    }
+    spectrum.forward();
+    double[] kernelReal = spectrum.real;
+    double[] kernelImaginary = spectrum.imaginary;
+    int[][] columnMaps = new int[ceilDiv(width, blockWidth)][tileWidth];
+    for (int t = 0; t < columnMaps.length; t++) {
+      for (int j = 0; j < tileWidth; j++) {
+        columnMaps[t][j] = edges.map(t * blockWidth - radiusX + j, width);
+      }
+    }
+    int strips = ceilDiv(height, blockHeight);
+    executor.forEachBand(width * blockHeight, strips, (from, to) -> {
+      Spectrum work = new Spectrum(rows, columns);
+      int[][] buffers = new int[tileHeight][width];
+      int[][] sources = new int[tileHeight][];
+      int[][] result = new int[blockHeight][width];
+      for (int strip = from; strip < to; strip++) {
+        int top = strip * blockHeight;
+        int count = Math.min(blockHeight, height - top);
+        for (int i = 0; i < tileHeight; i++) {
+          int y = edges.map(top - radiusY + i, height);
+          sources[i] = y < 0 ? null : image.getRow(y, buffers[i]);
+        }
+        for (int r = 0; r < count; r++) {
+          Arrays.fill(result[r], 0);
+        }
+        for (int t = 0; t < columnMaps.length; t++) {
+          int left = t * blockWidth;
+          int span = Math.min(blockWidth, width - left);
+          int[] map = columnMaps[t];
+          for (int shift = 16; shift >= 0; shift -= 8) {
+            for (int i = 0; i < tileHeight; i++) {
+              int[] source = sources[i];
+              int offset = i * tileWidth;
+              for (int j = 0; j < tileWidth; j++) {
+                int x = map[j];
+                work.tile[offset + j] = source == null || x < 0 ? 0 : (source[x] >> shift) & 0xFF;
+              }
+            }
+            work.forward();
+            work.multiply(kernelReal, kernelImaginary);
+            work.inverse(kernelHeight - 1);
+            for (int r = 0; r < count; r++) {
+              int offset = (r + kernelHeight - 1) * tileWidth + kernelWidth - 1;
+              int[] row = result[r];
+              for (int c = 0; c < span; c++) {
+                row[left + c] |= channel(work.tile[offset + c]) << shift;
+              }
+            }
+          }
+        }
+        for (int r = 0; r < count; r++) {
+          builder.setRow(top + r, result[r]);
+        }
+      }
+    });
+    return builder.build();
+  }
+
+  /**
+   * Turns a filtered channel into a channel value the way the direct sums do, adding the
+   * tolerance of the kernel, which is far above the rounding of the transform.
+   *
+   * @param value the filtered channel.
+   * @return the channel plus the tolerance, truncated towards zero and clamped to 0..255.
+   */
+  private int channel(double value) {
+    return ScalarKernels.clamp((int) (value + tolerance));
+  }
+
+  /**
+   * A complex transform of a power of two length, computed in place by the radix-2 algorithm
+   * with precomputed twiddle factors.
+   */
+  private static final class Transform {
+    private final int size;
+    private final int[] reversed;
+    private final double[] cos;
+    private final double[] sin;
+
+    /**
+     * Computes the tables of a transform.
+     *
+     * @param size the length, a power of two.
+     */
+    Transform(int size) {
+      this.size = size;
+      this.reversed = new int[size];
+      int bits = Integer.numberOfTrailingZeros(size);
+      for (int i = 0; i < size; i++) {
+        reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+      }
+      this.cos = new double[size / 2];
+      this.sin = new double[size / 2];
+      for (int k = 0; k < size / 2; k++) {
+        double angle = 2 * Math.PI * k / size;
+        cos[k] = Math.cos(angle);
+        sin[k] = Math.sin(angle);
+      }
+    }
+
+    /**
+     * Transforms a sequence in place, without scaling the inverse.
+     *
+     * @param real      real parts.
+     * @param imaginary imaginary parts.
+     * @param offset    index of the first value of the sequence in the arrays.
+     * @param inverse   true for the inverse transform.
+     */
+    void run(double[] real, double[] imaginary, int offset, boolean inverse) {
+      for (int i = 0; i < size; i++) {
+        int j = reversed[i];
+        if (i < j) {
+          double swap = real[offset + i];
+          real[offset + i] = real[offset + j];
+          real[offset + j] = swap;
+          swap = imaginary[offset + i];
+          imaginary[offset + i] = imaginary[offset + j];
+          imaginary[offset + j] = swap;
+        }
+      }
+      double sign = inverse ? 1 : -1;
+      for (int half = 1; half < size; half *= 2) {
+        int step = size / (2 * half);
+        for (int k = 0; k < half; k++) {
+          double c = cos[k * step];
+          double s = sign * sin[k * step];
+          for (int a = offset + k; a < offset + size; a += 2 * half) {
+            int b = a + half;
+            double re = real[b] * c - imaginary[b] * s;
+            double im = real[b] * s + imaginary[b] * c;
+            real[b] = real[a] - re;
+            imaginary[b] = imaginary[a] - im;
+            real[a] += re;
+            imaginary[a] += im;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * A real tile and the first half of the frequencies of its transform, stored column by
+   * column, with the scratch rows of the transforms.
+   */
+  private static final class Spectrum {
+    private final Transform rows;
+    private final Transform columns;
+    private final int width;
+    private final int height;
+    private final double[] tile;
+    private final double[] real;
+    private final double[] imaginary;
+    private final double[] rowReal;
+    private final double[] rowImaginary;
+
+    /**
+     * Allocates a tile and its transform.
+     *
+     * @param rows    transform of the rows of the tile.
+     * @param columns transform of the columns of the tile.
+     */
+    Spectrum(Transform rows, Transform columns) {
+      this.rows = rows;
+      this.columns = columns;
+      this.width = rows.size;
+      this.height = columns.size;
+      this.tile = new double[width * height];
+      this.real = new double[(width / 2 + 1) * height];
+      this.imaginary = new double[real.length];
+      this.rowReal = new double[width];
+      this.rowImaginary = new double[width];
+    }
+
+    /**
+     * Transforms the tile. Rows r and r + 1 are transformed together as one complex row z, and
+     * their transforms are (z[k] + conj(z[-k])) / 2 and (z[k] - conj(z[-k])) / 2i.
+     */
+    void forward() {
+      int half = width / 2;
+      for (int r = 0; r < height; r += 2) {
+        System.arraycopy(tile, r * width, rowReal, 0, width);
+        System.arraycopy(tile, (r + 1) * width, rowImaginary, 0, width);
+        rows.run(rowReal, rowImaginary, 0, false);
+        for (int k = 0; k <= half; k++) {
+          int mirror = (width - k) & (width - 1);
+          int index = k * height + r;
+          real[index] = (rowReal[k] + rowReal[mirror]) * 0.5;
+          imaginary[index] = (rowImaginary[k] - rowImaginary[mirror]) * 0.5;
+          real[index + 1] = (rowImaginary[k] + rowImaginary[mirror]) * 0.5;
+          imaginary[index + 1] = (rowReal[mirror] - rowReal[k]) * 0.5;
+        }
+      }
+      for (int k = 0; k <= half; k++) {
+        columns.run(real, imaginary, k * height, false);
+      }
+    }
+
+    /**
+     * Multiplies the transform by another one of the same size.
+     *
+     * @param otherReal      real parts of the other transform.
+     * @param otherImaginary imaginary parts of the other transform.
+     */
+    void multiply(double[] otherReal, double[] otherImaginary) {
+      for (int i = 0; i < real.length; i++) {
+        double re = real[i] * otherReal[i] - imaginary[i] * otherImaginary[i];
+        imaginary[i] = real[i] * otherImaginary[i] + imaginary[i] * otherReal[i];
+        real[i] = re;
+      }
+    }
+
+    /**
+     * Transforms back into the rows of the tile from the given row on, without scaling. Rows r
+     * and r + 1 come out of one complex row as its real and imaginary parts, the frequencies of
+     * the second half being the conjugates of those of the first.
+     *
+     * @param first first row needed.
+     */
+    void inverse(int first) {
+      int half = width / 2;
+      for (int k = 0; k <= half; k++) {
+        columns.run(real, imaginary, k * height, true);
+      }
+      for (int r = first & ~1; r < height; r += 2) {
+        for (int k = 0; k <= half; k++) {
+          int index = k * height + r;
+          rowReal[k] = real[index] - imaginary[index + 1];
+          rowImaginary[k] = imaginary[index] + real[index + 1];
+        }
+        for (int k = half + 1; k < width; k++) {
+          int index = (width - k) * height + r;
+          rowReal[k] = real[index] + imaginary[index + 1];
+          rowImaginary[k] = real[index + 1] - imaginary[index];
+        }
+        rows.run(rowReal, rowImaginary, 0, true);
+        System.arraycopy(rowReal, 0, tile, r * width, width);
+        System.arraycopy(rowImaginary, 0, tile, (r + 1) * width, width);
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package imagemodel;
+
+/**
+ * A view that mirrors its source horizontally, vertically or both, without copying it.
+ */
+public class FlippedImage extends ImageView {
+
+  private final boolean horizontal;
+  private final boolean vertical;
+
+  /**
+   * Creates a flipped view of the given source.
+   *
+   * @param source     image the view reads from.
+   * @param horizontal whether the columns are mirrored.
+   * @param vertical   whether the rows are mirrored.
+   * @param storage    storage a materialized copy is created in.
+   * @throws IllegalArgumentException if the source or storage is null.
+   */
+  public FlippedImage(ImageInterface source, boolean horizontal, boolean vertical,
+                      ImageStorage storage) throws IllegalArgumentException {
+    super(source, storage);
+    this.horizontal = horizontal;
+    this.vertical = vertical;
+  }
+
+  /**
+   * Flips an image, folding the flip into the image when it is already a flipped view. Two
+   * flips along the same axis cancel out and give back the original source.
+   *
+   * @param image      image to be flipped.
+   * @param horizontal whether the columns are mirrored.
+   * @param vertical   whether the rows are mirrored.
+   * @param storage    storage a materialized copy is created in.
+   * @return the flipped image.
+   * @throws IllegalArgumentException if the image or storage is null.
+   */
+  public static ImageInterface flip(ImageInterface image, boolean horizontal, boolean vertical,
+                                    ImageStorage storage) throws IllegalArgumentException {
+    if (image instanceof FlippedImage) {
+      FlippedImage flipped = (FlippedImage) image;
+      horizontal ^= flipped.horizontal;
+      vertical ^= flipped.vertical;
+      image = flipped.getSource();
+      if (!horizontal && !vertical) {
+        return image;
+      }
+    }
+    return new FlippedImage(image, horizontal, vertical, storage);
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    checkPixel(x, y);
+    return getSource().getRGB(horizontal ? getWidth() - 1 - x : x,
+            vertical ? getHeight() - 1 - y : y);
+  }
+
+  /**
+   * The getRow method copies one row of the view into the given array as packed 0xRRGGBB
+   * values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    checkRow(y);
+    dst = getSource().getRow(vertical ? getHeight() - 1 - y : y, dst);
+    if (horizontal) {
+      reverse(dst, getWidth());
+    }
+    return dst;
+  }
+
+  /**
+   * The getChannelRow method copies one color channel of a row of the view into the given
+   * array.
+   *
+   * @param y       index of the row to be read.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param dst     array that receives the values.
+   * @return the array holding the channel values.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  @Override
+  public int[] getChannelRow(int y, int channel, int[] dst) throws IllegalArgumentException {
+    checkRow(y);
+    dst = getSource().getChannelRow(vertical ? getHeight() - 1 - y : y, channel, dst);
+    if (horizontal) {
+      reverse(dst, getWidth());
+    }
+    return dst;
+  }
+
+  /**
+   * Reverses the first length elements of an array.
+   *
+   * @param values array to be reversed.
+   * @param length number of elements to reverse.
+   */
+  private static void reverse(int[] values, int length) {
+    for (int left = 0, right = length - 1; left < right; left++, right--) {
+      int value = values[left];
+      values[left] = values[right];
+      values[right] = value;
+    }
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return getSource().getWidth();
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return getSource().getHeight();
+  }
+}
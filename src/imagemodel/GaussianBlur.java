@@ -0,0 +1,406 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * A Gaussian blur of any standard deviation whose cost per pixel does not depend on the standard
+ * deviation. Every channel is filtered horizontally along the rows and then vertically along the
+ * columns, and pixels outside of the image are replaced by the nearest pixel on its edge. The
+ * channels are rounded to the nearest value and clamped to 0..255.
+ *
+ * <p>In fast mode each direction is three box filters computed with running sums, whose widths
+ * are chosen so that the variance of the cascade is as close as possible to the square of sigma.
+ * Each line is padded once with its edge pixels by the sum of the radii of the boxes, about three
+ * sigma, and the boxes run over the padded line, so that the edge is replicated in the source
+ * rather than in every intermediate result.
+ * In accurate mode each direction is the third order recursive filter of Young and van Vliet,
+ * run forwards and backwards, which follows the shape of the Gaussian much more closely. The
+ * backward pass starts past the last pixel of a line, four sigma into the replicated edge, so
+ * only that margin grows with sigma. Below a sigma of three both modes use the sampled Gaussian
+ * directly, which needs at most nineteen weights.
+ *
+ * <p>The horizontal result is kept with two fractional bits per channel in a raster the size of
+ * the image, and the columns are filtered in strips of neighbouring columns to read it in whole
+ * cache lines.
+ */
+public final class GaussianBlur {
+
+  /**
+   * The largest standard deviation accepted.
+   */
+  public static final double MAX_SIGMA = 10000;
+
+  private static final double DIRECT_SIGMA = 3;
+  private static final int BOXES = 3;
+  private static final int STRIP = 16;
+  private static final int FRACTION = 4;
+  private static final int LEVELS = 255 * FRACTION;
+
+  private final double sigma;
+  private final boolean accurate;
+  private final double[] weights;
+  private final int[] boxRadii;
+  private final double forward;
+  private final double[] feedback;
+  private final int margin;
+  private final int padding;
+
+  /**
+   * Prepares a Gaussian blur.
+   *
+   * @param sigma    standard deviation of the Gaussian, in pixels.
+   * @param accurate true for the recursive filter, false for the box filters.
+   * @throws IllegalArgumentException if sigma is not positive or larger than MAX_SIGMA.
+   */
+  public GaussianBlur(double sigma, boolean accurate) throws IllegalArgumentException {
+    if (!(sigma > 0) || sigma > MAX_SIGMA) {
+      throw new IllegalArgumentException("Sigma must be positive and at most " + MAX_SIGMA);
+    }
+    this.sigma = sigma;
+    this.accurate = accurate;
+    if (sigma < DIRECT_SIGMA) {
+      this.weights = sampled(sigma);
+      this.boxRadii = null;
+      this.forward = 0;
+      this.feedback = null;
+      this.margin = 0;
+      this.padding = 0;
+    } else if (accurate) {
+      double q = 0.98711 * sigma - 0.96330;
+      double b0 = 1.57825 + 2.44413 * q + 1.4281 * q * q + 0.422205 * q * q * q;
+      double b1 = 2.44413 * q + 2.85619 * q * q + 1.26661 * q * q * q;
+      double b2 = -(1.4281 * q * q + 1.26661 * q * q * q);
+      double b3 = 0.422205 * q * q * q;
+      this.weights = null;
+      this.boxRadii = null;
+      this.feedback = new double[]{b1 / b0, b2 / b0, b3 / b0};
+      this.forward = 1 - (b1 + b2 + b3) / b0;
+      this.margin = (int) Math.ceil(4 * sigma);
+      this.padding = 0;
+    } else {
+      this.weights = null;
+      this.boxRadii = boxRadii(sigma);
+      this.forward = 0;
+      this.feedback = null;
+      int reach = 0;
+      for (int radius : boxRadii) {
+        reach += radius;
+      }
+      this.padding = reach;
+      this.margin = 2 * reach;
+    }
+  }
+
+  /**
+   * Gives the standard deviation of the blur.
+   *
+   * @return sigma.
+   */
+  public double getSigma() {
+    return sigma;
+  }
+
+  /**
+   * Tells whether the blur uses the recursive filter rather than the box filters.
+   *
+   * @return true in accurate mode.
+   */
+  public boolean isAccurate() {
+    return accurate;
+  }
+
+  /**
+   * Applies the blur to an image.
+   *
+   * @param image    the source image.
+   * @param builder  builder of the dimensions of the image that receives the result.
+   * @param executor runs the rows, and then the strips of columns, in parallel.
+   * @return the blurred image.
+   */
+  public ImageInterface apply(ImageInterface image, ImageBuilderInterface builder,
+                              BandExecutor executor) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] raster = new int[Math.multiplyExact(width, height)];
+    executor.forEachBand(width, height, (from, to) -> {
+      int[] row = new int[width];
+      double[][] line = new double[3][width];
+      Filter filter = new Filter(width);
+      for (int y = from; y < to; y++) {
+        image.getRow(y, row);
+        for (int x = 0; x < width; x++) {
+          int rgb = row[x];
+          line[0][x] = (rgb >> 16) & 0xFF;
+          line[1][x] = (rgb >> 8) & 0xFF;
+          line[2][x] = rgb & 0xFF;
+        }
+        int offset = y * width;
+        for (int c = 0; c < 3; c++) {
+          filter.run(line[c], width);
+        }
+        for (int x = 0; x < width; x++) {
+          raster[offset + x] = (fixed(line[0][x]) << 20) | (fixed(line[1][x]) << 10)
+                  | fixed(line[2][x]);
+        }
+      }
+    });
+    int strips = (width + STRIP - 1) / STRIP;
+    executor.forEachBand(STRIP * height, strips, (from, to) -> {
+      double[][][] columns = new double[STRIP][3][height];
+      Filter filter = new Filter(height);
+      for (int strip = from; strip < to; strip++) {
+        int left = strip * STRIP;
+        int count = Math.min(STRIP, width - left);
+        for (int y = 0; y < height; y++) {
+          int offset = y * width + left;
+          for (int i = 0; i < count; i++) {
+            int value = raster[offset + i];
+            columns[i][0][y] = (value >> 20) / (double) FRACTION;
+            columns[i][1][y] = ((value >> 10) & 0x3FF) / (double) FRACTION;
+            columns[i][2][y] = (value & 0x3FF) / (double) FRACTION;
+          }
+        }
+        for (int i = 0; i < count; i++) {
+          for (int c = 0; c < 3; c++) {
+            filter.run(columns[i][c], height);
+          }
+        }
+        for (int y = 0; y < height; y++) {
+          int offset = y * width + left;
+          for (int i = 0; i < count; i++) {
+            raster[offset + i] = (channel(columns[i][0][y]) << 16)
+                    | (channel(columns[i][1][y]) << 8) | channel(columns[i][2][y]);
+          }
+        }
+      }
+    });
+    executor.forEachBand(width, height, (from, to) -> {
+      int[] row = new int[width];
+      for (int y = from; y < to; y++) {
+        System.arraycopy(raster, y * width, row, 0, width);
+        builder.setRow(y, row);
+      }
+    });
+    return builder.build();
+  }
+
+  /**
+   * Filters lines of up to a given length in place, with scratch buffers reused across lines.
+   */
+  private final class Filter {
+    private final double[] scratch;
+    private final double[] padded;
+
+    /**
+     * Creates the scratch buffers for lines of up to the given length.
+     *
+     * @param length largest length of a line.
+     */
+    Filter(int length) {
+      this.scratch = new double[length + margin];
+      this.padded = boxRadii == null ? null : new double[length + margin];
+    }
+
+    /**
+     * Filters one line in place.
+     *
+     * @param line   the values of the line, replaced by the filtered values.
+     * @param length number of values in the line.
+     */
+    void run(double[] line, int length) {
+      if (weights != null) {
+        direct(line, length);
+      } else if (feedback != null) {
+        recursive(line, length);
+      } else {
+        boxes(line, length);
+      }
+    }
+
+    /**
+     * Convolves a line with the sampled Gaussian, clamping only the indices near its ends.
+     *
+     * @param line   the values of the line.
+     * @param length number of values in the line.
+     */
+    private void direct(double[] line, int length) {
+      System.arraycopy(line, 0, scratch, 0, length);
+      int radius = weights.length / 2;
+      int interiorFrom = Math.min(radius, length);
+      int interiorTo = Math.max(length - radius, interiorFrom);
+      for (int i = 0; i < length; i++) {
+        if (i == interiorFrom) {
+          i = interiorTo;
+          if (i == length) {
+            break;
+          }
+        }
+        double sum = 0;
+        for (int k = 0; k < weights.length; k++) {
+          sum += weights[k] * scratch[Math.min(Math.max(i + k - radius, 0), length - 1)];
+        }
+        line[i] = sum;
+      }
+      for (int i = interiorFrom; i < interiorTo; i++) {
+        int left = i - radius;
+        double sum = 0;
+        for (int k = 0; k < weights.length; k++) {
+          sum += weights[k] * scratch[left + k];
+        }
+        line[i] = sum;
+      }
+    }
+
+    /**
+     * Runs the box filters over a line. The line is padded once on each side with its edge
+     * values, by the sum of the radii of the boxes, so that every box reads the previous box
+     * over the padding rather than the edge of the previous result replicated again, which
+     * would weigh the edge pixels more than the Gaussian does. Each box only computes the
+     * values the following boxes read, and the last one leaves exactly the line.
+     *
+     * @param line   the values of the line.
+     * @param length number of values in the line.
+     */
+    private void boxes(double[] line, int length) {
+      int total = length + 2 * padding;
+      Arrays.fill(padded, 0, padding, line[0]);
+      System.arraycopy(line, 0, padded, padding, length);
+      Arrays.fill(padded, padding + length, total, line[length - 1]);
+      int from = 0;
+      int to = total;
+      for (int radius : boxRadii) {
+        box(from, to, radius);
+        from += radius;
+        to -= radius;
+      }
+      System.arraycopy(padded, padding, line, 0, length);
+    }
+
+    /**
+     * Averages a range of the padded line over a window of the given radius with a running sum,
+     * so the cost does not depend on the radius. Only the values whose window lies inside the
+     * range are computed.
+     *
+     * @param from   first index of the range.
+     * @param to     index after the last one of the range.
+     * @param radius radius of the window.
+     */
+    private void box(int from, int to, int radius) {
+      if (radius == 0) {
+        return;
+      }
+      System.arraycopy(padded, from, scratch, from, to - from);
+      double sum = 0;
+      for (int k = from; k <= from + 2 * radius; k++) {
+        sum += scratch[k];
+      }
+      double scale = 1.0 / (2 * radius + 1);
+      int last = to - radius - 1;
+      for (int i = from + radius; i < last; i++) {
+        padded[i] = sum * scale;
+        sum += scratch[i + radius + 1] - scratch[i - radius];
+      }
+      padded[last] = sum * scale;
+    }
+
+    /**
+     * Runs the recursive filter forwards over the line and the margin past its end, then
+     * backwards from the end of the margin. Both passes start in the steady state of a constant
+     * line, which is exact at the start of the line where the edge is replicated forever.
+     *
+     * @param line   the values of the line.
+     * @param length number of values in the line.
+     */
+    private void recursive(double[] line, int length) {
+      double a1 = feedback[0];
+      double a2 = feedback[1];
+      double a3 = feedback[2];
+      int total = length + margin;
+      double w1 = line[0];
+      double w2 = w1;
+      double w3 = w1;
+      for (int i = 0; i < total; i++) {
+        double w = forward * line[Math.min(i, length - 1)] + a1 * w1 + a2 * w2 + a3 * w3;
+        scratch[i] = w;
+        w3 = w2;
+        w2 = w1;
+        w1 = w;
+      }
+      w1 = scratch[total - 1];
+      w2 = w1;
+      w3 = w1;
+      for (int i = total - 1; i >= 0; i--) {
+        double w = forward * scratch[i] + a1 * w1 + a2 * w2 + a3 * w3;
+        if (i < length) {
+          line[i] = w;
+        }
+        w3 = w2;
+        w2 = w1;
+        w1 = w;
+      }
+    }
+  }
+
+  /**
+   * Samples the Gaussian over three sigma on each side and normalizes the weights.
+   *
+   * @param sigma standard deviation.
+   * @return the weights, of odd length.
+   */
+  private static double[] sampled(double sigma) {
+    int radius = (int) Math.ceil(3 * sigma);
+    double[] weights = new double[2 * radius + 1];
+    double sum = 0;
+    for (int k = -radius; k <= radius; k++) {
+      weights[k + radius] = Math.exp(-k * k / (2 * sigma * sigma));
+      sum += weights[k + radius];
+    }
+    for (int k = 0; k < weights.length; k++) {
+      weights[k] /= sum;
+    }
+    return weights;
+  }
+
+  /**
+   * Chooses the radii of the box filters. The boxes have one of two consecutive odd widths, and
+   * the number of narrow ones is the one that brings the variance closest to sigma squared.
+   *
+   * @param sigma standard deviation.
+   * @return the radius of every box.
+   */
+  private static int[] boxRadii(double sigma) {
+    double variance = sigma * sigma;
+    int lower = (int) Math.floor(Math.sqrt(12 * variance / BOXES + 1));
+    if (lower % 2 == 0) {
+      lower--;
+    }
+    double narrow = (12 * variance - BOXES * lower * lower - 4 * BOXES * lower - 3 * BOXES)
+            / (-4 * lower - 4);
+    int count = (int) Math.max(0, Math.min(BOXES, Math.round(narrow)));
+    int[] radii = new int[BOXES];
+    for (int i = 0; i < BOXES; i++) {
+      radii[i] = (i < count ? lower : lower + 2) / 2;
+    }
+    return radii;
+  }
+
+  /**
+   * Rounds a channel to the fixed point precision of the horizontal result.
+   *
+   * @param value the filtered channel.
+   * @return the channel in quarters, clamped to the range of the channel.
+   */
+  private static int fixed(double value) {
+    return (int) Math.min(Math.max(Math.round(value * FRACTION), 0), LEVELS);
+  }
+
+  /**
+   * Rounds a channel to the nearest value.
+   *
+   * @param value the filtered channel.
+   * @return the channel clamped to 0..255.
+   */
+  private static int channel(double value) {
+    return (int) Math.min(Math.max(Math.round(value), 0), 255);
+  }
+}
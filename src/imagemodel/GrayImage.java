@@ -0,0 +1,191 @@
+package imagemodel;
+
+import java.nio.IntBuffer;
+
+/**
+ * This class represents a grayscale image, an image in which red, green and blue are equal for
+ * every pixel. It keeps a single byte per pixel and only expands the value to a packed 0xRRGGBB
+ * integer when a pixel or row is read as RGB.
+ */
+public class GrayImage extends AbstractImage {
+
+  private final byte[] levels;
+  private final int width;
+  private final int height;
+
+  /**
+   * Class constructor that builds the image from gray levels laid out row by row. The levels are
+   * copied, so later changes to the array do not affect the image.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @param levels gray level of each pixel, interpreted as unsigned bytes.
+   * @throws IllegalArgumentException when the dimensions are invalid or do not match the levels.
+   */
+  public GrayImage(int width, int height, byte[] levels) throws IllegalArgumentException {
+    this(checkLevels(width, height, levels).clone(), width, height);
+  }
+
+  /**
+   * Package-private constructor that adopts the given levels without copying them. The caller
+   * hands over the array and must not modify it afterwards.
+   *
+   * @param levels gray level of each pixel, of length width * height.
+   * @param width  of the image.
+   * @param height of the image.
+   */
+  GrayImage(byte[] levels, int width, int height) {
+    this.levels = levels;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Allocates the levels for an image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return the allocated levels.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  static byte[] allocate(int width, int height) throws IllegalArgumentException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image dimensions");
+    }
+    return new byte[Math.multiplyExact(width, height)];
+  }
+
+  /**
+   * Validates that the levels match the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @param levels gray levels.
+   * @return the levels that were validated.
+   * @throws IllegalArgumentException when the levels are invalid.
+   */
+  private static byte[] checkLevels(int width, int height, byte[] levels)
+          throws IllegalArgumentException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image dimensions");
+    }
+    if (levels == null || levels.length != (long) width * height) {
+      throw new IllegalArgumentException("Levels do not match the image dimensions");
+    }
+    return levels;
+  }
+
+  /**
+   * The getGray method returns the gray level at the given position.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return gray level between 0 and 255.
+   */
+  public int getGray(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    return levels[y * width + x] & 0xFF;
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    return getGray(x, y) * 0x010101;
+  }
+
+  /**
+   * The getRow method expands one row of the image into the given array as packed 0xRRGGBB
+   * values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    dst = getChannelRow(y, 0, dst);
+    for (int x = 0; x < width; x++) {
+      dst[x] *= 0x010101;
+    }
+    return dst;
+  }
+
+  /**
+   * The getChannelRow method copies the gray levels of a row into the given array. Every
+   * channel of a grayscale image holds the same value, so no unpacking is needed.
+   *
+   * @param y       index of the row to be read.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param dst     array that receives the values.
+   * @return the array holding the channel values.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  @Override
+  public int[] getChannelRow(int y, int channel, int[] dst) throws IllegalArgumentException {
+    channelShift(channel);
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      dst[x] = levels[offset + x] & 0xFF;
+    }
+    return dst;
+  }
+
+  /**
+   * The getRaster method returns the whole image expanded to packed 0xRRGGBB values laid out row
+   * by row. The expansion is a copy, the image itself keeps one byte per pixel.
+   *
+   * @return a read-only buffer of width * height packed values.
+   */
+  @Override
+  public IntBuffer getRaster() {
+    int[] raster = new int[levels.length];
+    for (int i = 0; i < raster.length; i++) {
+      raster[i] = (levels[i] & 0xFF) * 0x010101;
+    }
+    return IntBuffer.wrap(raster).asReadOnlyBuffer();
+  }
+
+  /**
+   * The isGrayscale method tells whether the image stores a single gray level per pixel.
+   *
+   * @return always true.
+   */
+  @Override
+  public boolean isGrayscale() {
+    return true;
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+}
@@ -0,0 +1,176 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * A write-once builder that implements the GrayImageBuilderInterface. It stores one byte per
+ * pixel and hands the storage over to a GrayImage on build.
+ */
+public class GrayImageBuilder implements GrayImageBuilderInterface {
+
+  private final byte[] levels;
+  private final int width;
+  private final int height;
+  private ImageInterface built;
+
+  /**
+   * Class constructor which allocates the storage for an image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  public GrayImageBuilder(int width, int height) throws IllegalArgumentException {
+    this.levels = GrayImage.allocate(width, height);
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * The setGray method sets the gray level at a specific position in the image.
+   *
+   * @param x     row index where the level is to be set.
+   * @param y     column index where the level is to be set.
+   * @param level gray level between 0 and 255.
+   * @throws IllegalArgumentException if the level is outside 0 to 255.
+   */
+  public void setGray(int x, int y, int level) throws IllegalArgumentException {
+    checkWritable();
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    levels[y * width + x] = (byte) checkLevel(level);
+  }
+
+  /**
+   * The setGrayRow method sets the gray levels of a complete row of the image.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width levels between 0 and 255.
+   * @throws IllegalArgumentException if a level is outside 0 to 255.
+   */
+  public void setGrayRow(int y, int[] src) throws IllegalArgumentException {
+    checkWritable();
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      levels[offset + x] = (byte) checkLevel(src[x]);
+    }
+  }
+
+  /**
+   * The setPixel method sets the pixel values at a specific position in the image.
+   *
+   * @param x     row index where the pixel is to be set.
+   * @param y     column index where the pixel is to be set.
+   * @param pixel values that are to be set in that position, with equal channels.
+   * @throws IllegalArgumentException if the channels of the pixel differ.
+   */
+  public void setPixel(int x, int y, PixelInterface pixel) throws IllegalArgumentException {
+    setRGB(x, y, Pixel.pack(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
+  }
+
+  /**
+   * The setRGB method sets the pixel at a specific position from a value packed as 0xRRGGBB.
+   *
+   * @param x   row index where the pixel is to be set.
+   * @param y   column index where the pixel is to be set.
+   * @param rgb packed RGB value with equal channels.
+   * @throws IllegalArgumentException if the channels of the value differ.
+   */
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    setGray(x, y, toLevel(rgb));
+  }
+
+  /**
+   * The setRow method sets a complete row of the image from packed 0xRRGGBB values.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width packed values with equal channels.
+   * @throws IllegalArgumentException if the channels of a value differ.
+   */
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    checkWritable();
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      levels[offset + x] = (byte) toLevel(src[x]);
+    }
+  }
+
+  /**
+   * The fill method sets every pixel of the image to the same packed 0xRRGGBB value.
+   *
+   * @param rgb packed RGB value with equal channels.
+   * @throws IllegalArgumentException if the channels of the value differ.
+   */
+  public void fill(int rgb) throws IllegalArgumentException {
+    checkWritable();
+    Arrays.fill(levels, (byte) toLevel(rgb));
+  }
+
+  /**
+   * The build method freezes the builder and hands its storage over to a GrayImage.
+   *
+   * @return the built image.
+   */
+  public ImageInterface build() {
+    if (built == null) {
+      built = new GrayImage(levels, width, height);
+    }
+    return built;
+  }
+
+  /**
+   * This method copies the current content of the builder into a new image.
+   *
+   * @return copied image.
+   */
+  public ImageInterface deepCopyImage() {
+    return new GrayImage(levels.clone(), width, height);
+  }
+
+  /**
+   * Converts a packed value with equal channels to its gray level.
+   *
+   * @param rgb packed RGB value.
+   * @return the gray level.
+   * @throws IllegalArgumentException if the channels of the value differ.
+   */
+  static int toLevel(int rgb) throws IllegalArgumentException {
+    int level = rgb & 0xFF;
+    if ((rgb & 0xFFFFFF) != level * 0x010101) {
+      throw new IllegalArgumentException("Pixel is not gray");
+    }
+    return level;
+  }
+
+  /**
+   * Checks that a gray level is in range.
+   *
+   * @param level gray level.
+   * @return the level.
+   * @throws IllegalArgumentException if the level is outside 0 to 255.
+   */
+  static int checkLevel(int level) throws IllegalArgumentException {
+    if (level < 0 || level > 255) {
+      throw new IllegalArgumentException("Invalid gray level");
+    }
+    return level;
+  }
+
+  /**
+   * Checks that the builder has not been built yet.
+   *
+   * @throws IllegalStateException when the image has already been built.
+   */
+  private void checkWritable() throws IllegalStateException {
+    if (built != null) {
+      throw new IllegalStateException("Image has already been built");
+    }
+  }
+}
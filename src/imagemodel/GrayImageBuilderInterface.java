@@ -0,0 +1,28 @@
+package imagemodel;
+
+/**
+ * The GrayImageBuilderInterface describes a write-once builder for grayscale images. Gray levels
+ * are written directly, packed RGB values are accepted only when their three channels are equal.
+ */
+public interface GrayImageBuilderInterface extends ImageBuilderInterface {
+
+  /**
+   * The setGray method sets the gray level at a specific position in the image.
+   *
+   * @param x     row index where the level is to be set.
+   * @param y     column index where the level is to be set.
+   * @param level gray level between 0 and 255.
+   * @throws IllegalArgumentException if the level is outside 0 to 255.
+   */
+  void setGray(int x, int y, int level) throws IllegalArgumentException;
+
+  /**
+   * The setGrayRow method sets the gray levels of a complete row of the image. Like setRow, it
+   * can write distinct rows from several threads at once.
+   *
+   * @param y      index of the row to be set.
+   * @param levels array holding at least width levels between 0 and 255.
+   * @throws IllegalArgumentException if a level is outside 0 to 255.
+   */
+  void setGrayRow(int y, int[] levels) throws IllegalArgumentException;
+}
@@ -0,0 +1,207 @@
+package imagemodel;
+
+/**
+ * The two dimensional Haar wavelet transform of a matrix whose sides are powers of two, computed
+ * in place in a flat buffer holding the matrix row by row.
+ *
+ * <p>Every level transforms the rows and then the columns of the top left corner of the level,
+ * and the next level works on the quarter of it holding the averages. The sides need not be
+ * equal: once the shorter side is down to one value, the remaining levels only transform along
+ * the longer side, so a wide image is not padded to a square. A step replaces a pair
+ * (a, b) by the average (a + b) / sqrt(2) and the detail (a - b) / sqrt(2). The averages are
+ * written over the front of the rows or columns as the pairs are read, which never overwrites a
+ * pair that is still to be read, and only the details go through a scratch buffer of half the
+ * length. The columns are processed in blocks of adjacent columns, so the transform reads and
+ * writes short runs of consecutive values of two rows instead of striding down every column one
+ * value at a time.
+ */
+final class HaarTransform {
+
+  private static final double ROOT_TWO = Math.sqrt(2);
+  private static final int BLOCK = 32;
+
+  /**
+   * This class only has static methods.
+   */
+  private HaarTransform() {
+  }
+
+  /**
+   * Transforms a matrix in place.
+   *
+   * @param data     the matrix, row by row.
+   * @param width    number of columns of the matrix, a power of two.
+   * @param height   number of rows of the matrix, a power of two.
+   * @param executor runs the rows, and then the columns, of a level in parallel bands.
+   */
+  static void forward(double[] data, int width, int height, BandExecutor executor) {
+    int levels = levels(width, height);
+    for (int level = 0; level < levels; level++) {
+      int columns = Math.max(width >> level, 1);
+      int rows = Math.max(height >> level, 1);
+      if (columns > 1) {
+        executor.forEachBand(columns, rows, (from, to) -> {
+          double[] details = new double[columns / 2];
+          for (int row = from; row < to; row++) {
+            forwardRow(data, row * width, columns, details);
+          }
+        });
+      }
+      if (rows > 1) {
+        executor.forEachBand(rows, columns, (from, to) -> {
+          double[] details = new double[rows / 2 * BLOCK];
+          for (int column = from; column < to; column += BLOCK) {
+            forwardColumns(data, width, column, Math.min(to, column + BLOCK), rows, details);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Inverts the transform of a matrix in place.
+   *
+   * @param data     the transformed matrix, row by row.
+   * @param width    number of columns of the matrix, a power of two.
+   * @param height   number of rows of the matrix, a power of two.
+   * @param executor runs the columns, and then the rows, of a level in parallel bands.
+   */
+  static void inverse(double[] data, int width, int height, BandExecutor executor) {
+    for (int level = levels(width, height) - 1; level >= 0; level--) {
+      int columns = Math.max(width >> level, 1);
+      int rows = Math.max(height >> level, 1);
+      if (rows > 1) {
+        executor.forEachBand(rows, columns, (from, to) -> {
+          double[] details = new double[rows / 2 * BLOCK];
+          for (int column = from; column < to; column += BLOCK) {
+            inverseColumns(data, width, column, Math.min(to, column + BLOCK), rows, details);
+          }
+        });
+      }
+      if (columns > 1) {
+        executor.forEachBand(columns, rows, (from, to) -> {
+          double[] details = new double[columns / 2];
+          for (int row = from; row < to; row++) {
+            inverseRow(data, row * width, columns, details);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Counts the levels of the transform of a matrix, which halve both sides until the longer
+   * side is down to one value.
+   *
+   * @param width  number of columns of the matrix, a power of two.
+   * @param height number of rows of the matrix, a power of two.
+   * @return the number of levels.
+   */
+  private static int levels(int width, int height) {
+    return Integer.numberOfTrailingZeros(Math.max(width, height));
+  }
+
+  /**
+   * Transforms the front of a row, leaving the averages in the first half and the details in
+   * the second half.
+   *
+   * @param data    the matrix.
+   * @param offset  index of the first value of the row.
+   * @param length  number of values transformed.
+   * @param details scratch for half of the values.
+   */
+  private static void forwardRow(double[] data, int offset, int length, double[] details) {
+    int half = length / 2;
+    for (int i = 0; i < half; i++) {
+      double a = data[offset + 2 * i];
+      double b = data[offset + 2 * i + 1];
+      data[offset + i] = (a + b) / ROOT_TWO;
+      details[i] = (a - b) / ROOT_TWO;
+    }
+    System.arraycopy(details, 0, data, offset + half, half);
+  }
+
+  /**
+   * Inverts the transform of the front of a row. The pairs are rebuilt from the last one, so
+   * an average is read before the pair written over it.
+   *
+   * @param data    the matrix.
+   * @param offset  index of the first value of the row.
+   * @param length  number of values transformed.
+   * @param details scratch for half of the values.
+   */
+  private static void inverseRow(double[] data, int offset, int length, double[] details) {
+    int half = length / 2;
+    System.arraycopy(data, offset + half, details, 0, half);
+    for (int i = half - 1; i >= 0; i--) {
+      double avg = data[offset + i];
+      double diff = details[i];
+      data[offset + 2 * i] = (avg + diff) / ROOT_TWO;
+      data[offset + 2 * i + 1] = (avg - diff) / ROOT_TWO;
+    }
+  }
+
+  /**
+   * Transforms the top of a block of adjacent columns, leaving the averages in the top half and
+   * the details in the bottom half.
+   *
+   * @param data    the matrix.
+   * @param width   number of columns of the matrix.
+   * @param first   first column of the block.
+   * @param last    column after the last column of the block.
+   * @param length  number of values transformed in every column.
+   * @param details scratch for half of the values of the block.
+   */
+  private static void forwardColumns(double[] data, int width, int first, int last, int length,
+                                     double[] details) {
+    int half = length / 2;
+    int columns = last - first;
+    for (int i = 0; i < half; i++) {
+      int top = 2 * i * width;
+      int bottom = top + width;
+      int average = i * width;
+      int detail = i * columns - first;
+      for (int j = first; j < last; j++) {
+        double a = data[top + j];
+        double b = data[bottom + j];
+        data[average + j] = (a + b) / ROOT_TWO;
+        details[detail + j] = (a - b) / ROOT_TWO;
+      }
+    }
+    for (int i = 0; i < half; i++) {
+      System.arraycopy(details, i * columns, data, (half + i) * width + first, columns);
+    }
+  }
+
+  /**
+   * Inverts the transform of the top of a block of adjacent columns. The pairs of rows are
+   * rebuilt from the last one, so an average is read before the pair written over it.
+   *
+   * @param data    the matrix.
+   * @param width   number of columns of the matrix.
+   * @param first   first column of the block.
+   * @param last    column after the last column of the block.
+   * @param length  number of values transformed in every column.
+   * @param details scratch for half of the values of the block.
+   */
+  private static void inverseColumns(double[] data, int width, int first, int last, int length,
+                                     double[] details) {
+    int half = length / 2;
+    int columns = last - first;
+    for (int i = 0; i < half; i++) {
+      System.arraycopy(data, (half + i) * width + first, details, i * columns, columns);
+    }
+    for (int i = half - 1; i >= 0; i--) {
+      int top = 2 * i * width;
+      int bottom = top + width;
+      int average = i * width;
+      int detail = i * columns - first;
+      for (int j = first; j < last; j++) {
+        double avg = data[average + j];
+        double diff = details[detail + j];
+        data[top + j] = (avg + diff) / ROOT_TWO;
+        data[bottom + j] = (avg - diff) / ROOT_TWO;
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package imagemodel;
+
+/**
+ * Storage that keeps images on the Java heap, as Image and GrayImage objects. This is the
+ * default storage of the operations and file handlers. Images derived from another image are
+ * built as TiledImage objects that share unchanged tiles with their source. Rasters of released
+ * images are kept in a pool and reused for the next images of the same size.
+ */
+public class HeapStorage implements ImageStorage {
+
+  private final RasterPool pool;
+
+  /**
+   * Creates a heap storage with its own raster pool.
+   */
+  public HeapStorage() {
+    this(new RasterPool());
+  }
+
+  /**
+   * Creates a heap storage that takes rasters from the given pool.
+   *
+   * @param pool pool of released rasters.
+   * @throws IllegalArgumentException if the pool is null.
+   */
+  public HeapStorage(RasterPool pool) throws IllegalArgumentException {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null");
+    }
+    this.pool = pool;
+  }
+
+  /**
+   * Creates a builder for an RGB image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  @Override
+  public ImageBuilderInterface newBuilder(int width, int height)
+          throws IllegalArgumentException {
+    return new ImageBuilder(width, height, pool);
+  }
+
+  /**
+   * Creates a tiled builder that shares the tiles of the source until they are changed.
+   *
+   * @param source image whose pixels the builder starts with.
+   * @return a new builder.
+   * @throws IllegalArgumentException if the source is null.
+   */
+  @Override
+  public ImageBuilderInterface newBuilder(ImageInterface source)
+          throws IllegalArgumentException {
+    return new TiledImageBuilder(source);
+  }
+
+  /**
+   * Creates a builder for an RGB image with few distinct colors. It builds a ConstantImage or a
+   * PaletteImage when the colors allow it.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  @Override
+  public ImageBuilderInterface newPaletteBuilder(int width, int height)
+          throws IllegalArgumentException {
+    return new PaletteImageBuilder(width, height);
+  }
+
+  /**
+   * Creates a builder for a grayscale image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  @Override
+  public GrayImageBuilderInterface newGrayBuilder(int width, int height)
+          throws IllegalArgumentException {
+    return new GrayImageBuilder(width, height);
+  }
+
+  /**
+   * Returns the raster of an image that is no longer used to the pool. Only Image objects whose
+   * raster is not pinned by a view, a tiled image or a buffer are released, the memory of any
+   * other image is left to the garbage collector. A released image is pinned, so releasing it
+   * again has no effect.
+   *
+   * @param image image that is no longer used.
+   */
+  @Override
+  public void release(ImageInterface image) {
+    if (image instanceof Image && !((Image) image).isPinned()) {
+      Image released = (Image) image;
+      released.pin();
+      pool.release(released.raster());
+    }
+  }
+}
@@ -1,18 +1,21 @@
 package imagemodel;
 
-import java.util.ArrayList;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 
 /**
- * This class is designed to represent images. It stores each pixel in a 2-dimensional list which
- * is of the type Pixel class. It also provides additional functionality of getting the
- * pixel value, width and height of the image.
+ * This class is designed to represent images. It stores the pixels in a single packed raster,
+ * an array of 0xRRGGBB integers laid out row by row, instead of one object per pixel. It also
+ * provides additional functionality of getting the pixel value, width and height of the image.
  */
-public class Image implements ImageInterface {
-  private List<List<Pixel>> pixels;
-  private int width;
-  private int height;
+public class Image extends AbstractImage {
+  private static final int WHITE = 0xFFFFFF;
+
+  private final int[] pixels;
+  private final int width;
+  private final int height;
+  private volatile boolean pinned;
 
   /**
    * The class constructor initializes the object such that a white image is generated as the
@@ -23,48 +26,169 @@ public class Image implements ImageInterface {
    * @throws IllegalArgumentException when the height or width of image is invalid.
    */
   public Image(int width, int height) throws IllegalArgumentException {
-    if (width <= 0 || height <= 0) {
-      throw new IllegalArgumentException("Invalid image dimensions");
+    this(allocate(width, height), width, height);
+    Arrays.fill(pixels, WHITE);
+  }
+
+  /**
+   * Additional constructor that builds the image from a 2-D list of pixels. The list is packed
+   * into the raster, positions missing from the list are left white.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @param pixels 2-D list of pixel values.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  public Image(int width, int height, List<List<Pixel>> pixels) throws IllegalArgumentException {
+    this(width, height);
+    for (int y = 0; y < Math.min(height, pixels.size()); y++) {
+      List<Pixel> row = pixels.get(y);
+      for (int x = 0; x < Math.min(width, row.size()); x++) {
+        Pixel pixel = row.get(x);
+        this.pixels[y * width + x] = Pixel.pack(pixel.getRed(), pixel.getGreen(),
+                pixel.getBlue());
+      }
     }
+  }
+
+  /**
+   * Additional constructor that builds the image from a packed raster of 0xRRGGBB values laid
+   * out row by row. The raster is copied, so later changes to the array do not affect the image.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @param pixels packed raster of length width * height.
+   * @throws IllegalArgumentException when the dimensions are invalid or do not match the raster.
+   */
+  public Image(int width, int height, int[] pixels) throws IllegalArgumentException {
+    this(checkRaster(width, height, pixels).clone(), width, height);
+  }
+
+  /**
+   * Package-private constructor that adopts the given raster without copying it. The caller
+   * hands over the array and must not modify it afterwards.
+   *
+   * @param pixels packed raster of length width * height.
+   * @param width  of the image.
+   * @param height of the image.
+   */
+  Image(int[] pixels, int width, int height) {
     this.width = width;
     this.height = height;
-    this.pixels = new ArrayList<>();
+    this.pixels = pixels;
+  }
 
-    for (int i = 0; i < height; i++) {
-      List<Pixel> row = new ArrayList<>();
-      for (int j = 0; j < width; j++) {
-        row.add(new Pixel(255, 255, 255));
-      }
-      pixels.add(row);
+  /**
+   * Allocates a raster for an image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return the allocated raster.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  static int[] allocate(int width, int height) throws IllegalArgumentException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image dimensions");
     }
+    return new int[Math.multiplyExact(width, height)];
   }
 
   /**
-   * Additional constructor for the ImageCopy class.
+   * Validates that a raster matches the given dimensions and only holds 24-bit RGB values.
    *
    * @param width  of the image.
    * @param height of the image.
-   * @param pixels 2-D list of pixel values.
-   * @throws IllegalArgumentException when the height or width of image is invalid.
+   * @param pixels packed raster.
+   * @return the raster that was validated.
+   * @throws IllegalArgumentException when the raster is invalid.
    */
-  public Image(int width, int height, List<List<Pixel>> pixels) throws IllegalArgumentException {
+  private static int[] checkRaster(int width, int height, int[] pixels)
+          throws IllegalArgumentException {
     if (width <= 0 || height <= 0) {
       throw new IllegalArgumentException("Invalid image dimensions");
     }
-    this.width = width;
-    this.height = height;
-    this.pixels = pixels;
+    if (pixels == null || pixels.length != (long) width * height) {
+      throw new IllegalArgumentException("Raster does not match the image dimensions");
+    }
+    for (int rgb : pixels) {
+      if ((rgb & ~WHITE) != 0) {
+        throw new IllegalArgumentException("Invalid pixel value for red/green/blue");
+      }
+    }
+    return pixels;
   }
 
   /**
-   * The getPixel method extracts the pixels at the given position of the image.
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
    *
    * @param x row index of the image.
    * @param y column index of the image.
-   * @return pixel value
+   * @return packed RGB value of the pixel.
+   */
+  public int getRGB(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    return pixels[y * width + x];
+  }
+
+  /**
+   * The getRow method copies one row of the image into the given array as packed 0xRRGGBB
+   * values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row, a new array is allocated when it is null or shorter
+   *            than the width of the image.
+   * @return the array holding the row.
    */
-  public PixelInterface getPixel(int x, int y) {
-    return pixels.get(y).get(x);
+  public int[] getRow(int y, int[] dst) {
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    System.arraycopy(pixels, y * width, dst, 0, width);
+    return dst;
+  }
+
+  /**
+   * The getRaster method gives read-only access to the whole image as packed 0xRRGGBB values
+   * laid out row by row. The buffer wraps the raster of the image, nothing is copied, so the
+   * raster is pinned and never released to a pool.
+   *
+   * @return a read-only buffer of width * height packed values.
+   */
+  public IntBuffer getRaster() {
+    pin();
+    return IntBuffer.wrap(pixels).asReadOnlyBuffer();
+  }
+
+  /**
+   * Gives the raster of the image to classes of this package that share it without copying.
+   * The array must not be modified.
+   *
+   * @return the packed raster of the image.
+   */
+  int[] raster() {
+    return pixels;
+  }
+
+  /**
+   * Marks the raster as referenced from outside of this image, by a view, a tiled image or a
+   * buffer. A pinned raster is never released to a pool.
+   */
+  void pin() {
+    pinned = true;
+  }
+
+  /**
+   * Tells whether the raster is referenced from outside of this image.
+   *
+   * @return true if the image is pinned.
+   */
+  boolean isPinned() {
+    return pinned;
   }
 
   /**
@@ -93,43 +217,14 @@ public class Image implements ImageInterface {
    */
   @Override
   public boolean equals(Object o) {
-    if (this == o) {
-      return true;
-    }
-    if (!(o instanceof ImageInterface)) {
-      return false;
-    }
-    ImageInterface actual = (ImageInterface) o;
-    if (this.getWidth() != actual.getWidth() || this.getHeight() != actual.getHeight()) {
-      return false;
-    }
-    for (int y = 0; y < this.getHeight(); y++) {
-      for (int x = 0; x < this.getWidth(); x++) {
-        PixelInterface expectedPixel = this.getPixel(x, y);
-        PixelInterface actualPixel = actual.getPixel(x, y);
-        if (expectedPixel.getRed() != actualPixel.getRed()
-                || expectedPixel.getGreen() != actualPixel.getGreen()
-                || expectedPixel.getBlue() != actualPixel.getBlue()) {
-          return false;
-        }
-      }
-    }
-    return true;
-  }
-
-  /**
-   * Hashcode method that complements the equals method.
-   *
-   * @return hashcode of the object.
-   */
-  @Override
-  public int hashCode() {
-    int result = Objects.hash(width, height);
-    for (List<Pixel> row : pixels) {
-      for (PixelInterface pixel : row) {
-        result += Objects.hash(pixel.getRed(), pixel.getGreen(), pixel.getBlue());
+    if (o instanceof Image) {
+      if (digestDiffers(o)) {
+        return false;
       }
+      Image actual = (Image) o;
+      return width == actual.width && height == actual.height
+              && Arrays.equals(pixels, actual.pixels);
     }
-    return result;
+    return super.equals(o);
   }
 }
@@ -0,0 +1,134 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * A write-once builder that implements the ImageBuilderInterface. Unlike ImageCopy the storage is
+ * not painted white up front, so every pixel must be written before the image is built. Building
+ * transfers the raster to the resulting Image instead of copying it.
+ */
+public class ImageBuilder implements ImageBuilderInterface {
+
+  private final int[] pixels;
+  private final int width;
+  private final int height;
+  private ImageInterface built;
+
+  /**
+   * Class constructor which allocates the storage for an image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  public ImageBuilder(int width, int height) throws IllegalArgumentException {
+    this.pixels = Image.allocate(width, height);
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Constructor that takes the storage for the image from a raster pool, reusing the raster of
+   * an image that was released to the pool when one of the same size is available.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @param pool   pool the raster is taken from.
+   * @throws IllegalArgumentException when the height or width of image is invalid or the pool
+   *                                  is null.
+   */
+  public ImageBuilder(int width, int height, RasterPool pool) throws IllegalArgumentException {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null");
+    }
+    this.pixels = pool.acquire(width, height);
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * The setPixel method sets the pixel values at a specific position in the image.
+   *
+   * @param x     row index where the pixel is to be set.
+   * @param y     column index where the pixel is to be set.
+   * @param pixel values that are to be set in that position.
+   */
+  public void setPixel(int x, int y, PixelInterface pixel) {
+    setRGB(x, y, Pixel.pack(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
+  }
+
+  /**
+   * The setRGB method sets the pixel at a specific position from a value packed as 0xRRGGBB.
+   *
+   * @param x   row index where the pixel is to be set.
+   * @param y   column index where the pixel is to be set.
+   * @param rgb packed RGB value that is to be set in that position.
+   */
+  public void setRGB(int x, int y, int rgb) {
+    checkWritable();
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    pixels[y * width + x] = rgb & 0xFFFFFF;
+  }
+
+  /**
+   * The setRow method sets a complete row of the image from packed 0xRRGGBB values.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width packed values.
+   */
+  public void setRow(int y, int[] src) {
+    checkWritable();
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      pixels[offset + x] = src[x] & 0xFFFFFF;
+    }
+  }
+
+  /**
+   * The fill method sets every pixel of the image to the same packed 0xRRGGBB value.
+   *
+   * @param rgb packed RGB value that is to be set everywhere.
+   */
+  public void fill(int rgb) {
+    checkWritable();
+    Arrays.fill(pixels, rgb & 0xFFFFFF);
+  }
+
+  /**
+   * The build method freezes the builder and hands its storage over to an immutable image.
+   *
+   * @return the built image.
+   */
+  public ImageInterface build() {
+    if (built == null) {
+      built = new Image(pixels, width, height);
+    }
+    return built;
+  }
+
+  /**
+   * This method copies the current content of the builder into a new image. The builder stays
+   * writable, use build to avoid the copy.
+   *
+   * @return copied image.
+   */
+  public ImageInterface deepCopyImage() {
+    return new Image(pixels.clone(), width, height);
+  }
+
+  /**
+   * Checks that the builder has not been built yet.
+   *
+   * @throws IllegalStateException when the image has already been built.
+   */
+  private void checkWritable() throws IllegalStateException {
+    if (built != null) {
+      throw new IllegalStateException("Image has already been built");
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package imagemodel;
+
+/**
+ * The ImageBuilderInterface describes a write-once image. The pixels are written directly into
+ * the storage of the builder, which is then frozen into an immutable image without copying it.
+ *
+ * <p>Distinct rows can be written with setRow from several threads at once without locking the
+ * builder, as the bands of an operation do. The builder is built once all of those writes are
+ * done.
+ */
+public interface ImageBuilderInterface extends ImageCopyInterface {
+
+  /**
+   * The fill method sets every pixel of the image to the same packed 0xRRGGBB value.
+   *
+   * @param rgb packed RGB value that is to be set everywhere.
+   */
+  void fill(int rgb);
+
+  /**
+   * The build method freezes the builder and hands its storage over to an immutable image. Any
+   * write to the builder after this call fails, calling build again returns the same image.
+   *
+   * @return the built image.
+   */
+  ImageInterface build();
+}
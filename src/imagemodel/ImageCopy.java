@@ -1,18 +1,20 @@
 package imagemodel;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * A copy class that implements the ImageCopyInterface. The purpose of this class is to create a
  * copy of the image that is passed as input to it, while offering the functionality to manually
- * set the pixel value to this copy image, making the Image class immutable.
+ * set the pixel value to this copy image, making the Image class immutable. The raster is only
+ * allocated on the first write, until then the copy is a white ConstantImage.
  */
 public class ImageCopy implements ImageCopyInterface {
 
-  private List<List<Pixel>> pixels;
-  private int width;
-  private int height;
+  private static final int WHITE = 0xFFFFFF;
+
+  private int[] pixels;
+  private final int width;
+  private final int height;
 
   /**
    * Class constructor which initializes with a white image upon object creation.
@@ -26,14 +28,19 @@ public class ImageCopy implements ImageCopyInterface {
     }
     this.width = width;
     this.height = height;
-    this.pixels = new ArrayList<>();
-    for (int i = 0; i < this.height; i++) {
-      List<Pixel> row = new ArrayList<>();
-      for (int j = 0; j < this.width; j++) {
-        row.add(new Pixel(255, 255, 255));
-      }
-      pixels.add(row);
+  }
+
+  /**
+   * Gives the raster, allocating it filled with white on the first write.
+   *
+   * @return the packed raster of the copy.
+   */
+  private int[] raster() {
+    if (pixels == null) {
+      pixels = Image.allocate(width, height);
+      Arrays.fill(pixels, WHITE);
     }
+    return pixels;
   }
 
   /**
@@ -44,21 +51,50 @@ public class ImageCopy implements ImageCopyInterface {
    * @param pixel values that are to be set in that position.
    */
   public void setPixel(int x, int y, PixelInterface pixel) {
-    pixels.get(y).set(x, (Pixel) pixel);
+    setRGB(x, y, Pixel.pack(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
+  }
+
+  /**
+   * The setRGB method sets the pixel at a specific position from a value packed as 0xRRGGBB.
+   *
+   * @param x   row index where the pixel is to be set.
+   * @param y   column index where the pixel is to be set.
+   * @param rgb packed RGB value that is to be set in that position.
+   */
+  public void setRGB(int x, int y, int rgb) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    raster()[y * width + x] = rgb & 0xFFFFFF;
+  }
+
+  /**
+   * The setRow method sets a complete row of the image from packed 0xRRGGBB values.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width packed values.
+   */
+  public void setRow(int y, int[] src) {
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    int[] raster = raster();
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      raster[offset + x] = src[x] & 0xFFFFFF;
+    }
   }
 
   /**
-   * This method copies an image content on to another.
+   * This method copies an image content on to another. A copy that was never written is
+   * returned as a ConstantImage.
    *
    * @return copied image.
    */
   public ImageInterface deepCopyImage() {
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        PixelInterface pixel = pixels.get(y).get(x);
-        setPixel(x, y, new Pixel(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
-      }
+    if (pixels == null) {
+      return new ConstantImage(width, height, WHITE);
     }
-    return new Image(width, height, pixels);
+    return new Image(pixels.clone(), width, height);
   }
 }
@@ -15,6 +15,23 @@ public interface ImageCopyInterface {
    */
   void setPixel(int x, int y, PixelInterface pixel);
 
+  /**
+   * The setRGB method sets the pixel at a specific position from a value packed as 0xRRGGBB.
+   *
+   * @param x   row index where the pixel is to be set.
+   * @param y   column index where the pixel is to be set.
+   * @param rgb packed RGB value that is to be set in that position.
+   */
+  void setRGB(int x, int y, int rgb);
+
+  /**
+   * The setRow method sets a complete row of the image from packed 0xRRGGBB values.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width packed values.
+   */
+  void setRow(int y, int[] src);
+
   /**
    * This method copies an image content on to another.
    *
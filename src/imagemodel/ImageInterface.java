@@ -1,5 +1,7 @@
 package imagemodel;
 
+import java.nio.IntBuffer;
+
 /**
  * This is an interface for the Image class. It has functionalities for getting or setting the
  * pixel values, and getting the width and height of the image.
@@ -15,6 +17,76 @@ public interface ImageInterface {
    */
   PixelInterface getPixel(int x, int y);
 
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB. Unlike
+   * getPixel, it does not create a pixel object, which makes it the preferred accessor inside
+   * per-pixel loops.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  int getRGB(int x, int y);
+
+  /**
+   * The getRow method copies one row of the image into the given array as packed 0xRRGGBB
+   * values, so that callers can loop over primitive arrays instead of fetching pixel by pixel.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row, a new array is allocated when it is null or shorter
+   *            than the width of the image.
+   * @return the array holding the row.
+   */
+  int[] getRow(int y, int[] dst);
+
+  /**
+   * The getChannelRow method copies one color channel of a row into the given array, one value
+   * between 0 and 255 per pixel.
+   *
+   * @param y       index of the row to be read.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param dst     array that receives the values, a new array is allocated when it is null or
+   *                shorter than the width of the image.
+   * @return the array holding the channel values.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  int[] getChannelRow(int y, int channel, int[] dst) throws IllegalArgumentException;
+
+  /**
+   * The getRaster method gives read-only access to the whole image as packed 0xRRGGBB values
+   * laid out row by row.
+   *
+   * @return a read-only buffer of width * height packed values.
+   */
+  IntBuffer getRaster();
+
+  /**
+   * The isGrayscale method tells whether the image stores a single gray level per pixel, in
+   * which case its three channels are equal by construction.
+   *
+   * @return true for grayscale images.
+   */
+  boolean isGrayscale();
+
+  /**
+   * The contentDigest method gives a 64-bit digest of the dimensions and pixels of the image.
+   * Images with the same pixels have the same digest whatever their storage, so it can be used
+   * as a key for caching results and finding duplicate images. It is computed once and then
+   * remembered.
+   *
+   * @return the digest of the image.
+   */
+  long contentDigest();
+
+  /**
+   * The materialize method gives an image that holds its own pixels. Views, which read their
+   * pixels from another image on every access, copy them into a dense image, any other image
+   * returns itself.
+   *
+   * @return an image with the same pixels that does not depend on another image.
+   */
+  ImageInterface materialize();
+
   /**
    * The getWidth method is used to get the width of the Image.
    *
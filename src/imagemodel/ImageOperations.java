@@ -1,6 +1,7 @@
 package imagemodel;
 
 import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 
 /**
  * The ImageOperations class contains the implementation of all the operations that can be
@@ -9,8 +10,126 @@ import java.util.function.Function;
  */
 public class ImageOperations implements Operations {
 
+  private static final Convolution BLUR = new Convolution(new double[][]{
+      {1.0 / 16, 1.0 / 8, 1.0 / 16},
+      {1.0 / 8, 1.0 / 4, 1.0 / 8},
+      {1.0 / 16, 1.0 / 8, 1.0 / 16}});
+
+  private static final Convolution SHARPEN = new Convolution(new double[][]{
+      {-1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8},
+      {-1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, -1.0 / 8},
+      {-1.0 / 8, 1.0 / 4, 1.0, 1.0 / 4, -1.0 / 8},
+      {-1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, -1.0 / 8},
+      {-1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8}});
+
+  private final ImageStorage storage;
+  private final BandExecutor executor;
+  private ImageInterface owned;
+
+  /**
+   * Creates the operations with images stored on the heap.
+   */
+  public ImageOperations() {
+    this(new HeapStorage());
+  }
+
+  /**
+   * Creates the operations with the given storage for the images they produce.
+   *
+   * @param storage decides where the pixels of the resulting images live.
+   * @throws IllegalArgumentException if the storage is null.
+   */
+  public ImageOperations(ImageStorage storage) throws IllegalArgumentException {
+    this(storage, new BandExecutor());
+  }
+
+  /**
+   * Creates the operations with the given storage for the images they produce and the given
+   * executor for their rows.
+   *
+   * @param storage  decides where the pixels of the resulting images live.
+   * @param executor runs the rows of the operations, in parallel if it has several threads.
+   * @throws IllegalArgumentException if the storage or executor is null.
+   */
+  public ImageOperations(ImageStorage storage, BandExecutor executor)
+          throws IllegalArgumentException {
+    if (storage == null) {
+      throw new IllegalArgumentException("Storage cannot be null");
+    }
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor cannot be null");
+    }
+    this.storage = storage;
+    this.executor = executor;
+  }
+
+  /**
+   * Gives the storage the resulting images are created in.
+   *
+   * @return the storage of the operations.
+   */
+  protected ImageStorage getStorage() {
+    return storage;
+  }
+
+  /**
+   * Gives the executor that runs the rows of the operations.
+   *
+   * @return the executor of the operations.
+   */
+  protected BandExecutor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Creates a builder for a resulting RGB image in the storage of the operations.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   */
+  protected ImageBuilderInterface newBuilder(int width, int height) {
+    return storage.newBuilder(width, height);
+  }
+
+  /**
+   * Creates a builder for a resulting RGB image that starts with the pixels of the source, so
+   * that the storage can share the parts the operation leaves unchanged.
+   *
+   * @param source image whose pixels the builder starts with.
+   * @return a new builder.
+   */
+  protected ImageBuilderInterface newBuilder(ImageInterface source) {
+    return storage.newBuilder(source);
+  }
+
+  /**
+   * Creates a builder for a resulting RGB image of few distinct colors in the storage of the
+   * operations.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   */
+  protected ImageBuilderInterface newPaletteBuilder(int width, int height) {
+    return storage.newPaletteBuilder(width, height);
+  }
+
   /**
-   * The applyHorizontalFlip method will flip the image horizontally.
+   * Creates a builder for a resulting grayscale image in the storage of the operations.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   */
+  protected GrayImageBuilderInterface newGrayBuilder(int width, int height) {
+    return storage.newGrayBuilder(width, height);
+  }
+
+  /**
+   * The applyHorizontalFlip method will flip the image horizontally. The result is a view of
+   * the image, no pixels are copied until it is materialized, unless the image was handed over
+   * by applyOwned, in which case its rows are reversed in place.
    *
    * @param image that needs to be flipped.
    * @return object of type Image, after flipping it horizontally.
@@ -21,22 +140,27 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    int width = image.getWidth();
-    int height = image.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width / 2; x++) {
-        PixelInterface left = image.getPixel(x, y);
-        PixelInterface right = image.getPixel(width - 1 - x, y);
-        copy.setPixel(x, y, right);
-        copy.setPixel(width - 1 - x, y, left);
-      }
+    int[] raster = takeRaster(image);
+    if (raster != null) {
+      int width = image.getWidth();
+      executor.forEachBand(width, image.getHeight(), (from, to) -> {
+        for (int y = from; y < to; y++) {
+          for (int left = y * width, right = left + width - 1; left < right; left++, right--) {
+            int swap = raster[left];
+            raster[left] = raster[right];
+            raster[right] = swap;
+          }
+        }
+      });
+      return new Image(raster, width, image.getHeight());
     }
-    return copy.deepCopyImage();
+    return FlippedImage.flip(image, true, false, storage);
   }
 
   /**
-   * The applyVerticalFlip method will flip the image vertically.
+   * The applyVerticalFlip method will flip the image vertically. The result is a view of the
+   * image, no pixels are copied until it is materialized, unless the image was handed over by
+   * applyOwned, in which case its rows are swapped in place.
    *
    * @param image that needs to be flipped.
    * @return object of type Image, after flipping it vertically.
@@ -47,28 +171,28 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    int width = image.getWidth();
-    int height = image.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        if (y < height / 2) {
-          PixelInterface top = image.getPixel(x, y);
-          PixelInterface bottom = image.getPixel(x, height - 1 - y);
-          copy.setPixel(x, y, bottom);
-          copy.setPixel(x, height - 1 - y, top);
-        } else if (y == height / 2 && height % 2 == 1) {
-          PixelInterface middle = image.getPixel(x, y);
-          copy.setPixel(x, y, middle);
+    int[] raster = takeRaster(image);
+    if (raster != null) {
+      int width = image.getWidth();
+      int height = image.getHeight();
+      executor.forEachBand(width, height / 2, (from, to) -> {
+        int[] row = new int[width];
+        for (int y = from; y < to; y++) {
+          int top = y * width;
+          int bottom = (height - 1 - y) * width;
+          System.arraycopy(raster, top, row, 0, width);
+          System.arraycopy(raster, bottom, raster, top, width);
+          System.arraycopy(row, 0, raster, bottom, width);
         }
-      }
+      });
+      return new Image(raster, width, height);
     }
-    return copy.deepCopyImage();
+    return FlippedImage.flip(image, false, true, storage);
   }
 
   /**
    * The applyBrightness method will brighten or darken the image depending on the increment
-   * parameter received.
+   * parameter received. The clamped sum is compiled into a lookup table.
    *
    * @param image     whose brightness needs to be changed.
    * @param increment factor to be applied on the image.
@@ -80,21 +204,92 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    int width = image.getWidth();
-    int height = image.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        PixelInterface pixel = image.getPixel(x, y);
-        int red = clamp(pixel.getRed() + increment);
-        int green = clamp(pixel.getGreen() + increment);
-        int blue = clamp(pixel.getBlue() + increment);
-        copy.setPixel(x, y, new Pixel(red, green, blue));
-      }
+    return applyPointwise(image, LookupTable.brightness(increment));
+  }
+
+  /**
+   * Applies a pipeline of pointwise operations to an image in a single pass, creating the result
+   * in the storage of the operations.
+   *
+   * @param image    on which the pipeline is to be applied.
+   * @param pipeline chain of pointwise operations.
+   * @return the resulting image.
+   * @throws IllegalArgumentException if the image or pipeline is null.
+   */
+  public ImageInterface applyPipeline(ImageInterface image, PointwisePipeline pipeline)
+          throws IllegalArgumentException {
+    if (pipeline == null) {
+      throw new IllegalArgumentException("Pipeline cannot be null");
+    }
+    return pipeline.apply(image, storage, executor);
+  }
+
+  /**
+   * Applies a single pointwise operation to an image. An image handed over by applyOwned is
+   * mapped in place.
+   *
+   * @param image     on which the operation is to be applied.
+   * @param operation pointwise operation.
+   * @return the resulting image.
+   */
+  protected ImageInterface applyPointwise(ImageInterface image, PointwiseOperation operation) {
+    PointwisePipeline pipeline = new PointwisePipeline().then(operation);
+    int[] raster = takeRaster(image);
+    if (raster != null) {
+      int width = image.getWidth();
+      int height = image.getHeight();
+      pipeline.applyInPlace(raster, width, height, executor);
+      return new Image(raster, width, height);
     }
-    return copy.deepCopyImage();
+    return pipeline.apply(image, storage, executor);
   }
 
+  /**
+   * The applyOwned method will apply an operation to an image the caller holds the only
+   * reference to. The image is handed over for the duration of the operation, so that the first
+   * pointwise operation or flip applied to it writes the result over its raster instead of
+   * allocating a new one, when the raster is not shared with a view or a tiled image.
+   *
+   * @param image     the image, which the caller must not use after this call.
+   * @param operation the operation to be applied to the image.
+   * @return the result of the operation.
+   * @throws IllegalArgumentException if the image or operation is null.
+   */
+  @Override
+  public ImageInterface applyOwned(ImageInterface image,
+                                   Function<ImageInterface, ImageInterface> operation)
+          throws IllegalArgumentException {
+    if (image == null || operation == null) {
+      throw new IllegalArgumentException("Arguments cannot be null");
+    }
+    owned = image;
+    try {
+      return operation.apply(image);
+    } finally {
+      owned = null;
+    }
+  }
+
+  /**
+   * Takes the raster of an image handed over by applyOwned, if nothing else shares it. The image
+   * is pinned, so that releasing it once it is replaced leaves the raster to the result, and it
+   * is no longer handed over.
+   *
+   * @param image the image an operation is applied to.
+   * @return the raster to overwrite, or null if the image must be left unchanged.
+   */
+  private int[] takeRaster(ImageInterface image) {
+    if (image != owned || !(image instanceof Image) || ((Image) image).isPinned()) {
+      return null;
+    }
+    owned = null;
+    Image source = (Image) image;
+    source.pin();
+    return source.raster();
+  }
+
+
+
   /**
    * The clamp method will make sure that the pixel value of the image stays within the range of
    * 0 and 255.
@@ -118,24 +313,10 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    int width = image.getWidth();
-    int height = image.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        PixelInterface pixel = image.getPixel(x, y);
-        int red = clamp((int) (0.393 * pixel.getRed() + 0.769 * pixel.getGreen()
-                + 0.189 * pixel.getBlue()));
-        int green = clamp((int) (0.349 * pixel.getRed() + 0.686 * pixel.getGreen()
-                + 0.168 * pixel.getBlue()));
-        int blue = clamp((int) (0.272 * pixel.getRed() + 0.534 * pixel.getGreen()
-                + 0.131 * pixel.getBlue()));
-        copy.setPixel(x, y, new Pixel(red, green, blue));
-      }
-    }
-    return copy.deepCopyImage();
+    return applyPointwise(image, ColorMatrix.SEPIA);
   }
 
+
   /**
    * The applyBlur method will blur the image.
    *
@@ -148,12 +329,7 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    double[][] blurKernel = {
-            {1.0 / 16, 1.0 / 8, 1.0 / 16},
-            {1.0 / 8, 1.0 / 4, 1.0 / 8},
-            {1.0 / 16, 1.0 / 8, 1.0 / 16}
-    };
-    return applyKernel(image, blurKernel);
+    return applyKernel(image, BLUR);
   }
 
   /**
@@ -168,18 +344,12 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    double[][] sharpenKernel = {
-            {-1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8},
-            {-1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, -1.0 / 8},
-            {-1.0 / 8, 1.0 / 4, 1.0, 1.0 / 4, -1.0 / 8},
-            {-1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, -1.0 / 8},
-            {-1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8}
-    };
-    return applyKernel(image, sharpenKernel);
+    return applyKernel(image, SHARPEN);
   }
 
   /**
-   * This method will extract the red component out of the image.
+   * This method will extract the red component out of the image. The result is a view of the
+   * image, no pixels are copied until it is materialized.
    *
    * @param image on which the operation is to be applied.
    * @return an object of type Image after extracting the red component.
@@ -191,11 +361,12 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    return componentHelper(image, PixelInterface::getRed);
+    return channelHelper(image, 0);
   }
 
   /**
-   * This method will extract the green component out of the image.
+   * This method will extract the green component out of the image. The result is a view of the
+   * image, no pixels are copied until it is materialized.
    *
    * @param image on which the operation is to be applied.
    * @return an object of type Image after extracting the green component.
@@ -207,11 +378,12 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    return componentHelper(image, PixelInterface::getGreen);
+    return channelHelper(image, 1);
   }
 
   /**
-   * This method will extract the blue component out of the image.
+   * This method will extract the blue component out of the image. The result is a view of the
+   * image, no pixels are copied until it is materialized.
    *
    * @param image on which the operation is to be applied.
    * @return an object of type Image after extracting the blue component.
@@ -222,7 +394,7 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    return componentHelper(image, PixelInterface::getBlue);
+    return channelHelper(image, 2);
   }
 
   /**
@@ -237,8 +409,8 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    return componentHelper(image, pixel -> Math.max(pixel.getRed(),
-            Math.max(pixel.getGreen(), pixel.getBlue())));
+    return componentHelper(image, true, rgb -> Math.max((rgb >> 16) & 0xFF,
+            Math.max((rgb >> 8) & 0xFF, rgb & 0xFF)));
   }
 
   /**
@@ -253,8 +425,7 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    return componentHelper(image, pixel ->
-            (pixel.getRed() + pixel.getGreen() + pixel.getBlue()) / 3);
+    return matrixHelper(image, ColorMatrix.INTENSITY);
   }
 
   /**
@@ -269,77 +440,99 @@ public class ImageOperations implements Operations {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    return componentHelper(image, pixel -> (int) (0.2126 * pixel.getRed()
-            + 0.7152 * pixel.getGreen() + 0.0722 * pixel.getBlue()));
+    return matrixHelper(image, ColorMatrix.LUMA);
+  }
+
+  /**
+   * Helper method that extracts one color channel as a grayscale view. A grayscale image has the
+   * same level in every channel, so it is returned as it is.
+   *
+   * @param image   to be processed.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @return image after processing.
+   */
+  private ImageInterface channelHelper(ImageInterface image, int channel) {
+    if (image.isGrayscale()) {
+      return image;
+    }
+    return new ChannelImage(image, channel, storage);
   }
 
   /**
-   * Helper method that will perform component modification operations.
+   * Helper method that applies a gray color matrix and stores the result as a grayscale image.
+   * A grayscale image is returned as it is when the matrix preserves gray levels.
+   *
+   * @param image  to be processed.
+   * @param matrix color matrix whose rows are all equal.
+   * @return image after processing.
+   */
+  private ImageInterface matrixHelper(ImageInterface image, ColorMatrix matrix) {
+    if (image.isGrayscale() && matrix.preservesGray()) {
+      return image;
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    GrayImageBuilderInterface copy = newGrayBuilder(width, height);
+    executor.forEachBand(width, height, (from, to) -> {
+      int[] row = new int[width];
+      for (int y = from; y < to; y++) {
+        row = image.getRow(y, row);
+        matrix.applyGray(row, width);
+        copy.setGrayRow(y, row);
+      }
+    });
+    return copy.build();
+  }
+
+  /**
+   * Helper method that will perform component modification operations. The result has equal
+   * channels, so it is stored as a grayscale image.
    *
    * @param image              to be processed.
-   * @param componentExtractor operation to be performed.
+   * @param preservesGray      whether the extractor returns the level of a gray pixel unchanged,
+   *                           in which case a grayscale image is returned as it is.
+   * @param componentExtractor operation to be performed on the packed RGB value of a pixel.
    * @return image after processing.
    * @throws IllegalArgumentException if the Image is null.
    */
-  private ImageInterface componentHelper(ImageInterface image, Function<PixelInterface,
-          Integer> componentExtractor) {
+  private ImageInterface componentHelper(ImageInterface image, boolean preservesGray,
+                                         IntUnaryOperator componentExtractor) {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
+    if (preservesGray && image.isGrayscale()) {
+      return image;
+    }
     int width = image.getWidth();
     int height = image.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        PixelInterface pixel = image.getPixel(x, y);
-        int value = componentExtractor.apply(pixel);
-        copy.setPixel(x, y, new Pixel(value, value, value));
+    GrayImageBuilderInterface copy = newGrayBuilder(width, height);
+    executor.forEachBand(width, height, (from, to) -> {
+      int[] row = new int[width];
+      for (int y = from; y < to; y++) {
+        image.getRow(y, row);
+        for (int x = 0; x < width; x++) {
+          row[x] = componentExtractor.applyAsInt(row[x]);
+        }
+        copy.setGrayRow(y, row);
       }
-    }
-    return copy.deepCopyImage();
+    });
+    return copy.build();
   }
 
   /**
-   * This function will apply the kernel to the blur and sepia tone functions.
+   * This function will apply the kernel to the blur and sharpen functions. The convolution
+   * runs its bands on the executor of the operations.
    *
    * @param image  on which the kernel needs to be applied.
    * @param kernel The kernel on that particular function.
    * @throws IllegalArgumentException if the Image is null.
    */
-  private ImageInterface applyKernel(ImageInterface image, double[][] kernel)
+  private ImageInterface applyKernel(ImageInterface image, Convolution kernel)
           throws IllegalArgumentException {
     if (image == null) {
       throw new IllegalArgumentException("image is null");
     }
-    int kernelHeight = kernel.length;
-    int kernelWidth = kernel[0].length;
-    int kernelRadiusX = kernelWidth / 2;
-    int kernelRadiusY = kernelHeight / 2;
-    int width = image.getWidth();
-    int height = image.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        double redSum = 0;
-        double greenSum = 0;
-        double blueSum = 0;
-        for (int ky = -kernelRadiusY; ky <= kernelRadiusY; ky++) {
-          for (int kx = -kernelRadiusX; kx <= kernelRadiusX; kx++) {
-            int pixelX = Math.min(Math.max(x + kx, 0), width - 1);
-            int pixelY = Math.min(Math.max(y + ky, 0), height - 1);
-            PixelInterface pixel = image.getPixel(pixelX, pixelY);
-            double kernelValue = kernel[ky + kernelRadiusY][kx + kernelRadiusX];
-            redSum += pixel.getRed() * kernelValue;
-            greenSum += pixel.getGreen() * kernelValue;
-            blueSum += pixel.getBlue() * kernelValue;
-          }
-        }
-        PixelInterface pixel1 = new Pixel(clamp((int) redSum), clamp((int) greenSum),
-                clamp((int) blueSum));
-        copy.setPixel(x, y, pixel1);
-      }
-    }
-    return copy.deepCopyImage();
+    return kernel.apply(image, newBuilder(image.getWidth(), image.getHeight()), executor);
   }
 
 
@@ -351,7 +544,8 @@ public class ImageOperations implements Operations {
    * @param greenImage that is used for the green-pixels of the image.
    * @param blueImage  that is used for the blue-pixels of the image.
    * @return an image after combining all the three RGB Channels.
-   * @throws IllegalArgumentException if the Image is null.
+   * @throws IllegalArgumentException if the Image is null or a channel image is smaller than the
+   *                                  red image.
    */
   @Override
   public ImageInterface combineRGB(ImageInterface redImage, ImageInterface greenImage,
@@ -361,15 +555,24 @@ public class ImageOperations implements Operations {
     }
     int width = redImage.getWidth();
     int height = redImage.getHeight();
-    ImageCopyInterface copy = new ImageCopy(width, height);
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int red = redImage.getPixel(x, y).getRed();
-        int green = greenImage.getPixel(x, y).getGreen();
-        int blue = blueImage.getPixel(x, y).getBlue();
-        copy.setPixel(x, y, new Pixel(red, green, blue));
-      }
+    if (greenImage.getWidth() < width || greenImage.getHeight() < height
+            || blueImage.getWidth() < width || blueImage.getHeight() < height) {
+      throw new IllegalArgumentException("Channel images are smaller than the red image");
     }
-    return copy.deepCopyImage();
+    ImageBuilderInterface copy = newBuilder(width, height);
+    executor.forEachBand(width, height, (from, to) -> {
+      int[] redRow = null;
+      int[] greenRow = null;
+      int[] blueRow = null;
+      int[] row = new int[width];
+      for (int y = from; y < to; y++) {
+        redRow = redImage.getChannelRow(y, 0, redRow);
+        greenRow = greenImage.getChannelRow(y, 1, greenRow);
+        blueRow = blueImage.getChannelRow(y, 2, blueRow);
+        KernelBackend.kernels().combine(redRow, greenRow, blueRow, row, width);
+        copy.setRow(y, row);
+      }
+    });
+    return copy.build();
   }
 }
\ No newline at end of file
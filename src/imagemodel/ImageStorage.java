@@ -0,0 +1,62 @@
+package imagemodel;
+
+/**
+ * The ImageStorage interface decides where the pixels of newly created images live. Operations
+ * and file handlers ask it for builders instead of creating them directly, so the same code can
+ * produce images on the heap or in memory outside of it.
+ */
+public interface ImageStorage {
+
+  /**
+   * Creates a builder for an RGB image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  ImageBuilderInterface newBuilder(int width, int height) throws IllegalArgumentException;
+
+  /**
+   * Creates a builder for an RGB image that starts with the pixels of the given image, for
+   * results that differ from their source in a few places only. The storage may share the
+   * unchanged parts with the source instead of copying them.
+   *
+   * @param source image whose pixels the builder starts with.
+   * @return a new builder.
+   * @throws IllegalArgumentException if the source is null.
+   */
+  ImageBuilderInterface newBuilder(ImageInterface source) throws IllegalArgumentException;
+
+  /**
+   * Creates a builder for an RGB image that an operation knows to have few distinct colors, such
+   * as a generated chart. The storage may pick a compact representation for it.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  ImageBuilderInterface newPaletteBuilder(int width, int height)
+          throws IllegalArgumentException;
+
+  /**
+   * Creates a builder for a grayscale image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  GrayImageBuilderInterface newGrayBuilder(int width, int height)
+          throws IllegalArgumentException;
+
+  /**
+   * Tells the storage that an image is no longer used, so that its memory can be reused for
+   * later images. The caller must hold the last reference to the image and must not use it
+   * afterwards. Images that share their pixels with other images are not released.
+   *
+   * @param image image that is no longer used.
+   */
+  void release(ImageInterface image);
+}
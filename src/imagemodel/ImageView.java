@@ -0,0 +1,125 @@
+package imagemodel;
+
+import java.nio.IntBuffer;
+
+/**
+ * Base class of the view images. A view does not hold pixels, it remaps the coordinates or
+ * channels of a source image on every access, which makes creating it an O(1) operation. The
+ * pixels are copied only when the view is materialized, into the storage the view was created
+ * with. The source is pinned, so its raster is never released while the view may read it.
+ */
+public abstract class ImageView extends AbstractImage {
+
+  private final ImageInterface source;
+  private final ImageStorage storage;
+
+  /**
+   * Creates a view of the given source.
+   *
+   * @param source  image the view reads from.
+   * @param storage storage a materialized copy is created in.
+   * @throws IllegalArgumentException if the source or storage is null.
+   */
+  protected ImageView(ImageInterface source, ImageStorage storage)
+          throws IllegalArgumentException {
+    if (source == null) {
+      throw new IllegalArgumentException("Image cannot be null");
+    }
+    if (storage == null) {
+      throw new IllegalArgumentException("Storage cannot be null");
+    }
+    if (source instanceof Image) {
+      ((Image) source).pin();
+    }
+    this.source = source;
+    this.storage = storage;
+  }
+
+  /**
+   * Gives the image the view reads from.
+   *
+   * @return the source image.
+   */
+  public ImageInterface getSource() {
+    return source;
+  }
+
+  /**
+   * Gives the storage a materialized copy is created in.
+   *
+   * @return the storage of the view.
+   */
+  protected ImageStorage getStorage() {
+    return storage;
+  }
+
+  /**
+   * Checks that a row index is inside the view.
+   *
+   * @param y index of the row.
+   */
+  protected void checkRow(int y) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+  }
+
+  /**
+   * Checks that a pixel position is inside the view.
+   *
+   * @param x column of the pixel.
+   * @param y row of the pixel.
+   */
+  protected void checkPixel(int x, int y) {
+    if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+  }
+
+  /**
+   * The getRaster method returns a read-only copy of the whole view as packed 0xRRGGBB values
+   * laid out row by row.
+   *
+   * @return a read-only buffer of width * height packed values.
+   */
+  @Override
+  public IntBuffer getRaster() {
+    return materialize().getRaster();
+  }
+
+  /**
+   * The isGrayscale method tells whether the view stores a single gray level per pixel, which
+   * is the case when its source does.
+   *
+   * @return true for views of grayscale images.
+   */
+  @Override
+  public boolean isGrayscale() {
+    return source.isGrayscale();
+  }
+
+  /**
+   * The materialize method copies the pixels of the view, row by row, into a dense image in the
+   * storage of the view.
+   *
+   * @return a dense image with the same pixels.
+   */
+  @Override
+  public ImageInterface materialize() {
+    int width = getWidth();
+    int height = getHeight();
+    int[] row = new int[width];
+    if (isGrayscale()) {
+      GrayImageBuilderInterface builder = storage.newGrayBuilder(width, height);
+      for (int y = 0; y < height; y++) {
+        builder.setGrayRow(y, getChannelRow(y, 0, row));
+      }
+      return builder.build();
+    }
+    ImageBuilderInterface builder = storage.newBuilder(width, height);
+    for (int y = 0; y < height; y++) {
+      builder.setRow(y, getRow(y, row));
+    }
+    return builder.build();
+  }
+}
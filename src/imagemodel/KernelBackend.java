@@ -0,0 +1,78 @@
+package imagemodel;
+
+/**
+ * Selects the implementation of the inner pixel loops. The vector implementation, built on the
+ * jdk.incubator.vector module, is used when the class and the module are both available and it
+ * has not been disabled, otherwise the scalar loops are used. Both give bit-identical results,
+ * so the choice only affects speed. The system property imagemodel.vector=false disables the
+ * vector implementation at startup, and it can be switched at any time with
+ * {@link #setVectorEnabled(boolean)}.
+ */
+public final class KernelBackend {
+
+  private static final PixelKernels SCALAR = new ScalarKernels();
+  private static final PixelKernels VECTOR = loadVector();
+  private static volatile PixelKernels current =
+          VECTOR != null && !"false".equalsIgnoreCase(System.getProperty("imagemodel.vector"))
+                  ? VECTOR : SCALAR;
+
+  /**
+   * This class only has static members.
+   */
+  private KernelBackend() {
+  }
+
+  /**
+   * Loads the vector implementation, which is compiled separately and fails to load when the
+   * vector module is not part of the runtime.
+   *
+   * @return the vector implementation, or null if it is not available.
+   */
+  private static PixelKernels loadVector() {
+    try {
+      return (PixelKernels) Class.forName("imagemodel.VectorKernels")
+              .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Tells whether the vector implementation can be used in this runtime.
+   *
+   * @return true if the vector implementation is available.
+   */
+  public static boolean isVectorAvailable() {
+    return VECTOR != null;
+  }
+
+  /**
+   * Tells whether the vector implementation is in use.
+   *
+   * @return true if the pixel loops use the vector implementation.
+   */
+  public static boolean isVectorEnabled() {
+    return current == VECTOR && VECTOR != null;
+  }
+
+  /**
+   * Switches between the vector and the scalar implementation. Enabling has no effect when the
+   * vector implementation is not available.
+   *
+   * @param enabled whether to use the vector implementation.
+   * @return true if the vector implementation is in use afterwards.
+   */
+  public static boolean setVectorEnabled(boolean enabled) {
+    current = enabled && VECTOR != null ? VECTOR : SCALAR;
+    return isVectorEnabled();
+  }
+
+  /**
+   * Gives the implementation currently in use.
+   *
+   * @return the pixel kernels.
+   */
+  static PixelKernels kernels() {
+    return current;
+  }
+}
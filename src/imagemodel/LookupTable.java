@@ -0,0 +1,246 @@
+package imagemodel;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A pointwise color operation compiled into one 256-entry table per channel. Operations whose
+ * result for a channel only depends on the value of that channel, such as brightening or levels
+ * adjustment, evaluate their function once per possible value instead of once per pixel, and
+ * then map every pixel through the tables.
+ */
+public final class LookupTable implements PointwiseOperation {
+
+  /**
+   * The number of entries of each table, one for every channel value.
+   */
+  public static final int SIZE = 256;
+
+  private static final int NO_INCREMENT = Integer.MIN_VALUE;
+
+  private final int[] red;
+  private final int[] green;
+  private final int[] blue;
+  private final boolean uniform;
+  private final int increment;
+
+  /**
+   * Compiles a function that is applied to every channel in the same way.
+   *
+   * @param function maps a channel value between 0 and 255 to a new value in that range.
+   * @throws IllegalArgumentException if the function is null or gives a value out of range.
+   */
+  public LookupTable(IntUnaryOperator function) throws IllegalArgumentException {
+    this(compile(function));
+  }
+
+  /**
+   * Compiles one function per channel.
+   *
+   * @param red   maps a red value between 0 and 255 to a new value in that range.
+   * @param green maps a green value between 0 and 255 to a new value in that range.
+   * @param blue  maps a blue value between 0 and 255 to a new value in that range.
+   * @throws IllegalArgumentException if a function is null or gives a value out of range.
+   */
+  public LookupTable(IntUnaryOperator red, IntUnaryOperator green, IntUnaryOperator blue)
+          throws IllegalArgumentException {
+    this(compile(red), compile(green), compile(blue));
+  }
+
+  /**
+   * Creates a table that uses the same values for every channel.
+   *
+   * @param values new value of every channel value.
+   */
+  private LookupTable(int[] values) {
+    this(values, values, values);
+  }
+
+  /**
+   * Creates a table from compiled values, keeping them shifted to the position of their channel
+   * so that a pixel is mapped with three lookups and two ors.
+   *
+   * @param red   new value of every red value.
+   * @param green new value of every green value.
+   * @param blue  new value of every blue value.
+   */
+  LookupTable(int[] red, int[] green, int[] blue) {
+    this(red, green, blue, NO_INCREMENT);
+  }
+
+  /**
+   * Creates a table from compiled values that may be known to add a clamped increment to every
+   * channel, which the pixel kernels can apply without lookups.
+   *
+   * @param red       new value of every red value.
+   * @param green     new value of every green value.
+   * @param blue      new value of every blue value.
+   * @param increment the increment the table adds, or NO_INCREMENT for other tables.
+   */
+  private LookupTable(int[] red, int[] green, int[] blue, int increment) {
+    this.increment = increment;
+    this.uniform = Arrays.equals(red, green) && Arrays.equals(green, blue);
+    this.red = new int[SIZE];
+    this.green = new int[SIZE];
+    this.blue = blue.clone();
+    for (int value = 0; value < SIZE; value++) {
+      this.red[value] = red[value] << 16;
+      this.green[value] = green[value] << 8;
+    }
+  }
+
+  /**
+   * Evaluates a function for every channel value.
+   *
+   * @param function maps a channel value to a new value.
+   * @return the values of the function.
+   * @throws IllegalArgumentException if the function is null or gives a value out of range.
+   */
+  private static int[] compile(IntUnaryOperator function) throws IllegalArgumentException {
+    if (function == null) {
+      throw new IllegalArgumentException("Function cannot be null");
+    }
+    int[] values = new int[SIZE];
+    for (int value = 0; value < SIZE; value++) {
+      values[value] = function.applyAsInt(value);
+      if (values[value] < 0 || values[value] > 255) {
+        throw new IllegalArgumentException("Table values must be between 0 and 255");
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Gives the new value of a channel value.
+   *
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param value   channel value between 0 and 255.
+   * @return the new value.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  public int lookup(int channel, int value) throws IllegalArgumentException {
+    switch (channel) {
+      case 0:
+        return red[value] >> 16;
+      case 1:
+        return green[value] >> 8;
+      case 2:
+        return blue[value];
+      default:
+        throw new IllegalArgumentException("Channel must be 0, 1 or 2");
+    }
+  }
+
+  /**
+   * Gives the table that adds an increment to every channel, clamped to 0..255.
+   *
+   * @param increment value added to every channel, negative to darken.
+   * @return the brightness table.
+   */
+  public static LookupTable brightness(int increment) {
+    int[] values = compile(value -> Math.min(Math.max(value + increment, 0), 255));
+    return new LookupTable(values, values, values,
+            increment == NO_INCREMENT ? NO_INCREMENT + 1 : increment);
+  }
+
+  /**
+   * Gives the levels adjustment table, the quadratic curve through (black, 0), (mid, 128) and
+   * (white, 255) rounded and clamped to 0..255.
+   *
+   * @param black the black point for levels adjustment.
+   * @param mid   the mid-tone point for levels adjustment.
+   * @param white the white point for levels adjustment.
+   * @return the levels table.
+   * @throws IllegalArgumentException if black, mid, and white values are not in ascending order.
+   */
+  public static LookupTable levels(int black, int mid, int white)
+          throws IllegalArgumentException {
+    if (black < 0 || black >= mid || mid >= white || white > 255) {
+      throw new IllegalArgumentException("Black, mid, and white values must be in ascending "
+              + "order within [0, 255].");
+    }
+    double denominator = Math.pow(black, 2) * (mid - white) - black * (Math.pow(mid, 2)
+            - Math.pow(white, 2)) + white * Math.pow(mid, 2) - mid * Math.pow(white, 2);
+    double aNumerator = -black * (128 - 255) + 128 * white - 255 * mid;
+    double bNumerator = Math.pow(black, 2) * (128 - 255) + 255
+            * Math.pow(mid, 2) - 128 * Math.pow(white, 2);
+    double cNumerator = Math.pow(black, 2) * (255 * mid - 128 * white)
+            - black * (255 * Math.pow(mid, 2) - 128 * Math.pow(white, 2));
+    double a = aNumerator / denominator;
+    double b = bNumerator / denominator;
+    double c = cNumerator / denominator;
+    return new LookupTable(value -> Math.min(Math.max(
+            (int) Math.round(a * Math.pow(value, 2) + b * value + c), 0), 255));
+  }
+
+  /**
+   * Gives the table that applies this table and then the given one. Both tables clamp their
+   * output, so the composed table gives exactly the result of applying them one after the
+   * other.
+   *
+   * @param next table applied to the output of this one.
+   * @return the composed table.
+   */
+  public LookupTable andThen(LookupTable next) {
+    int[] composedRed = new int[SIZE];
+    int[] composedGreen = new int[SIZE];
+    int[] composedBlue = new int[SIZE];
+    for (int value = 0; value < SIZE; value++) {
+      composedRed[value] = next.red[red[value] >> 16] >> 16;
+      composedGreen[value] = next.green[green[value] >> 8] >> 8;
+      composedBlue[value] = next.blue[blue[value]];
+    }
+    return new LookupTable(composedRed, composedGreen, composedBlue);
+  }
+
+  /**
+   * Maps a pixel through the tables.
+   *
+   * @param rgb pixel packed as 0xRRGGBB.
+   * @return the new pixel packed as 0xRRGGBB.
+   */
+  @Override
+  public int apply(int rgb) {
+    return red[(rgb >> 16) & 0xFF] | green[(rgb >> 8) & 0xFF] | blue[rgb & 0xFF];
+  }
+
+  /**
+   * Maps the first length pixels of a row through the tables, in place.
+   *
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels to map.
+   */
+  @Override
+  public void apply(int[] row, int length) {
+    if (increment != NO_INCREMENT) {
+      KernelBackend.kernels().addClamped(row, length, increment);
+      return;
+    }
+    for (int x = 0; x < length; x++) {
+      int rgb = row[x];
+      row[x] = red[(rgb >> 16) & 0xFF] | green[(rgb >> 8) & 0xFF] | blue[rgb & 0xFF];
+    }
+  }
+
+  /**
+   * Maps the first length gray levels of a row through the table, in place. This is only
+   * meaningful for uniform tables, which treat every channel alike.
+   *
+   * @param levels gray levels between 0 and 255.
+   * @param length number of levels to map.
+   */
+  public void applyGray(int[] levels, int length) {
+    for (int x = 0; x < length; x++) {
+      levels[x] = blue[levels[x]];
+    }
+  }
+
+  /**
+   * Tells whether every channel is mapped in the same way, in which case gray pixels stay gray.
+   *
+   * @return true if the tables of all channels are equal.
+   */
+  public boolean isUniform() {
+    return uniform;
+  }
+}
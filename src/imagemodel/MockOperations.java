@@ -10,6 +10,10 @@ public class MockOperations implements AdditionalOperations {
   private StringBuilder logs;
   private boolean downscale;
   private boolean blurred;
+  private boolean gaussian;
+  private boolean rank;
+  private boolean convolution;
+  private boolean owned;
   private boolean split;
   private boolean sharpened;
   private boolean sepia;
@@ -32,6 +36,10 @@ public class MockOperations implements AdditionalOperations {
   public MockOperations() {
     downscale = false;
     blurred = false;
+    gaussian = false;
+    rank = false;
+    convolution = false;
+    owned = false;
     split = false;
     sharpened = false;
     sepia = false;
@@ -110,6 +118,163 @@ public class MockOperations implements AdditionalOperations {
     return blurred;
   }
 
+  /**
+   * Mock for Gaussian blur.
+   *
+   * @param image    to be blurred.
+   * @param sigma    standard deviation.
+   * @param accurate mode of the blur.
+   * @return null.
+   */
+  @Override
+  public ImageInterface applyGaussianBlur(ImageInterface image, double sigma, boolean accurate) {
+    logs.append("Applied gaussian blur ").append(String.valueOf(sigma))
+            .append(accurate ? " accurate" : " fast").append("\n");
+    gaussian = true;
+    return null;
+  }
+
+  /**
+   * Mock for Gaussian blur.
+   *
+   * @param image     to be blurred.
+   * @param sigma     standard deviation.
+   * @param accurate  mode of the blur.
+   * @param maskImage the mask.
+   * @return null.
+   */
+  @Override
+  public ImageInterface applyGaussianBlur(ImageInterface image, double sigma, boolean accurate,
+                                          ImageInterface maskImage) {
+    logs.append("Applied gaussian blur with mask").append("\n");
+    gaussian = true;
+    return null;
+  }
+
+  /**
+   * Flag value for Gaussian blurring.
+   *
+   * @return boolean flag.
+   */
+  public boolean isGaussian() {
+    return gaussian;
+  }
+
+  /**
+   * Mock for median.
+   *
+   * @param image  to be filtered.
+   * @param radius of the window.
+   * @return null.
+   */
+  @Override
+  public ImageInterface applyMedian(ImageInterface image, int radius) {
+    logs.append("Applied median ").append(String.valueOf(radius)).append("\n");
+    rank = true;
+    return null;
+  }
+
+  /**
+   * Mock for median.
+   *
+   * @param image     to be filtered.
+   * @param radius    of the window.
+   * @param maskImage the mask.
+   * @return null.
+   */
+  @Override
+  public ImageInterface applyMedian(ImageInterface image, int radius, ImageInterface maskImage) {
+    logs.append("Applied median with mask").append("\n");
+    rank = true;
+    return null;
+  }
+
+  /**
+   * Mock for percentile.
+   *
+   * @param image      to be filtered.
+   * @param radius     of the window.
+   * @param percentile taken over the window.
+   * @return null.
+   */
+  @Override
+  public ImageInterface applyPercentile(ImageInterface image, int radius, double percentile) {
+    logs.append("Applied percentile ").append(String.valueOf(percentile)).append(" ")
+            .append(String.valueOf(radius)).append("\n");
+    rank = true;
+    return null;
+  }
+
+  /**
+   * Mock for percentile.
+   *
+   * @param image      to be filtered.
+   * @param radius     of the window.
+   * @param percentile taken over the window.
+   * @param maskImage  the mask.
+   * @return null.
+   */
+  @Override
+  public ImageInterface applyPercentile(ImageInterface image, int radius, double percentile,
+                                        ImageInterface maskImage) {
+    logs.append("Applied percentile with mask").append("\n");
+    rank = true;
+    return null;
+  }
+
+  /**
+   * Flag value for median and percentile filters.
+   *
+   * @return boolean flag.
+   */
+  public boolean isRank() {
+    return rank;
+  }
+
+  /**
+   * Mock for convolve.
+   *
+   * @param image  to be convolved.
+   * @param kernel weights of the kernel.
+   * @param edges  edge mode.
+   * @return null.
+   */
+  @Override
+  public ImageInterface applyConvolution(ImageInterface image, double[][] kernel,
+                                         EdgeMode edges) {
+    logs.append("Applied convolution ").append(String.valueOf(kernel[0].length)).append("x")
+            .append(String.valueOf(kernel.length)).append(" ")
+            .append(edges.name().toLowerCase()).append("\n");
+    convolution = true;
+    return null;
+  }
+
+  /**
+   * Mock for convolve.
+   *
+   * @param image     to be convolved.
+   * @param kernel    weights of the kernel.
+   * @param edges     edge mode.
+   * @param maskImage mask image.
+   * @return null.
+   */
+  @Override
+  public ImageInterface applyConvolution(ImageInterface image, double[][] kernel,
+                                         EdgeMode edges, ImageInterface maskImage) {
+    logs.append("Applied convolution with mask").append("\n");
+    convolution = true;
+    return null;
+  }
+
+  /**
+   * Flag value for convolve.
+   *
+   * @return boolean flag.
+   */
+  public boolean isConvolution() {
+    return convolution;
+  }
+
   /**
    * Mock for sharpen.
    *
@@ -442,6 +607,22 @@ public class MockOperations implements AdditionalOperations {
     return null;
   }
 
+  /**
+   * Mock for compression with a threshold shared by the channels.
+   *
+   * @param image      to be compressed.
+   * @param percentage of compression.
+   * @param joint      whether the channels share one threshold.
+   * @return null.
+   */
+  @Override
+  public ImageInterface compressImage(ImageInterface image, int percentage, boolean joint) {
+    if (joint) {
+      logs.append("Compressing channels jointly\n");
+    }
+    return compressImage(image, percentage);
+  }
+
   /**
    * Flag value for compression.
    *
@@ -536,6 +717,30 @@ public class MockOperations implements AdditionalOperations {
     return null;
   }
 
+  /**
+   * Mock for applying an operation to an owned image.
+   *
+   * @param image     the image handed over.
+   * @param operation the operation to be applied.
+   * @return the result of the operation.
+   */
+  @Override
+  public ImageInterface applyOwned(ImageInterface image,
+                                   Function<ImageInterface, ImageInterface> operation) {
+    logs.append("Owned image handed over").append("\n");
+    owned = true;
+    return operation.apply(image);
+  }
+
+  /**
+   * Flag value for operations on owned images.
+   *
+   * @return boolean flag.
+   */
+  public boolean isOwned() {
+    return owned;
+  }
+
   /**
    * Flag value for checking split condition.
    *
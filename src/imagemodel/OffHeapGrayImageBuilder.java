@@ -0,0 +1,155 @@
+package imagemodel;
+
+import java.nio.file.Path;
+
+/**
+ * A write-once builder that implements the GrayImageBuilderInterface with off-heap storage. It
+ * keeps one byte per pixel in direct memory or a memory-mapped scratch file, and build hands that
+ * storage over to a grayscale OffHeapImage.
+ */
+public class OffHeapGrayImageBuilder implements GrayImageBuilderInterface {
+
+  private final OffHeapRaster raster;
+  private final int width;
+  private final int height;
+  private ImageInterface built;
+
+  /**
+   * Class constructor which allocates the storage for an image of the given dimensions.
+   *
+   * @param width            of the image.
+   * @param height           of the image.
+   * @param scratchDirectory directory for a memory-mapped scratch file, or null to allocate
+   *                         direct memory.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  public OffHeapGrayImageBuilder(int width, int height, Path scratchDirectory)
+          throws IllegalArgumentException {
+    this.raster = new OffHeapRaster(width, height, 1, scratchDirectory);
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * The setGray method sets the gray level at a specific position in the image.
+   *
+   * @param x     row index where the level is to be set.
+   * @param y     column index where the level is to be set.
+   * @param level gray level between 0 and 255.
+   * @throws IllegalArgumentException if the level is outside 0 to 255.
+   */
+  public void setGray(int x, int y, int level) throws IllegalArgumentException {
+    checkWritable();
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    raster.put(x, y, GrayImageBuilder.checkLevel(level));
+  }
+
+  /**
+   * The setGrayRow method sets the gray levels of a complete row of the image.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width levels between 0 and 255.
+   * @throws IllegalArgumentException if a level is outside 0 to 255.
+   */
+  public void setGrayRow(int y, int[] src) throws IllegalArgumentException {
+    checkWritable();
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    for (int x = 0; x < width; x++) {
+      GrayImageBuilder.checkLevel(src[x]);
+    }
+    raster.putRow(y, src);
+  }
+
+  /**
+   * The setPixel method sets the pixel values at a specific position in the image.
+   *
+   * @param x     row index where the pixel is to be set.
+   * @param y     column index where the pixel is to be set.
+   * @param pixel values that are to be set in that position, with equal channels.
+   * @throws IllegalArgumentException if the channels of the pixel differ.
+   */
+  public void setPixel(int x, int y, PixelInterface pixel) throws IllegalArgumentException {
+    setRGB(x, y, Pixel.pack(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
+  }
+
+  /**
+   * The setRGB method sets the pixel at a specific position from a value packed as 0xRRGGBB.
+   *
+   * @param x   row index where the pixel is to be set.
+   * @param y   column index where the pixel is to be set.
+   * @param rgb packed RGB value with equal channels.
+   * @throws IllegalArgumentException if the channels of the value differ.
+   */
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    setGray(x, y, GrayImageBuilder.toLevel(rgb));
+  }
+
+  /**
+   * The setRow method sets a complete row of the image from packed 0xRRGGBB values.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width packed values with equal channels.
+   * @throws IllegalArgumentException if the channels of a value differ.
+   */
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    int[] levels = new int[width];
+    for (int x = 0; x < width; x++) {
+      levels[x] = GrayImageBuilder.toLevel(src[x]);
+    }
+    setGrayRow(y, levels);
+  }
+
+  /**
+   * The fill method sets every pixel of the image to the same packed 0xRRGGBB value.
+   *
+   * @param rgb packed RGB value with equal channels.
+   * @throws IllegalArgumentException if the channels of the value differ.
+   */
+  public void fill(int rgb) throws IllegalArgumentException {
+    checkWritable();
+    raster.fill(GrayImageBuilder.toLevel(rgb));
+  }
+
+  /**
+   * The build method freezes the builder and hands its storage over to an OffHeapImage.
+   *
+   * @return the built image.
+   */
+  public ImageInterface build() {
+    if (built == null) {
+      built = new OffHeapImage(raster, width, height, true);
+    }
+    return built;
+  }
+
+  /**
+   * This method copies the current content of the builder into a new grayscale image on the
+   * heap.
+   *
+   * @return copied image.
+   */
+  public ImageInterface deepCopyImage() {
+    GrayImageBuilder copy = new GrayImageBuilder(width, height);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      raster.getRow(y, row);
+      copy.setGrayRow(y, row);
+    }
+    return copy.build();
+  }
+
+  /**
+   * Checks that the builder has not been built yet.
+   *
+   * @throws IllegalStateException when the image has already been built.
+   */
+  private void checkWritable() throws IllegalStateException {
+    if (built != null) {
+      throw new IllegalStateException("Image has already been built");
+    }
+  }
+}
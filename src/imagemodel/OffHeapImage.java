@@ -0,0 +1,163 @@
+package imagemodel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * This class represents an image whose pixels are stored outside of the Java heap, either in
+ * direct memory or in a memory-mapped scratch file. It holds packed 0xRRGGBB values, or one
+ * byte per pixel for grayscale images. Instances are created by the off-heap builders.
+ */
+public class OffHeapImage extends AbstractImage {
+
+  private final OffHeapRaster raster;
+  private final int width;
+  private final int height;
+  private final boolean gray;
+
+  /**
+   * Package-private constructor that adopts the given raster.
+   *
+   * @param raster the storage of the pixels.
+   * @param width  of the image.
+   * @param height of the image.
+   * @param gray   whether the raster holds gray levels instead of packed RGB values.
+   */
+  OffHeapImage(OffHeapRaster raster, int width, int height, boolean gray) {
+    this.raster = raster;
+    this.width = width;
+    this.height = height;
+    this.gray = gray;
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    int value = raster.get(x, y);
+    return gray ? value * 0x010101 : value;
+  }
+
+  /**
+   * The getRow method copies one row of the image into the given array as packed 0xRRGGBB
+   * values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    dst = readRow(y, dst);
+    if (gray) {
+      for (int x = 0; x < width; x++) {
+        dst[x] *= 0x010101;
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * The getChannelRow method copies one color channel of a row into the given array. Gray
+   * levels are copied as they are stored.
+   *
+   * @param y       index of the row to be read.
+   * @param channel 0 for red, 1 for green and 2 for blue.
+   * @param dst     array that receives the values.
+   * @return the array holding the channel values.
+   * @throws IllegalArgumentException if the channel is not 0, 1 or 2.
+   */
+  @Override
+  public int[] getChannelRow(int y, int channel, int[] dst) throws IllegalArgumentException {
+    if (!gray) {
+      return super.getChannelRow(y, channel, dst);
+    }
+    channelShift(channel);
+    return readRow(y, dst);
+  }
+
+  /**
+   * Copies the stored samples of a row into the given array.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the samples, allocated when null or too short.
+   * @return the array holding the samples.
+   */
+  private int[] readRow(int y, int[] dst) {
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    raster.getRow(y, dst);
+    return dst;
+  }
+
+  /**
+   * The getRaster method gives read-only access to the whole image as packed 0xRRGGBB values.
+   * When the pixels are stored in a single chunk the buffer is a view of them, otherwise they
+   * are copied into a new direct buffer.
+   *
+   * @return a read-only buffer of width * height packed values.
+   * @throws UnsupportedOperationException if the image does not fit in a single buffer.
+   */
+  @Override
+  public IntBuffer getRaster() {
+    IntBuffer view = gray ? null : raster.asIntBuffer();
+    if (view != null) {
+      return view;
+    }
+    long bytes = 4L * width * height;
+    if (bytes > Integer.MAX_VALUE) {
+      throw new UnsupportedOperationException("Image is too large for a single raster buffer");
+    }
+    IntBuffer copy = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder())
+            .asIntBuffer();
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      copy.put(getRow(y, row), 0, width);
+    }
+    copy.flip();
+    return copy.asReadOnlyBuffer();
+  }
+
+  /**
+   * The isGrayscale method tells whether the image stores a single gray level per pixel.
+   *
+   * @return true for grayscale images.
+   */
+  @Override
+  public boolean isGrayscale() {
+    return gray;
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+}
@@ -0,0 +1,130 @@
+package imagemodel;
+
+import java.nio.file.Path;
+
+/**
+ * A write-once builder that implements the ImageBuilderInterface with off-heap storage. The
+ * pixels are written straight into direct memory or a memory-mapped scratch file, and build hands
+ * that storage over to an OffHeapImage.
+ */
+public class OffHeapImageBuilder implements ImageBuilderInterface {
+
+  private final OffHeapRaster raster;
+  private final int width;
+  private final int height;
+  private ImageInterface built;
+
+  /**
+   * Class constructor which allocates the storage for an image of the given dimensions.
+   *
+   * @param width            of the image.
+   * @param height           of the image.
+   * @param scratchDirectory directory for a memory-mapped scratch file, or null to allocate
+   *                         direct memory.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  public OffHeapImageBuilder(int width, int height, Path scratchDirectory)
+          throws IllegalArgumentException {
+    this.raster = new OffHeapRaster(width, height, 4, scratchDirectory);
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * The setPixel method sets the pixel values at a specific position in the image.
+   *
+   * @param x     row index where the pixel is to be set.
+   * @param y     column index where the pixel is to be set.
+   * @param pixel values that are to be set in that position.
+   */
+  public void setPixel(int x, int y, PixelInterface pixel) {
+    setRGB(x, y, Pixel.pack(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
+  }
+
+  /**
+   * The setRGB method sets the pixel at a specific position from a value packed as 0xRRGGBB.
+   *
+   * @param x   row index where the pixel is to be set.
+   * @param y   column index where the pixel is to be set.
+   * @param rgb packed RGB value that is to be set in that position.
+   */
+  public void setRGB(int x, int y, int rgb) {
+    checkWritable();
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    raster.put(x, y, rgb & 0xFFFFFF);
+  }
+
+  /**
+   * The setRow method sets a complete row of the image from packed 0xRRGGBB values.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width packed values.
+   */
+  public void setRow(int y, int[] src) {
+    checkWritable();
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    for (int x = 0; x < width; x++) {
+      if ((src[x] & ~0xFFFFFF) != 0) {
+        int[] masked = new int[width];
+        for (int i = 0; i < width; i++) {
+          masked[i] = src[i] & 0xFFFFFF;
+        }
+        src = masked;
+        break;
+      }
+    }
+    raster.putRow(y, src);
+  }
+
+  /**
+   * The fill method sets every pixel of the image to the same packed 0xRRGGBB value.
+   *
+   * @param rgb packed RGB value that is to be set everywhere.
+   */
+  public void fill(int rgb) {
+    checkWritable();
+    raster.fill(rgb & 0xFFFFFF);
+  }
+
+  /**
+   * The build method freezes the builder and hands its storage over to an OffHeapImage.
+   *
+   * @return the built image.
+   */
+  public ImageInterface build() {
+    if (built == null) {
+      built = new OffHeapImage(raster, width, height, false);
+    }
+    return built;
+  }
+
+  /**
+   * This method copies the current content of the builder into a new image on the heap.
+   *
+   * @return copied image.
+   */
+  public ImageInterface deepCopyImage() {
+    ImageBuilder copy = new ImageBuilder(width, height);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      raster.getRow(y, row);
+      copy.setRow(y, row);
+    }
+    return copy.build();
+  }
+
+  /**
+   * Checks that the builder has not been built yet.
+   *
+   * @throws IllegalStateException when the image has already been built.
+   */
+  private void checkWritable() throws IllegalStateException {
+    if (built != null) {
+      throw new IllegalStateException("Image has already been built");
+    }
+  }
+}
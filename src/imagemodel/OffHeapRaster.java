@@ -0,0 +1,216 @@
+package imagemodel;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Row-major raster of samples stored outside of the Java heap. A sample is either a packed
+ * 0xRRGGBB integer or an unsigned gray byte. A single buffer is limited to 2 GB, so the raster
+ * is split into chunks of whole rows, each backed by direct memory or by a region of a
+ * memory-mapped scratch file.
+ */
+final class OffHeapRaster {
+
+  private static final long CHUNK_BYTES = 1L << 30;
+
+  private final ByteBuffer[] chunks;
+  private final IntBuffer[] intChunks;
+  private final int width;
+  private final int height;
+  private final int rowsPerChunk;
+
+  /**
+   * Allocates a raster of the given dimensions.
+   *
+   * @param width            of the raster.
+   * @param height           of the raster.
+   * @param bytesPerSample   4 for packed RGB samples, 1 for gray samples.
+   * @param scratchDirectory directory for a memory-mapped scratch file, or null to allocate
+   *                         direct memory.
+   * @throws IllegalArgumentException when the dimensions are invalid.
+   * @throws UncheckedIOException     when the scratch file cannot be created or mapped.
+   */
+  OffHeapRaster(int width, int height, int bytesPerSample, Path scratchDirectory)
+          throws IllegalArgumentException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image dimensions");
+    }
+    long rowBytes = (long) width * bytesPerSample;
+    if (rowBytes > CHUNK_BYTES) {
+      throw new IllegalArgumentException("Image rows are too wide for off-heap storage");
+    }
+    this.width = width;
+    this.height = height;
+    this.rowsPerChunk = (int) Math.min(height, CHUNK_BYTES / rowBytes);
+    int chunkCount = (height + rowsPerChunk - 1) / rowsPerChunk;
+    this.chunks = new ByteBuffer[chunkCount];
+    this.intChunks = bytesPerSample == 4 ? new IntBuffer[chunkCount] : null;
+    if (scratchDirectory == null) {
+      for (int i = 0; i < chunkCount; i++) {
+        chunks[i] = ByteBuffer.allocateDirect((int) (rowsInChunk(i) * rowBytes));
+      }
+    } else {
+      map(scratchDirectory, rowBytes);
+    }
+    for (int i = 0; i < chunkCount; i++) {
+      chunks[i].order(ByteOrder.nativeOrder());
+      if (intChunks != null) {
+        intChunks[i] = chunks[i].asIntBuffer();
+      }
+    }
+  }
+
+  /**
+   * Maps every chunk onto a region of a new scratch file. The file is removed right after
+   * mapping, the mappings keep the storage alive until the buffers are collected.
+   *
+   * @param scratchDirectory directory for the scratch file.
+   * @param rowBytes         size of a row in bytes.
+   * @throws UncheckedIOException when the scratch file cannot be created or mapped.
+   */
+  private void map(Path scratchDirectory, long rowBytes) {
+    try {
+      Path file = Files.createTempFile(scratchDirectory, "raster", ".tmp");
+      try (RandomAccessFile scratch = new RandomAccessFile(file.toFile(), "rw");
+           FileChannel channel = scratch.getChannel()) {
+        long position = 0;
+        for (int i = 0; i < chunks.length; i++) {
+          long size = rowsInChunk(i) * rowBytes;
+          chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+          position += size;
+        }
+      } finally {
+        if (!file.toFile().delete()) {
+          file.toFile().deleteOnExit();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not map scratch file: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Gives the number of rows held by a chunk.
+   *
+   * @param chunk index of the chunk.
+   * @return number of rows in the chunk.
+   */
+  private long rowsInChunk(int chunk) {
+    return Math.min(rowsPerChunk, height - (long) chunk * rowsPerChunk);
+  }
+
+  /**
+   * Reads a single sample.
+   *
+   * @param x column of the sample.
+   * @param y row of the sample.
+   * @return the packed RGB value, or the gray level for gray rasters.
+   */
+  int get(int x, int y) {
+    int chunk = y / rowsPerChunk;
+    int index = (y % rowsPerChunk) * width + x;
+    if (intChunks != null) {
+      return intChunks[chunk].get(index);
+    }
+    return chunks[chunk].get(index) & 0xFF;
+  }
+
+  /**
+   * Writes a single sample.
+   *
+   * @param x     column of the sample.
+   * @param y     row of the sample.
+   * @param value the packed RGB value, or the gray level for gray rasters.
+   */
+  void put(int x, int y, int value) {
+    int chunk = y / rowsPerChunk;
+    int index = (y % rowsPerChunk) * width + x;
+    if (intChunks != null) {
+      intChunks[chunk].put(index, value);
+    } else {
+      chunks[chunk].put(index, (byte) value);
+    }
+  }
+
+  /**
+   * Copies one row of samples into the given array.
+   *
+   * @param y   index of the row.
+   * @param dst array of at least width elements.
+   */
+  void getRow(int y, int[] dst) {
+    int chunk = y / rowsPerChunk;
+    int offset = (y % rowsPerChunk) * width;
+    if (intChunks != null) {
+      IntBuffer source = intChunks[chunk].duplicate();
+      source.position(offset);
+      source.get(dst, 0, width);
+    } else {
+      ByteBuffer source = chunks[chunk].duplicate();
+      source.position(offset);
+      byte[] levels = new byte[width];
+      source.get(levels);
+      for (int x = 0; x < width; x++) {
+        dst[x] = levels[x] & 0xFF;
+      }
+    }
+  }
+
+  /**
+   * Copies one row of samples from the given array.
+   *
+   * @param y   index of the row.
+   * @param src array of at least width elements.
+   */
+  void putRow(int y, int[] src) {
+    int chunk = y / rowsPerChunk;
+    int offset = (y % rowsPerChunk) * width;
+    if (intChunks != null) {
+      IntBuffer target = intChunks[chunk].duplicate();
+      target.position(offset);
+      target.put(src, 0, width);
+    } else {
+      ByteBuffer target = chunks[chunk].duplicate();
+      target.position(offset);
+      byte[] levels = new byte[width];
+      for (int x = 0; x < width; x++) {
+        levels[x] = (byte) src[x];
+      }
+      target.put(levels);
+    }
+  }
+
+  /**
+   * Sets every sample of the raster to the same value.
+   *
+   * @param value the packed RGB value, or the gray level for gray rasters.
+   */
+  void fill(int value) {
+    int[] row = new int[width];
+    Arrays.fill(row, value);
+    for (int y = 0; y < height; y++) {
+      putRow(y, row);
+    }
+  }
+
+  /**
+   * Gives read-only access to the samples of a raster that fits in a single chunk.
+   *
+   * @return the samples as a read-only buffer, or null when the raster spans several chunks or
+   *         stores gray levels.
+   */
+  IntBuffer asIntBuffer() {
+    if (intChunks == null || intChunks.length != 1) {
+      return null;
+    }
+    return intChunks[0].asReadOnlyBuffer();
+  }
+}
@@ -0,0 +1,104 @@
+package imagemodel;
+
+import java.nio.file.Path;
+
+/**
+ * Storage that keeps images outside of the Java heap, so that images larger than the heap can be
+ * processed. The pixels live either in direct memory or, when a scratch directory is given, in
+ * memory-mapped files inside that directory which the operating system pages in and out.
+ */
+public class OffHeapStorage implements ImageStorage {
+
+  private final Path scratchDirectory;
+
+  /**
+   * Creates a storage that allocates direct memory for every image.
+   */
+  public OffHeapStorage() {
+    this(null);
+  }
+
+  /**
+   * Creates a storage that maps a scratch file in the given directory for every image.
+   *
+   * @param scratchDirectory directory for the scratch files, or null to use direct memory.
+   */
+  public OffHeapStorage(Path scratchDirectory) {
+    this.scratchDirectory = scratchDirectory;
+  }
+
+  /**
+   * Creates a builder for an RGB image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  @Override
+  public ImageBuilderInterface newBuilder(int width, int height)
+          throws IllegalArgumentException {
+    return new OffHeapImageBuilder(width, height, scratchDirectory);
+  }
+
+  /**
+   * Creates an off-heap builder and copies the pixels of the source into it.
+   *
+   * @param source image whose pixels the builder starts with.
+   * @return a new builder.
+   * @throws IllegalArgumentException if the source is null.
+   */
+  @Override
+  public ImageBuilderInterface newBuilder(ImageInterface source)
+          throws IllegalArgumentException {
+    if (source == null) {
+      throw new IllegalArgumentException("Image cannot be null");
+    }
+    ImageBuilderInterface builder = newBuilder(source.getWidth(), source.getHeight());
+    int[] row = new int[source.getWidth()];
+    for (int y = 0; y < source.getHeight(); y++) {
+      builder.setRow(y, source.getRow(y, row));
+    }
+    return builder;
+  }
+
+  /**
+   * Creates a builder for an RGB image with few distinct colors. Off-heap images have a single
+   * RGB format, so this is the same as a builder of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  @Override
+  public ImageBuilderInterface newPaletteBuilder(int width, int height)
+          throws IllegalArgumentException {
+    return newBuilder(width, height);
+  }
+
+  /**
+   * Creates a builder for a grayscale image of the given dimensions.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a new builder.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  @Override
+  public GrayImageBuilderInterface newGrayBuilder(int width, int height)
+          throws IllegalArgumentException {
+    return new OffHeapGrayImageBuilder(width, height, scratchDirectory);
+  }
+
+  /**
+   * Off-heap memory is freed once the image is unreachable, so released images are left to the
+   * garbage collector.
+   *
+   * @param image image that is no longer used.
+   */
+  @Override
+  public void release(ImageInterface image) {
+    // Direct and mapped buffers are unmapped when they are collected.
+  }
+}
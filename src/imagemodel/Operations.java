@@ -1,5 +1,7 @@
 package imagemodel;
 
+import java.util.function.Function;
+
 /**
  * The Operations interface contains the function prototype of all the operations that can be
  * performed on the image such as horizontal/vertical flipping, brighten/darken, component
@@ -130,4 +132,18 @@ public interface Operations {
    */
   ImageInterface combineRGB(ImageInterface redImage, ImageInterface greenImage,
                             ImageInterface blueImage) throws IllegalArgumentException;
+
+  /**
+   * The applyOwned method will apply an operation to an image the caller holds the only
+   * reference to and drops once the operation returns. Pointwise operations and flips may then
+   * write their result over the pixels of the image instead of copying it.
+   *
+   * @param image     the image, which the caller must not use after this call.
+   * @param operation the operation to be applied to the image.
+   * @return the result of the operation.
+   * @throws IllegalArgumentException if the image or operation is null.
+   */
+  ImageInterface applyOwned(ImageInterface image,
+                            Function<ImageInterface, ImageInterface> operation)
+          throws IllegalArgumentException;
 }
@@ -0,0 +1,129 @@
+package imagemodel;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * An image surrounded by a border whose pixels are read from the image through an edge mode,
+ * without copying the image. A filter that replicates the edges of the padded image then sees
+ * the pixels of the edge mode wherever it reads within the border of the original image.
+ */
+class PaddedImage extends AbstractImage {
+
+  private final ImageInterface source;
+  private final int left;
+  private final int top;
+  private final EdgeMode edges;
+
+  /**
+   * Pads an image.
+   *
+   * @param source the image.
+   * @param left   number of columns added on the left and on the right.
+   * @param top    number of rows added on the top and on the bottom.
+   * @param edges  how the pixels of the border are read.
+   * @throws IllegalArgumentException if the image or edge mode is null, or the border is
+   *                                  negative.
+   */
+  PaddedImage(ImageInterface source, int left, int top, EdgeMode edges)
+          throws IllegalArgumentException {
+    if (source == null || edges == null) {
+      throw new IllegalArgumentException("Arguments cannot be null");
+    }
+    if (left < 0 || top < 0) {
+      throw new IllegalArgumentException("Border cannot be negative");
+    }
+    this.source = source;
+    this.left = left;
+    this.top = top;
+    this.edges = edges;
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    int sourceX = edges.map(x - left, source.getWidth());
+    int sourceY = edges.map(y - top, source.getHeight());
+    return sourceX < 0 || sourceY < 0 ? 0 : source.getRGB(sourceX, sourceY);
+  }
+
+  /**
+   * The getRow method copies one row of the padded image into the given array as packed
+   * 0xRRGGBB values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    int width = getWidth();
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    int sourceWidth = source.getWidth();
+    int sourceY = edges.map(y - top, source.getHeight());
+    if (sourceY < 0) {
+      Arrays.fill(dst, 0, width, 0);
+      return dst;
+    }
+    int[] row = source.getRow(sourceY, null);
+    for (int x = 0; x < width; x++) {
+      int sourceX = x - left;
+      if (sourceX < 0 || sourceX >= sourceWidth) {
+        sourceX = edges.map(sourceX, sourceWidth);
+      }
+      dst[x] = sourceX < 0 ? 0 : row[sourceX];
+    }
+    return dst;
+  }
+
+  /**
+   * The getRaster method returns a read-only copy of the padded image as packed 0xRRGGBB
+   * values laid out row by row.
+   *
+   * @return a read-only buffer of width * height packed values.
+   */
+  @Override
+  public IntBuffer getRaster() {
+    int width = getWidth();
+    int[] pixels = new int[Math.multiplyExact(width, getHeight())];
+    int[] row = new int[width];
+    for (int y = 0; y < getHeight(); y++) {
+      System.arraycopy(getRow(y, row), 0, pixels, y * width, width);
+    }
+    return IntBuffer.wrap(pixels).asReadOnlyBuffer();
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image and its border.
+   */
+  @Override
+  public int getWidth() {
+    return source.getWidth() + 2 * left;
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image and its border.
+   */
+  @Override
+  public int getHeight() {
+    return source.getHeight() + 2 * top;
+  }
+}
@@ -0,0 +1,168 @@
+package imagemodel;
+
+import java.nio.IntBuffer;
+
+/**
+ * An image of at most 256 distinct colors. It keeps a palette of the colors and a single byte
+ * per pixel that indexes into it, a quarter of the memory of a packed raster.
+ */
+public class PaletteImage extends AbstractImage {
+
+  /**
+   * The largest number of colors a palette can hold.
+   */
+  public static final int MAX_COLORS = 256;
+
+  private final byte[] indices;
+  private final int[] palette;
+  private final int width;
+  private final int height;
+
+  /**
+   * Class constructor that builds the image from palette indices laid out row by row. The
+   * indices and the palette are copied, so later changes to the arrays do not affect the image.
+   *
+   * @param width   of the image.
+   * @param height  of the image.
+   * @param indices palette index of each pixel, interpreted as unsigned bytes.
+   * @param palette colors packed as 0xRRGGBB.
+   * @throws IllegalArgumentException when the dimensions, indices or palette are invalid.
+   */
+  public PaletteImage(int width, int height, byte[] indices, int[] palette)
+          throws IllegalArgumentException {
+    this(checkIndices(width, height, indices, palette).clone(), palette.clone(), width, height);
+  }
+
+  /**
+   * Package-private constructor that adopts the given arrays without copying them. The caller
+   * hands over the arrays and must not modify them afterwards.
+   *
+   * @param indices palette index of each pixel, of length width * height.
+   * @param palette colors packed as 0xRRGGBB.
+   * @param width   of the image.
+   * @param height  of the image.
+   */
+  PaletteImage(byte[] indices, int[] palette, int width, int height) {
+    this.indices = indices;
+    this.palette = palette;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Validates that the indices match the dimensions and only refer to colors of the palette.
+   *
+   * @param width   of the image.
+   * @param height  of the image.
+   * @param indices palette index of each pixel.
+   * @param palette colors packed as 0xRRGGBB.
+   * @return the indices that were validated.
+   * @throws IllegalArgumentException when the arguments are invalid.
+   */
+  private static byte[] checkIndices(int width, int height, byte[] indices, int[] palette)
+          throws IllegalArgumentException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image dimensions");
+    }
+    if (indices == null || indices.length != (long) width * height) {
+      throw new IllegalArgumentException("Indices do not match the image dimensions");
+    }
+    if (palette == null || palette.length == 0 || palette.length > MAX_COLORS) {
+      throw new IllegalArgumentException("Palette must hold 1 to " + MAX_COLORS + " colors");
+    }
+    for (int rgb : palette) {
+      if ((rgb & ~0xFFFFFF) != 0) {
+        throw new IllegalArgumentException("Invalid pixel value for red/green/blue");
+      }
+    }
+    for (byte index : indices) {
+      if ((index & 0xFF) >= palette.length) {
+        throw new IllegalArgumentException("Index is outside of the palette");
+      }
+    }
+    return indices;
+  }
+
+  /**
+   * Gives the colors of the palette.
+   *
+   * @return a copy of the palette, colors packed as 0xRRGGBB.
+   */
+  public int[] getPalette() {
+    return palette.clone();
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    return palette[indices[y * width + x] & 0xFF];
+  }
+
+  /**
+   * The getRow method copies one row of the image into the given array as packed 0xRRGGBB
+   * values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row, a new array is allocated when it is null or shorter
+   *            than the width of the image.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      dst[x] = palette[indices[offset + x] & 0xFF];
+    }
+    return dst;
+  }
+
+  /**
+   * The getRaster method returns a read-only copy of the whole image as packed 0xRRGGBB values
+   * laid out row by row.
+   *
+   * @return a read-only buffer of width * height packed values.
+   */
+  @Override
+  public IntBuffer getRaster() {
+    int[] raster = new int[indices.length];
+    for (int i = 0; i < raster.length; i++) {
+      raster[i] = palette[indices[i] & 0xFF];
+    }
+    return IntBuffer.wrap(raster).asReadOnlyBuffer();
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+}
@@ -0,0 +1,208 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * A write-once builder for images of few colors. It collects the colors that are written into a
+ * palette and stores a byte index per pixel. An image of a single color is built as a
+ * ConstantImage and one of at most 256 colors as a PaletteImage. When more colors are written
+ * the builder switches to a packed raster and builds an Image, so it is safe for any output.
+ */
+public class PaletteImageBuilder implements ImageBuilderInterface {
+
+  private final int width;
+  private final int height;
+  private byte[] indices;
+  private final int[] palette;
+  private int colors;
+  private int lastColor;
+  private int lastIndex;
+  private int[] pixels;
+  private ImageInterface built;
+
+  /**
+   * Class constructor which allocates the storage for an image of the given dimensions. Like
+   * the other builders, every pixel starts black.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  public PaletteImageBuilder(int width, int height) throws IllegalArgumentException {
+    this.indices = GrayImage.allocate(width, height);
+    this.width = width;
+    this.height = height;
+    this.palette = new int[PaletteImage.MAX_COLORS];
+    this.colors = 1;
+  }
+
+  /**
+   * The setPixel method sets the pixel values at a specific position in the image.
+   *
+   * @param x     row index where the pixel is to be set.
+   * @param y     column index where the pixel is to be set.
+   * @param pixel values that are to be set in that position.
+   */
+  public void setPixel(int x, int y, PixelInterface pixel) {
+    setRGB(x, y, Pixel.pack(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
+  }
+
+  /**
+   * The setRGB method sets the pixel at a specific position from a value packed as 0xRRGGBB.
+   *
+   * @param x   row index where the pixel is to be set.
+   * @param y   column index where the pixel is to be set.
+   * @param rgb packed RGB value that is to be set in that position.
+   */
+  public void setRGB(int x, int y, int rgb) {
+    checkWritable();
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    put(y * width + x, rgb & 0xFFFFFF);
+  }
+
+  /**
+   * The setRow method sets a complete row of the image from packed 0xRRGGBB values. All rows
+   * share the palette, so the method holds the lock of the builder.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width packed values.
+   */
+  public synchronized void setRow(int y, int[] src) {
+    checkWritable();
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      put(offset + x, src[x] & 0xFFFFFF);
+    }
+  }
+
+  /**
+   * The fill method sets every pixel of the image to the same color. The palette is reset to
+   * that color alone.
+   *
+   * @param rgb packed RGB value that is to be set everywhere.
+   */
+  public void fill(int rgb) {
+    checkWritable();
+    rgb &= 0xFFFFFF;
+    if (pixels != null) {
+      Arrays.fill(pixels, rgb);
+      return;
+    }
+    Arrays.fill(indices, (byte) 0);
+    palette[0] = rgb;
+    colors = 1;
+    lastColor = rgb;
+    lastIndex = 0;
+  }
+
+  /**
+   * Stores a color at a position of the raster, adding it to the palette when it is new.
+   *
+   * @param position index of the pixel in the raster.
+   * @param rgb      packed RGB value.
+   */
+  private void put(int position, int rgb) {
+    if (pixels != null) {
+      pixels[position] = rgb;
+      return;
+    }
+    int index = indexOf(rgb);
+    if (index < 0) {
+      promote();
+      pixels[position] = rgb;
+      return;
+    }
+    indices[position] = (byte) index;
+  }
+
+  /**
+   * Finds the palette index of a color, adding the color when it is new.
+   *
+   * @param rgb packed RGB value.
+   * @return the index of the color, or -1 if the palette is full.
+   */
+  private int indexOf(int rgb) {
+    if (rgb == lastColor && lastIndex < colors && palette[lastIndex] == rgb) {
+      return lastIndex;
+    }
+    int index = 0;
+    while (index < colors && palette[index] != rgb) {
+      index++;
+    }
+    if (index == colors) {
+      if (colors == PaletteImage.MAX_COLORS) {
+        return -1;
+      }
+      palette[colors++] = rgb;
+    }
+    lastColor = rgb;
+    lastIndex = index;
+    return index;
+  }
+
+  /**
+   * Switches to a packed raster once the palette cannot hold the colors of the image.
+   */
+  private void promote() {
+    pixels = new int[indices.length];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = palette[indices[i] & 0xFF];
+    }
+    indices = null;
+  }
+
+  /**
+   * The build method returns the image holding the pixels written so far, in the most compact
+   * representation for its colors. Building again returns the same image.
+   *
+   * @return the built image.
+   */
+  public ImageInterface build() {
+    if (built == null) {
+      built = create(false);
+    }
+    return built;
+  }
+
+  /**
+   * This method copies an image content on to another.
+   *
+   * @return copied image.
+   */
+  public ImageInterface deepCopyImage() {
+    return create(true);
+  }
+
+  /**
+   * Creates the image for the pixels written so far.
+   *
+   * @param copy whether the storage of the builder must be copied instead of adopted.
+   * @return the image.
+   */
+  private ImageInterface create(boolean copy) {
+    if (pixels != null) {
+      return new Image(copy ? pixels.clone() : pixels, width, height);
+    }
+    if (colors == 1) {
+      return new ConstantImage(width, height, palette[0]);
+    }
+    return new PaletteImage(copy ? indices.clone() : indices, Arrays.copyOf(palette, colors),
+            width, height);
+  }
+
+  /**
+   * Checks that the image has not been built yet.
+   *
+   * @throws IllegalStateException if the image has already been built.
+   */
+  private void checkWritable() throws IllegalStateException {
+    if (built != null) {
+      throw new IllegalStateException("Image has already been built");
+    }
+  }
+}
@@ -51,6 +51,23 @@ public class Pixel implements PixelInterface {
     return blue;
   }
 
+  /**
+   * Packs the given RGB values into a single integer laid out as 0xRRGGBB, which is the
+   * representation used by the image rasters.
+   *
+   * @param red   pixel value.
+   * @param green pixel value.
+   * @param blue  pixel value.
+   * @return the packed RGB value.
+   * @throws IllegalArgumentException if any of the values lies outside [0, 255].
+   */
+  public static int pack(int red, int green, int blue) throws IllegalArgumentException {
+    if (red < 0 || green < 0 || blue < 0 || red > 255 || green > 255 || blue > 255) {
+      throw new IllegalArgumentException("Invalid pixel value for red/green/blue");
+    }
+    return (red << 16) | (green << 8) | blue;
+  }
+
   /**
    * The toString function converts the pixel values into a string.
    *
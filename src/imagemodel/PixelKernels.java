@@ -0,0 +1,66 @@
+package imagemodel;
+
+/**
+ * The inner loops of the pixel operations, over a single row. The scalar implementation is
+ * always available, an implementation built on the vector API is used instead when the
+ * jdk.incubator.vector module is present. Every implementation must give results that are
+ * bit-identical to the scalar one.
+ */
+interface PixelKernels {
+
+  /**
+   * Adds an increment to every channel of the first length pixels of a row, clamping the
+   * channels to 0..255, in place.
+   *
+   * @param row       pixels packed as 0xRRGGBB.
+   * @param length    number of pixels to map.
+   * @param increment value added to every channel.
+   */
+  void addClamped(int[] row, int length, int increment);
+
+  /**
+   * Maps the first length pixels of a row through a color matrix, in place, if this
+   * implementation supports the matrix.
+   *
+   * @param matrix color matrix.
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels to map.
+   * @param levels whether to store the gray level of the first row of the matrix instead of a
+   *               packed pixel.
+   * @return false if the caller has to map the row itself.
+   */
+  boolean applyMatrix(ColorMatrix matrix, int[] row, int length, boolean levels);
+
+  /**
+   * Replaces the first length pixels of a row by one of their channels, in place.
+   *
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels.
+   * @param shift  bit position of the channel.
+   */
+  void extractChannel(int[] row, int length, int shift);
+
+  /**
+   * Packs separate channel values into pixels.
+   *
+   * @param red    red values.
+   * @param green  green values.
+   * @param blue   blue values.
+   * @param dst    array that receives the packed pixels.
+   * @param length number of pixels.
+   */
+  void combine(int[] red, int[] green, int[] blue, int[] dst, int length);
+
+  /**
+   * Convolves one row of an image with a kernel, clamping the columns at the edges. Each
+   * channel is the sum over the kernel, row by row and left to right, of the channel times the
+   * weight, plus the tolerance, truncated towards zero and clamped to 0..255.
+   *
+   * @param rows      the source rows under the kernel, rows[ky] for kernel row ky.
+   * @param kernel    weights, kernel[ky][kx].
+   * @param tolerance added to the sums before they are truncated.
+   * @param dst       array that receives the packed result.
+   * @param width     width of the rows.
+   */
+  void convolve(int[][] rows, double[][] kernel, double tolerance, int[] dst, int width);
+}
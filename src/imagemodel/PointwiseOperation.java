@@ -0,0 +1,24 @@
+package imagemodel;
+
+/**
+ * A color operation whose result for a pixel only depends on that pixel. Such operations can be
+ * chained in a PointwisePipeline and applied to an image in a single pass.
+ */
+public interface PointwiseOperation {
+
+  /**
+   * Maps a pixel.
+   *
+   * @param rgb pixel packed as 0xRRGGBB.
+   * @return the new pixel packed as 0xRRGGBB.
+   */
+  int apply(int rgb);
+
+  /**
+   * Maps the first length pixels of a row, in place.
+   *
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels to map.
+   */
+  void apply(int[] row, int length);
+}
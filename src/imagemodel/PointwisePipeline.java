@@ -0,0 +1,194 @@
+package imagemodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A chain of pointwise color operations that is applied to an image in a single pass. Every row
+ * is read once, run through all the stages while it is in cache, and written once, instead of
+ * materializing an intermediate image per operation.
+ *
+ * <p>Consecutive lookup tables are composed into one table when they are added, which is exact
+ * because every table already clamps its output. Other stages, such as color matrices, are
+ * kept as separate stages so that their truncation and clamping happen exactly as they would
+ * when the operations run one after the other. Pipelines are immutable, adding a stage gives a
+ * new pipeline.
+ */
+public final class PointwisePipeline {
+
+  private final List<PointwiseOperation> stages;
+
+  /**
+   * Creates an empty pipeline, which leaves every pixel unchanged.
+   */
+  public PointwisePipeline() {
+    this(Collections.emptyList());
+  }
+
+  /**
+   * Creates a pipeline with the given stages.
+   *
+   * @param stages stages in the order they are applied.
+   */
+  private PointwisePipeline(List<PointwiseOperation> stages) {
+    this.stages = stages;
+  }
+
+  /**
+   * Gives a pipeline that applies the given operation after the stages of this one.
+   *
+   * @param operation operation to be appended.
+   * @return the extended pipeline.
+   * @throws IllegalArgumentException if the operation is null.
+   */
+  public PointwisePipeline then(PointwiseOperation operation) throws IllegalArgumentException {
+    if (operation == null) {
+      throw new IllegalArgumentException("Operation cannot be null");
+    }
+    List<PointwiseOperation> extended = new ArrayList<>(stages);
+    int last = extended.size() - 1;
+    if (operation instanceof LookupTable && last >= 0
+            && extended.get(last) instanceof LookupTable) {
+      extended.set(last, ((LookupTable) extended.get(last)).andThen((LookupTable) operation));
+    } else {
+      extended.add(operation);
+    }
+    return new PointwisePipeline(Collections.unmodifiableList(extended));
+  }
+
+  /**
+   * Gives a pipeline that applies the stages of the given pipeline after the stages of this one.
+   *
+   * @param next pipeline to be appended.
+   * @return the extended pipeline.
+   * @throws IllegalArgumentException if the pipeline is null.
+   */
+  public PointwisePipeline then(PointwisePipeline next) throws IllegalArgumentException {
+    if (next == null) {
+      throw new IllegalArgumentException("Pipeline cannot be null");
+    }
+    PointwisePipeline result = this;
+    for (PointwiseOperation operation : next.stages) {
+      result = result.then(operation);
+    }
+    return result;
+  }
+
+  /**
+   * Gives the number of stages left after composing consecutive lookup tables.
+   *
+   * @return the number of stages.
+   */
+  public int stageCount() {
+    return stages.size();
+  }
+
+  /**
+   * Maps a pixel through all the stages.
+   *
+   * @param rgb pixel packed as 0xRRGGBB.
+   * @return the new pixel packed as 0xRRGGBB.
+   */
+  public int apply(int rgb) {
+    for (PointwiseOperation stage : stages) {
+      rgb = stage.apply(rgb);
+    }
+    return rgb;
+  }
+
+  /**
+   * Maps the first length pixels of a row through all the stages, in place.
+   *
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels to map.
+   */
+  public void apply(int[] row, int length) {
+    for (PointwiseOperation stage : stages) {
+      stage.apply(row, length);
+    }
+  }
+
+  /**
+   * Applies the pipeline to an image in a single pass. A grayscale image run through a single
+   * uniform lookup table stays grayscale, so only its levels are read and written.
+   *
+   * @param image   on which the pipeline is to be applied.
+   * @param storage storage the result is created in.
+   * @return the resulting image.
+   * @throws IllegalArgumentException if the image or storage is null.
+   */
+  public ImageInterface apply(ImageInterface image, ImageStorage storage)
+          throws IllegalArgumentException {
+    return apply(image, storage, new BandExecutor());
+  }
+
+  /**
+   * Applies the pipeline to an image in a single pass, running the rows on the given executor.
+   * A grayscale image run through a single uniform lookup table stays grayscale, so only its
+   * levels are read and written.
+   *
+   * @param image    on which the pipeline is to be applied.
+   * @param storage  storage the result is created in.
+   * @param executor runs the rows of the image.
+   * @return the resulting image.
+   * @throws IllegalArgumentException if the image, storage or executor is null.
+   */
+  public ImageInterface apply(ImageInterface image, ImageStorage storage, BandExecutor executor)
+          throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image cannot be null");
+    }
+    if (storage == null) {
+      throw new IllegalArgumentException("Storage cannot be null");
+    }
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor cannot be null");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    if (image.isGrayscale() && stages.size() == 1 && stages.get(0) instanceof LookupTable
+            && ((LookupTable) stages.get(0)).isUniform()) {
+      LookupTable table = (LookupTable) stages.get(0);
+      GrayImageBuilderInterface copy = storage.newGrayBuilder(width, height);
+      executor.forEachBand(width, height, (from, to) -> {
+        int[] row = new int[width];
+        for (int y = from; y < to; y++) {
+          row = image.getChannelRow(y, 0, row);
+          table.applyGray(row, width);
+          copy.setGrayRow(y, row);
+        }
+      });
+      return copy.build();
+    }
+    ImageBuilderInterface copy = storage.newBuilder(width, height);
+    executor.forEachBand(width, height, (from, to) -> {
+      int[] row = new int[width];
+      for (int y = from; y < to; y++) {
+        row = image.getRow(y, row);
+        apply(row, width);
+        copy.setRow(y, row);
+      }
+    });
+    return copy.build();
+  }
+
+  /**
+   * Applies the pipeline to a packed raster in place, one row at a time.
+   *
+   * @param raster   pixels packed as 0xRRGGBB, laid out row by row.
+   * @param width    of the image.
+   * @param height   of the image.
+   * @param executor runs the rows of the image.
+   */
+  void applyInPlace(int[] raster, int width, int height, BandExecutor executor) {
+    executor.forEachBand(width, height, (from, to) -> {
+      int[] row = new int[width];
+      for (int y = from; y < to; y++) {
+        System.arraycopy(raster, y * width, row, 0, width);
+        apply(row, width);
+        System.arraycopy(row, 0, raster, y * width, width);
+      }
+    });
+  }
+}
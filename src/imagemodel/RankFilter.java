@@ -0,0 +1,275 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * A rank filter, which replaces every channel of a pixel by the value of the given percentile of
+ * that channel over the square window of the given radius around the pixel. The 50th percentile
+ * is the median, the 0th the minimum and the 100th the maximum. Pixels outside of the image are
+ * replaced by the nearest pixel on its edge, and the percentile picks the value of rank
+ * round(percentile / 100 * (n - 1)) among the n values of the window, counted from 0.
+ *
+ * <p>The values are counted in histograms, as in the method of Perreault and Hebert. Every
+ * column keeps the histogram of its 2 * radius + 1 rows around the current row, which costs one
+ * removal and one addition per column when moving down a row. The histogram of the window is
+ * the sum of the column histograms of its columns and is kept in two levels: 16 coarse bins that
+ * are updated at every pixel, and 256 fine bins that are only brought up to date for the coarse
+ * bin the rank falls into. The work per pixel is therefore bounded by a constant that does not
+ * depend on the radius.
+ */
+public final class RankFilter {
+
+  /**
+   * The largest radius accepted.
+   */
+  public static final int MAX_RADIUS = 4096;
+
+  private static final int BINS = 256;
+  private static final int COARSE = 16;
+  private static final int SHIFT = 4;
+
+  private final int radius;
+  private final double percentile;
+
+  /**
+   * Prepares a rank filter.
+   *
+   * @param radius     radius of the square window, 0 leaves the image unchanged.
+   * @param percentile the percentile taken over the window, from 0 to 100.
+   * @throws IllegalArgumentException if the radius or percentile is out of range.
+   */
+  public RankFilter(int radius, double percentile) throws IllegalArgumentException {
+    if (radius < 0 || radius > MAX_RADIUS) {
+      throw new IllegalArgumentException("Radius must be between 0 and " + MAX_RADIUS);
+    }
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100");
+    }
+    this.radius = radius;
+    this.percentile = percentile;
+  }
+
+  /**
+   * Gives the radius of the window.
+   *
+   * @return the radius.
+   */
+  public int getRadius() {
+    return radius;
+  }
+
+  /**
+   * Gives the percentile taken over the window.
+   *
+   * @return the percentile.
+   */
+  public double getPercentile() {
+    return percentile;
+  }
+
+  /**
+   * Applies the filter to an image.
+   *
+   * @param image    the source image.
+   * @param builder  builder of the dimensions of the image that receives the result.
+   * @param executor runs the rows in parallel bands.
+   * @return the filtered image.
+   */
+  public ImageInterface apply(ImageInterface image, ImageBuilderInterface builder,
+                              BandExecutor executor) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    long size = 2L * radius + 1;
+    int rank = (int) Math.round(percentile / 100 * (size * size - 1));
+    executor.forEachBand(width, height, (from, to) -> {
+      Channel[] channels = {new Channel(width, 16), new Channel(width, 8), new Channel(width, 0)};
+      int[] row = new int[width];
+      int[] removed = new int[width];
+      int top = clamp(from - radius, height);
+      int bottom = clamp(from + radius, height);
+      for (int y = top; y <= bottom; y++) {
+        image.getRow(y, row);
+        int count = multiplicity(y, from - radius, from + radius, height);
+        for (Channel channel : channels) {
+          channel.addRow(row, count);
+        }
+      }
+      int[] result = new int[width];
+      for (int y = from; y < to; y++) {
+        if (y > from) {
+          image.getRow(clamp(y - radius - 1, height), removed);
+          image.getRow(clamp(y + radius, height), row);
+          for (Channel channel : channels) {
+            channel.replaceRow(removed, row);
+          }
+        }
+        Arrays.fill(result, 0);
+        for (Channel channel : channels) {
+          channel.filterRow(rank, result);
+        }
+        builder.setRow(y, result);
+      }
+    });
+    return builder.build();
+  }
+
+  /**
+   * Counts how many indices of a range clamp to the given index.
+   *
+   * @param index an index within 0..size - 1.
+   * @param first first index of the range.
+   * @param last  last index of the range.
+   * @param size  the dimension.
+   * @return the number of indices of the range whose nearest index is the given one.
+   */
+  private static int multiplicity(int index, int first, int last, int size) {
+    int low = index == 0 ? first : index;
+    int high = index == size - 1 ? last : index;
+    return Math.max(0, Math.min(last, high) - Math.max(first, low) + 1);
+  }
+
+  /**
+   * Clamps an index to the range of a dimension.
+   *
+   * @param index the index.
+   * @param size  the dimension.
+   * @return the nearest index within 0..size - 1.
+   */
+  private static int clamp(int index, int size) {
+    return Math.min(Math.max(index, 0), size - 1);
+  }
+
+  /**
+   * The histograms of one channel: the fine and coarse histograms of every column over the rows
+   * of the window, and the fine and coarse histograms of the window itself.
+   */
+  private final class Channel {
+    private final int width;
+    private final int shift;
+    private final int[] columns;
+    private final int[] coarseColumns;
+    private final int[] window = new int[BINS];
+    private final int[] coarseWindow = new int[COARSE];
+    private final int[] updated = new int[COARSE];
+
+    /**
+     * Creates empty histograms for a channel.
+     *
+     * @param width width of the image.
+     * @param shift position of the channel in a packed pixel.
+     */
+    Channel(int width, int shift) {
+      this.width = width;
+      this.shift = shift;
+      this.columns = new int[width * BINS];
+      this.coarseColumns = new int[width * COARSE];
+    }
+
+    /**
+     * Adds the values of a row to the column histograms a number of times, which is more than
+     * once for an edge row that stands for the rows past the edge.
+     *
+     * @param row   packed pixels of the row.
+     * @param count number of times the row is in the window.
+     */
+    void addRow(int[] row, int count) {
+      for (int x = 0; x < width; x++) {
+        int value = (row[x] >> shift) & 0xFF;
+        columns[x * BINS + value] += count;
+        coarseColumns[x * COARSE + (value >> SHIFT)] += count;
+      }
+    }
+
+    /**
+     * Replaces the values of a row that leaves the window by the values of a row that enters it.
+     *
+     * @param removed packed pixels of the row leaving the window.
+     * @param added   packed pixels of the row entering the window.
+     */
+    void replaceRow(int[] removed, int[] added) {
+      for (int x = 0; x < width; x++) {
+        int old = (removed[x] >> shift) & 0xFF;
+        int value = (added[x] >> shift) & 0xFF;
+        columns[x * BINS + old]--;
+        coarseColumns[x * COARSE + (old >> SHIFT)]--;
+        columns[x * BINS + value]++;
+        coarseColumns[x * COARSE + (value >> SHIFT)]++;
+      }
+    }
+
+    /**
+     * Slides the window along the row and writes the value of the given rank of every window
+     * into the channel of the result.
+     *
+     * @param rank   rank of the value taken, counted from 0.
+     * @param result packed pixels that receive the channel.
+     */
+    void filterRow(int rank, int[] result) {
+      Arrays.fill(coarseWindow, 0);
+      for (int t = 0; t <= Math.min(radius, width - 1); t++) {
+        int count = multiplicity(t, -radius, radius, width);
+        for (int s = 0; s < COARSE; s++) {
+          coarseWindow[s] += count * coarseColumns[t * COARSE + s];
+        }
+      }
+      Arrays.fill(updated, Integer.MIN_VALUE);
+      for (int x = 0; x < width; x++) {
+        if (x > 0) {
+          int added = clamp(x + radius, width) * COARSE;
+          int removed = clamp(x - radius - 1, width) * COARSE;
+          for (int s = 0; s < COARSE; s++) {
+            coarseWindow[s] += coarseColumns[added + s] - coarseColumns[removed + s];
+          }
+        }
+        int remaining = rank;
+        int segment = 0;
+        while (remaining >= coarseWindow[segment]) {
+          remaining -= coarseWindow[segment];
+          segment++;
+        }
+        update(segment, x);
+        int value = segment << SHIFT;
+        while (remaining >= window[value]) {
+          remaining -= window[value];
+          value++;
+        }
+        result[x] |= value << shift;
+      }
+    }
+
+    /**
+     * Brings the fine bins of one coarse bin of the window histogram up to the given column,
+     * stepping from the column they were last updated at when it is near, and summing the
+     * columns of the window otherwise.
+     *
+     * @param segment the coarse bin.
+     * @param x       the column of the window.
+     */
+    private void update(int segment, int x) {
+      int first = segment << SHIFT;
+      long distance = (long) x - updated[segment];
+      if (distance <= radius) {
+        for (int t = updated[segment] + 1; t <= x; t++) {
+          int added = clamp(t + radius, width) * BINS + first;
+          int removed = clamp(t - radius - 1, width) * BINS + first;
+          for (int v = 0; v < COARSE; v++) {
+            window[first + v] += columns[added + v] - columns[removed + v];
+          }
+        }
+      } else {
+        for (int v = 0; v < COARSE; v++) {
+          window[first + v] = 0;
+        }
+        int last = clamp(x + radius, width);
+        for (int t = clamp(x - radius, width); t <= last; t++) {
+          int count = multiplicity(t, x - radius, x + radius, width);
+          int offset = t * BINS + first;
+          for (int v = 0; v < COARSE; v++) {
+            window[first + v] += count * columns[offset + v];
+          }
+        }
+      }
+      updated[segment] = x;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package imagemodel;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool of packed rasters keyed by their length. Scripts produce many intermediate images of
+ * the same size, so the raster of an image that is no longer used can be handed to the builder
+ * of the next one instead of allocating a new array. The pool holds at most a fixed number of
+ * bytes and drops rasters that would exceed it.
+ */
+public class RasterPool {
+
+  private final Map<Integer, ArrayDeque<int[]>> free;
+  private final long capacity;
+  private long pooled;
+
+  /**
+   * Creates a pool that holds up to an eighth of the maximum heap size.
+   */
+  public RasterPool() {
+    this(Runtime.getRuntime().maxMemory() / 8);
+  }
+
+  /**
+   * Creates a pool that holds up to the given number of bytes.
+   *
+   * @param capacity maximum number of bytes held by the pool.
+   * @throws IllegalArgumentException if the capacity is negative.
+   */
+  public RasterPool(long capacity) throws IllegalArgumentException {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
+    }
+    this.free = new HashMap<>();
+    this.capacity = capacity;
+  }
+
+  /**
+   * Gives a raster for an image of the given dimensions, reusing a released one of the same
+   * size when there is one. Reused rasters are cleared, so the raster always starts with zeros.
+   *
+   * @param width  of the image.
+   * @param height of the image.
+   * @return a raster of width * height values.
+   * @throws IllegalArgumentException when the height or width of image is invalid.
+   */
+  public int[] acquire(int width, int height) throws IllegalArgumentException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid image dimensions");
+    }
+    int length = Math.multiplyExact(width, height);
+    int[] raster = take(length);
+    if (raster == null) {
+      return new int[length];
+    }
+    Arrays.fill(raster, 0);
+    return raster;
+  }
+
+  /**
+   * Removes a released raster of the given length from the pool.
+   *
+   * @param length of the raster.
+   * @return the raster, or null if none is pooled.
+   */
+  private synchronized int[] take(int length) {
+    ArrayDeque<int[]> rasters = free.get(length);
+    if (rasters == null || rasters.isEmpty()) {
+      return null;
+    }
+    pooled -= 4L * length;
+    return rasters.pop();
+  }
+
+  /**
+   * Returns a raster to the pool. The caller must not use the raster, or any image built on it,
+   * afterwards.
+   *
+   * @param raster raster that is no longer used.
+   * @return true if the raster was pooled, false if the pool is full.
+   */
+  public synchronized boolean release(int[] raster) {
+    if (raster == null || raster.length == 0 || pooled + 4L * raster.length > capacity) {
+      return false;
+    }
+    pooled += 4L * raster.length;
+    free.computeIfAbsent(raster.length, length -> new ArrayDeque<>()).push(raster);
+    return true;
+  }
+
+  /**
+   * Gives the number of bytes currently held by the pool.
+   *
+   * @return the pooled bytes.
+   */
+  public synchronized long pooledBytes() {
+    return pooled;
+  }
+}
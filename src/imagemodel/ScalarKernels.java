@@ -0,0 +1,294 @@
+package imagemodel;
+
+/**
+ * The scalar implementation of the pixel kernels, plain loops that run on every JVM.
+ */
+final class ScalarKernels implements PixelKernels {
+
+  /**
+   * Adds an increment to every channel of the first length pixels of a row, clamping the
+   * channels to 0..255, in place.
+   *
+   * @param row       pixels packed as 0xRRGGBB.
+   * @param length    number of pixels to map.
+   * @param increment value added to every channel.
+   */
+  @Override
+  public void addClamped(int[] row, int length, int increment) {
+    for (int x = 0; x < length; x++) {
+      int rgb = row[x];
+      row[x] = (clamp(((rgb >> 16) & 0xFF) + increment) << 16)
+              | (clamp(((rgb >> 8) & 0xFF) + increment) << 8)
+              | clamp((rgb & 0xFF) + increment);
+    }
+  }
+
+  /**
+   * The scalar loop of a color matrix lives in the matrix itself.
+   *
+   * @param matrix color matrix.
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels to map.
+   * @param levels whether to store gray levels instead of packed pixels.
+   * @return always false.
+   */
+  @Override
+  public boolean applyMatrix(ColorMatrix matrix, int[] row, int length, boolean levels) {
+    return false;
+  }
+
+  /**
+   * Replaces the first length pixels of a row by one of their channels, in place.
+   *
+   * @param row    pixels packed as 0xRRGGBB.
+   * @param length number of pixels.
+   * @param shift  bit position of the channel.
+   */
+  @Override
+  public void extractChannel(int[] row, int length, int shift) {
+    for (int x = 0; x < length; x++) {
+      row[x] = (row[x] >> shift) & 0xFF;
+    }
+  }
+
+  /**
+   * Packs separate channel values into pixels.
+   *
+   * @param red    red values.
+   * @param green  green values.
+   * @param blue   blue values.
+   * @param dst    array that receives the packed pixels.
+   * @param length number of pixels.
+   */
+  @Override
+  public void combine(int[] red, int[] green, int[] blue, int[] dst, int length) {
+    for (int x = 0; x < length; x++) {
+      dst[x] = (red[x] << 16) | (green[x] << 8) | blue[x];
+    }
+  }
+
+  /**
+   * Convolves one row of an image with a kernel, clamping the columns at the edges.
+   *
+   * @param rows      the source rows under the kernel, rows[ky] for kernel row ky.
+   * @param kernel    weights, kernel[ky][kx].
+   * @param tolerance added to the sums before they are truncated.
+   * @param dst       array that receives the packed result.
+   * @param width     width of the rows.
+   */
+  @Override
+  public void convolve(int[][] rows, double[][] kernel, double tolerance, int[] dst,
+                       int width) {
+    convolve(rows, kernel, tolerance, dst, width, 0, width);
+  }
+
+  /**
+   * Convolves a range of columns of one row of an image with a kernel, clamping the columns at
+   * the edges. Only the columns within the radius of the kernel from an edge need clamping, the
+   * columns between them are computed by an interior loop that reads the rows at fixed offsets,
+   * with a fixed trip count for 3x3 and 5x5 kernels. Every loop adds the products in the same
+   * order, row by row and left to right.
+   *
+   * @param rows      the source rows under the kernel, rows[ky] for kernel row ky.
+   * @param kernel    weights, kernel[ky][kx].
+   * @param tolerance added to the sums before they are truncated.
+   * @param dst       array that receives the packed result.
+   * @param width     width of the rows.
+   * @param from      first column to compute.
+   * @param to        column after the last one to compute.
+   */
+  static void convolve(int[][] rows, double[][] kernel, double tolerance, int[] dst, int width,
+                       int from, int to) {
+    int radius = kernel[0].length / 2;
+    int interiorFrom = Math.max(from, radius);
+    int interiorTo = Math.min(to, width - radius);
+    if (interiorFrom >= interiorTo) {
+      convolveBorder(rows, kernel, tolerance, dst, width, from, to);
+      return;
+    }
+    convolveBorder(rows, kernel, tolerance, dst, width, from, interiorFrom);
+    if (kernel.length == 3 && kernel[0].length == 3) {
+      convolveInterior3(rows, kernel, tolerance, dst, interiorFrom, interiorTo);
+    } else if (kernel.length == 5 && kernel[0].length == 5) {
+      convolveInterior5(rows, kernel, tolerance, dst, interiorFrom, interiorTo);
+    } else {
+      convolveInterior(rows, kernel, tolerance, dst, interiorFrom, interiorTo);
+    }
+    convolveBorder(rows, kernel, tolerance, dst, width, interiorTo, to);
+  }
+
+  /**
+   * Convolves a range of columns, clamping every column the kernel reaches to the row.
+   *
+   * @param rows      the source rows under the kernel, rows[ky] for kernel row ky.
+   * @param kernel    weights, kernel[ky][kx].
+   * @param tolerance added to the sums before they are truncated.
+   * @param dst       array that receives the packed result.
+   * @param width     width of the rows.
+   * @param from      first column to compute.
+   * @param to        column after the last one to compute.
+   */
+  private static void convolveBorder(int[][] rows, double[][] kernel, double tolerance,
+                                     int[] dst, int width, int from, int to) {
+    int kernelHeight = kernel.length;
+    int kernelRadiusX = kernel[0].length / 2;
+    for (int x = from; x < to; x++) {
+      double redSum = 0;
+      double greenSum = 0;
+      double blueSum = 0;
+      for (int ky = 0; ky < kernelHeight; ky++) {
+        int[] row = rows[ky];
+        for (int kx = -kernelRadiusX; kx <= kernelRadiusX; kx++) {
+          int rgb = row[Math.min(Math.max(x + kx, 0), width - 1)];
+          double kernelValue = kernel[ky][kx + kernelRadiusX];
+          redSum += ((rgb >> 16) & 0xFF) * kernelValue;
+          greenSum += ((rgb >> 8) & 0xFF) * kernelValue;
+          blueSum += (rgb & 0xFF) * kernelValue;
+        }
+      }
+      dst[x] = pack(redSum, greenSum, blueSum, tolerance);
+    }
+  }
+
+  /**
+   * Convolves a range of columns whose neighbourhood lies inside the rows, for any kernel.
+   *
+   * @param rows      the source rows under the kernel, rows[ky] for kernel row ky.
+   * @param kernel    weights, kernel[ky][kx].
+   * @param tolerance added to the sums before they are truncated.
+   * @param dst       array that receives the packed result.
+   * @param from      first column to compute.
+   * @param to        column after the last one to compute.
+   */
+  private static void convolveInterior(int[][] rows, double[][] kernel, double tolerance,
+                                       int[] dst, int from, int to) {
+    int kernelHeight = kernel.length;
+    int kernelWidth = kernel[0].length;
+    int kernelRadiusX = kernelWidth / 2;
+    for (int x = from; x < to; x++) {
+      int left = x - kernelRadiusX;
+      double redSum = 0;
+      double greenSum = 0;
+      double blueSum = 0;
+      for (int ky = 0; ky < kernelHeight; ky++) {
+        int[] row = rows[ky];
+        double[] weights = kernel[ky];
+        for (int kx = 0; kx < kernelWidth; kx++) {
+          int rgb = row[left + kx];
+          double kernelValue = weights[kx];
+          redSum += ((rgb >> 16) & 0xFF) * kernelValue;
+          greenSum += ((rgb >> 8) & 0xFF) * kernelValue;
+          blueSum += (rgb & 0xFF) * kernelValue;
+        }
+      }
+      dst[x] = pack(redSum, greenSum, blueSum, tolerance);
+    }
+  }
+
+  /**
+   * Convolves a range of interior columns with a 3x3 kernel. The loops have constant bounds so
+   * that the compiler can unroll them.
+   *
+   * @param rows      the three source rows under the kernel.
+   * @param kernel    3x3 weights.
+   * @param tolerance added to the sums before they are truncated.
+   * @param dst       array that receives the packed result.
+   * @param from      first column to compute.
+   * @param to        column after the last one to compute.
+   */
+  private static void convolveInterior3(int[][] rows, double[][] kernel, double tolerance,
+                                        int[] dst, int from, int to) {
+    double[] weights = flatten(kernel, 3);
+    for (int x = from; x < to; x++) {
+      int left = x - 1;
+      double redSum = 0;
+      double greenSum = 0;
+      double blueSum = 0;
+      for (int ky = 0; ky < 3; ky++) {
+        int[] row = rows[ky];
+        for (int kx = 0; kx < 3; kx++) {
+          int rgb = row[left + kx];
+          double kernelValue = weights[ky * 3 + kx];
+          redSum += ((rgb >> 16) & 0xFF) * kernelValue;
+          greenSum += ((rgb >> 8) & 0xFF) * kernelValue;
+          blueSum += (rgb & 0xFF) * kernelValue;
+        }
+      }
+      dst[x] = pack(redSum, greenSum, blueSum, tolerance);
+    }
+  }
+
+  /**
+   * Convolves a range of interior columns with a 5x5 kernel. The loops have constant bounds so
+   * that the compiler can unroll them.
+   *
+   * @param rows      the five source rows under the kernel.
+   * @param kernel    5x5 weights.
+   * @param tolerance added to the sums before they are truncated.
+   * @param dst       array that receives the packed result.
+   * @param from      first column to compute.
+   * @param to        column after the last one to compute.
+   */
+  private static void convolveInterior5(int[][] rows, double[][] kernel, double tolerance,
+                                        int[] dst, int from, int to) {
+    double[] weights = flatten(kernel, 5);
+    for (int x = from; x < to; x++) {
+      int left = x - 2;
+      double redSum = 0;
+      double greenSum = 0;
+      double blueSum = 0;
+      for (int ky = 0; ky < 5; ky++) {
+        int[] row = rows[ky];
+        for (int kx = 0; kx < 5; kx++) {
+          int rgb = row[left + kx];
+          double kernelValue = weights[ky * 5 + kx];
+          redSum += ((rgb >> 16) & 0xFF) * kernelValue;
+          greenSum += ((rgb >> 8) & 0xFF) * kernelValue;
+          blueSum += (rgb & 0xFF) * kernelValue;
+        }
+      }
+      dst[x] = pack(redSum, greenSum, blueSum, tolerance);
+    }
+  }
+
+  /**
+   * Lays out a square kernel row by row in a single array.
+   *
+   * @param kernel weights, kernel[ky][kx].
+   * @param size   number of rows and columns.
+   * @return the weights row by row.
+   */
+  private static double[] flatten(double[][] kernel, int size) {
+    double[] weights = new double[size * size];
+    for (int ky = 0; ky < size; ky++) {
+      System.arraycopy(kernel[ky], 0, weights, ky * size, size);
+    }
+    return weights;
+  }
+
+  /**
+   * Truncates and clamps the channel sums of a pixel and packs them. The tolerance is added
+   * first, so that a sum the rounding of the products left just below an integer gives that
+   * integer.
+   *
+   * @param red       sum of the red channel.
+   * @param green     sum of the green channel.
+   * @param blue      sum of the blue channel.
+   * @param tolerance added to the sums before they are truncated.
+   * @return the pixel packed as 0xRRGGBB.
+   */
+  private static int pack(double red, double green, double blue, double tolerance) {
+    return (clamp((int) (red + tolerance)) << 16) | (clamp((int) (green + tolerance)) << 8)
+            | clamp((int) (blue + tolerance));
+  }
+
+  /**
+   * Clamps a channel value to 0..255.
+   *
+   * @param value channel value.
+   * @return the clamped value.
+   */
+  static int clamp(int value) {
+    return Math.min(Math.max(value, 0), 255);
+  }
+}
@@ -0,0 +1,164 @@
+package imagemodel;
+
+import java.nio.IntBuffer;
+
+/**
+ * This class represents an image split into square tiles of packed 0xRRGGBB values. A tile is a
+ * window of an int array described by an offset and a row stride, which lets a tile point into
+ * the raster of another image or be shared between several tiled images. Images derived with
+ * small changes from another image therefore only own the tiles that actually changed.
+ */
+public class TiledImage extends AbstractImage {
+
+  /**
+   * Width and height of a full tile in pixels.
+   */
+  public static final int TILE_SIZE = 64;
+
+  private final int width;
+  private final int height;
+  private final int tilesAcross;
+  private final int[][] tileData;
+  private final int[] tileOffset;
+  private final int[] tileStride;
+
+  /**
+   * Package-private constructor that adopts the given tiles. Tile t covers the pixels of tile
+   * column t % tilesAcross and tile row t / tilesAcross, and the pixel (x, y) inside it is found
+   * at tileData[t][tileOffset[t] + y * tileStride[t] + x].
+   *
+   * @param width      of the image.
+   * @param height     of the image.
+   * @param tileData   array holding each tile.
+   * @param tileOffset index of the first pixel of each tile.
+   * @param tileStride distance between two rows of each tile.
+   */
+  TiledImage(int width, int height, int[][] tileData, int[] tileOffset, int[] tileStride) {
+    this.width = width;
+    this.height = height;
+    this.tilesAcross = tilesFor(width);
+    this.tileData = tileData;
+    this.tileOffset = tileOffset;
+    this.tileStride = tileStride;
+  }
+
+  /**
+   * Gives the number of tiles needed to cover a length.
+   *
+   * @param length width or height in pixels.
+   * @return the number of tiles.
+   */
+  static int tilesFor(int length) {
+    return (length + TILE_SIZE - 1) / TILE_SIZE;
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    int tile = (y / TILE_SIZE) * tilesAcross + x / TILE_SIZE;
+    return tileData[tile][tileOffset[tile] + (y % TILE_SIZE) * tileStride[tile]
+            + x % TILE_SIZE];
+  }
+
+  /**
+   * The getRow method copies one row of the image into the given array as packed 0xRRGGBB
+   * values, one tile segment at a time.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    int firstTile = (y / TILE_SIZE) * tilesAcross;
+    int rowInTile = y % TILE_SIZE;
+    for (int tx = 0; tx < tilesAcross; tx++) {
+      int tile = firstTile + tx;
+      int x = tx * TILE_SIZE;
+      System.arraycopy(tileData[tile], tileOffset[tile] + rowInTile * tileStride[tile], dst, x,
+              Math.min(TILE_SIZE, width - x));
+    }
+    return dst;
+  }
+
+  /**
+   * The getRaster method returns a read-only copy of the whole image as packed 0xRRGGBB values
+   * laid out row by row. The tiles are not contiguous, so the raster is assembled on request.
+   *
+   * @return a read-only buffer of width * height packed values.
+   */
+  @Override
+  public IntBuffer getRaster() {
+    int[] raster = new int[width * height];
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      System.arraycopy(getRow(y, row), 0, raster, y * width, width);
+    }
+    return IntBuffer.wrap(raster).asReadOnlyBuffer();
+  }
+
+  /**
+   * Gives the array holding a tile.
+   *
+   * @param tile index of the tile.
+   * @return the array of the tile.
+   */
+  int[] tileData(int tile) {
+    return tileData[tile];
+  }
+
+  /**
+   * Gives the index of the first pixel of a tile inside its array.
+   *
+   * @param tile index of the tile.
+   * @return the offset of the tile.
+   */
+  int tileOffset(int tile) {
+    return tileOffset[tile];
+  }
+
+  /**
+   * Gives the distance between two rows of a tile inside its array.
+   *
+   * @param tile index of the tile.
+   * @return the stride of the tile.
+   */
+  int tileStride(int tile) {
+    return tileStride[tile];
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+}
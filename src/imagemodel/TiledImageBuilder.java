@@ -0,0 +1,269 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * A write-once builder that starts as a copy of a source image and produces a TiledImage. Tiles
+ * of the source are referenced instead of copied, and a tile is only copied the first time a
+ * write actually changes one of its pixels. Writing a value equal to the current one keeps the
+ * tile shared, so callers can rewrite whole rows without losing the sharing.
+ */
+public class TiledImageBuilder implements ImageBuilderInterface {
+
+  private static final int TILE = TiledImage.TILE_SIZE;
+
+  private final int width;
+  private final int height;
+  private final int tilesAcross;
+  private final int[][] tileData;
+  private final int[] tileOffset;
+  private final int[] tileStride;
+  private final boolean[] shared;
+  private ImageInterface built;
+
+  /**
+   * Class constructor that starts from the pixels of the given image. The tiles of an Image or
+   * TiledImage are shared, other images are copied tile by tile.
+   *
+   * @param source image whose pixels the builder starts with.
+   * @throws IllegalArgumentException if the source is null.
+   */
+  public TiledImageBuilder(ImageInterface source) throws IllegalArgumentException {
+    if (source == null) {
+      throw new IllegalArgumentException("Image cannot be null");
+    }
+    this.width = source.getWidth();
+    this.height = source.getHeight();
+    this.tilesAcross = TiledImage.tilesFor(width);
+    int tileCount = tilesAcross * TiledImage.tilesFor(height);
+    this.tileData = new int[tileCount][];
+    this.tileOffset = new int[tileCount];
+    this.tileStride = new int[tileCount];
+    this.shared = new boolean[tileCount];
+    if (source instanceof Image) {
+      ((Image) source).pin();
+      int[] raster = ((Image) source).raster();
+      for (int tile = 0; tile < tileCount; tile++) {
+        tileData[tile] = raster;
+        tileOffset[tile] = tileY(tile) * width + tileX(tile);
+        tileStride[tile] = width;
+        shared[tile] = true;
+      }
+    } else if (source instanceof TiledImage) {
+      TiledImage tiled = (TiledImage) source;
+      for (int tile = 0; tile < tileCount; tile++) {
+        tileData[tile] = tiled.tileData(tile);
+        tileOffset[tile] = tiled.tileOffset(tile);
+        tileStride[tile] = tiled.tileStride(tile);
+        shared[tile] = true;
+      }
+    } else {
+      for (int tile = 0; tile < tileCount; tile++) {
+        tileData[tile] = new int[tileWidth(tile) * tileHeight(tile)];
+        tileStride[tile] = tileWidth(tile);
+      }
+      int[] row = new int[width];
+      for (int y = 0; y < height; y++) {
+        source.getRow(y, row);
+        int firstTile = (y / TILE) * tilesAcross;
+        for (int tx = 0; tx < tilesAcross; tx++) {
+          int tile = firstTile + tx;
+          System.arraycopy(row, tx * TILE, tileData[tile], (y % TILE) * tileStride[tile],
+                  tileWidth(tile));
+        }
+      }
+    }
+  }
+
+  /**
+   * Gives the x coordinate of the first column of a tile.
+   *
+   * @param tile index of the tile.
+   * @return the first column of the tile.
+   */
+  private int tileX(int tile) {
+    return (tile % tilesAcross) * TILE;
+  }
+
+  /**
+   * Gives the y coordinate of the first row of a tile.
+   *
+   * @param tile index of the tile.
+   * @return the first row of the tile.
+   */
+  private int tileY(int tile) {
+    return (tile / tilesAcross) * TILE;
+  }
+
+  /**
+   * Gives the width of a tile, which is smaller than a full tile at the right edge.
+   *
+   * @param tile index of the tile.
+   * @return the width of the tile.
+   */
+  private int tileWidth(int tile) {
+    return Math.min(TILE, width - tileX(tile));
+  }
+
+  /**
+   * Gives the height of a tile, which is smaller than a full tile at the bottom edge.
+   *
+   * @param tile index of the tile.
+   * @return the height of the tile.
+   */
+  private int tileHeight(int tile) {
+    return Math.min(TILE, height - tileY(tile));
+  }
+
+  /**
+   * Copies a shared tile into an array owned by the builder, so that it can be written. An owned
+   * tile starts at the beginning of its array and its stride is its width.
+   *
+   * @param tile index of the tile.
+   * @return the array owned by the builder.
+   */
+  private synchronized int[] own(int tile) {
+    if (!shared[tile]) {
+      return tileData[tile];
+    }
+    int tileWidth = tileWidth(tile);
+    int tileHeight = tileHeight(tile);
+    int[] copy = new int[tileWidth * tileHeight];
+    for (int row = 0; row < tileHeight; row++) {
+      System.arraycopy(tileData[tile], tileOffset[tile] + row * tileStride[tile], copy,
+              row * tileWidth, tileWidth);
+    }
+    tileData[tile] = copy;
+    tileOffset[tile] = 0;
+    tileStride[tile] = tileWidth;
+    shared[tile] = false;
+    return copy;
+  }
+
+  /**
+   * The setPixel method sets the pixel values at a specific position in the image.
+   *
+   * @param x     row index where the pixel is to be set.
+   * @param y     column index where the pixel is to be set.
+   * @param pixel values that are to be set in that position.
+   */
+  public void setPixel(int x, int y, PixelInterface pixel) {
+    setRGB(x, y, Pixel.pack(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
+  }
+
+  /**
+   * The setRGB method sets the pixel at a specific position from a value packed as 0xRRGGBB.
+   *
+   * @param x   row index where the pixel is to be set.
+   * @param y   column index where the pixel is to be set.
+   * @param rgb packed RGB value that is to be set in that position.
+   */
+  public void setRGB(int x, int y, int rgb) {
+    checkWritable();
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Pixel (" + x + ", " + y + ") is out of bounds");
+    }
+    int value = rgb & 0xFFFFFF;
+    int tile = (y / TILE) * tilesAcross + x / TILE;
+    if (tileData[tile][tileOffset[tile] + (y % TILE) * tileStride[tile] + x % TILE] != value) {
+      own(tile)[(y % TILE) * tileWidth(tile) + x % TILE] = value;
+    }
+  }
+
+  /**
+   * The setRow method sets a complete row of the image from packed 0xRRGGBB values. Only the
+   * tiles in which a value changes are copied. Distinct rows can be set from several threads at
+   * once: where a tile is stored is read, and the tile copied, under the lock of the builder,
+   * and the pixels are compared and written outside it.
+   *
+   * @param y   index of the row to be set.
+   * @param src array holding at least width packed values.
+   */
+  public void setRow(int y, int[] src) {
+    checkWritable();
+    if (y < 0 || y >= height) {
+      throw new IndexOutOfBoundsException("Row " + y + " is out of bounds");
+    }
+    int firstTile = (y / TILE) * tilesAcross;
+    for (int tx = 0; tx < tilesAcross; tx++) {
+      int tile = firstTile + tx;
+      int x0 = tx * TILE;
+      int length = tileWidth(tile);
+      int[] data;
+      int start;
+      synchronized (this) {
+        data = tileData[tile];
+        start = tileOffset[tile] + (y % TILE) * tileStride[tile];
+      }
+      int x = 0;
+      while (x < length && data[start + x] == (src[x0 + x] & 0xFFFFFF)) {
+        x++;
+      }
+      if (x == length) {
+        continue;
+      }
+      data = own(tile);
+      start = (y % TILE) * length;
+      for (; x < length; x++) {
+        data[start + x] = src[x0 + x] & 0xFFFFFF;
+      }
+    }
+  }
+
+  /**
+   * The fill method sets every pixel of the image to the same packed 0xRRGGBB value.
+   *
+   * @param rgb packed RGB value that is to be set everywhere.
+   */
+  public void fill(int rgb) {
+    checkWritable();
+    for (int tile = 0; tile < tileData.length; tile++) {
+      int[] data = new int[tileWidth(tile) * tileHeight(tile)];
+      Arrays.fill(data, rgb & 0xFFFFFF);
+      tileData[tile] = data;
+      tileOffset[tile] = 0;
+      tileStride[tile] = tileWidth(tile);
+      shared[tile] = false;
+    }
+  }
+
+  /**
+   * The build method freezes the builder and hands its tiles over to a TiledImage.
+   *
+   * @return the built image.
+   */
+  public ImageInterface build() {
+    if (built == null) {
+      built = new TiledImage(width, height, tileData, tileOffset, tileStride);
+    }
+    return built;
+  }
+
+  /**
+   * This method copies the current content of the builder into a new dense image.
+   *
+   * @return copied image.
+   */
+  public ImageInterface deepCopyImage() {
+    int[] raster = new int[width * height];
+    for (int tile = 0; tile < tileData.length; tile++) {
+      int tileWidth = tileWidth(tile);
+      for (int row = 0; row < tileHeight(tile); row++) {
+        System.arraycopy(tileData[tile], tileOffset[tile] + row * tileStride[tile], raster,
+                (tileY(tile) + row) * width + tileX(tile), tileWidth);
+      }
+    }
+    return new Image(raster, width, height);
+  }
+
+  /**
+   * Checks that the builder has not been built yet.
+   *
+   * @throws IllegalStateException when the image has already been built.
+   */
+  private void checkWritable() throws IllegalStateException {
+    if (built != null) {
+      throw new IllegalStateException("Image has already been built");
+    }
+  }
+}
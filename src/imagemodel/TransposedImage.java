@@ -0,0 +1,90 @@
+package imagemodel;
+
+/**
+ * A view that swaps the rows and columns of its source, without copying it. Rows of the view
+ * are columns of the source, so reading them is slower than reading the rows of the source.
+ */
+public class TransposedImage extends ImageView {
+
+  /**
+   * Creates a transposed view of the given source.
+   *
+   * @param source  image the view reads from.
+   * @param storage storage a materialized copy is created in.
+   * @throws IllegalArgumentException if the source or storage is null.
+   */
+  public TransposedImage(ImageInterface source, ImageStorage storage)
+          throws IllegalArgumentException {
+    super(source, storage);
+  }
+
+  /**
+   * Transposes an image. Transposing a transposed view gives back its source.
+   *
+   * @param image   image to be transposed.
+   * @param storage storage a materialized copy is created in.
+   * @return the transposed image.
+   * @throws IllegalArgumentException if the image or storage is null.
+   */
+  public static ImageInterface transpose(ImageInterface image, ImageStorage storage)
+          throws IllegalArgumentException {
+    if (image instanceof TransposedImage) {
+      return ((TransposedImage) image).getSource();
+    }
+    return new TransposedImage(image, storage);
+  }
+
+  /**
+   * The getRGB method returns the pixel at the given position packed as 0xRRGGBB.
+   *
+   * @param x row index of the image.
+   * @param y column index of the image.
+   * @return packed RGB value of the pixel.
+   */
+  @Override
+  public int getRGB(int x, int y) {
+    checkPixel(x, y);
+    return getSource().getRGB(y, x);
+  }
+
+  /**
+   * The getRow method copies one row of the view, a column of the source, into the given array
+   * as packed 0xRRGGBB values.
+   *
+   * @param y   index of the row to be read.
+   * @param dst array that receives the row.
+   * @return the array holding the row.
+   */
+  @Override
+  public int[] getRow(int y, int[] dst) {
+    checkRow(y);
+    int width = getWidth();
+    if (dst == null || dst.length < width) {
+      dst = new int[width];
+    }
+    for (int x = 0; x < width; x++) {
+      dst[x] = getSource().getRGB(y, x);
+    }
+    return dst;
+  }
+
+  /**
+   * The getWidth method is used to get the width of the Image.
+   *
+   * @return the width of the image as an integer.
+   */
+  @Override
+  public int getWidth() {
+    return getSource().getHeight();
+  }
+
+  /**
+   * The getHeight function is used to get the height of the Image.
+   *
+   * @return the height of the image as an integer.
+   */
+  @Override
+  public int getHeight() {
+    return getSource().getWidth();
+  }
+}
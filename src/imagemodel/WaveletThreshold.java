@@ -0,0 +1,163 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * Chooses the threshold below which wavelet coefficients are dropped by compression, and drops
+ * them. The distinct nonzero coefficients are ordered by magnitude and the threshold is the
+ * magnitude of the coefficient found at the compression percentage of that order, so a
+ * coefficient repeated many times counts once, and a value and its negation count twice.
+ *
+ * <p>The distinct values are collected in an open addressing table of their bits, which holds
+ * primitives and grows with the number of distinct values rather than with the number of
+ * coefficients, and the threshold is picked among their magnitudes by quickselect in linear
+ * expected time instead of sorting them.
+ */
+final class WaveletThreshold {
+
+  private static final int INITIAL_CAPACITY = 1 << 10;
+
+  /**
+   * This class only has static methods.
+   */
+  private WaveletThreshold() {
+  }
+
+  /**
+   * Chooses the threshold of a percentage over the distinct nonzero coefficients of one or more
+   * channels. Several channels share one threshold chosen over all their coefficients.
+   *
+   * @param percentage the percentage of the distinct coefficients below the threshold.
+   * @param channels   the coefficients of the channels.
+   * @return the threshold, 0 if no coefficient is to be dropped.
+   */
+  static double select(double percentage, double[]... channels) {
+    long[] table = new long[INITIAL_CAPACITY];
+    double[] magnitudes = new double[INITIAL_CAPACITY / 2];
+    int count = 0;
+    for (double[] channel : channels) {
+      for (double value : channel) {
+        if (value == 0) {
+          continue;
+        }
+        long bits = Double.doubleToLongBits(value);
+        int mask = table.length - 1;
+        int index = hash(bits) & mask;
+        while (table[index] != 0 && table[index] != bits) {
+          index = (index + 1) & mask;
+        }
+        if (table[index] != 0) {
+          continue;
+        }
+        table[index] = bits;
+        magnitudes[count++] = Math.abs(value);
+        if (count == magnitudes.length) {
+          table = grow(table);
+          magnitudes = Arrays.copyOf(magnitudes, 2 * count);
+        }
+      }
+    }
+    int retentionCount = (int) (count * (percentage / 100.0));
+    if (retentionCount == 0) {
+      return 0;
+    }
+    return select(magnitudes, count, retentionCount - 1);
+  }
+
+  /**
+   * Drops the coefficients of a channel whose magnitude is below a threshold.
+   *
+   * @param channel   the coefficients of the channel.
+   * @param threshold the threshold.
+   */
+  static void apply(double[] channel, double threshold) {
+    for (int i = 0; i < channel.length; i++) {
+      if (Math.abs(channel[i]) < threshold) {
+        channel[i] = 0;
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of a value over the bits of a table index.
+   *
+   * @param bits the bits of a value.
+   * @return the hash of the bits.
+   */
+  private static int hash(long bits) {
+    long mixed = bits * 0x9E3779B97F4A7C15L;
+    return (int) (mixed ^ (mixed >>> 32));
+  }
+
+  /**
+   * Moves the values of a table into a table twice its size.
+   *
+   * @param table the table.
+   * @return the larger table.
+   */
+  private static long[] grow(long[] table) {
+    long[] larger = new long[2 * table.length];
+    int mask = larger.length - 1;
+    for (long bits : table) {
+      if (bits != 0) {
+        int index = hash(bits) & mask;
+        while (larger[index] != 0) {
+          index = (index + 1) & mask;
+        }
+        larger[index] = bits;
+      }
+    }
+    return larger;
+  }
+
+  /**
+   * Finds the value of the given rank among the first values of an array, which are reordered.
+   *
+   * @param values the values.
+   * @param count  number of values considered.
+   * @param rank   rank of the value in increasing order, counted from 0.
+   * @return the value of that rank.
+   */
+  private static double select(double[] values, int count, int rank) {
+    int low = 0;
+    int high = count - 1;
+    while (low < high) {
+      double pivot = median(values[low], values[(low + high) >>> 1], values[high]);
+      int i = low;
+      int j = high;
+      while (i <= j) {
+        while (values[i] < pivot) {
+          i++;
+        }
+        while (values[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          double swap = values[i];
+          values[i++] = values[j];
+          values[j--] = swap;
+        }
+      }
+      if (rank <= j) {
+        high = j;
+      } else if (rank >= i) {
+        low = i;
+      } else {
+        return values[rank];
+      }
+    }
+    return values[rank];
+  }
+
+  /**
+   * Gives the median of three values.
+   *
+   * @param a a value.
+   * @param b a value.
+   * @param c a value.
+   * @return the median.
+   */
+  private static double median(double a, double b, double c) {
+    return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+  }
+}
@@ -4,6 +4,7 @@ import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JSplitPane;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JScrollPane;
 import javax.swing.JOptionPane;
 import javax.swing.JLabel;
@@ -94,8 +95,14 @@ public class MainFrame extends JFrame implements MainFrameInterface {
     toggleSplit.addActionListener(e -> {
       controller.toggleSplitView();
     });
+    JButton threads = new JButton("Threads");
+    threads.setPreferredSize(new Dimension(150, 30));
+    threads.addActionListener(e -> {
+      controller.handleThreadsCommand();
+    });
     buttonPanelLower.setLayout(new FlowLayout(FlowLayout.CENTER));
     buttonPanelLower.add(toggleSplit);
+    buttonPanelLower.add(threads);
   }
 
   /**
@@ -177,10 +184,13 @@ public class MainFrame extends JFrame implements MainFrameInterface {
             "PNG Files (*.png)", "png");
     FileNameExtensionFilter bmpFilter = new FileNameExtensionFilter(
             "Bitmap Files (*.bmp)", "bmp");
+    FileNameExtensionFilter pgmFilter = new FileNameExtensionFilter(
+            "Grayscale PGM Files (*.pgm)", "pgm");
 
     fileChooser.addChoosableFileFilter(jpgFilter);
     fileChooser.addChoosableFileFilter(pngFilter);
     fileChooser.addChoosableFileFilter(bmpFilter);
+    fileChooser.addChoosableFileFilter(pgmFilter);
     String selectedFilePath = null;
     fileChooser.setDialogTitle("Save Image");
     int result = fileChooser.showSaveDialog(this);
@@ -299,6 +309,80 @@ public class MainFrame extends JFrame implements MainFrameInterface {
     return null;
   }
 
+  /**
+   * Opens a dialog for the standard deviation of a Gaussian blur, with a check box for the
+   * faster box filters.
+   *
+   * @return the standard deviation followed by 1 for the accurate filter or 0 for the box
+   *         filters, or null if the dialog was cancelled.
+   */
+  @Override
+  public List<Double> showGaussianBlurDialog() {
+    JPanel inputPanel = new JPanel(new GridLayout(2, 2));
+    JTextField sigmaField = new JTextField("2.0");
+    JCheckBox fastBox = new JCheckBox();
+
+    inputPanel.add(new JLabel("Sigma:"));
+    inputPanel.add(sigmaField);
+    inputPanel.add(new JLabel("Fast (box filters):"));
+    inputPanel.add(fastBox);
+
+    int result = JOptionPane.showConfirmDialog(null, inputPanel,
+            "Gaussian Blur", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+    if (result == JOptionPane.OK_OPTION) {
+      try {
+        List<Double> value = new ArrayList<>();
+        value.add(Double.parseDouble(sigmaField.getText().trim()));
+        value.add(fastBox.isSelected() ? 0.0 : 1.0);
+        return value;
+      } catch (NumberFormatException e) {
+        showErrorDialog("Error: Please enter a valid numeric value for sigma.");
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Opens a dialog with sliders for the radius and percentile of a rank filter, the percentile
+   * starting at 50 for the median.
+   *
+   * @return the radius followed by the percentile, or null if the dialog was cancelled.
+   */
+  @Override
+  public List<Integer> showRankFilterDialog() {
+    JSlider radiusSlider = new JSlider(JSlider.HORIZONTAL, 1, 25, 2);
+    JSlider percentileSlider = new JSlider(JSlider.HORIZONTAL, 0, 100, 50);
+
+    radiusSlider.setMajorTickSpacing(5);
+    radiusSlider.setMinorTickSpacing(1);
+    radiusSlider.setPaintTicks(true);
+    radiusSlider.setPaintLabels(true);
+
+    percentileSlider.setMajorTickSpacing(25);
+    percentileSlider.setMinorTickSpacing(5);
+    percentileSlider.setPaintTicks(true);
+    percentileSlider.setPaintLabels(true);
+
+    JPanel inputPanel = new JPanel(new GridLayout(2, 2));
+    inputPanel.add(new JLabel("Radius:"));
+    inputPanel.add(radiusSlider);
+    inputPanel.add(new JLabel("Percentile (50 is the median):"));
+    inputPanel.add(percentileSlider);
+
+    int result = JOptionPane.showConfirmDialog(null, inputPanel,
+            "Median / Percentile", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+    if (result != JOptionPane.OK_OPTION) {
+      return null;
+    }
+
+    List<Integer> value = new ArrayList<>();
+    value.add(radiusSlider.getValue());
+    value.add(percentileSlider.getValue());
+    return value;
+  }
+
   /**
    * Pops up a dialog which shows the error that is being thrown.
    *
@@ -329,6 +413,28 @@ public class MainFrame extends JFrame implements MainFrameInterface {
     return 0;
   }
 
+  /**
+   * Opens a slider dialog to choose the number of threads the operations run on.
+   *
+   * @param current the number of threads in use.
+   * @return the chosen number of threads, or 0 if the dialog was cancelled.
+   */
+  @Override
+  public int showThreadsDialog(int current) {
+    int max = Math.max(current, Runtime.getRuntime().availableProcessors());
+    JSlider threadsSlider = new JSlider(JSlider.HORIZONTAL, 1, max, current);
+    threadsSlider.setMajorTickSpacing(Math.max(1, max / 8));
+    threadsSlider.setMinorTickSpacing(1);
+    threadsSlider.setPaintTicks(true);
+    threadsSlider.setPaintLabels(true);
+    int result = JOptionPane.showConfirmDialog(null, threadsSlider,
+            "Number of Threads", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+    if (result == JOptionPane.OK_OPTION) {
+      return threadsSlider.getValue();
+    }
+    return 0;
+  }
+
   /**
    * Adds additional buttons for various image operations.
    */
@@ -378,6 +484,16 @@ public class MainFrame extends JFrame implements MainFrameInterface {
       controller.handleBlurCommand();
       controller.createHistogram();
     });
+    addButton("Gaussian Blur", e -> {
+      controller.handleSplitView();
+      controller.handleGaussianBlurCommand();
+      controller.createHistogram();
+    });
+    addButton("Median / Percentile", e -> {
+      controller.handleSplitView();
+      controller.handleRankFilterCommand();
+      controller.createHistogram();
+    });
     addButton("Sharpen", e -> {
       controller.handleSplitView();
       controller.handleSharpenCommand();
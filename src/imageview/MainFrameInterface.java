@@ -52,6 +52,22 @@ public interface MainFrameInterface {
    */
   List<Integer> showLevelsAdjustDialog();
 
+  /**
+   * This will show a dialog which takes input of the standard deviation of a Gaussian blur and
+   * whether the accurate recursive filter or the faster box filters are used.
+   *
+   * @return the standard deviation followed by 1 for the accurate filter or 0 for the box
+   *         filters, or null if the dialog was cancelled.
+   */
+  List<Double> showGaussianBlurDialog();
+
+  /**
+   * This will show a dialog with sliders for the radius and percentile of a rank filter.
+   *
+   * @return the radius followed by the percentile, or null if the dialog was cancelled.
+   */
+  List<Integer> showRankFilterDialog();
+
   /**
    * This will show a dialog which takes input of the compression percentage from the user.
    *
@@ -80,6 +96,14 @@ public interface MainFrameInterface {
    */
   int showSplitDialog();
 
+  /**
+   * This will show a slider which takes input of the number of threads from the user.
+   *
+   * @param current the number of threads in use.
+   * @return the chosen number of threads, or 0 if the dialog was cancelled.
+   */
+  int showThreadsDialog(int current);
+
   /**
    * This will pop a dialog Box when an error is caught by the program.
    *
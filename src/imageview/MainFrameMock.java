@@ -22,6 +22,9 @@ public class MainFrameMock implements MainFrameInterface {
   private boolean compress;
   private boolean control;
   private boolean blurred;
+  private boolean threads;
+  private boolean gaussian;
+  private boolean rank;
 
   /**
    * Class Constructor.
@@ -38,6 +41,9 @@ public class MainFrameMock implements MainFrameInterface {
     compress = false;
     control = false;
     blurred = false;
+    threads = false;
+    gaussian = false;
+    rank = false;
   }
 
   /**
@@ -243,6 +249,73 @@ public class MainFrameMock implements MainFrameInterface {
     return split;
   }
 
+  /**
+   * This is a mock for the Gaussian blur dialog box.
+   *
+   * @return dummy values.
+   */
+  @Override
+  public List<Double> showGaussianBlurDialog() {
+    gaussian = true;
+    List<Double> temp = new ArrayList<>();
+    temp.add(3.0);
+    temp.add(1.0);
+    return temp;
+  }
+
+  /**
+   * Flag for Gaussian blur.
+   *
+   * @return boolean flag.
+   */
+  public boolean isGaussian() {
+    return gaussian;
+  }
+
+  /**
+   * This is a mock for the rank filter dialog box.
+   *
+   * @return dummy values.
+   */
+  @Override
+  public List<Integer> showRankFilterDialog() {
+    rank = true;
+    List<Integer> temp = new ArrayList<>();
+    temp.add(2);
+    temp.add(50);
+    return temp;
+  }
+
+  /**
+   * Flag for the rank filter.
+   *
+   * @return boolean flag.
+   */
+  public boolean isRank() {
+    return rank;
+  }
+
+  /**
+   * This is a mock for the threads dialog box.
+   *
+   * @param current the number of threads in use.
+   * @return dummy value.
+   */
+  @Override
+  public int showThreadsDialog(int current) {
+    threads = true;
+    return 2;
+  }
+
+  /**
+   * Flag for threads.
+   *
+   * @return boolean flag.
+   */
+  public boolean isThreads() {
+    return threads;
+  }
+
   /**
    * This is a mock for error dialog box.
    *
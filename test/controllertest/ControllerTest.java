@@ -3,15 +3,24 @@ package controllertest;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import imagecontroller.Controller;
 import imagecontroller.TextImageController;
+import imagemodel.AdditionalImageOperations;
 import imagemodel.AdditionalOperations;
+import imagemodel.HeapStorage;
 import imagemodel.MockOperations;
+import imagemodel.RasterPool;
 
 /**
  * This class tests the working of the TextImage Controller class.
@@ -30,6 +39,34 @@ public class ControllerTest {
             "load res/PNG/Sample.png input\nexit\n"), output);
   }
 
+  @Test
+  public void testSavePgm() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PGM/Sample.pgm gray\n"
+                    + "save res/PGM/Binary.pgm gray\n"
+                    + "save res/PGM/Plain.pgm gray plain\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Image saved at: res/PGM/Binary.pgm"));
+    assertTrue(actual.contains("Image saved at: res/PGM/Plain.pgm"));
+    assertTrue(new String(Files.readAllBytes(Paths.get("res/PGM/Binary.pgm")),
+            StandardCharsets.ISO_8859_1).startsWith("P5\n"));
+    assertTrue(new String(Files.readAllBytes(Paths.get("res/PGM/Plain.pgm")),
+            StandardCharsets.ISO_8859_1).startsWith("P2\n"));
+  }
+
+  @Test
+  public void testSavePlainInvalid() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PGM/Sample.pgm gray\n"
+                    + "save res/PGM/Plain.png gray plain\n"
+                    + "save res/PGM/Plain.pgm gray binary\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertEquals(2, actual.split("Invalid save command", -1).length - 1);
+    assertFalse(new File("res/PGM/Plain.png").exists());
+  }
+
   @Test
   public void testLevelValid() throws IOException {
     textImageController = new TextImageController(mock, new StringReader(
@@ -154,6 +191,19 @@ public class ControllerTest {
     assertTrue(actual.contains("Image compressed and saved as: output"));
   }
 
+  @Test
+  public void testCompressJoint() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "compress 90 testImage output joint\n"
+                    + "compress 90 testImage output shared\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Compressing channels jointly"));
+    assertTrue(actual.contains("Compressing image with percentage: 90%"));
+    assertTrue(actual.contains("Invalid number of arguments"));
+  }
+
   @Test
   public void testSepiaValid1() throws IOException {
     textImageController = new TextImageController(mock, new StringReader(
@@ -286,6 +336,137 @@ public class ControllerTest {
     assertTrue(actual.contains("Invalid blur command"));
   }
 
+  @Test
+  public void testGaussianBlurValid() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "gaussian-blur 2.5 testImage output\n"
+                    + "gaussian-blur 4 testImage output fast\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Applied gaussian blur 2.5 accurate"));
+    assertTrue(actual.contains("Applied gaussian blur 4.0 fast"));
+    assertTrue(actual.contains("Image gaussian blurred and stored as: output"));
+  }
+
+  @Test
+  public void testGaussianBlurSplitAndMask() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "load res/PNG/Sample.png mask\n"
+                    + "gaussian-blur 3 testImage output split 25 fast\n"
+                    + "gaussian-blur 3 testImage mask output\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Split view operation performed"));
+    assertTrue(actual.contains("Applied gaussian blur with mask"));
+  }
+
+  @Test
+  public void testGaussianBlurInvalid() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "gaussian-blur 3 testImage\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Invalid gaussian-blur command"));
+  }
+
+  @Test
+  public void testMedianValid() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "load res/PNG/Sample.png mask\n"
+                    + "median 3 testImage output\n"
+                    + "median 2 testImage output split 40\n"
+                    + "median 2 testImage mask output\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Applied median 3"));
+    assertTrue(actual.contains("Split view operation performed"));
+    assertTrue(actual.contains("Applied median with mask"));
+    assertTrue(actual.contains("Image median filtered and stored as: output"));
+  }
+
+  @Test
+  public void testPercentileValid() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "load res/PNG/Sample.png mask\n"
+                    + "percentile 90 4 testImage output\n"
+                    + "percentile 10 1 testImage mask output\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Applied percentile 90.0 4"));
+    assertTrue(actual.contains("Applied percentile with mask"));
+    assertTrue(actual.contains("Image percentile filtered and stored as: output"));
+  }
+
+  @Test
+  public void testRankFilterInvalid() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "median testImage output\n"
+                    + "percentile 50 testImage output 1 2 3\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Invalid median command"));
+    assertTrue(actual.contains("Invalid percentile command"));
+  }
+
+  @Test
+  public void testConvolveValid() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "load res/PNG/Sample.png mask\n"
+                    + "convolve res/Kernels/motion-blur.txt testImage output\n"
+                    + "convolve res/Kernels/motion-blur.txt testImage output wrap\n"
+                    + "convolve res/Kernels/motion-blur.txt testImage mask output\nexit\n"),
+            output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Applied convolution 9x9 replicate"));
+    assertTrue(actual.contains("Applied convolution 9x9 wrap"));
+    assertTrue(actual.contains("Applied convolution with mask"));
+    assertTrue(actual.contains("Image convolved and stored as: output"));
+  }
+
+  @Test
+  public void testConvolveInvalid() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "convolve res/Kernels/motion-blur.txt testImage\n"
+                    + "convolve res/Kernels/missing.txt testImage output\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Invalid convolve command"));
+    assertTrue(actual.contains("Error executing command"));
+    assertFalse(actual.contains("Applied convolution"));
+  }
+
+  @Test
+  public void testOwnedImageHandedOver() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "brighten 10 testImage testImage\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertTrue(actual.contains("Owned image handed over"));
+    assertTrue(actual.contains("Image brightened and stored as: testImage"));
+  }
+
+  @Test
+  public void testSharedImageNotHandedOver() throws IOException {
+    textImageController = new TextImageController(mock, new StringReader(
+            "load res/PNG/Sample.png testImage\n"
+                    + "brighten 10 testImage output\n"
+                    + "horizontal-flip testImage flipped\n"
+                    + "sepia testImage testImage split 50\nexit\n"), output);
+    textImageController.start(new String[]{"-text"});
+    String actual = output.toString().replace(System.lineSeparator(), "\n");
+    assertFalse(actual.contains("Owned image handed over"));
+  }
+
   @Test
   public void testCombineValid() throws IOException {
     textImageController = new TextImageController(mock, new StringReader(
@@ -681,6 +862,8 @@ public class ControllerTest {
             + "              - Loads an image\n"
             + "  save <image-path> <image-name>                                             "
             + "                 - Saves an image\n"
+            + "  save <image-path> <image-name> plain                                       "
+            + "                 - Saves a PGM image as plain text (P2)\n"
             + "  red-component <image-name> <dest-image-name>                                 "
             + "               - Gets the Red Component of the Image\n"
             + "  red-component <image-name> <dest-image-name> split p                              "
@@ -755,6 +938,38 @@ public class ControllerTest {
             + "Image while retaining the rest\n"
             + "  sharpen <image-name> <mask-image-name> <dest-image-name>    "
             + "                                - Sharpens the image according to the mask image\n"
+            + "  gaussian-blur sigma <image-name> <dest-image-name> [fast]                "
+            + "                   - Blurs the image with a Gaussian of standard deviation sigma,"
+            + " fast uses box filters\n"
+            + "  gaussian-blur sigma <image-name> <dest-image-name> split p [fast]        "
+            + "                   - Gaussian blurs the first p% of the Image while retaining "
+            + "the rest\n"
+            + "  gaussian-blur sigma <image-name> <mask-image-name> <dest-image-name> [fast]"
+            + "                 - Gaussian blurs the image according to the mask image\n"
+            + "  median radius <image-name> <dest-image-name>                             "
+            + "                   - Replaces every pixel by the median of the window of the "
+            + "given radius\n"
+            + "  median radius <image-name> <dest-image-name> split p                     "
+            + "                   - Median filters the first p% of the Image while retaining "
+            + "the rest\n"
+            + "  median radius <image-name> <mask-image-name> <dest-image-name>           "
+            + "                   - Median filters the image according to the mask image\n"
+            + "  percentile p radius <image-name> <dest-image-name>                       "
+            + "                   - Replaces every pixel by the p-th percentile of the window "
+            + "of the given radius\n"
+            + "  percentile p radius <image-name> <dest-image-name> split q               "
+            + "                   - Percentile filters the first q% of the Image while "
+            + "retaining the rest\n"
+            + "  percentile p radius <image-name> <mask-image-name> <dest-image-name>     "
+            + "                   - Percentile filters the image according to the mask image\n"
+            + "  convolve <kernel-file> <image-name> <dest-image-name> [edges]            "
+            + "                   - Convolves the image with the kernel in the file, edges is "
+            + "replicate, reflect, wrap or zero\n"
+            + "  convolve <kernel-file> <image-name> <dest-image-name> split p [edges]    "
+            + "                   - Convolves the first p% of the Image while retaining the "
+            + "rest\n"
+            + "  convolve <kernel-file> <image-name> <mask-image-name> <dest-image-name> "
+            + "[edges]           - Convolves the image according to the mask image\n"
             + "  sepia <image-name> <dest-image-name>          "
             + "                                              - Produces a sepia tone "
             + "of the image>\n"
@@ -766,6 +981,8 @@ public class ControllerTest {
             + "of the image  with respect to the mask image\n"
             + "  compress percentage <image-name> <dest-image-name>          "
             + "                                - Compresses the image by the given percentage\n"
+            + "  compress percentage <image-name> <dest-image-name> joint            "
+            + "                        - Compresses the channels with one shared threshold\n"
             + "  histogram <image-name> <dest-image-name>           "
             + "                                         - Generates a histogram of the given "
             + "Image\n" + "  color-correct <image-name> <dest-image-name>    "
@@ -818,4 +1035,28 @@ public class ControllerTest {
     assertTrue(actual.contains("Downscaling image"));
     assertTrue(actual.contains("Downsized image stored as: output"));
   }
+
+  @Test
+  public void testOverwrittenImageIsReleased() throws IOException {
+    RasterPool pool = new RasterPool();
+    HeapStorage storage = new HeapStorage(pool);
+    textImageController = new TextImageController(new AdditionalImageOperations(storage),
+            new StringReader("load res/PNG/Sample.png testImage\n"
+                    + "blur testImage testImage\nexit\n"), output, storage);
+    textImageController.start(new String[]{"-text"});
+    assertTrue(pool.pooledBytes() > 0);
+  }
+
+  @Test
+  public void testReferencedImageIsNotReleased() throws IOException {
+    RasterPool pool = new RasterPool();
+    HeapStorage storage = new HeapStorage(pool);
+    textImageController = new TextImageController(new AdditionalImageOperations(storage),
+            new StringReader("load res/PNG/Sample.png testImage\n"
+                    + "horizontal-flip testImage flipped\n"
+                    + "brighten 10 testImage copy\n"
+                    + "brighten 10 flipped testImage\nexit\n"), output, storage);
+    textImageController.start(new String[]{"-text"});
+    assertEquals(0, pool.pooledBytes());
+  }
 }
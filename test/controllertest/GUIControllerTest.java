@@ -6,10 +6,13 @@ import org.junit.Test;
 
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import imagecontroller.ControllerGui;
 import imagecontroller.GUIController;
+import imagemodel.BandExecutor;
+import imagemodel.HeapStorage;
 import imagemodel.MockOperations;
 import imageview.MainFrameMock;
 
@@ -29,6 +32,15 @@ public class GUIControllerTest {
     gui = new GUIController(ops, mock);
   }
 
+  @Test
+  public void testThreads() {
+    BandExecutor executor = new BandExecutor();
+    gui = new GUIController(ops, mock, new HeapStorage(), executor);
+    gui.handleThreadsCommand();
+    assertTrue(mock.isThreads());
+    assertEquals(2, executor.getParallelism());
+  }
+
   @Test
   public void testDownsize() {
     gui.downsizeImage();
@@ -180,6 +192,24 @@ public class GUIControllerTest {
     assertTrue(mock.isDisplayHistogram());
   }
 
+  @Test
+  public void testGaussianBlur() throws IOException {
+    gui.loadImage();
+    gui.handleGaussianBlurCommand();
+    assertTrue(mock.isGaussian());
+    assertTrue(ops.isGaussian());
+    assertTrue(mock.isDisplayImage());
+  }
+
+  @Test
+  public void testRankFilter() throws IOException {
+    gui.loadImage();
+    gui.handleRankFilterCommand();
+    assertTrue(mock.isRank());
+    assertTrue(ops.isRank());
+    assertTrue(mock.isDisplayImage());
+  }
+
   @Test
   public void testLevelAdjust() throws IOException {
     gui.loadImage();
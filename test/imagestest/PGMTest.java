@@ -0,0 +1,69 @@
+package imagestest;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import imagecontroller.ImageFormatHandler;
+import imagecontroller.P3PPMHandler;
+import imagecontroller.PGMHandler;
+import imagemodel.AdditionalImageOperations;
+import imagemodel.AdditionalOperations;
+import imagemodel.GrayImage;
+import imagemodel.ImageInterface;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class tests loading and saving grayscale images in the PGM format.
+ */
+public class PGMTest extends AbstractTest {
+
+  @Test
+  public void inputTest() throws IOException {
+    ImageFormatHandler ih = new PGMHandler();
+    ImageInterface actual = ih.loadImage("res/PGM/Sample.pgm");
+    assertTrue(actual instanceof GrayImage);
+    assertEquals(new GrayImage(2, 2, new byte[]{0, 100, (byte) 200, (byte) 255}), actual);
+  }
+
+  @Test
+  public void outputBinaryTest() throws IOException {
+    ImageFormatHandler ih = new PGMHandler();
+    ImageInterface expected = ih.loadImage("res/PGM/Sample.pgm");
+    ih.saveImage(expected, "res/PGM/Sample1.pgm", "pgm");
+    assertEquals(expected, ih.loadImage("res/PGM/Sample1.pgm"));
+    assertEquals("P5\n2 2\n255\n".length() + 4, new File("res/PGM/Sample1.pgm").length());
+  }
+
+  @Test
+  public void outputPlainTest() throws IOException {
+    ImageFormatHandler ih = new PGMHandler(true);
+    ImageInterface expected = ih.loadImage("res/PGM/Sample.pgm");
+    ih.saveImage(expected, "res/PGM/Sample2.pgm", "pgm");
+    assertEquals(expected, ih.loadImage("res/PGM/Sample2.pgm"));
+  }
+
+  @Test
+  public void componentSavedAsPgm() throws IOException {
+    AdditionalOperations io = new AdditionalImageOperations();
+    ImageInterface red = io.visualizeRedComponent(new P3PPMHandler()
+            .loadImage("res/PPM/Sample.ppm"));
+    ImageFormatHandler ih = new PGMHandler();
+    ih.saveImage(red, "res/PGM/Sample3.pgm", "pgm");
+    assertEquals(red, ih.loadImage("res/PGM/Sample3.pgm"));
+  }
+
+  @Test(expected = IOException.class)
+  public void saveColorImage() throws IOException {
+    new PGMHandler().saveImage(new P3PPMHandler().loadImage("res/PPM/Sample.ppm"),
+            "res/PGM/Sample4.pgm", "pgm");
+  }
+
+  @Test(expected = IOException.class)
+  public void inputTestInvalid() throws IOException {
+    new PGMHandler().loadImage("res/PPM/Sample.ppm");
+  }
+}
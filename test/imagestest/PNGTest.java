@@ -3,16 +3,21 @@ package imagestest;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 
+import javax.imageio.ImageIO;
+
 import imagecontroller.ImageFormatHandler;
 import imagecontroller.ImageHandler;
 import imagemodel.AdditionalImageOperations;
 import imagemodel.AdditionalOperations;
+import imagemodel.Image;
 import imagemodel.ImageCopy;
 import imagemodel.ImageCopyInterface;
 import imagemodel.ImageInterface;
+import imagemodel.PaletteImage;
 import imagemodel.Pixel;
 
 import static org.junit.Assert.assertEquals;
@@ -36,6 +41,22 @@ public class PNGTest extends AbstractTest {
     assertEquals(expected.deepCopyImage(), actual);
   }
 
+  @Test
+  public void inputTestIndexed() throws IOException {
+    BufferedImage mask = new BufferedImage(3, 2, BufferedImage.TYPE_BYTE_BINARY);
+    mask.setRGB(1, 0, 0xFFFFFF);
+    mask.setRGB(2, 1, 0xFFFFFF);
+    File file = File.createTempFile("mask", ".png");
+    try {
+      ImageIO.write(mask, "png", file);
+      ImageInterface actual = new ImageHandler().loadImage(file.getPath());
+      assertTrue(actual instanceof PaletteImage);
+      assertEquals(new Image(3, 2, new int[]{0, 0xFFFFFF, 0, 0, 0, 0xFFFFFF}), actual);
+    } finally {
+      file.delete();
+    }
+  }
+
   @Test(expected = IOException.class)
   public void inputTestInvalid() throws IOException {
     ImageFormatHandler ih = new ImageHandler();
@@ -78,6 +99,20 @@ public class PNGTest extends AbstractTest {
     assertNotEquals(expected.deepCopyImage(), actual);
   }
 
+  @Test
+  public void testHorizontalFlipOddWidth() {
+    AdditionalOperations io = new AdditionalImageOperations();
+    ImageCopyInterface input = new ImageCopy(3, 1);
+    input.setPixel(0, 0, new Pixel(10, 20, 30));
+    input.setPixel(1, 0, new Pixel(40, 50, 60));
+    input.setPixel(2, 0, new Pixel(70, 80, 90));
+    ImageCopyInterface expected = new ImageCopy(3, 1);
+    expected.setPixel(0, 0, new Pixel(70, 80, 90));
+    expected.setPixel(1, 0, new Pixel(40, 50, 60));
+    expected.setPixel(2, 0, new Pixel(10, 20, 30));
+    assertEquals(expected.deepCopyImage(), io.applyHorizontalFlip(input.deepCopyImage()));
+  }
+
   @Test
   public void testVerticalFlip() throws IOException {
     AdditionalOperations io = new AdditionalImageOperations();
@@ -0,0 +1,28 @@
+package modeltest;
+
+import java.util.Random;
+
+import imagemodel.Image;
+
+/**
+ * This is an abstract class that holds the images shared by the tests of the image model.
+ */
+public abstract class AbstractImageTest {
+
+  protected Image randomImage(Random random, int width, int height) {
+    int[] pixels = new int[width * height];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = random.nextInt(1 << 24);
+    }
+    return new Image(width, height, pixels);
+  }
+
+  protected Image randomImage(Random random, int width, int height, int levels) {
+    int[] pixels = new int[width * height];
+    for (int i = 0; i < pixels.length; i++) {
+      int red = random.nextInt(levels) * 255 / Math.max(levels - 1, 1);
+      pixels[i] = (red << 16) | random.nextInt(1 << 16);
+    }
+    return new Image(width, height, pixels);
+  }
+}
@@ -0,0 +1,159 @@
+package modeltest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Function;
+
+import imagemodel.AdditionalImageOperations;
+import imagemodel.BandExecutor;
+import imagemodel.HeapStorage;
+import imagemodel.Image;
+import imagemodel.ImageInterface;
+import imagemodel.OffHeapStorage;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for the BandExecutor class and the operations running on it.
+ */
+public class BandExecutorTest extends AbstractImageTest {
+
+  private void assertSameImage(ImageInterface expected, ImageInterface actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testEveryRowOnce() {
+    BandExecutor executor = new BandExecutor(4, 0);
+    for (int height : new int[]{1, 2, 3, 15, 16, 17, 1000}) {
+      AtomicIntegerArray visits = new AtomicIntegerArray(height);
+      executor.forEachBand(7, height, (from, to) -> {
+        for (int y = from; y < to; y++) {
+          visits.incrementAndGet(y);
+        }
+      });
+      for (int y = 0; y < height; y++) {
+        assertEquals(1, visits.get(y));
+      }
+    }
+  }
+
+  @Test
+  public void testBelowThresholdIsOneBand() {
+    BandExecutor executor = new BandExecutor(4, 1000);
+    int[] bands = new int[1];
+    executor.forEachBand(10, 99, (from, to) -> {
+      assertEquals(0, from);
+      assertEquals(99, to);
+      bands[0]++;
+    });
+    assertEquals(1, bands[0]);
+  }
+
+  @Test
+  public void testSetParallelism() {
+    BandExecutor executor = new BandExecutor();
+    assertEquals(1, executor.getParallelism());
+    executor.setParallelism(3);
+    assertEquals(3, executor.getParallelism());
+    assertEquals(BandExecutor.DEFAULT_THRESHOLD, executor.getThreshold());
+  }
+
+  @Test
+  public void testSwitchWhileRunning() throws InterruptedException {
+    BandExecutor executor = new BandExecutor(2, 0);
+    AtomicBoolean done = new AtomicBoolean();
+    Thread switcher = new Thread(() -> {
+      int parallelism = 2;
+      while (!done.get()) {
+        parallelism = parallelism == 4 ? 1 : parallelism + 1;
+        executor.setParallelism(parallelism);
+      }
+    });
+    switcher.start();
+    try {
+      for (int run = 0; run < 2000; run++) {
+        AtomicIntegerArray visits = new AtomicIntegerArray(64);
+        executor.forEachBand(7, 64, (from, to) -> {
+          for (int y = from; y < to; y++) {
+            visits.incrementAndGet(y);
+          }
+        });
+        for (int y = 0; y < 64; y++) {
+          assertEquals(1, visits.get(y));
+        }
+      }
+    } finally {
+      done.set(true);
+      switcher.join();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    new BandExecutor(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidThreshold() {
+    new BandExecutor(2, -1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullExecutor() {
+    new AdditionalImageOperations(new HeapStorage(), null);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testBandExceptionIsRethrown() {
+    new BandExecutor(4, 0).forEachBand(1, 100, (from, to) -> {
+      throw new IllegalStateException("band failed");
+    });
+  }
+
+  @Test
+  public void testParallelMatchesSequential() {
+    Random random = new Random(5);
+    Image image = randomImage(random, 123, 77);
+    Image other = randomImage(random, 123, 77);
+    int[] maskPixels = new int[123 * 77];
+    for (int i = 0; i < maskPixels.length; i++) {
+      maskPixels[i] = random.nextBoolean() ? 0 : 0xFFFFFF;
+    }
+    Image mask = new Image(123, 77, maskPixels);
+    AdditionalImageOperations sequential = new AdditionalImageOperations();
+    for (boolean offHeap : new boolean[]{false, true}) {
+      AdditionalImageOperations parallel = new AdditionalImageOperations(
+              offHeap ? new OffHeapStorage() : new HeapStorage(), new BandExecutor(4, 0));
+      List<Function<AdditionalImageOperations, ImageInterface>> operations = Arrays.asList(
+              ops -> ops.applyBlur(image),
+              ops -> ops.applySharpen(image),
+              ops -> ops.applySepia(image),
+              ops -> ops.applyBrightness(image, 30),
+              ops -> ops.visualizeValue(image),
+              ops -> ops.visualizeLuma(image),
+              ops -> ops.combineRGB(image, other, image),
+              ops -> ops.colorCorrect(image),
+              ops -> ops.levelsAdjust(image, 10, 120, 240),
+              ops -> ops.createHistogram(image),
+              ops -> ops.compressImage(image, 60),
+              ops -> ops.downscaleImage(image, 50, 31),
+              ops -> ops.applyBlur(image, mask),
+              ops -> ops.splitViewOperation(40, image, ops::applySharpen));
+      for (Function<AdditionalImageOperations, ImageInterface> operation : operations) {
+        assertSameImage(operation.apply(sequential), operation.apply(parallel));
+      }
+    }
+  }
+}
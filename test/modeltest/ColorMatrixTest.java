@@ -0,0 +1,98 @@
+package modeltest;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import imagemodel.ColorMatrix;
+import imagemodel.GrayImage;
+import imagemodel.ImageInterface;
+import imagemodel.ImageOperations;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the ColorMatrix class.
+ */
+public class ColorMatrixTest {
+
+  private int clamp(int value) {
+    return Math.min(Math.max(value, 0), 255);
+  }
+
+  private int expected(double[][] m, int rgb) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
+    int[] result = new int[3];
+    for (int i = 0; i < 3; i++) {
+      result[i] = clamp((int) (m[i][0] * r + m[i][1] * g + m[i][2] * b));
+    }
+    return (result[0] << 16) | (result[1] << 8) | result[2];
+  }
+
+  @Test
+  public void testMatchesDoubleFormula() {
+    Random random = new Random(7);
+    for (int t = 0; t < 50; t++) {
+      double[][] m = new double[3][3];
+      for (double[] row : m) {
+        for (int j = 0; j < 3; j++) {
+          row[j] = random.nextInt(3) == 0 ? random.nextInt(5) - 2 : random.nextDouble() * 4 - 2;
+        }
+      }
+      ColorMatrix matrix = new ColorMatrix(m);
+      for (int k = 0; k < 2000; k++) {
+        int rgb = random.nextInt(1 << 24);
+        assertEquals(expected(m, rgb), matrix.apply(rgb));
+      }
+    }
+  }
+
+  @Test
+  public void testSepia() {
+    double[][] sepia = {{0.393, 0.769, 0.189}, {0.349, 0.686, 0.168}, {0.272, 0.534, 0.131}};
+    for (int rgb = 0; rgb < 1 << 24; rgb += 4099) {
+      assertEquals(expected(sepia, rgb), ColorMatrix.SEPIA.apply(rgb));
+    }
+  }
+
+  @Test
+  public void testRational() {
+    ColorMatrix matrix = ColorMatrix.rational(new int[][]{{1, 0, 0}, {0, 2, 0}, {1, 1, -1}}, 2);
+    assertEquals(0x050F00, matrix.apply(0x0A0F1E));
+    assertTrue(ColorMatrix.INTENSITY.isGray());
+    assertTrue(ColorMatrix.INTENSITY.preservesGray());
+    int[] row = {0x010101, 0x000102, 0xFFFFFE};
+    ColorMatrix.INTENSITY.applyGray(row, 3);
+    assertArrayEquals(new int[]{1, 1, 254}, row);
+  }
+
+  @Test
+  public void testLuma() {
+    assertTrue(ColorMatrix.LUMA.isGray());
+    assertFalse(ColorMatrix.SEPIA.isGray());
+    assertEquals((int) (0.2126 * 10 + 0.7152 * 20 + 0.0722 * 30) * 0x010101,
+            ColorMatrix.LUMA.apply(0x0A141E));
+  }
+
+  @Test
+  public void testIntensityOfGrayImage() {
+    ImageInterface gray = new GrayImage(2, 1, new byte[]{10, (byte) 200});
+    assertSame(gray, new ImageOperations().visualizeIntensity(gray));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotSquare() {
+    new ColorMatrix(new double[][]{{1, 0, 0}, {0, 1}, {0, 0, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDivisor() {
+    ColorMatrix.rational(new int[][]{{1, 0, 0}, {0, 1, 0}, {0, 0, 1}}, 0);
+  }
+}
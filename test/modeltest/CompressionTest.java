@@ -0,0 +1,76 @@
+package modeltest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import imagemodel.ExtendedImageOperations;
+import imagemodel.Image;
+import imagemodel.ImageInterface;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests the thresholds chosen by compression.
+ */
+public class CompressionTest extends AbstractImageTest {
+
+  @Test
+  public void testNothingDroppedAtZero() {
+    Image image = randomImage(new Random(1), 37, 23);
+    assertEquals(image, new ExtendedImageOperations().compressImage(image, 0));
+    assertEquals(image, new ExtendedImageOperations().compressImage(image, 0, true));
+  }
+
+  @Test
+  public void testWideAndTallImages() {
+    Random random = new Random(4);
+    ExtendedImageOperations operations = new ExtendedImageOperations();
+    for (int[] size : new int[][]{{300, 2}, {1, 77}, {129, 1}}) {
+      Image image = randomImage(random, size[0], size[1]);
+      assertEquals(image, operations.compressImage(image, 0));
+    }
+    for (int[] size : new int[][]{{256, 2}, {1, 64}}) {
+      int[] pixels = new int[size[0] * size[1]];
+      Arrays.fill(pixels, 0x2060A0);
+      Image flat = new Image(size[0], size[1], pixels);
+      assertEquals(flat, operations.compressImage(flat, 90));
+    }
+  }
+
+  @Test
+  public void testJointMatchesSeparateOnGray() {
+    Random random = new Random(2);
+    int[] pixels = new int[30 * 20];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = random.nextInt(256) * 0x010101;
+    }
+    ExtendedImageOperations operations = new ExtendedImageOperations();
+    Image image = new Image(30, 20, pixels);
+    for (int percentage : new int[]{10, 50, 90, 100}) {
+      assertEquals(operations.compressImage(image, percentage),
+              operations.compressImage(image, percentage, true));
+    }
+  }
+
+  @Test
+  public void testJointSharesThreshold() {
+    Random random = new Random(3);
+    int[] pixels = new int[32 * 32];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = (random.nextInt(256) << 16) | (i % 32 + random.nextInt(3)) << 8 | 0x40;
+    }
+    ExtendedImageOperations operations = new ExtendedImageOperations();
+    Image image = new Image(32, 32, pixels);
+    ImageInterface separate = operations.compressImage(image, 50);
+    ImageInterface joint = operations.compressImage(image, 50, true);
+    assertNotEquals(separate, joint);
+    for (int y = 0; y < 32; y++) {
+      for (int x = 0; x < 32; x++) {
+        assertEquals(0x40, joint.getRGB(x, y) & 0xFF);
+      }
+    }
+  }
+}
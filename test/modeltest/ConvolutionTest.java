@@ -0,0 +1,452 @@
+package modeltest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import imagemodel.BandExecutor;
+import imagemodel.Convolution;
+import imagemodel.EdgeMode;
+import imagemodel.Image;
+import imagemodel.ImageBuilder;
+import imagemodel.ImageInterface;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the Convolution class.
+ */
+public class ConvolutionTest extends AbstractImageTest {
+
+  private static final double[][] BLUR = {
+      {1.0 / 16, 1.0 / 8, 1.0 / 16},
+      {1.0 / 8, 1.0 / 4, 1.0 / 8},
+      {1.0 / 16, 1.0 / 8, 1.0 / 16}};
+
+  private static final double[][] SHARPEN = {
+      {-1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8},
+      {-1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, -1.0 / 8},
+      {-1.0 / 8, 1.0 / 4, 1.0, 1.0 / 4, -1.0 / 8},
+      {-1.0 / 8, 1.0 / 4, 1.0 / 4, 1.0 / 4, -1.0 / 8},
+      {-1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8, -1.0 / 8}};
+
+  private int clamp(int value) {
+    return Math.min(Math.max(value, 0), 255);
+  }
+
+  private double tolerance(double[][] kernel) {
+    double sum = 0;
+    for (double[] row : kernel) {
+      for (double weight : row) {
+        sum += Math.abs(weight);
+      }
+    }
+    return 1e-9 * Math.max(1, 255 * sum);
+  }
+
+  private int expected(ImageInterface image, double[][] kernel, int x, int y) {
+    int ry = kernel.length / 2;
+    int rx = kernel[0].length / 2;
+    double[] sums = new double[3];
+    for (int ky = -ry; ky <= ry; ky++) {
+      for (int kx = -rx; kx <= rx; kx++) {
+        int rgb = image.getRGB(clamp(x + kx, image.getWidth()), clamp(y + ky, image.getHeight()));
+        double weight = kernel[ky + ry][kx + rx];
+        sums[0] += ((rgb >> 16) & 0xFF) * weight;
+        sums[1] += ((rgb >> 8) & 0xFF) * weight;
+        sums[2] += (rgb & 0xFF) * weight;
+      }
+    }
+    double tolerance = tolerance(kernel);
+    return (clamp((int) (sums[0] + tolerance)) << 16) | (clamp((int) (sums[1] + tolerance)) << 8)
+            | clamp((int) (sums[2] + tolerance));
+  }
+
+  private int clamp(int value, int size) {
+    return Math.min(Math.max(value, 0), size - 1);
+  }
+
+  private int expected(ImageInterface image, double[][] kernel, int x, int y, EdgeMode edges) {
+    int ry = kernel.length / 2;
+    int rx = kernel[0].length / 2;
+    double[] sums = new double[3];
+    for (int ky = -ry; ky <= ry; ky++) {
+      for (int kx = -rx; kx <= rx; kx++) {
+        int xx = edges.map(x + kx, image.getWidth());
+        int yy = edges.map(y + ky, image.getHeight());
+        int rgb = xx < 0 || yy < 0 ? 0 : image.getRGB(xx, yy);
+        double weight = kernel[ky + ry][kx + rx];
+        sums[0] += ((rgb >> 16) & 0xFF) * weight;
+        sums[1] += ((rgb >> 8) & 0xFF) * weight;
+        sums[2] += (rgb & 0xFF) * weight;
+      }
+    }
+    double tolerance = tolerance(kernel);
+    return (clamp((int) (sums[0] + tolerance)) << 16) | (clamp((int) (sums[1] + tolerance)) << 8)
+            | clamp((int) (sums[2] + tolerance));
+  }
+
+  private double[][] randomKernel(Random random, int width, int height) {
+    double[][] kernel = new double[height][width];
+    for (double[] row : kernel) {
+      for (int j = 0; j < width; j++) {
+        row[j] = (random.nextDouble() - 0.3) * 4 / (width * height);
+      }
+    }
+    return kernel;
+  }
+
+  private void assertMatchesEdges(Convolution convolution, double[][] kernel, Image image,
+                                  EdgeMode edges) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    for (BandExecutor executor : new BandExecutor[]{new BandExecutor(),
+        new BandExecutor(3, 0)}) {
+      ImageInterface result = convolution.apply(image, new ImageBuilder(width, height),
+              executor, edges);
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          assertEquals(expected(image, kernel, x, y, edges), result.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  private void assertMatchesDirect(double[][] kernel, Random random) {
+    Convolution convolution = new Convolution(kernel);
+    for (int[] size : new int[][]{{1, 1}, {1, 9}, {9, 1}, {2, 3}, {17, 13}}) {
+      Image image = randomImage(random, size[0], size[1]);
+      for (BandExecutor executor : new BandExecutor[]{new BandExecutor(),
+          new BandExecutor(3, 0)}) {
+        ImageInterface result = convolution.apply(image,
+                new ImageBuilder(size[0], size[1]), executor);
+        for (int y = 0; y < size[1]; y++) {
+          for (int x = 0; x < size[0]; x++) {
+            assertEquals(expected(image, kernel, x, y), result.getRGB(x, y));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBlurIsSeparable() {
+    Convolution blur = new Convolution(BLUR);
+    assertTrue(blur.isSeparable());
+    assertEquals(1, blur.getTermCount());
+    assertTrue(blur.isFixedPoint());
+    assertMatchesDirect(BLUR, new Random(1));
+  }
+
+  @Test
+  public void testSharpenIsSumOfBoxes() {
+    Convolution sharpen = new Convolution(SHARPEN);
+    assertFalse(sharpen.isSeparable());
+    assertEquals(3, sharpen.getTermCount());
+    assertTrue(sharpen.isFixedPoint());
+    assertMatchesDirect(SHARPEN, new Random(2));
+  }
+
+  @Test
+  public void testRandomSeparableKernels() {
+    Random random = new Random(3);
+    for (int t = 0; t < 20; t++) {
+      int height = 2 * random.nextInt(4) + 1;
+      int width = 2 * random.nextInt(4) + 1;
+      double[][] kernel = new double[height][width];
+      double[] column = new double[height];
+      double[] row = new double[width];
+      for (int i = 0; i < height; i++) {
+        column[i] = (random.nextInt(33) - 16) / 16.0;
+      }
+      for (int j = 0; j < width; j++) {
+        row[j] = (random.nextInt(33) - 16) / 32.0;
+      }
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          kernel[i][j] = column[i] * row[j];
+        }
+      }
+      Convolution convolution = new Convolution(kernel);
+      if (height * width > height + width && convolution.getTermCount() > 0) {
+        assertTrue(convolution.isSeparable());
+      }
+      assertMatchesDirect(kernel, random);
+    }
+  }
+
+  @Test
+  public void testInexactKernelsAreDirect() {
+    double third = 1.0 / 3;
+    double[][] box = {{third / 3, third / 3, third / 3}, {third / 3, third / 3, third / 3},
+        {third / 3, third / 3, third / 3}};
+    assertEquals(0, new Convolution(box).getTermCount());
+    assertMatchesDirect(box, new Random(4));
+    Random random = new Random(5);
+    double[][] kernel = new double[5][5];
+    for (double[] row : kernel) {
+      for (int j = 0; j < 5; j++) {
+        row[j] = random.nextDouble() - 0.5;
+      }
+    }
+    assertEquals(0, new Convolution(kernel).getTermCount());
+    assertMatchesDirect(kernel, random);
+    double[][] wide = new double[3][7];
+    for (double[] row : wide) {
+      for (int j = 0; j < 7; j++) {
+        row[j] = random.nextDouble() - 0.3;
+      }
+    }
+    assertMatchesDirect(wide, random);
+  }
+
+  @Test
+  public void testFlatImagesInFixedPoint() {
+    double[][] ninths = new double[3][3];
+    for (double[] row : ninths) {
+      Arrays.fill(row, 1.0 / 9);
+    }
+    double[][] fifths = {{0, 0.2, 0}, {0.2, 0.2, 0.2}, {0, 0.2, 0}};
+    for (double[][] kernel : Arrays.asList(ninths, fifths, BLUR, SHARPEN)) {
+      Convolution convolution = new Convolution(kernel);
+      assertTrue(convolution.isFixedPoint());
+      for (int value = 0; value < 256; value++) {
+        int rgb = (value << 16) | ((255 - value) << 8) | (value * 7 % 256);
+        int[] pixels = new int[35];
+        Arrays.fill(pixels, rgb);
+        Image image = new Image(7, 5, pixels);
+        ImageInterface result = convolution.apply(image, new ImageBuilder(7, 5),
+                new BandExecutor());
+        for (int y = 0; y < 5; y++) {
+          for (int x = 0; x < 7; x++) {
+            assertEquals(expected(image, kernel, x, y), result.getRGB(x, y));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRationalKernelsInFixedPoint() {
+    Random random = new Random(6);
+    int[] denominators = {3, 7, 10, 12, 64, 100};
+    for (int t = 0; t < 24; t++) {
+      int height = 2 * random.nextInt(3) + 1;
+      int width = 2 * random.nextInt(3) + 1;
+      int denominator = denominators[t % denominators.length];
+      double[][] kernel = new double[height][width];
+      for (double[] row : kernel) {
+        for (int j = 0; j < width; j++) {
+          row[j] = (random.nextInt(2 * denominator) - denominator / 2)
+                  / (double) denominator;
+        }
+      }
+      assertMatchesDirect(kernel, random);
+    }
+  }
+
+  @Test
+  public void testLargeKernelsUseTransform() {
+    Random random = new Random(7);
+    int[][] sizes = {{31, 31, 60, 45}, {33, 3, 64, 64}, {5, 41, 2, 200}, {63, 63, 20, 10}};
+    for (int[] size : sizes) {
+      double[][] kernel = randomKernel(random, size[0], size[1]);
+      Convolution convolution = new Convolution(kernel);
+      assertEquals(Convolution.Strategy.FFT, convolution.strategyFor(size[2], size[3]));
+      Image image = randomImage(random, size[2], size[3]);
+      for (EdgeMode edges : EdgeMode.values()) {
+        assertMatchesEdges(convolution, kernel, image, edges);
+      }
+    }
+  }
+
+  @Test
+  public void testTransformMatchesFixedPoint() {
+    double[][] box = new double[15][15];
+    for (double[] row : box) {
+      Arrays.fill(row, 1.0 / 225);
+    }
+    Convolution convolution = new Convolution(box);
+    assertEquals(Convolution.Strategy.FFT, convolution.strategyFor(40, 40));
+    for (int value : new int[]{0, 1, 77, 128, 254, 255}) {
+      int[] pixels = new int[1600];
+      Arrays.fill(pixels, value * 0x010101);
+      Image image = new Image(40, 40, pixels);
+      assertEquals(image, convolution.apply(image, new ImageBuilder(40, 40),
+              new BandExecutor()));
+    }
+    Random random = new Random(8);
+    int[][] numerators = new int[13][13];
+    double[][] kernel = new double[13][13];
+    for (int i = 0; i < 13; i++) {
+      for (int j = 0; j < 13; j++) {
+        numerators[i][j] = random.nextInt(5) - 1;
+        kernel[i][j] = numerators[i][j] / 91.0;
+      }
+    }
+    convolution = new Convolution(kernel);
+    assertEquals(Convolution.Strategy.FFT, convolution.strategyFor(50, 30));
+    Image image = randomImage(random, 50, 30);
+    ImageInterface result = convolution.apply(image, new ImageBuilder(50, 30),
+            new BandExecutor(3, 0));
+    for (int y = 0; y < 30; y++) {
+      for (int x = 0; x < 50; x++) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+          int sum = 0;
+          for (int i = 0; i < 13; i++) {
+            for (int j = 0; j < 13; j++) {
+              int rgb = image.getRGB(clamp(x + j - 6, 50), clamp(y + i - 6, 30));
+              sum += numerators[i][j] * ((rgb >> shift) & 0xFF);
+            }
+          }
+          assertEquals(clamp(sum / 91), (result.getRGB(x, y) >> shift) & 0xFF);
+        }
+      }
+    }
+  }
+
+  private double[][] box(int size) {
+    double[][] box = new double[size][size];
+    for (double[] row : box) {
+      Arrays.fill(row, 1.0 / (size * size));
+    }
+    return box;
+  }
+
+  @Test
+  public void testStrategiesAgree() {
+    Random random = new Random(10);
+    double[][] diagonal = new double[9][9];
+    for (int i = 0; i < 9; i++) {
+      diagonal[i][i] = 1.0 / 9;
+    }
+    double[][] pyramid = new double[5][5];
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5; j++) {
+        pyramid[i][j] = (3 - Math.abs(i - 2)) * (3 - Math.abs(j - 2)) / 64.0;
+      }
+    }
+    int[] flat = new int[60 * 40];
+    Arrays.fill(flat, 0x646464);
+    int[] steps = new int[60 * 40];
+    for (int i = 0; i < steps.length; i++) {
+      steps[i] = (i % 60 < 30 ? 100 : 155) * 0x010101;
+    }
+    Image[] images = {new Image(60, 40, flat), new Image(60, 40, steps),
+        randomImage(random, 60, 40)};
+    for (double[][] kernel : Arrays.asList(box(9), box(15), box(31), diagonal, pyramid, BLUR,
+        SHARPEN, randomKernel(random, 7, 7))) {
+      Convolution convolution = new Convolution(kernel);
+      for (Image image : images) {
+        for (EdgeMode edges : new EdgeMode[]{EdgeMode.REPLICATE, EdgeMode.REFLECT}) {
+          ImageInterface direct = convolution.apply(image, new ImageBuilder(60, 40),
+                  new BandExecutor(), edges, Convolution.Strategy.DIRECT);
+          for (Convolution.Strategy strategy : Convolution.Strategy.values()) {
+            if (convolution.supports(strategy)) {
+              assertEquals(direct, convolution.apply(image, new ImageBuilder(60, 40),
+                      new BandExecutor(3, 0), edges, strategy));
+            }
+          }
+        }
+      }
+    }
+    assertTrue(new Convolution(pyramid).supports(Convolution.Strategy.SEPARABLE));
+    assertTrue(new Convolution(box(15)).supports(Convolution.Strategy.FIXED_POINT));
+    assertFalse(new Convolution(box(15)).supports(Convolution.Strategy.SEPARABLE));
+  }
+
+  @Test
+  public void testResultDoesNotDependOnSize() {
+    Convolution convolution = new Convolution(box(15));
+    assertEquals(Convolution.Strategy.FIXED_POINT, convolution.strategyFor(8, 8));
+    assertEquals(Convolution.Strategy.FFT, convolution.strategyFor(16, 16));
+    for (int size : new int[]{8, 16, 64}) {
+      int[] pixels = new int[size * size];
+      Arrays.fill(pixels, 0x646464);
+      Image image = new Image(size, size, pixels);
+      assertEquals(image, convolution.apply(image, new ImageBuilder(size, size),
+              new BandExecutor()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedStrategy() {
+    new Convolution(box(15)).apply(new Image(3, 3, new int[9]), new ImageBuilder(3, 3),
+            new BandExecutor(), EdgeMode.REPLICATE, Convolution.Strategy.SEPARABLE);
+  }
+
+  @Test
+  public void testEdgeModesOnEveryStrategy() {
+    Random random = new Random(9);
+    double[][] wide = randomKernel(random, 7, 3);
+    for (double[][] kernel : Arrays.asList(BLUR, SHARPEN, wide, new double[][]{{0.25, 0.5,
+        0.25}}, new double[][]{{1.0 / 3}, {1.0 / 3}, {1.0 / 3}})) {
+      Convolution convolution = new Convolution(kernel);
+      assertTrue(convolution.strategyFor(17, 13) != Convolution.Strategy.FFT);
+      for (int[] size : new int[][]{{1, 1}, {2, 3}, {17, 13}}) {
+        Image image = randomImage(random, size[0], size[1]);
+        for (EdgeMode edges : EdgeMode.values()) {
+          assertMatchesEdges(convolution, kernel, image, edges);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testStrategies() {
+    assertEquals(Convolution.Strategy.FIXED_POINT, new Convolution(BLUR).strategyFor(4000, 3000));
+    assertEquals(Convolution.Strategy.FIXED_POINT,
+            new Convolution(SHARPEN).strategyFor(4000, 3000));
+    double[][] pyramid = new double[5][5];
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5; j++) {
+        pyramid[i][j] = (3 - Math.abs(i - 2)) * (3 - Math.abs(j - 2)) / 64.0;
+      }
+    }
+    assertEquals(Convolution.Strategy.SEPARABLE, new Convolution(pyramid).strategyFor(4000, 3000));
+    Random random = new Random(10);
+    assertEquals(Convolution.Strategy.DIRECT,
+            new Convolution(randomKernel(random, 3, 3)).strategyFor(4000, 3000));
+    assertEquals(Convolution.Strategy.FFT,
+            new Convolution(randomKernel(random, 31, 31)).strategyFor(4000, 3000));
+  }
+
+  @Test
+  public void testEdgeModeMap() {
+    int[] indices = {-5, -4, -3, -1, 0, 2, 3, 4, 7, 9};
+    int[][] expected = {
+        {0, 0, 0, 0, 0, 2, 2, 2, 2, 2},
+        {1, 2, 2, 0, 0, 2, 2, 1, 1, 2},
+        {1, 2, 0, 2, 0, 2, 0, 1, 1, 0},
+        {-1, -1, -1, -1, 0, 2, -1, -1, -1, -1}};
+    for (EdgeMode edges : EdgeMode.values()) {
+      for (int i = 0; i < indices.length; i++) {
+        assertEquals(expected[edges.ordinal()][i], edges.map(indices[i], 3));
+      }
+    }
+    assertEquals(EdgeMode.REFLECT, EdgeMode.fromName("Reflect"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownEdgeMode() {
+    EdgeMode.fromName("mirror");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvenKernel() {
+    new Convolution(new double[][]{{1, 1}, {1, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRaggedKernel() {
+    new Convolution(new double[][]{{1, 1, 1}, {1}, {1, 1, 1}});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInfiniteWeight() {
+    new Convolution(new double[][]{{Double.POSITIVE_INFINITY}});
+  }
+}
@@ -0,0 +1,239 @@
+package modeltest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import imagemodel.AdditionalImageOperations;
+import imagemodel.AdditionalOperations;
+import imagemodel.BandExecutor;
+import imagemodel.GaussianBlur;
+import imagemodel.Image;
+import imagemodel.ImageBuilder;
+import imagemodel.ImageInterface;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Gaussian blur against a sampled Gaussian applied directly.
+ */
+public class GaussianBlurTest extends AbstractImageTest {
+
+  private double[] sampled(double sigma) {
+    int radius = (int) Math.ceil(5 * sigma);
+    double[] weights = new double[2 * radius + 1];
+    double sum = 0;
+    for (int k = -radius; k <= radius; k++) {
+      weights[k + radius] = Math.exp(-k * k / (2 * sigma * sigma));
+      sum += weights[k + radius];
+    }
+    for (int k = 0; k < weights.length; k++) {
+      weights[k] /= sum;
+    }
+    return weights;
+  }
+
+  private double[][] reference(ImageInterface image, double sigma, int shift) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    double[] weights = sampled(sigma);
+    int radius = weights.length / 2;
+    double[][] rows = new double[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int k = 0; k < weights.length; k++) {
+          int xx = Math.min(Math.max(x + k - radius, 0), width - 1);
+          rows[y][x] += weights[k] * ((image.getRGB(xx, y) >> shift) & 0xFF);
+        }
+      }
+    }
+    double[][] result = new double[height][width];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int k = 0; k < weights.length; k++) {
+          result[y][x] += weights[k] * rows[Math.min(Math.max(y + k - radius, 0), height - 1)][x];
+        }
+      }
+    }
+    return result;
+  }
+
+  private double[] boxes(double[] line, int radius) {
+    int padding = 3 * radius;
+    double[] padded = new double[line.length + 2 * padding];
+    for (int i = 0; i < padded.length; i++) {
+      padded[i] = line[Math.min(Math.max(i - padding, 0), line.length - 1)];
+    }
+    for (int pass = 0; pass < 3; pass++) {
+      double[] result = new double[padded.length];
+      for (int i = radius; i < padded.length - radius; i++) {
+        for (int k = -radius; k <= radius; k++) {
+          result[i] += padded[i + k] / (2 * radius + 1);
+        }
+      }
+      padded = result;
+    }
+    return Arrays.copyOfRange(padded, padding, padding + line.length);
+  }
+
+  private double[][] boxReference(ImageInterface image, int radius, int shift) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    double[][] result = new double[height][];
+    for (int y = 0; y < height; y++) {
+      double[] row = new double[width];
+      for (int x = 0; x < width; x++) {
+        row[x] = (image.getRGB(x, y) >> shift) & 0xFF;
+      }
+      result[y] = boxes(row, radius);
+    }
+    for (int x = 0; x < width; x++) {
+      double[] column = new double[height];
+      for (int y = 0; y < height; y++) {
+        column[y] = result[y][x];
+      }
+      column = boxes(column, radius);
+      for (int y = 0; y < height; y++) {
+        result[y][x] = column[y];
+      }
+    }
+    return result;
+  }
+
+  private double maxError(ImageInterface image, double sigma, boolean accurate, int radius) {
+    ImageInterface result = new GaussianBlur(sigma, accurate).apply(image,
+            new ImageBuilder(image.getWidth(), image.getHeight()), new BandExecutor());
+    double error = 0;
+    for (int shift = 0; shift <= 16; shift += 8) {
+      double[][] expected = radius < 0 ? reference(image, sigma, shift)
+              : boxReference(image, radius, shift);
+      for (int y = 0; y < image.getHeight(); y++) {
+        for (int x = 0; x < image.getWidth(); x++) {
+          int actual = (result.getRGB(x, y) >> shift) & 0xFF;
+          error = Math.max(error, Math.abs(actual - expected[y][x]));
+        }
+      }
+    }
+    return error;
+  }
+
+  private Image edges(int width, int height) {
+    int[] pixels = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int red = x < width / 2 ? 0 : 255;
+        int green = y < height / 3 ? 255 : 0;
+        int blue = (x / 7 + y / 5) % 2 == 0 ? 40 : 200;
+        pixels[y * width + x] = (red << 16) | (green << 8) | blue;
+      }
+    }
+    return new Image(width, height, pixels);
+  }
+
+  @Test
+  public void testSmallSigmaIsSampled() {
+    Image image = edges(23, 17);
+    for (double sigma : new double[]{0.3, 0.8, 1.5, 2.9}) {
+      assertTrue(maxError(image, sigma, true, -1) <= 0.75);
+      assertTrue(maxError(image, sigma, false, -1) <= 0.75);
+    }
+  }
+
+  @Test
+  public void testAccurateFollowsGaussian() {
+    Image image = edges(61, 47);
+    for (double sigma : new double[]{3, 4.5, 8, 30}) {
+      assertTrue(maxError(image, sigma, true, -1) <= 4);
+    }
+  }
+
+  @Test
+  public void testFastIsThreeBoxes() {
+    Image image = edges(61, 47);
+    assertTrue(maxError(image, 3.5, false, 3) <= 0.75);
+    assertTrue(maxError(image, Math.sqrt(30), false, 5) <= 0.75);
+    assertTrue(maxError(randomImage(new Random(10), 37, 29), Math.sqrt(30), false, 5) <= 0.75);
+  }
+
+  @Test
+  public void testFastBorderFollowsGaussian() {
+    Image image = randomImage(new Random(11), 160, 160);
+    for (double sigma : new double[]{3, 5, 10}) {
+      assertTrue(maxError(image, sigma, false, -1) <= 3);
+    }
+  }
+
+  @Test
+  public void testFlatImageStaysFlat() {
+    int[] pixels = new int[40 * 30];
+    Arrays.fill(pixels, 0x80FF01);
+    Image image = new Image(40, 30, pixels);
+    for (boolean accurate : new boolean[]{true, false}) {
+      for (double sigma : new double[]{0.5, 2, 7.5, 100}) {
+        ImageInterface result = new GaussianBlur(sigma, accurate).apply(image,
+                new ImageBuilder(40, 30), new BandExecutor());
+        assertEquals(image, result);
+      }
+    }
+  }
+
+  @Test
+  public void testThreadsGiveSameResult() {
+    Image image = randomImage(new Random(7), 70, 53);
+    for (boolean accurate : new boolean[]{true, false}) {
+      GaussianBlur blur = new GaussianBlur(4.5, accurate);
+      ImageInterface sequential = blur.apply(image, new ImageBuilder(70, 53),
+              new BandExecutor());
+      ImageInterface parallel = blur.apply(image, new ImageBuilder(70, 53),
+              new BandExecutor(3, 0));
+      assertEquals(sequential, parallel);
+    }
+  }
+
+  @Test
+  public void testThinImages() {
+    Image column = randomImage(new Random(8), 1, 9);
+    Image row = randomImage(new Random(9), 9, 1);
+    for (double sigma : new double[]{1, 5, 50}) {
+      assertTrue(maxError(column, sigma, true, -1) <= 2);
+      assertTrue(maxError(row, sigma, true, -1) <= 2);
+    }
+    assertTrue(maxError(column, Math.sqrt(30), false, 5) <= 0.75);
+    assertTrue(maxError(row, Math.sqrt(30), false, 5) <= 0.75);
+  }
+
+  @Test
+  public void testMask() {
+    AdditionalOperations operations = new AdditionalImageOperations();
+    Image image = edges(20, 10);
+    int[] maskPixels = new int[200];
+    Arrays.fill(maskPixels, 0xFFFFFF);
+    Arrays.fill(maskPixels, 0, 100, 0);
+    ImageInterface blurred = operations.applyGaussianBlur(image, 3, true);
+    ImageInterface masked = operations.applyGaussianBlur(image, 3, true,
+            new Image(20, 10, maskPixels));
+    for (int y = 0; y < 10; y++) {
+      for (int x = 0; x < 20; x++) {
+        int expected = y < 5 ? blurred.getRGB(x, y) : image.getRGB(x, y);
+        assertEquals(expected, masked.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroSigma() {
+    new GaussianBlur(0, true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNaNSigma() {
+    new GaussianBlur(Double.NaN, false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHugeSigma() {
+    new GaussianBlur(GaussianBlur.MAX_SIGMA * 2, true);
+  }
+}
@@ -0,0 +1,78 @@
+package modeltest;
+
+import org.junit.Test;
+
+import imagemodel.GrayImage;
+import imagemodel.GrayImageBuilder;
+import imagemodel.GrayImageBuilderInterface;
+import imagemodel.Image;
+import imagemodel.ImageInterface;
+import imagemodel.ImageOperations;
+import imagemodel.Operations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the GrayImage and GrayImageBuilder classes.
+ */
+public class GrayImageTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorWrongLength() {
+    new GrayImage(2, 2, new byte[3]);
+  }
+
+  @Test
+  public void testExpandsToRGB() {
+    ImageInterface gray = new GrayImage(2, 1, new byte[]{10, (byte) 200});
+    assertEquals(0x0A0A0A, gray.getRGB(0, 0));
+    assertEquals(200, gray.getPixel(1, 0).getGreen());
+    int[] row = gray.getRow(0, null);
+    assertEquals(0xC8C8C8, row[1]);
+    assertEquals(0xC8C8C8, gray.getRaster().get(1));
+    assertEquals(200, gray.getChannelRow(0, 2, null)[1]);
+  }
+
+  @Test
+  public void testEqualsImage() {
+    ImageInterface gray = new GrayImage(2, 1, new byte[]{10, (byte) 200});
+    ImageInterface rgb = new Image(2, 1, new int[]{0x0A0A0A, 0xC8C8C8});
+    assertTrue(gray.equals(rgb));
+    assertTrue(rgb.equals(gray));
+    assertEquals(rgb.hashCode(), gray.hashCode());
+  }
+
+  @Test
+  public void testBuilder() {
+    GrayImageBuilderInterface builder = new GrayImageBuilder(2, 1);
+    builder.setGray(0, 0, 10);
+    builder.setRGB(1, 0, 0xC8C8C8);
+    assertEquals(new GrayImage(2, 1, new byte[]{10, (byte) 200}), builder.build());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuilderRejectsColor() {
+    new GrayImageBuilder(1, 1).setRGB(0, 0, 0x0A0B0C);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuilderRejectsLevel() {
+    new GrayImageBuilder(1, 1).setGray(0, 0, 256);
+  }
+
+  @Test
+  public void testComponentsAreGray() {
+    Operations operations = new ImageOperations();
+    ImageInterface image = new Image(2, 1, new int[]{0x0A141E, 0xFF0080});
+    ImageInterface red = operations.visualizeRedComponent(image);
+    assertTrue(red.isGrayscale());
+    assertTrue(red.materialize() instanceof GrayImage);
+    assertEquals(new Image(2, 1, new int[]{0x0A0A0A, 0xFFFFFF}), red);
+    assertSame(red, operations.visualizeGreenComponent(red));
+    ImageInterface combined = operations.combineRGB(red,
+            operations.visualizeGreenComponent(image), operations.visualizeBlueComponent(image));
+    assertEquals(image, combined);
+  }
+}
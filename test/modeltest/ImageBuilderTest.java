@@ -0,0 +1,71 @@
+package modeltest;
+
+import org.junit.Test;
+
+import imagemodel.Image;
+import imagemodel.ImageBuilder;
+import imagemodel.ImageBuilderInterface;
+import imagemodel.ImageInterface;
+import imagemodel.Pixel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the ImageBuilder class.
+ */
+public class ImageBuilderTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor0Width() {
+    new ImageBuilder(0, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNegativeHeight() {
+    new ImageBuilder(2, -1);
+  }
+
+  @Test
+  public void testBuild() {
+    ImageBuilderInterface builder = new ImageBuilder(2, 1);
+    builder.setPixel(0, 0, new Pixel(10, 20, 30));
+    builder.setRGB(1, 0, 0xFF0080);
+    ImageInterface image = builder.build();
+    assertTrue(image.equals(new Image(2, 1, new int[]{0x0A141E, 0xFF0080})));
+    assertSame(image, builder.build());
+  }
+
+  @Test
+  public void testSetRowAndFill() {
+    ImageBuilderInterface builder = new ImageBuilder(2, 2);
+    builder.fill(0x123456);
+    builder.setRow(1, new int[]{0xFF000000, 0x00FF00});
+    assertTrue(builder.build().equals(new Image(2, 2,
+            new int[]{0x123456, 0x123456, 0x000000, 0x00FF00})));
+  }
+
+  @Test
+  public void testDeepCopyKeepsBuilderWritable() {
+    ImageBuilderInterface builder = new ImageBuilder(1, 1);
+    builder.fill(0);
+    ImageInterface copy = builder.deepCopyImage();
+    builder.setRGB(0, 0, 0xFFFFFF);
+    assertEquals(0, copy.getRGB(0, 0));
+    assertEquals(0xFFFFFF, builder.build().getRGB(0, 0));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWriteAfterBuild() {
+    ImageBuilderInterface builder = new ImageBuilder(1, 1);
+    builder.fill(0);
+    builder.build();
+    builder.setRGB(0, 0, 0xFFFFFF);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testSetRGBOutOfBounds() {
+    new ImageBuilder(2, 2).setRGB(0, 2, 0);
+  }
+}
@@ -57,4 +57,17 @@ public class ImageCopyTest {
     obj.setPixel(0, 0, new Pixel(255, 255, 255));
     assertTrue(obj.deepCopyImage().equals(obj2));
   }
+
+  @Test
+  public void testSetRow() {
+    ImageCopyInterface obj = new ImageCopy(2, 2);
+    obj.setRow(1, new int[]{0x0A141E, 0xFF0080});
+    assertTrue(obj.deepCopyImage().equals(new Image(2, 2,
+            new int[]{0xFFFFFF, 0xFFFFFF, 0x0A141E, 0xFF0080})));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testSetRowOutOfBounds() {
+    new ImageCopy(2, 2).setRow(-1, new int[2]);
+  }
 }
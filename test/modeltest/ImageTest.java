@@ -2,6 +2,7 @@ package modeltest;
 
 import org.junit.Test;
 
+import java.nio.IntBuffer;
 import java.util.List;
 
 import imagemodel.Image;
@@ -10,6 +11,8 @@ import imagemodel.Pixel;
 import imagemodel.PixelInterface;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * This class tests the methods of the Image class.
@@ -102,4 +105,79 @@ public class ImageTest {
     PixelInterface output = obj.getPixel(0, 0);
     assertEquals(0, output.getRed());
   }
+
+  @Test
+  public void testGetRGB() {
+    ImageInterface obj = new Image(2, 1, List.of(List.of(
+            new Pixel(10, 20, 30), new Pixel(255, 0, 128))));
+    assertEquals(0x0A141E, obj.getRGB(0, 0));
+    assertEquals(0xFF0080, obj.getRGB(1, 0));
+  }
+
+  @Test
+  public void testRasterConstructor() {
+    int[] raster = {0x0A141E, 0xFF0080, 0x000000, 0xFFFFFF};
+    ImageInterface obj = new Image(2, 2, raster);
+    raster[0] = 0;
+    PixelInterface output = obj.getPixel(0, 0);
+    assertEquals(10, output.getRed());
+    assertEquals(20, output.getGreen());
+    assertEquals(30, output.getBlue());
+    assertEquals(new Image(2, 2, List.of(
+            List.of(new Pixel(10, 20, 30), new Pixel(255, 0, 128)),
+            List.of(new Pixel(0, 0, 0), new Pixel(255, 255, 255)))), obj);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRasterConstructorWrongLength() {
+    new Image(2, 2, new int[3]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRasterConstructorInvalidValue() {
+    new Image(1, 1, new int[]{0x1000000});
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGetRGBOutOfBounds() {
+    new Image(2, 2).getRGB(2, 0);
+  }
+
+  @Test
+  public void testGetRow() {
+    ImageInterface obj = new Image(2, 2, new int[]{1, 2, 3, 4});
+    int[] row = obj.getRow(1, null);
+    assertEquals(3, row[0]);
+    assertEquals(4, row[1]);
+    int[] reused = new int[3];
+    assertTrue(reused == obj.getRow(0, reused));
+    assertEquals(1, reused[0]);
+    assertEquals(2, reused[1]);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGetRowOutOfBounds() {
+    new Image(2, 2).getRow(2, null);
+  }
+
+  @Test
+  public void testGetRaster() {
+    ImageInterface obj = new Image(2, 2, new int[]{1, 2, 3, 4});
+    IntBuffer raster = obj.getRaster();
+    assertEquals(4, raster.remaining());
+    assertTrue(raster.isReadOnly());
+    assertEquals(3, raster.get(2));
+  }
+
+  @Test
+  public void testContentDigest() {
+    ImageInterface obj = new Image(3, 1, new int[]{1, 2, 3});
+    ImageInterface same = new Image(3, 1, new int[]{1, 2, 3});
+    assertEquals(obj.contentDigest(), same.contentDigest());
+    assertEquals(obj.contentDigest(), obj.contentDigest());
+    assertNotEquals(obj.contentDigest(), new Image(3, 1, new int[]{1, 2, 4}).contentDigest());
+    assertNotEquals(obj.contentDigest(), new Image(1, 3, new int[]{1, 2, 3}).contentDigest());
+    assertEquals(obj, same);
+    assertNotEquals(obj, new Image(3, 1, new int[]{3, 2, 1}));
+  }
 }
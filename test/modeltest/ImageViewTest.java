@@ -0,0 +1,103 @@
+package modeltest;
+
+import org.junit.Test;
+
+import imagemodel.AdditionalImageOperations;
+import imagemodel.AdditionalOperations;
+import imagemodel.ChannelImage;
+import imagemodel.CroppedImage;
+import imagemodel.FlippedImage;
+import imagemodel.GrayImage;
+import imagemodel.HeapStorage;
+import imagemodel.Image;
+import imagemodel.ImageInterface;
+import imagemodel.TransposedImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the view images and their materialization.
+ */
+public class ImageViewTest {
+
+  private final ImageInterface image = new Image(3, 2, new int[]{
+    0x010203, 0x0A141E, 0xFF0080,
+    0x808080, 0xFFFFFF, 0x000000});
+
+  @Test
+  public void testFlip() {
+    ImageInterface flipped = FlippedImage.flip(image, true, true, new HeapStorage());
+    assertEquals(new Image(3, 2, new int[]{
+      0x000000, 0xFFFFFF, 0x808080,
+      0xFF0080, 0x0A141E, 0x010203}), flipped);
+    assertEquals(0xFF0080, flipped.getRGB(0, 1));
+    assertArrayEquals(new int[]{0x00, 0xFF, 0x80}, flipped.getChannelRow(0, 0, null));
+  }
+
+  @Test
+  public void testFlipTwiceGivesSource() {
+    AdditionalOperations operations = new AdditionalImageOperations();
+    ImageInterface flipped = operations.applyHorizontalFlip(image);
+    assertTrue(flipped instanceof FlippedImage);
+    assertSame(image, operations.applyHorizontalFlip(flipped));
+    assertSame(image, operations.applyVerticalFlip(operations.applyHorizontalFlip(
+            operations.applyVerticalFlip(flipped))));
+  }
+
+  @Test
+  public void testCrop() {
+    ImageInterface cropped = CroppedImage.crop(image, 1, 0, 2, 2, new HeapStorage());
+    assertEquals(new Image(2, 2, new int[]{0x0A141E, 0xFF0080, 0xFFFFFF, 0x000000}), cropped);
+    ImageInterface nested = CroppedImage.crop(cropped, 1, 1, 1, 1, new HeapStorage());
+    assertSame(image, ((CroppedImage) nested).getSource());
+    assertEquals(0x000000, nested.getRGB(0, 0));
+    assertSame(image, CroppedImage.crop(image, 0, 0, 3, 2, new HeapStorage()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutside() {
+    new CroppedImage(image, 2, 0, 2, 1, new HeapStorage());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testCropPixelOutside() {
+    CroppedImage.crop(image, 0, 0, 2, 2, new HeapStorage()).getRGB(2, 0);
+  }
+
+  @Test
+  public void testTranspose() {
+    ImageInterface transposed = TransposedImage.transpose(image, new HeapStorage());
+    assertEquals(2, transposed.getWidth());
+    assertEquals(3, transposed.getHeight());
+    assertEquals(new Image(2, 3, new int[]{
+      0x010203, 0x808080,
+      0x0A141E, 0xFFFFFF,
+      0xFF0080, 0x000000}), transposed);
+    assertSame(image, TransposedImage.transpose(transposed, new HeapStorage()));
+  }
+
+  @Test
+  public void testChannel() {
+    ImageInterface green = new ChannelImage(image, 1, new HeapStorage());
+    assertTrue(green.isGrayscale());
+    assertEquals(0x141414, green.getRGB(1, 0));
+    assertArrayEquals(new int[]{0x80, 0xFF, 0x00}, green.getChannelRow(1, 2, null));
+    ImageInterface dense = green.materialize();
+    assertTrue(dense instanceof GrayImage);
+    assertEquals(green, dense);
+  }
+
+  @Test
+  public void testMaterialize() {
+    ImageInterface view = CroppedImage.crop(FlippedImage.flip(image, true, false,
+            new HeapStorage()), 0, 1, 2, 1, new HeapStorage());
+    ImageInterface dense = view.materialize();
+    assertTrue(dense instanceof Image);
+    assertEquals(view, dense);
+    assertEquals(view.hashCode(), dense.hashCode());
+    assertSame(dense, dense.materialize());
+  }
+}
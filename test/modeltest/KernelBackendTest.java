@@ -0,0 +1,90 @@
+package modeltest;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import imagemodel.ColorMatrix;
+import imagemodel.Image;
+import imagemodel.ImageInterface;
+import imagemodel.ImageOperations;
+import imagemodel.KernelBackend;
+import imagemodel.PointwisePipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test class for the KernelBackend class. The vector kernels are only compared with the scalar
+ * ones when the runtime provides them.
+ */
+public class KernelBackendTest extends AbstractImageTest {
+
+  private final boolean initial = KernelBackend.isVectorEnabled();
+  private final ImageOperations operations = new ImageOperations();
+
+  @After
+  public void restore() {
+    KernelBackend.setVectorEnabled(initial);
+  }
+
+  private void assertSameResult(Supplier<ImageInterface> operation) {
+    KernelBackend.setVectorEnabled(false);
+    ImageInterface scalar = operation.get();
+    KernelBackend.setVectorEnabled(true);
+    ImageInterface vector = operation.get();
+    assertEquals(scalar.getWidth(), vector.getWidth());
+    assertEquals(scalar.getHeight(), vector.getHeight());
+    for (int y = 0; y < scalar.getHeight(); y++) {
+      for (int x = 0; x < scalar.getWidth(); x++) {
+        assertEquals(scalar.getRGB(x, y), vector.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testSwitching() {
+    assertFalse(KernelBackend.setVectorEnabled(false));
+    assertFalse(KernelBackend.isVectorEnabled());
+    assertEquals(KernelBackend.isVectorAvailable(), KernelBackend.setVectorEnabled(true));
+    assertEquals(KernelBackend.isVectorAvailable(), KernelBackend.isVectorEnabled());
+  }
+
+  @Test
+  public void testBitIdentical() {
+    Random random = new Random(11);
+    for (int width : new int[]{1, 2, 3, 7, 16, 33, 101}) {
+      Image image = randomImage(random, width, 5);
+      Image green = randomImage(random, width, 5);
+      Image blue = randomImage(random, width, 5);
+      int increment = random.nextInt(511) - 255;
+      assertSameResult(() -> operations.applyBrightness(image, increment));
+      assertSameResult(() -> operations.applySepia(image));
+      assertSameResult(() -> operations.visualizeLuma(image));
+      assertSameResult(() -> operations.visualizeIntensity(image));
+      assertSameResult(() -> operations.visualizeRedComponent(image));
+      assertSameResult(() -> operations.visualizeBlueComponent(image));
+      assertSameResult(() -> operations.applyBlur(image));
+      assertSameResult(() -> operations.applySharpen(image));
+      assertSameResult(() -> operations.combineRGB(image, green, blue));
+    }
+  }
+
+  @Test
+  public void testRandomMatrices() {
+    Random random = new Random(13);
+    Image image = randomImage(random, 97, 31);
+    for (int t = 0; t < 40; t++) {
+      double[][] m = new double[3][3];
+      for (double[] row : m) {
+        for (int j = 0; j < 3; j++) {
+          row[j] = random.nextInt(3) == 0 ? random.nextInt(5) - 2 : random.nextDouble() * 4 - 2;
+        }
+      }
+      PointwisePipeline pipeline = new PointwisePipeline().then(new ColorMatrix(m));
+      assertSameResult(() -> operations.applyPipeline(image, pipeline));
+    }
+  }
+}
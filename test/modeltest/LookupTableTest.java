@@ -0,0 +1,55 @@
+package modeltest;
+
+import org.junit.Test;
+
+import imagemodel.GrayImage;
+import imagemodel.Image;
+import imagemodel.ImageInterface;
+import imagemodel.ImageOperations;
+import imagemodel.LookupTable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the LookupTable class and the operations compiled into it.
+ */
+public class LookupTableTest {
+
+  @Test
+  public void testUniformTable() {
+    LookupTable table = new LookupTable(value -> 255 - value);
+    assertTrue(table.isUniform());
+    assertEquals(0xEFDFCF, table.apply(0x102030));
+    assertEquals(55, table.lookup(1, 200));
+  }
+
+  @Test
+  public void testChannelTables() {
+    LookupTable table = new LookupTable(value -> value, value -> 0, value -> 255);
+    assertFalse(table.isUniform());
+    int[] row = {0x102030, 0xABCDEF, 0};
+    table.apply(row, 2);
+    assertArrayEquals(new int[]{0x1000FF, 0xAB00FF, 0}, row);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValueOutOfRange() {
+    new LookupTable(value -> value + 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidChannel() {
+    new LookupTable(value -> value).lookup(3, 0);
+  }
+
+  @Test
+  public void testBrightnessOfGrayImageStaysGray() {
+    ImageInterface gray = new GrayImage(2, 1, new byte[]{10, (byte) 250});
+    ImageInterface brighter = new ImageOperations().applyBrightness(gray, 10);
+    assertTrue(brighter.isGrayscale());
+    assertEquals(new Image(2, 1, new int[]{0x141414, 0xFFFFFF}), brighter);
+  }
+}
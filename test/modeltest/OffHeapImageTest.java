@@ -0,0 +1,85 @@
+package modeltest;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import imagemodel.AdditionalImageOperations;
+import imagemodel.AdditionalOperations;
+import imagemodel.GrayImageBuilderInterface;
+import imagemodel.Image;
+import imagemodel.ImageBuilderInterface;
+import imagemodel.ImageInterface;
+import imagemodel.ImageStorage;
+import imagemodel.OffHeapImage;
+import imagemodel.OffHeapStorage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for images stored outside of the heap.
+ */
+public class OffHeapImageTest {
+
+  private static final Path SCRATCH = Paths.get(System.getProperty("java.io.tmpdir"));
+
+  private ImageInterface build(ImageStorage storage) {
+    ImageBuilderInterface builder = storage.newBuilder(3, 2);
+    builder.setRow(0, new int[]{0x0A141E, 0xFF0080, 0x000000});
+    builder.setRow(1, new int[]{0x010203, 0xFFFFFF, 0x808080});
+    return builder.build();
+  }
+
+  @Test
+  public void testDirectStorage() {
+    ImageInterface image = build(new OffHeapStorage());
+    assertTrue(image instanceof OffHeapImage);
+    assertFalse(image.isGrayscale());
+    assertEquals(0xFF0080, image.getRGB(1, 0));
+    assertEquals(new Image(3, 2, new int[]{0x0A141E, 0xFF0080, 0x000000,
+            0x010203, 0xFFFFFF, 0x808080}), image);
+    assertEquals(0x808080, image.getRaster().get(5));
+  }
+
+  @Test
+  public void testMappedStorage() {
+    assertEquals(build(new OffHeapStorage()), build(new OffHeapStorage(SCRATCH)));
+  }
+
+  @Test
+  public void testGrayStorage() {
+    GrayImageBuilderInterface builder = new OffHeapStorage(SCRATCH).newGrayBuilder(2, 1);
+    builder.setGrayRow(0, new int[]{10, 200});
+    ImageInterface image = builder.build();
+    assertTrue(image.isGrayscale());
+    assertEquals(0xC8C8C8, image.getRGB(1, 0));
+    assertEquals(200, image.getChannelRow(0, 1, null)[1]);
+  }
+
+  @Test
+  public void testOperationsUseStorage() {
+    AdditionalOperations operations = new AdditionalImageOperations(new OffHeapStorage());
+    ImageInterface source = build(new OffHeapStorage());
+    ImageInterface flipped = operations.applyHorizontalFlip(source);
+    assertTrue(flipped.materialize() instanceof OffHeapImage);
+    assertEquals(new Image(3, 2, new int[]{0x000000, 0xFF0080, 0x0A141E,
+            0x808080, 0xFFFFFF, 0x010203}), flipped);
+    assertTrue(operations.visualizeLuma(source).isGrayscale());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWriteAfterBuild() {
+    ImageBuilderInterface builder = new OffHeapStorage().newBuilder(1, 1);
+    builder.fill(0);
+    builder.build();
+    builder.fill(0xFFFFFF);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDimensions() {
+    new OffHeapStorage().newBuilder(0, 1);
+  }
+}
@@ -0,0 +1,111 @@
+package modeltest;
+
+import org.junit.Test;
+
+import imagemodel.AdditionalImageOperations;
+import imagemodel.BandExecutor;
+import imagemodel.ConstantImage;
+import imagemodel.Image;
+import imagemodel.ImageBuilderInterface;
+import imagemodel.ImageCopy;
+import imagemodel.ImageInterface;
+import imagemodel.PaletteImage;
+import imagemodel.PaletteImageBuilder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the PaletteImage, PaletteImageBuilder and ConstantImage classes.
+ */
+public class PaletteImageTest {
+
+  @Test
+  public void testPaletteImage() {
+    ImageInterface image = new PaletteImage(3, 1, new byte[]{1, 0, 1},
+            new int[]{0x102030, 0xFFFFFF});
+    assertEquals(new Image(3, 1, new int[]{0xFFFFFF, 0x102030, 0xFFFFFF}), image);
+    assertEquals(0x102030, image.getRGB(1, 0));
+    assertArrayEquals(new int[]{0xFF, 0x10, 0xFF}, image.getChannelRow(0, 0, null));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIndexOutsidePalette() {
+    new PaletteImage(2, 1, new byte[]{0, 2}, new int[]{0, 1});
+  }
+
+  @Test
+  public void testConstantImage() {
+    ImageInterface image = new ConstantImage(2, 2, 0x123456);
+    assertEquals(new Image(2, 2, new int[]{0x123456, 0x123456, 0x123456, 0x123456}), image);
+    assertEquals(4, image.getRaster().remaining());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testConstantImageOutOfBounds() {
+    new ConstantImage(2, 2, 0).getRGB(0, 2);
+  }
+
+  @Test
+  public void testBuilderPicksRepresentation() {
+    ImageBuilderInterface builder = new PaletteImageBuilder(2, 2);
+    builder.fill(0xFFFFFF);
+    assertTrue(builder.deepCopyImage() instanceof ConstantImage);
+    builder.setRGB(1, 1, 0xFF0000);
+    ImageInterface image = builder.build();
+    assertTrue(image instanceof PaletteImage);
+    assertEquals(new Image(2, 2, new int[]{0xFFFFFF, 0xFFFFFF, 0xFFFFFF, 0xFF0000}), image);
+  }
+
+  @Test
+  public void testBuilderSwitchesToRaster() {
+    int[] raster = new int[300];
+    for (int i = 0; i < raster.length; i++) {
+      raster[i] = i * 1000;
+    }
+    ImageBuilderInterface builder = new PaletteImageBuilder(20, 15);
+    for (int y = 0; y < 15; y++) {
+      int[] row = new int[20];
+      System.arraycopy(raster, y * 20, row, 0, 20);
+      builder.setRow(y, row);
+    }
+    ImageInterface image = builder.build();
+    assertTrue(image instanceof Image);
+    assertEquals(new Image(20, 15, raster), image);
+  }
+
+  @Test
+  public void testRowsWrittenFromBands() {
+    int[] raster = new int[120 * 90];
+    for (int i = 0; i < raster.length; i++) {
+      raster[i] = (i % 300) * 1000;
+    }
+    ImageBuilderInterface builder = new PaletteImageBuilder(120, 90);
+    new BandExecutor(4, 0).forEachBand(120, 90, (from, to) -> {
+      int[] row = new int[120];
+      for (int y = from; y < to; y++) {
+        System.arraycopy(raster, y * 120, row, 0, 120);
+        builder.setRow(y, row);
+      }
+    });
+    assertEquals(new Image(120, 90, raster), builder.build());
+  }
+
+  @Test
+  public void testHistogramIsPaletteImage() {
+    ImageInterface histogram = new AdditionalImageOperations().createHistogram(
+            new Image(2, 1, new int[]{0x0A141E, 0xFF0080}));
+    assertTrue(histogram instanceof PaletteImage);
+    assertEquals(0xFFFFFF, histogram.getRGB(1, 1));
+  }
+
+  @Test
+  public void testUntouchedCopyIsConstant() {
+    ImageCopy copy = new ImageCopy(3, 2);
+    assertTrue(copy.deepCopyImage() instanceof ConstantImage);
+    assertEquals(new Image(3, 2), copy.deepCopyImage());
+    copy.setRGB(0, 0, 0);
+    assertEquals(0, copy.deepCopyImage().getRGB(0, 0));
+  }
+}
@@ -0,0 +1,111 @@
+package modeltest;
+
+import org.junit.Test;
+
+import imagemodel.ColorMatrix;
+import imagemodel.ExtendedImageOperations;
+import imagemodel.Image;
+import imagemodel.ImageInterface;
+import imagemodel.LookupTable;
+import imagemodel.PointwisePipeline;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for the PointwisePipeline class.
+ */
+public class PointwisePipelineTest {
+
+  private ImageInterface pattern() {
+    int[] raster = new int[40 * 30];
+    for (int i = 0; i < raster.length; i++) {
+      raster[i] = (i * 40503) & 0xFFFFFF;
+    }
+    return new Image(40, 30, raster);
+  }
+
+  @Test
+  public void testTablesAreComposed() {
+    PointwisePipeline pipeline = new PointwisePipeline()
+            .then(LookupTable.brightness(40))
+            .then(LookupTable.levels(20, 100, 230))
+            .then(LookupTable.brightness(-60));
+    assertEquals(1, pipeline.stageCount());
+    assertEquals(3, pipeline.then(ColorMatrix.SEPIA).then(LookupTable.brightness(5))
+            .stageCount());
+  }
+
+  @Test
+  public void testChainMatchesSeparateOperations() {
+    ExtendedImageOperations operations = new ExtendedImageOperations();
+    ImageInterface image = pattern();
+    ImageInterface expected = operations.applyBrightness(operations.levelsAdjust(
+            operations.applySepia(operations.applyBrightness(operations.applySepia(
+                    operations.applyBrightness(image, 30)), -50)), 15, 120, 240), 25);
+    PointwisePipeline pipeline = new PointwisePipeline()
+            .then(LookupTable.brightness(30))
+            .then(ColorMatrix.SEPIA)
+            .then(LookupTable.brightness(-50))
+            .then(ColorMatrix.SEPIA)
+            .then(new PointwisePipeline()
+                    .then(LookupTable.levels(15, 120, 240))
+                    .then(LookupTable.brightness(25)));
+    assertEquals(5, pipeline.stageCount());
+    assertEquals(expected, operations.applyPipeline(image, pipeline));
+    assertEquals(expected.getRGB(7, 3), pipeline.apply(image.getRGB(7, 3)));
+  }
+
+  @Test
+  public void testEmptyPipelineCopies() {
+    ImageInterface image = pattern();
+    assertEquals(image, new ExtendedImageOperations().applyPipeline(image,
+            new PointwisePipeline()));
+  }
+
+  @Test
+  public void testOwnedImageIsOverwritten() {
+    ExtendedImageOperations operations = new ExtendedImageOperations();
+    ImageInterface expected = operations.applySepia(operations.applyBrightness(pattern(), 35));
+    ImageInterface image = pattern();
+    ImageInterface result = operations.applyOwned(image, img -> operations.applyBrightness(img,
+            35));
+    result = operations.applyOwned(result, operations::applySepia);
+    assertEquals(expected, result);
+    assertEquals(expected.getRGB(11, 4), image.getRGB(11, 4));
+  }
+
+  @Test
+  public void testOwnedFlips() {
+    ExtendedImageOperations operations = new ExtendedImageOperations();
+    ImageInterface expected = operations.applyVerticalFlip(operations.applyHorizontalFlip(
+            pattern()));
+    for (int height : new int[]{1, 2, 3}) {
+      ImageInterface small = new Image(3, height, new int[3 * height]);
+      assertEquals(small, operations.applyOwned(small, operations::applyVerticalFlip));
+    }
+    ImageInterface result = operations.applyOwned(pattern(), operations::applyHorizontalFlip);
+    result = operations.applyOwned(result, operations::applyVerticalFlip);
+    assertEquals(expected, result);
+  }
+
+  @Test
+  public void testSharedImageIsNotOverwritten() {
+    ExtendedImageOperations operations = new ExtendedImageOperations();
+    ImageInterface image = pattern();
+    ImageInterface flipped = operations.applyHorizontalFlip(image);
+    ImageInterface result = operations.applyOwned(image, img -> operations.applyBrightness(img,
+            35));
+    assertEquals(operations.applyBrightness(pattern(), 35), result);
+    assertEquals(pattern(), image);
+    assertEquals(pattern().getRGB(39, 0), flipped.getRGB(0, 0));
+    ImageInterface other = pattern();
+    operations.applyOwned(other, img -> other);
+    operations.applyBrightness(other, 35);
+    assertEquals(pattern(), other);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullStage() {
+    new PointwisePipeline().then((LookupTable) null);
+  }
+}
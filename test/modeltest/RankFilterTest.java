@@ -0,0 +1,130 @@
+package modeltest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import imagemodel.AdditionalImageOperations;
+import imagemodel.AdditionalOperations;
+import imagemodel.BandExecutor;
+import imagemodel.Image;
+import imagemodel.ImageBuilder;
+import imagemodel.ImageInterface;
+import imagemodel.RankFilter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the rank filter against sorting every window.
+ */
+public class RankFilterTest extends AbstractImageTest {
+
+  private int expected(ImageInterface image, int radius, double percentile, int x, int y) {
+    int size = 2 * radius + 1;
+    int rank = (int) Math.round(percentile / 100 * (size * size - 1));
+    int result = 0;
+    for (int shift = 16; shift >= 0; shift -= 8) {
+      int[] values = new int[size * size];
+      int i = 0;
+      for (int dy = -radius; dy <= radius; dy++) {
+        for (int dx = -radius; dx <= radius; dx++) {
+          int xx = Math.min(Math.max(x + dx, 0), image.getWidth() - 1);
+          int yy = Math.min(Math.max(y + dy, 0), image.getHeight() - 1);
+          values[i++] = (image.getRGB(xx, yy) >> shift) & 0xFF;
+        }
+      }
+      Arrays.sort(values);
+      result |= values[rank] << shift;
+    }
+    return result;
+  }
+
+  private void assertMatchesSort(Image image, int radius, double percentile) {
+    RankFilter filter = new RankFilter(radius, percentile);
+    for (BandExecutor executor : new BandExecutor[]{new BandExecutor(),
+        new BandExecutor(3, 0)}) {
+      ImageInterface result = filter.apply(image,
+              new ImageBuilder(image.getWidth(), image.getHeight()), executor);
+      for (int y = 0; y < image.getHeight(); y++) {
+        for (int x = 0; x < image.getWidth(); x++) {
+          assertEquals(expected(image, radius, percentile, x, y), result.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMedian() {
+    Random random = new Random(1);
+    Image image = randomImage(random, 31, 23, 256);
+    for (int radius : new int[]{0, 1, 2, 5}) {
+      assertMatchesSort(image, radius, 50);
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    Random random = new Random(2);
+    Image image = randomImage(random, 19, 27, 3);
+    for (double percentile : new double[]{0, 12.5, 73.3, 100}) {
+      assertMatchesSort(image, 3, percentile);
+    }
+  }
+
+  @Test
+  public void testRadiusLargerThanImage() {
+    Random random = new Random(3);
+    assertMatchesSort(randomImage(random, 5, 4, 256), 9, 50);
+    assertMatchesSort(randomImage(random, 1, 7, 256), 4, 30);
+    assertMatchesSort(randomImage(random, 7, 1, 256), 4, 70);
+  }
+
+  @Test
+  public void testMedianRemovesSpeckles() {
+    int[] pixels = new int[100];
+    Arrays.fill(pixels, 0x336699);
+    pixels[12] = 0xFFFFFF;
+    pixels[57] = 0;
+    ImageInterface result = new AdditionalImageOperations().applyMedian(
+            new Image(10, 10, pixels), 1);
+    for (int y = 0; y < 10; y++) {
+      for (int x = 0; x < 10; x++) {
+        assertEquals(0x336699, result.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testMask() {
+    AdditionalOperations operations = new AdditionalImageOperations();
+    Image image = randomImage(new Random(4), 12, 8, 256);
+    int[] maskPixels = new int[96];
+    Arrays.fill(maskPixels, 0xFFFFFF);
+    Arrays.fill(maskPixels, 48, 96, 0);
+    ImageInterface filtered = operations.applyPercentile(image, 2, 25);
+    ImageInterface masked = operations.applyPercentile(image, 2, 25,
+            new Image(12, 8, maskPixels));
+    for (int y = 0; y < 8; y++) {
+      for (int x = 0; x < 12; x++) {
+        int expected = y >= 4 ? filtered.getRGB(x, y) : image.getRGB(x, y);
+        assertEquals(expected, masked.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeRadius() {
+    new RankFilter(-1, 50);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPercentileAbove100() {
+    new RankFilter(1, 100.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNaNPercentile() {
+    new RankFilter(1, Double.NaN);
+  }
+}
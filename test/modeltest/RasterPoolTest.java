@@ -0,0 +1,67 @@
+package modeltest;
+
+import org.junit.Test;
+
+import imagemodel.HeapStorage;
+import imagemodel.ImageBuilderInterface;
+import imagemodel.ImageInterface;
+import imagemodel.ImageOperations;
+import imagemodel.RasterPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the RasterPool class and its use by the heap storage.
+ */
+public class RasterPoolTest {
+
+  @Test
+  public void testReleasedRasterIsReused() {
+    RasterPool pool = new RasterPool(1024);
+    int[] raster = pool.acquire(4, 2);
+    raster[3] = 7;
+    assertTrue(pool.release(raster));
+    assertEquals(32, pool.pooledBytes());
+    int[] reused = pool.acquire(2, 4);
+    assertSame(raster, reused);
+    assertEquals(0, reused[3]);
+    assertEquals(0, pool.pooledBytes());
+    assertEquals(6, pool.acquire(3, 2).length);
+  }
+
+  @Test
+  public void testCapacity() {
+    RasterPool pool = new RasterPool(40);
+    assertTrue(pool.release(new int[8]));
+    assertFalse(pool.release(new int[8]));
+    assertEquals(32, pool.pooledBytes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidDimensions() {
+    new RasterPool().acquire(0, 2);
+  }
+
+  @Test
+  public void testStorageReleasesOnlyUnpinnedImages() {
+    RasterPool pool = new RasterPool();
+    HeapStorage storage = new HeapStorage(pool);
+    ImageBuilderInterface builder = storage.newBuilder(2, 2);
+    builder.fill(0x102030);
+    ImageInterface image = builder.build();
+    ImageInterface flipped = new ImageOperations(storage).applyHorizontalFlip(image);
+    storage.release(image);
+    assertEquals(0, pool.pooledBytes());
+    assertEquals(0x102030, flipped.getRGB(1, 1));
+
+    builder = storage.newBuilder(2, 2);
+    builder.fill(0x405060);
+    image = builder.build();
+    storage.release(image);
+    storage.release(image);
+    assertEquals(16, pool.pooledBytes());
+  }
+}
@@ -0,0 +1,107 @@
+package modeltest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import imagemodel.AdditionalImageOperations;
+import imagemodel.AdditionalOperations;
+import imagemodel.BandExecutor;
+import imagemodel.GrayImage;
+import imagemodel.Image;
+import imagemodel.ImageBuilderInterface;
+import imagemodel.ImageInterface;
+import imagemodel.TiledImage;
+import imagemodel.TiledImageBuilder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the TiledImage and TiledImageBuilder classes.
+ */
+public class TiledImageTest {
+
+  private ImageInterface pattern(int width, int height) {
+    int[] raster = new int[width * height];
+    for (int i = 0; i < raster.length; i++) {
+      raster[i] = (i * 40503) & 0xFFFFFF;
+    }
+    return new Image(width, height, raster);
+  }
+
+  @Test
+  public void testUnchangedBuilderEqualsSource() {
+    ImageInterface source = pattern(130, 67);
+    ImageInterface tiled = new TiledImageBuilder(source).build();
+    assertTrue(tiled instanceof TiledImage);
+    assertEquals(source, tiled);
+    assertEquals(source.hashCode(), tiled.hashCode());
+    assertEquals(source.getRGB(129, 66), tiled.getRGB(129, 66));
+  }
+
+  @Test
+  public void testWritesOnlyChangeTheirPixels() {
+    ImageInterface source = pattern(130, 67);
+    ImageBuilderInterface builder = new TiledImageBuilder(source);
+    builder.setRGB(100, 65, 0x123456);
+    int[] row = source.getRow(3, null);
+    row[0] = 0xABCDEF;
+    builder.setRow(3, row);
+    ImageInterface result = builder.build();
+    assertEquals(0x123456, result.getRGB(100, 65));
+    assertEquals(0xABCDEF, result.getRGB(0, 3));
+    assertNotEquals(source, result);
+    int[] expected = new int[130 * 67];
+    source.getRaster().get(expected);
+    expected[65 * 130 + 100] = 0x123456;
+    expected[3 * 130] = 0xABCDEF;
+    assertEquals(new Image(130, 67, expected), result);
+  }
+
+  @Test
+  public void testRowsWrittenFromBands() {
+    ImageInterface source = pattern(300, 200);
+    ImageBuilderInterface builder = new TiledImageBuilder(source);
+    int[] expected = new int[300 * 200];
+    source.getRaster().get(expected);
+    for (int i = 0; i < expected.length; i += 7) {
+      expected[i] ^= 0xFFFFFF;
+    }
+    new BandExecutor(4, 0).forEachBand(300, 200, (from, to) -> {
+      int[] row = new int[300];
+      for (int y = from; y < to; y++) {
+        System.arraycopy(expected, y * 300, row, 0, 300);
+        builder.setRow(y, row);
+      }
+    });
+    assertEquals(new Image(300, 200, expected), builder.build());
+  }
+
+  @Test
+  public void testBuildFromTiledAndOtherImages() {
+    ImageInterface gray = new GrayImage(2, 1, new byte[]{10, 20});
+    ImageBuilderInterface builder = new TiledImageBuilder(gray);
+    builder.setRGB(0, 0, 0xFF0000);
+    ImageInterface first = builder.build();
+    ImageBuilderInterface second = new TiledImageBuilder(first);
+    second.setRGB(1, 0, 0x00FF00);
+    assertEquals(new Image(2, 1, new int[]{0xFF0000, 0x00FF00}), second.build());
+    assertEquals(new Image(2, 1, new int[]{0xFF0000, 0x141414}), first);
+  }
+
+  @Test
+  public void testMaskedOperationMatchesDenseResult() {
+    AdditionalOperations operations = new AdditionalImageOperations();
+    ImageInterface source = pattern(70, 33);
+    int[] mask = new int[70 * 33];
+    Arrays.fill(mask, 0xFFFFFF);
+    mask[5 * 70 + 7] = 0;
+    ImageInterface result = operations.applySepia(source, new Image(70, 33, mask));
+    ImageInterface sepia = operations.applySepia(source);
+    assertEquals(sepia.getRGB(7, 5), result.getRGB(7, 5));
+    assertEquals(source.getRGB(8, 5), result.getRGB(8, 5));
+    assertEquals(source.getRGB(69, 32), result.getRGB(69, 32));
+  }
+}